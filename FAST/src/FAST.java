@@ -2,8 +2,9 @@
 
 
 public class FAST {
-	public static void main ( String[] args ) 
+	public static void main ( String[] args ) throws java.io.IOException
 	{
 		System.out.println("And so we begin");
+		common.Integration.main(args);
 	}
 }
@@ -0,0 +1,436 @@
+package common;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+
+/**
+ * Runs the stages of {@link Integration} concurrently.
+ *
+ * Every stage has its own thread pool, sized to its cost: conversion is I/O
+ * bound, parsing is CPU bound and needs one (large) parser per thread, the
+ * other stages are cheap. Consecutive stages are connected by bounded queues;
+ * a stage whose output queue is full blocks, which throttles the stages before
+ * it instead of letting documents pile up in memory.
+ *
+ * Usage:
+ * <pre>
+ *   AsyncPipeline pipeline = new AsyncPipeline(new Integration("englishPCFG.ser.gz"), listener);
+ *   pipeline.start();
+ *   for (File f : files) pipeline.submit(f);
+ *   pipeline.finish();
+ * </pre>
+ */
+public class AsyncPipeline {
+
+	/** Default capacity of the queue in front of each stage */
+	public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+	/**
+	 * Receives the documents that leave the pipeline.
+	 * Called from the pipeline threads.
+	 */
+	public interface Listener {
+
+		/** @param document : a summarized document */
+		void documentCompleted ( Document document );
+
+		/**
+		 * @param document : a document that could not be summarized
+		 * @param stage : the stage that failed
+		 * @param cause : the failure
+		 */
+		void documentFailed ( Document document , Integration.Stage stage , Exception cause );
+	}
+
+	/**
+	 * @param integration : provides the stage implementations and the configuration
+	 * (scoring engine, summary ratio, feature directory); it must have been built
+	 * from a parser model so that every parsing thread can load its own parser
+	 * @param listener : receives the results
+	 */
+	public AsyncPipeline ( Integration integration , Listener listener )
+	{
+		if (integration.getParserModel() == null) {
+			throw new IllegalArgumentException("the pipeline needs a parser model to load one parser per thread");
+		}
+		this.integration = integration;
+		this.listener = listener;
+		this.parserModel = integration.getParserModel();
+
+		int cpus = Runtime.getRuntime().availableProcessors();
+		Integration.Stage[] stages = Integration.Stage.values();
+		threads = new int[stages.length];
+		threads[Integration.Stage.CONVERT.ordinal()] = Math.max(2, cpus / 2);
+		threads[Integration.Stage.NORMALIZE.ordinal()] = 1;
+		threads[Integration.Stage.SPLIT.ordinal()] = Math.max(1, cpus / 4);
+		threads[Integration.Stage.PARSE.ordinal()] = Math.max(1, cpus - 1);
+		threads[Integration.Stage.SCORE.ordinal()] = 1;
+		threads[Integration.Stage.SELECT.ordinal()] = 1;
+		queueCapacity = DEFAULT_QUEUE_CAPACITY;
+	}
+
+	/**
+	 * Sets the number of threads of a stage, must be called before {@link #start()}
+	 * @param stage : the stage
+	 * @param count : its number of threads (for PARSE, also the number of parsers in memory)
+	 */
+	public void setThreads ( Integration.Stage stage , int count )
+	{
+		checkNotStarted();
+		if (count < 1) {
+			throw new IllegalArgumentException("a stage needs at least one thread");
+		}
+		threads[stage.ordinal()] = count;
+	}
+
+	public int getThreads ( Integration.Stage stage ) { return threads[stage.ordinal()]; }
+
+	/**
+	 * Sets the capacity of the queue in front of every stage, must be called before {@link #start()}
+	 * @param queueCapacity : maximal number of documents waiting for a stage
+	 */
+	public void setQueueCapacity ( int queueCapacity )
+	{
+		checkNotStarted();
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Starts the threads of all the stages
+	 */
+	public synchronized void start ()
+	{
+		checkNotStarted();
+		Integration.Stage[] stages = Integration.Stage.values();
+		queues = new ArrayList<BlockingQueue<Document>>(stages.length);
+		for (int i = 0; i < stages.length; i++) {
+			queues.add(new ArrayBlockingQueue<Document>(queueCapacity));
+		}
+		pools = new ExecutorService[stages.length];
+		liveWorkers = new AtomicInteger[stages.length];
+		busyNanos = new AtomicLong[stages.length];
+		for (int i = 0; i < stages.length; i++) {
+			final Integration.Stage stage = stages[i];
+			liveWorkers[i] = new AtomicInteger(threads[i]);
+			busyNanos[i] = new AtomicLong();
+			pools[i] = Executors.newFixedThreadPool(threads[i], new StageThreadFactory(stage));
+			for (int t = 0; t < threads[i]; t++) {
+				pools[i].execute(new Worker(stage));
+			}
+		}
+		integration.getStatistics().reset();
+		startNanos = System.nanoTime();
+		started = true;
+	}
+
+	/**
+	 * Queues a file for summarization; blocks while the conversion queue is full
+	 * @param source : a PDF or text file
+	 */
+	public void submit ( File source ) throws InterruptedException
+	{
+		if (!started || finishing) {
+			throw new IllegalStateException("the pipeline is not accepting documents");
+		}
+		queues.get(0).put(new Document(source));
+	}
+
+	/**
+	 * Waits until all the submitted documents went through the pipeline, then stops the threads
+	 */
+	public void finish () throws InterruptedException
+	{
+		finishing = true;
+		queues.get(0).put(END_OF_STREAM);
+		for (ExecutorService pool : pools) {
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * @param stage : a stage
+	 * @return the number of documents waiting in front of the stage
+	 */
+	public int getQueueDepth ( Integration.Stage stage )
+	{
+		return queues == null ? 0 : queues.get(stage.ordinal()).size();
+	}
+
+	/**
+	 * @param stage : a stage
+	 * @return the fraction of the time the threads of the stage spent working (not waiting on a queue)
+	 */
+	public double getUtilization ( Integration.Stage stage )
+	{
+		long elapsed = System.nanoTime() - startNanos;
+		if (!started || elapsed <= 0) {
+			return 0;
+		}
+		return (double) busyNanos[stage.ordinal()].get() / ((double) elapsed * threads[stage.ordinal()]);
+	}
+
+	/** @return one line with the queue depth and utilization of every stage */
+	public String getStatus ()
+	{
+		StringBuilder sb = new StringBuilder();
+		for (Integration.Stage stage : Integration.Stage.values()) {
+			sb.append(String.format("%s[q=%d u=%.0f%%] ", stage, getQueueDepth(stage),
+					100 * getUtilization(stage)));
+		}
+		return sb.toString().trim();
+	}
+
+	public PipelineStatistics getStatistics () { return integration.getStatistics(); }
+
+	/**
+	 * Runs one stage on one document
+	 */
+	private void process ( Integration.Stage stage , Document document , LexicalizedParser parser )
+		throws IOException
+	{
+		switch (stage) {
+		case CONVERT :
+			integration.convert(document);
+			break;
+		case NORMALIZE :
+			integration.normalize(document);
+			break;
+		case SPLIT :
+			integration.split(document);
+			break;
+		case PARSE :
+			integration.parse(document, parser);
+			break;
+		case SCORE :
+			integration.score(document);
+			break;
+		default :
+			integration.select(document);
+			break;
+		}
+	}
+
+	/**
+	 * Takes documents from the queue of its stage until the end of the stream,
+	 * processes them and hands them to the next stage.
+	 *
+	 * A document that fails (including a parser that cannot be loaded) is reported
+	 * to the listener and the worker goes on. A worker killed by an unexpected error
+	 * reports it and leaves its stage; the last worker of a stage to leave that way
+	 * fails the documents still coming until the end of the stream, which it passes
+	 * on, so that {@link AsyncPipeline#finish()} always returns.
+	 */
+	private class Worker implements Runnable {
+
+		Worker ( Integration.Stage stage )
+		{
+			this.stage = stage;
+		}
+
+		public void run ()
+		{
+			int index = stage.ordinal();
+			BlockingQueue<Document> input = queues.get(index);
+			BlockingQueue<Document> output = index + 1 < queues.size() ? queues.get(index + 1) : null;
+			LexicalizedParser parser = null;
+			Document document = null;
+			Throwable failure = null;
+			boolean ended = false;
+			try {
+				while (true) {
+					document = input.take();
+					if (document == END_OF_STREAM) {
+						// let the other workers of this stage see it too, the last one passes it on
+						input.put(END_OF_STREAM);
+						ended = true;
+						if (liveWorkers[index].decrementAndGet() == 0) {
+							passOnEndOfStream(input, output);
+						}
+						return;
+					}
+					long start = System.nanoTime();
+					try {
+						if (stage == Integration.Stage.PARSE && parser == null) {
+							parser = new LexicalizedParser(parserModel);
+						}
+						process(stage, document, parser);
+					} catch (Exception e) {
+						listener.documentFailed(document, stage, e);
+						continue;
+					} finally {
+						long elapsed = System.nanoTime() - start;
+						busyNanos[index].addAndGet(elapsed);
+						integration.getStatistics().addStageTime(stage, elapsed);
+					}
+					Document done = document;
+					document = null;
+					if (output != null) {
+						output.put(done);
+					} else {
+						integration.getStatistics().addDocument(done.getNumSentences());
+						listener.documentCompleted(done);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Throwable t) {
+				failure = t;
+			} finally {
+				if (!ended) {
+					leave(input, output, document, failure);
+				}
+			}
+		}
+
+		/**
+		 * Removes a worker that stopped before the end of the stream from its stage
+		 * @param document : the document it was processing, if any
+		 * @param failure : what stopped it, null if it was interrupted
+		 */
+		private void leave ( BlockingQueue<Document> input , BlockingQueue<Document> output ,
+							 Document document , Throwable failure )
+		{
+			Exception cause = failure instanceof Exception ? (Exception) failure
+					: new Exception("a " + stage + " worker stopped", failure);
+			if (failure != null && document != null) {
+				report(document, cause);
+			}
+			if (liveWorkers[stage.ordinal()].decrementAndGet() > 0) {
+				return;
+			}
+			try {
+				// no worker is left to process the stage, fail what still comes
+				while (true) {
+					Document next = input.take();
+					if (next == END_OF_STREAM) {
+						passOnEndOfStream(input, output);
+						return;
+					}
+					report(next, cause);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void report ( Document document , Exception cause )
+		{
+			try {
+				listener.documentFailed(document, stage, cause);
+			} catch (RuntimeException e) {
+				// the worker is already failing, a broken listener must not stop the stream
+			}
+		}
+
+		/** Called by the last worker of the stage */
+		private void passOnEndOfStream ( BlockingQueue<Document> input , BlockingQueue<Document> output )
+			throws InterruptedException
+		{
+			input.clear();
+			if (output != null) {
+				output.put(END_OF_STREAM);
+			}
+		}
+
+		private final Integration.Stage stage;
+	}
+
+	/**
+	 * Names the threads after their stage, e.g. "FAST-PARSE-2"
+	 */
+	private static class StageThreadFactory implements ThreadFactory {
+
+		StageThreadFactory ( Integration.Stage stage )
+		{
+			this.stage = stage;
+		}
+
+		public Thread newThread ( Runnable r )
+		{
+			Thread thread = new Thread(r, "FAST-" + stage + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+		private final Integration.Stage stage;
+		private final AtomicInteger count = new AtomicInteger();
+	}
+
+	private void checkNotStarted ()
+	{
+		if (started) {
+			throw new IllegalStateException("the pipeline is already started");
+		}
+	}
+
+	/**
+	 * Summarizes the given files concurrently, printing the stage status every second
+	 * Usage: java common.AsyncPipeline &lt;file&gt;...
+	 */
+	public static void main ( String[] args ) throws InterruptedException
+	{
+		if (args.length == 0) {
+			System.out.println("Usage: java common.AsyncPipeline <PDF or text file>...");
+			System.exit(1);
+		}
+		final AsyncPipeline pipeline = new AsyncPipeline(new Integration("englishPCFG.ser.gz"), new Listener() {
+			public void documentCompleted ( Document document ) {
+				System.out.println("== " + document.getSource() + ": " + document.getSummarySentences());
+			}
+			public void documentFailed ( Document document , Integration.Stage stage , Exception cause ) {
+				System.out.println("== " + document.getSource() + " failed in " + stage + ": " + cause);
+			}
+		});
+		pipeline.start();
+		Thread monitor = new Thread(new Runnable() {
+			public void run () {
+				try {
+					while (true) {
+						Thread.sleep(1000);
+						System.out.println(pipeline.getStatus());
+					}
+				} catch (InterruptedException e) {
+					// finished
+				}
+			}
+		});
+		monitor.setDaemon(true);
+		monitor.start();
+		for (String arg : args) {
+			pipeline.submit(new File(arg));
+		}
+		pipeline.finish();
+		monitor.interrupt();
+		System.out.println(pipeline.getStatistics());
+	}
+
+	/** Marks the end of the submitted documents */
+	private static final Document END_OF_STREAM = new Document(null);
+
+	/* Variables */
+	private final Integration integration;
+	private final Listener listener;
+	private final String parserModel;
+	private final int[] threads;
+	private int queueCapacity;
+	private List<BlockingQueue<Document>> queues;
+	private ExecutorService[] pools;
+	private AtomicInteger[] liveWorkers;
+	private AtomicLong[] busyNanos;
+	private long startNanos;
+	private volatile boolean started;
+	private volatile boolean finishing;
+}
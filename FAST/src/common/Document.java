@@ -0,0 +1,102 @@
+package common;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import lp.linear.RealMatrix;
+
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.trees.Tree;
+
+/**
+ * A document on its way through the summarization pipeline.
+ *
+ * Every stage of {@link Integration} reads the representation produced by the
+ * previous stage and adds its own:
+ * <pre>
+ *   CONVERT   : source          -> rawText
+ *   NORMALIZE : rawText         -> text
+ *   SPLIT     : text            -> headings, sentences, tokens, positions
+ *   PARSE     : tokens          -> trees
+ *   SCORE     : trees           -> features, scores
+ *   SELECT    : scores          -> summary
+ * </pre>
+ */
+public class Document {
+
+	/**
+	 * @param source : the PDF or text file the document comes from
+	 */
+	public Document ( File source )
+	{
+		this.source = source;
+	}
+
+	/**
+	 * @return the sentences of the summary, in document order
+	 */
+	public List<String> getSummarySentences ()
+	{
+		List<String> selected = new ArrayList<String>();
+		if (summary != null) {
+			for (int i : summary) {
+				selected.add(sentences.get(i));
+			}
+		}
+		return selected;
+	}
+
+	/** @return the number of sentences found by the SPLIT stage */
+	public int getNumSentences () { return sentences == null ? 0 : sentences.size(); }
+
+	/** Some Accessor / Mutator Methods */
+	public File getSource () { return source; }
+
+	public void setRawText ( String rawText ) { this.rawText = rawText; }
+	public String getRawText () { return rawText; }
+
+	public void setText ( String text ) { this.text = text; }
+	public String getText () { return text; }
+
+	public void setHeadings ( ArrayList<String> headings ) { this.headings = headings; }
+	public ArrayList<String> getHeadings () { return headings; }
+
+	public void setHeadingIndex ( HeadingIndex headingIndex ) { this.headingIndex = headingIndex; }
+	public HeadingIndex getHeadingIndex () { return headingIndex; }
+
+	public void setSentences ( List<String> sentences ) { this.sentences = sentences; }
+	public List<String> getSentences () { return sentences; }
+
+	public void setTokens ( List<List<? extends HasWord>> tokens ) { this.tokens = tokens; }
+	public List<List<? extends HasWord>> getTokens () { return tokens; }
+
+	public void setPositions ( PositionIndex positions ) { this.positions = positions; }
+	public PositionIndex getPositions () { return positions; }
+
+	public void setTrees ( List<Tree> trees ) { this.trees = trees; }
+	public List<Tree> getTrees () { return trees; }
+
+	public void setFeatures ( RealMatrix features ) { this.features = features; }
+	public RealMatrix getFeatures () { return features; }
+
+	public void setScores ( double[] scores ) { this.scores = scores; }
+	public double[] getScores () { return scores; }
+
+	public void setSummary ( int[] summary ) { this.summary = summary; }
+	public int[] getSummary () { return summary; }
+
+	/* Variables */
+	private final File source;
+	private String rawText;
+	private String text;
+	private ArrayList<String> headings;
+	private HeadingIndex headingIndex;
+	private List<String> sentences;
+	private List<List<? extends HasWord>> tokens;
+	private PositionIndex positions;
+	private List<Tree> trees;
+	private RealMatrix features;
+	private double[] scores;
+	private int[] summary;
+}
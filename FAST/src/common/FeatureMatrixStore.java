@@ -0,0 +1,183 @@
+package common;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import lp.linear.Array2DRowRealMatrix;
+import lp.linear.RealMatrix;
+
+/**
+ * Persists the feature matrix of a document, so that it can be re-scored with
+ * other weights without running conversion, parsing and feature extraction again.
+ * The length of each sentence is stored along, so that the summary can be
+ * selected under the same word budget as {@link Integration#select(Document)}.
+ *
+ * A file holds the features of {@link SentenceScorer} at the time it was written,
+ * files from another version or with another number of columns are rejected on
+ * read: they must be rebuilt from the documents.
+ *
+ * The layout follows MatrixUtils.serializeRealMatrix (dimensions, then the
+ * entries row by row) behind a small header, but is written through a single
+ * NIO buffer instead of one stream call per entry:
+ * <pre>
+ *   int    magic ("FSFM")
+ *   int    format version
+ *   int    rows
+ *   int    columns
+ *   double entries[rows * columns], row major, big endian
+ *   int    lengths[rows], in words
+ * </pre>
+ */
+public class FeatureMatrixStore {
+
+	/** Extension of the feature matrix files */
+	public static final String EXTENSION = ".fsfm";
+
+	private static final int MAGIC = 0x4653464D;
+	/** Format version, bumped whenever the layout or the feature columns change (2: position features, 3: lengths) */
+	private static final int VERSION = 3;
+	private static final int HEADER_SIZE = 16;
+
+	/**
+	 * Writes a feature matrix to a file
+	 * @param features : the sentences x features matrix of a document
+	 * @param lengths : the length of each sentence, in words
+	 * @param file : the destination file, overwritten if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write ( RealMatrix features , int[] lengths , File file ) throws IOException
+	{
+		int rows = features.getRowDimension();
+		int columns = features.getColumnDimension();
+		if (lengths.length != rows) {
+			throw new IllegalArgumentException(lengths.length + " lengths for " + rows + " sentences");
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (8 * columns + 4) * rows);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns);
+		double[][] data = (features instanceof Array2DRowRealMatrix)
+				? ((Array2DRowRealMatrix) features).getDataRef() : features.getData();
+		for (int i = 0; i < rows; i++) {
+			buffer.asDoubleBuffer().put(data[i]);
+			buffer.position(buffer.position() + 8 * columns);
+		}
+		buffer.asIntBuffer().put(lengths);
+		buffer.position(buffer.position() + 4 * rows);
+		buffer.flip();
+
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			FileChannel channel = out.getChannel();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads a feature matrix written by {@link #write(RealMatrix, int[], File)}
+	 * @param file : the feature matrix file
+	 * @return the sentences x features matrix
+	 * @throws IOException if the file cannot be read or is not a feature matrix file
+	 */
+	public static RealMatrix read ( File file ) throws IOException
+	{
+		return readEntry(file).getFeatures();
+	}
+
+	/**
+	 * Reads a feature matrix and the sentence lengths written by {@link #write(RealMatrix, int[], File)}
+	 * @param file : the feature matrix file
+	 * @return the sentences x features matrix and the length of each sentence
+	 * @throws IOException if the file cannot be read or is not a feature matrix file
+	 */
+	public static Entry readEntry ( File file ) throws IOException
+	{
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					break;
+				}
+			}
+			buffer.flip();
+
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+				throw new IOException(file + " is not a feature matrix file");
+			}
+			int version = buffer.getInt();
+			if (version != VERSION) {
+				throw new IOException(file + ": unsupported feature matrix version " + version
+						+ " (expected " + VERSION + "), extract the features of the document again");
+			}
+			int rows = buffer.getInt();
+			int columns = buffer.getInt();
+			if (rows < 0 || columns < 0 || buffer.remaining() != (8L * columns + 4) * rows) {
+				throw new IOException(file + ": truncated feature matrix");
+			}
+			if (columns != SentenceScorer.NUM_FEATURES) {
+				throw new IOException(file + ": feature matrix has " + columns + " columns, expected "
+						+ SentenceScorer.NUM_FEATURES + " features");
+			}
+
+			double[][] data = new double[rows][columns];
+			for (int i = 0; i < rows; i++) {
+				buffer.asDoubleBuffer().get(data[i]);
+				buffer.position(buffer.position() + 8 * columns);
+			}
+			int[] lengths = new int[rows];
+			buffer.asIntBuffer().get(lengths);
+			return new Entry(new Array2DRowRealMatrix(data, false), lengths);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @param featureFile : a feature matrix file
+	 * @return true if the file starts with the feature matrix header
+	 */
+	public static boolean isFeatureMatrixFile ( File featureFile )
+	{
+		try {
+			RandomAccessFile raf = new RandomAccessFile(featureFile, "r");
+			try {
+				return raf.length() >= HEADER_SIZE && raf.readInt() == MAGIC;
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * The contents of a feature matrix file
+	 */
+	public static class Entry {
+
+		private Entry ( RealMatrix features , int[] lengths )
+		{
+			this.features = features;
+			this.lengths = lengths;
+		}
+
+		/** @return the sentences x features matrix */
+		public RealMatrix getFeatures () { return features; }
+
+		/** @return the length of each sentence, in words */
+		public int[] getLengths () { return lengths; }
+
+		/* Variables */
+		private final RealMatrix features;
+		private final int[] lengths;
+	}
+}
@@ -0,0 +1,287 @@
+package common;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index of the terms that appear in the section headings of a document.
+ *
+ * The index is built once per document from the extracted section titles and
+ * is then shared by all the sentences of that document. Terms are case folded
+ * and stemmed before they are stored, so "Parsing" in a heading matches "parses"
+ * in the text. Lookups cost a single probe sequence in an open addressing table
+ * and do not depend on the number of headings.
+ *
+ * Every term carries a weight (the largest weight of the headings it appears in)
+ * and the section it belongs to, or DOCUMENT_WIDE when it appears in the headings
+ * of more than one section.
+ */
+public class HeadingIndex {
+
+	/** Section id of terms that appear in the headings of several sections */
+	public static final int DOCUMENT_WIDE = -1;
+
+	/** Weight given to a heading term when no explicit weight is supplied */
+	public static final int DEFAULT_WEIGHT = 1;
+
+	/**
+	 * Builds an index with one section per title, all titles having the default weight
+	 * @param sectionTitles : the titles of the sections, in document order
+	 */
+	public HeadingIndex ( List<String> sectionTitles )
+	{
+		this(sectionTitles == null ? 0 : sectionTitles.size());
+		if (sectionTitles != null) {
+			for (int i = 0; i < sectionTitles.size(); i++) {
+				addHeading(sectionTitles.get(i), i, DEFAULT_WEIGHT);
+			}
+		}
+	}
+
+	/**
+	 * Builds an empty index
+	 * @param expectedHeadings : a hint of the number of headings that will be added
+	 */
+	public HeadingIndex ( int expectedHeadings )
+	{
+		// a heading is a handful of words, keep the load factor under 1/2
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedHeadings * 8) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * Adds the content words of a heading to the index; function words such as
+	 * "the" or "of" are skipped, they would match almost every sentence
+	 * @param heading : the text of the heading
+	 * @param section : the section the heading belongs to
+	 * @param weight : the weight of the words of this heading (e.g. higher for titles than subsections)
+	 */
+	public void addHeading ( String heading , int section , int weight )
+	{
+		if (heading == null) {
+			return;
+		}
+		int length = heading.length();
+		int start = 0;
+		while (start < length) {
+			while (start < length && !Character.isLetterOrDigit(heading.charAt(start))) {
+				start++;
+			}
+			int end = start;
+			while (end < length && Character.isLetterOrDigit(heading.charAt(end))) {
+				end++;
+			}
+			if (end > start) {
+				String word = heading.substring(start, end).toLowerCase();
+				if (!FUNCTION_WORDS.contains(word)) {
+					addTerm(stem(word), section, weight);
+				}
+			}
+			start = end;
+		}
+	}
+
+	/**
+	 * @param word : a word of the text
+	 * @return the weight of the word if it appears in any heading, 0 otherwise
+	 */
+	public int getWeight ( String word )
+	{
+		int slot = find(stem(word));
+		return slot < 0 ? 0 : weights[slot];
+	}
+
+	/**
+	 * Section scoped lookup: a heading term found in the heading of the section the
+	 * word is in counts double compared to a term from another section.
+	 * @param word : a word of the text
+	 * @param section : the section the word appears in, DOCUMENT_WIDE if it is not known
+	 * @return the weight of the word for this section, 0 if it does not appear in any heading
+	 */
+	public int getWeight ( String word , int section )
+	{
+		int slot = find(stem(word));
+		if (slot < 0) {
+			return 0;
+		}
+		return section != DOCUMENT_WIDE && sections[slot] == section ? 2 * weights[slot] : weights[slot];
+	}
+
+	/**
+	 * @param word : a word of the text
+	 * @return true if the word (after stemming) appears in a heading
+	 */
+	public boolean contains ( String word )
+	{
+		return find(stem(word)) >= 0;
+	}
+
+	/** @return the number of distinct terms in the index */
+	public int size () { return size; }
+
+	/**
+	 * Case folds a word and strips the common English inflectional suffixes.
+	 * This is deliberately much lighter than a full Porter stemmer: it runs on
+	 * every leaf of every parse tree. UNSTEMMED words are only case folded and a suffix
+	 * is never stripped below MIN_STEM letters, so short words such as "this" or
+	 * "does" keep their own term instead of colliding with the stems of other words.
+	 * @param word : the word to stem
+	 * @return the stem of the word
+	 */
+	public static String stem ( String word )
+	{
+		String w = word.toLowerCase();
+		int n = w.length();
+		if (UNSTEMMED.contains(w)) {
+			return w;
+		}
+		if (n - 3 >= MIN_STEM - 1 && w.endsWith("ies")) {
+			return w.substring(0, n - 3) + "y";
+		}
+		if (n - 3 >= MIN_STEM && w.endsWith("ing")) {
+			return undouble(w.substring(0, n - 3));
+		}
+		if (n - 2 >= MIN_STEM && w.endsWith("ed")) {
+			return undouble(w.substring(0, n - 2));
+		}
+		if (n - 1 >= MIN_STEM && w.endsWith("s") && !w.endsWith("ss") && !w.endsWith("us")
+				&& !w.endsWith("is")) {
+			return w.endsWith("es") && n - 2 >= MIN_STEM && isSibilant(w.charAt(n - 3))
+					? w.substring(0, n - 2) : w.substring(0, n - 1);
+		}
+		return w;
+	}
+
+	/** Removes a doubled final consonant left by stripping a suffix ("stopp" -> "stop") */
+	private static String undouble ( String w )
+	{
+		int n = w.length();
+		if (n > 2 && w.charAt(n - 1) == w.charAt(n - 2) && "lsz".indexOf(w.charAt(n - 1)) < 0
+				&& "aeiou".indexOf(w.charAt(n - 1)) < 0) {
+			return w.substring(0, n - 1);
+		}
+		return w;
+	}
+
+	private static boolean isSibilant ( char c )
+	{
+		return c == 's' || c == 'x' || c == 'z' || c == 'h';
+	}
+
+	private void addTerm ( String term , int section , int weight )
+	{
+		int slot = find(term);
+		if (slot >= 0) {
+			if (weight > weights[slot]) {
+				weights[slot] = weight;
+			}
+			if (sections[slot] != section) {
+				sections[slot] = DOCUMENT_WIDE;
+			}
+			return;
+		}
+		if (2 * (size + 1) > keys.length) {
+			rehash();
+		}
+		int hash = hash(term);
+		int mask = keys.length - 1;
+		int i = hash & mask;
+		while (keys[i] != null) {
+			i = (i + 1) & mask;
+		}
+		keys[i] = term;
+		hashes[i] = hash;
+		weights[i] = weight;
+		sections[i] = section;
+		size++;
+	}
+
+	/**
+	 * Linear probing lookup
+	 * @return the slot of the term, -1 if absent
+	 */
+	private int find ( String term )
+	{
+		int hash = hash(term);
+		int mask = keys.length - 1;
+		int i = hash & mask;
+		while (keys[i] != null) {
+			if (hashes[i] == hash && keys[i].equals(term)) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	private static int hash ( String term )
+	{
+		// spread the bits, String.hashCode is weak in the low bits for short words
+		int h = term.hashCode();
+		h ^= (h >>> 16);
+		h *= 0x85ebca6b;
+		h ^= (h >>> 13);
+		return h;
+	}
+
+	private void rehash ()
+	{
+		String[] oldKeys = keys;
+		int[] oldWeights = weights;
+		int[] oldSections = sections;
+		allocate(oldKeys.length << 1);
+		int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != null) {
+				int hash = hash(oldKeys[j]);
+				int i = hash & mask;
+				while (keys[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				hashes[i] = hash;
+				weights[i] = oldWeights[j];
+				sections[i] = oldSections[j];
+			}
+		}
+	}
+
+	private void allocate ( int capacity )
+	{
+		keys = new String[capacity];
+		hashes = new int[capacity];
+		weights = new int[capacity];
+		sections = new int[capacity];
+	}
+
+	/* Variables */
+	private static final int MIN_CAPACITY = 16;
+
+	/** Shortest stem left after stripping a suffix */
+	private static final int MIN_STEM = 3;
+
+	/** Words that look inflected but must not be stemmed */
+	private static final Set<String> UNSTEMMED = new HashSet<String>(Arrays.asList(
+			"this", "does", "goes", "always", "perhaps", "besides", "whereas", "ours", "yours",
+			"hers", "theirs", "during", "nothing", "something", "anything", "everything",
+			"according", "indeed", "speed"));
+
+	/** Function words of English, never indexed as heading terms */
+	private static final Set<String> FUNCTION_WORDS = new HashSet<String>(Arrays.asList(
+			"a", "an", "the", "and", "or", "but", "nor", "not", "no", "of", "in", "on", "at", "to",
+			"for", "from", "by", "with", "without", "into", "onto", "over", "under", "about", "as",
+			"than", "via", "per", "is", "are", "was", "were", "be", "been", "do", "does", "its", "it",
+			"this", "that", "these", "those", "their", "our", "your", "his", "her", "my", "we",
+			"you", "they", "how", "what", "why", "when", "where", "which", "who"));
+
+	private String[] keys;
+	private int[] hashes;
+	private int[] weights;
+	private int[] sections;
+	private int size;
+}
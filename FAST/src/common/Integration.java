@@ -1,9 +1,355 @@
 package common;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import conversion.PdfToTextConverter;
+
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import edu.stanford.nlp.process.DocumentPreprocessor;
+import edu.stanford.nlp.trees.Tree;
+
 /*
  * Integration of the various features
- * 
+ *
+ * Runs a document through the whole summarizer:
+ * conversion -> normalization -> splitting -> parsing -> scoring -> selection
+ * Each stage is a method working on a {@link Document}, and the time spent in
+ * every stage is recorded in a {@link PipelineStatistics}.
  */
 public class Integration {
 
+	/** The stages of the pipeline, in execution order */
+	public enum Stage { CONVERT, NORMALIZE, SPLIT, PARSE, SCORE, SELECT }
+
+	/** Default length of a summary, as a fraction of the words of the document */
+	public static final double DEFAULT_SUMMARY_RATIO = 0.2;
+
+	/** Lines with at most this many words and no final punctuation are taken as headings */
+	private static final int MAX_HEADING_WORDS = 10;
+
+	/**
+	 * @param parserModel : path of the serialized grammar, e.g. englishPCFG.ser.gz (loaded on first use)
+	 */
+	public Integration ( String parserModel )
+	{
+		this((LexicalizedParser) null);
+		this.parserModel = parserModel;
+	}
+
+	/**
+	 * @param parser : the parser used by {@link #summarize(File)}
+	 */
+	public Integration ( LexicalizedParser parser )
+	{
+		this.parser = parser;
+		this.scoringEngine = new ScoringEngine();
+		this.summarySelector = new SummarySelector();
+		this.statistics = new PipelineStatistics();
+		this.summaryRatio = DEFAULT_SUMMARY_RATIO;
+	}
+
+	/**
+	 * Runs all the stages on one file
+	 * @param source : a PDF file, or a plain text file
+	 * @return the document with all its intermediate representations and its summary
+	 * @throws IOException if the file cannot be read or converted
+	 */
+	public Document summarize ( File source ) throws IOException
+	{
+		Document document = new Document(source);
+		long t = System.nanoTime();
+		convert(document);
+		t = record(Stage.CONVERT, t);
+		normalize(document);
+		t = record(Stage.NORMALIZE, t);
+		split(document);
+		t = record(Stage.SPLIT, t);
+		parse(document, getParser());
+		t = record(Stage.PARSE, t);
+		score(document);
+		t = record(Stage.SCORE, t);
+		select(document);
+		record(Stage.SELECT, t);
+		statistics.addDocument(document.getNumSentences());
+		return document;
+	}
+
+	/**
+	 * CONVERT : extracts the text of the source file
+	 */
+	public void convert ( Document document ) throws IOException
+	{
+		File source = document.getSource();
+		String text;
+		if (source.getName().toLowerCase().endsWith(".pdf")) {
+			text = new PdfToTextConverter().pdftoText(source.getPath());
+			if (text == null) {
+				throw new IOException("PDF to Text Conversion failed for " + source);
+			}
+		} else {
+			text = readFile(source);
+		}
+		document.setRawText(text);
+	}
+
+	/**
+	 * NORMALIZE : unifies line endings, joins words hyphenated across lines and
+	 * collapses runs of spaces. Blank lines are kept, they separate paragraphs.
+	 */
+	public void normalize ( Document document )
+	{
+		String raw = document.getRawText();
+		StringBuilder sb = new StringBuilder(raw.length());
+		int n = raw.length();
+		for (int i = 0; i < n; i++) {
+			char c = raw.charAt(i);
+			if (c == '\r') {
+				if (i + 1 < n && raw.charAt(i + 1) == '\n') {
+					continue;
+				}
+				c = '\n';
+			}
+			if (c == '-' && i + 1 < n && (raw.charAt(i + 1) == '\n' || raw.charAt(i + 1) == '\r')
+					&& sb.length() > 0 && Character.isLetter(sb.charAt(sb.length() - 1))) {
+				// "summa-\nrizer" -> "summarizer"
+				i++;
+				if (raw.charAt(i) == '\r' && i + 1 < n && raw.charAt(i + 1) == '\n') {
+					i++;
+				}
+				continue;
+			}
+			if (c == '\t' || c == '\f' || c == '\u00A0') {
+				c = ' ';
+			}
+			if (c == ' ' && sb.length() > 0 && sb.charAt(sb.length() - 1) == ' ') {
+				continue;
+			}
+			sb.append(c);
+		}
+		document.setText(sb.toString());
+	}
+
+	/**
+	 * SPLIT : finds the headings, paragraphs and sentences of the text
+	 */
+	public void split ( Document document )
+	{
+		ArrayList<String> headings = new ArrayList<String>();
+		HeadingIndex headingIndex = new HeadingIndex(16);
+		List<String> sentences = new ArrayList<String>();
+		List<List<? extends HasWord>> tokens = new ArrayList<List<? extends HasWord>>();
+		PositionIndex positions = new PositionIndex();
+		DocumentPreprocessor preprocessor = new DocumentPreprocessor();
+
+		StringBuilder paragraph = new StringBuilder();
+		for (String line : document.getText().split("\n")) {
+			String trimmed = line.trim();
+			if (trimmed.length() == 0 || isHeading(trimmed)) {
+				addParagraph(paragraph, preprocessor, positions, sentences, tokens);
+				if (trimmed.length() > 0) {
+					headings.add(trimmed);
+					positions.startSection();
+					headingIndex.addHeading(trimmed, positions.getNumSections() - 1, HeadingIndex.DEFAULT_WEIGHT);
+				}
+			} else {
+				paragraph.append(trimmed).append(' ');
+			}
+		}
+		addParagraph(paragraph, preprocessor, positions, sentences, tokens);
+
+		document.setHeadings(headings);
+		document.setHeadingIndex(headingIndex);
+		document.setSentences(sentences);
+		document.setTokens(tokens);
+		document.setPositions(positions);
+	}
+
+	/**
+	 * PARSE : parses every sentence
+	 * @param parser : the parser to use, a LexicalizedParser must not be shared between threads
+	 */
+	public void parse ( Document document , LexicalizedParser parser )
+	{
+		List<List<? extends HasWord>> tokens = document.getTokens();
+		List<Tree> trees = new ArrayList<Tree>(tokens.size());
+		for (List<? extends HasWord> sentence : tokens) {
+			trees.add(parser.apply(sentence));
+		}
+		document.setTrees(trees);
+	}
+
+	/**
+	 * SCORE : computes the features and the score of every sentence
+	 */
+	public void score ( Document document ) throws IOException
+	{
+		List<String> sentences = document.getSentences();
+		if (sentences.isEmpty()) {
+			document.setScores(new double[0]);
+			return;
+		}
+		List<Tree> trees = document.getTrees();
+		PositionIndex positions = document.getPositions();
+		List<SentenceScorer> scorers = new ArrayList<SentenceScorer>(sentences.size());
+		for (int i = 0; i < sentences.size(); i++) {
+			scorers.add(new SentenceScorer(sentences.get(i), positions.getPositionInText(i),
+					positions.getSection(i), trees.get(i), document.getHeadingIndex()));
+		}
+		document.setFeatures(scoringEngine.buildFeatureMatrix(scorers, positions));
+		document.setScores(scoringEngine.score(document.getFeatures()));
+		if (featureDirectory != null) {
+			FeatureMatrixStore.write(document.getFeatures(), ScoringEngine.getLengths(document.getFeatures()),
+					new File(featureDirectory, document.getSource().getName() + FeatureMatrixStore.EXTENSION));
+		}
+	}
+
+	/**
+	 * SELECT : picks the sentences with the best total score that fit in the word budget
+	 */
+	public void select ( Document document )
+	{
+		double[] scores = document.getScores();
+		if (scores.length == 0) {
+			document.setSummary(new int[0]);
+			return;
+		}
+		int[] lengths = ScoringEngine.getLengths(document.getFeatures());
+		document.setSummary(summarySelector.select(scores, lengths, summaryRatio));
+	}
+
+	/**
+	 * Sentence splits a paragraph and registers its sentences, then clears the buffer
+	 */
+	private static void addParagraph ( StringBuilder paragraph , DocumentPreprocessor preprocessor ,
+									   PositionIndex positions , List<String> sentences ,
+									   List<List<? extends HasWord>> tokens )
+	{
+		if (paragraph.length() == 0) {
+			return;
+		}
+		positions.startParagraph();
+		for (List<? extends HasWord> sentence :
+				preprocessor.getSentencesFromText(new StringReader(paragraph.toString()))) {
+			StringBuilder sb = new StringBuilder();
+			for (HasWord word : sentence) {
+				if (sb.length() > 0) {
+					sb.append(' ');
+				}
+				sb.append(word.word());
+			}
+			positions.addSentence();
+			sentences.add(sb.toString());
+			tokens.add(sentence);
+		}
+		paragraph.setLength(0);
+	}
+
+	/**
+	 * A heading is a short line that starts with a capital or a section number
+	 * and does not end like a sentence
+	 */
+	static boolean isHeading ( String line )
+	{
+		char first = line.charAt(0);
+		char last = line.charAt(line.length() - 1);
+		if (!(Character.isUpperCase(first) || Character.isDigit(first))) {
+			return false;
+		}
+		if (last == '.' || last == ',' || last == ';' || last == '?' || last == '!' || last == '-') {
+			return false;
+		}
+		return line.split("\\s+").length <= MAX_HEADING_WORDS;
+	}
+
+	private static String readFile ( File file ) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			StringBuilder sb = new StringBuilder();
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = reader.read(buffer)) > 0) {
+				sb.append(buffer, 0, read);
+			}
+			return sb.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+	private long record ( Stage stage , long start )
+	{
+		long now = System.nanoTime();
+		statistics.addStageTime(stage, now - start);
+		return now;
+	}
+
+	/**
+	 * @return the parser of this instance, loaded from the model on first use
+	 */
+	public synchronized LexicalizedParser getParser ()
+	{
+		if (parser == null) {
+			parser = new LexicalizedParser(parserModel);
+		}
+		return parser;
+	}
+
+	/** @return the path of the grammar, null if the parser was given to the constructor */
+	public String getParserModel () { return parserModel; }
+
+	/** Some Accessor / Mutator Methods */
+	public PipelineStatistics getStatistics () { return statistics; }
+
+	public void setScoringEngine ( ScoringEngine scoringEngine ) { this.scoringEngine = scoringEngine; }
+	public ScoringEngine getScoringEngine () { return scoringEngine; }
+
+	public void setSummarySelector ( SummarySelector summarySelector ) { this.summarySelector = summarySelector; }
+	public SummarySelector getSummarySelector () { return summarySelector; }
+
+	/** @param summaryRatio : length of the summaries as a fraction of the words of the document */
+	public void setSummaryRatio ( double summaryRatio ) { this.summaryRatio = summaryRatio; }
+	public double getSummaryRatio () { return summaryRatio; }
+
+	/** @param featureDirectory : if not null, the feature matrix of every document is saved there for {@link Rescorer} */
+	public void setFeatureDirectory ( File featureDirectory ) { this.featureDirectory = featureDirectory; }
+	public File getFeatureDirectory () { return featureDirectory; }
+
+	/**
+	 * Summarizes the given files and prints the summaries and the pipeline statistics
+	 * Usage: java common.Integration &lt;file&gt;...
+	 */
+	public static void main ( String[] args ) throws IOException
+	{
+		if (args.length == 0) {
+			System.out.println("Usage: java common.Integration <PDF or text file>...");
+			System.exit(1);
+		}
+		Integration integration = new Integration("englishPCFG.ser.gz");
+		integration.getStatistics().reset();
+		for (String arg : args) {
+			Document document = integration.summarize(new File(arg));
+			System.out.println("== " + arg);
+			for (String sentence : document.getSummarySentences()) {
+				System.out.println(sentence);
+			}
+		}
+		System.out.println(integration.getStatistics());
+	}
+
+	/* Variables */
+	private LexicalizedParser parser;
+	private String parserModel;
+	private final PipelineStatistics statistics;
+	private ScoringEngine scoringEngine;
+	private SummarySelector summarySelector;
+	private double summaryRatio;
+	private File featureDirectory;
 }
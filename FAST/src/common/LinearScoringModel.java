@@ -0,0 +1,97 @@
+package common;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import lp.linear.RealMatrix;
+
+/**
+ * A linear model over the sentence features: score = features . weights
+ *
+ * The weights are indexed like the columns of the feature matrix (see the
+ * FEATURE_* constants of {@link SentenceScorer}). They can be loaded from a
+ * properties file keyed by feature name, so that tuned weights can be swapped
+ * in without touching the code.
+ */
+public class LinearScoringModel {
+
+	/**
+	 * @param weights : one weight per feature column
+	 */
+	public LinearScoringModel ( double[] weights )
+	{
+		this.weights = weights.clone();
+	}
+
+	/**
+	 * The default weights, meant to rank sentences roughly like the old per word product formula
+	 * @return a model with the default weights
+	 */
+	public static LinearScoringModel defaultModel ()
+	{
+		double[] weights = new double[SentenceScorer.NUM_FEATURES];
+		weights[SentenceScorer.FEATURE_TERM_FREQUENCY] = 1.0;
+		weights[SentenceScorer.FEATURE_WORD_LENGTH] = 0.1;
+		weights[SentenceScorer.FEATURE_PART_OF_SPEECH] = 1.0;
+		weights[SentenceScorer.FEATURE_FAMILIARITY] = 1.0;
+		weights[SentenceScorer.FEATURE_NAMED_ENTITY] = 1.0;
+		weights[SentenceScorer.FEATURE_HEADING] = 2.0;
+		weights[SentenceScorer.FEATURE_SENTENCE_LENGTH] = 1.0;
+		weights[SentenceScorer.FEATURE_VERB_PRESENT] = 1.0;
+		weights[SentenceScorer.FEATURE_WORD_COUNT] = 0.0;
+		// leading sentences of the text, paragraphs and sections carry more information
+		weights[SentenceScorer.FEATURE_POSITION_IN_TEXT] = -1.0;
+		weights[SentenceScorer.FEATURE_POSITION_IN_PARAGRAPH] = -1.0;
+		weights[SentenceScorer.FEATURE_POSITION_IN_SECTION] = -0.5;
+		return new LinearScoringModel(weights);
+	}
+
+	/**
+	 * Loads the weights from a properties file, one "featureName=weight" line per feature.
+	 * Features that are not listed keep their default weight.
+	 * @param file : the weights file
+	 * @return the loaded model
+	 * @throws IOException if the file cannot be read or a weight is not a number
+	 */
+	public static LinearScoringModel load ( File file ) throws IOException
+	{
+		InputStream in = new FileInputStream(file);
+		Properties properties = new Properties();
+		try {
+			properties.load(in);
+		} finally {
+			in.close();
+		}
+		double[] weights = defaultModel().weights;
+		for (int i = 0; i < SentenceScorer.NUM_FEATURES; i++) {
+			String value = properties.getProperty(SentenceScorer.FEATURE_NAMES[i]);
+			if (value != null) {
+				try {
+					weights[i] = Double.parseDouble(value.trim());
+				} catch (NumberFormatException e) {
+					throw new IOException("Invalid weight for " + SentenceScorer.FEATURE_NAMES[i] + ": " + value);
+				}
+			}
+		}
+		return new LinearScoringModel(weights);
+	}
+
+	/**
+	 * Scores all the sentences of a document at once
+	 * @param features : the sentences x features matrix of the document
+	 * @return the score of each sentence
+	 */
+	public double[] score ( RealMatrix features )
+	{
+		return features.operate(weights);
+	}
+
+	/** @return a copy of the weights */
+	public double[] getWeights () { return weights.clone(); }
+
+	/* Variables */
+	private final double[] weights;
+}
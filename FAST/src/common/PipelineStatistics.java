@@ -0,0 +1,90 @@
+package common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time spent in each stage of the summarization pipeline and overall throughput.
+ * Safe to update from several threads.
+ */
+public class PipelineStatistics {
+
+	public PipelineStatistics ()
+	{
+		reset();
+	}
+
+	/**
+	 * Adds the time spent by one document in one stage
+	 * @param stage : the stage
+	 * @param nanos : the elapsed time in nanoseconds
+	 */
+	public void addStageTime ( Integration.Stage stage , long nanos )
+	{
+		stageNanos.addAndGet(stage.ordinal(), nanos);
+		stageCalls.incrementAndGet(stage.ordinal());
+	}
+
+	/**
+	 * Records a document that went through the whole pipeline
+	 * @param sentences : its number of sentences
+	 */
+	public void addDocument ( int sentences )
+	{
+		documents.incrementAndGet();
+		this.sentences.addAndGet(sentences);
+	}
+
+	/** Starts the wall clock used for the throughput figures */
+	public void reset ()
+	{
+		int n = Integration.Stage.values().length;
+		stageNanos = new AtomicLongArray(n);
+		stageCalls = new AtomicLongArray(n);
+		documents = new AtomicLong();
+		sentences = new AtomicLong();
+		startNanos = System.nanoTime();
+	}
+
+	/** @return the total time spent in a stage, in nanoseconds */
+	public long getStageNanos ( Integration.Stage stage ) { return stageNanos.get(stage.ordinal()); }
+
+	/** @return the number of documents a stage processed */
+	public long getStageCalls ( Integration.Stage stage ) { return stageCalls.get(stage.ordinal()); }
+
+	public long getDocuments () { return documents.get(); }
+	public long getSentences () { return sentences.get(); }
+
+	/** @return the elapsed wall clock time since the last reset, in seconds */
+	public double getElapsedSeconds () { return (System.nanoTime() - startNanos) / 1.0e9; }
+
+	/** @return completed documents per second of wall clock time */
+	public double getDocumentsPerSecond () { return documents.get() / getElapsedSeconds(); }
+
+	/** @return sentences of completed documents per second of wall clock time */
+	public double getSentencesPerSecond () { return sentences.get() / getElapsedSeconds(); }
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString ()
+	{
+		StringBuilder sb = new StringBuilder();
+		for (Integration.Stage stage : Integration.Stage.values()) {
+			long calls = getStageCalls(stage);
+			double millis = getStageNanos(stage) / 1.0e6;
+			sb.append(String.format("%-10s %8d docs %12.1f ms %10.2f ms/doc%n",
+					stage, calls, millis, calls == 0 ? 0.0 : millis / calls));
+		}
+		sb.append(String.format("%d documents, %d sentences in %.2f s: %.2f docs/s, %.1f sentences/s",
+				getDocuments(), getSentences(), getElapsedSeconds(),
+				getDocumentsPerSecond(), getSentencesPerSecond()));
+		return sb.toString();
+	}
+
+	/* Variables */
+	private AtomicLongArray stageNanos;
+	private AtomicLongArray stageCalls;
+	private AtomicLong documents;
+	private AtomicLong sentences;
+	private long startNanos;
+}
@@ -0,0 +1,149 @@
+package common;
+
+/**
+ * Structural positions of the sentences of a document: sentence to paragraph
+ * to section, kept in primitive arrays.
+ *
+ * The index is filled once while the document is split (sections, paragraphs
+ * and sentences in document order) and the position features of all the
+ * sentences are then derived from it in one linear pass, see
+ * {@link #computeFeatures(double[][])}.
+ */
+public class PositionIndex {
+
+	public PositionIndex ()
+	{
+		this(64);
+	}
+
+	/**
+	 * @param expectedSentences : a hint of the number of sentences of the document
+	 */
+	public PositionIndex ( int expectedSentences )
+	{
+		int capacity = Math.max(expectedSentences, 8);
+		sentenceParagraph = new int[capacity];
+		paragraphSection = new int[Math.max(capacity / 4, 4)];
+		paragraphStart = new int[paragraphSection.length];
+		sectionStart = new int[Math.max(capacity / 16, 4)];
+	}
+
+	/**
+	 * Opens a new section; the following sentences belong to it
+	 */
+	public void startSection ()
+	{
+		if (numSections == sectionStart.length) {
+			sectionStart = grow(sectionStart);
+		}
+		sectionStart[numSections++] = numSentences;
+		paragraphOpen = false;
+	}
+
+	/**
+	 * Opens a new paragraph in the current section (a section is opened if there is none)
+	 */
+	public void startParagraph ()
+	{
+		if (numSections == 0) {
+			startSection();
+		}
+		if (numParagraphs == paragraphSection.length) {
+			paragraphSection = grow(paragraphSection);
+			paragraphStart = grow(paragraphStart);
+		}
+		paragraphSection[numParagraphs] = numSections - 1;
+		paragraphStart[numParagraphs] = numSentences;
+		numParagraphs++;
+		paragraphOpen = true;
+	}
+
+	/**
+	 * Adds a sentence to the current paragraph (a paragraph is opened if there is none)
+	 * @return the index of the sentence in the document
+	 */
+	public int addSentence ()
+	{
+		if (!paragraphOpen) {
+			startParagraph();
+		}
+		if (numSentences == sentenceParagraph.length) {
+			sentenceParagraph = grow(sentenceParagraph);
+		}
+		sentenceParagraph[numSentences] = numParagraphs - 1;
+		return numSentences++;
+	}
+
+	/**
+	 * Fills the position columns of the feature rows of all the sentences.
+	 * Positions are normalized to [0,1], 0 being the first sentence of the
+	 * text, paragraph or section and 1 the last one.
+	 * @param rows : the feature rows, one per sentence, in document order
+	 */
+	public void computeFeatures ( double[][] rows )
+	{
+		int paragraph = -1;
+		int paragraphFirst = 0;
+		int paragraphLast = 0;
+		int section = -1;
+		int sectionFirst = 0;
+		int sectionLast = 0;
+		for (int i = 0; i < numSentences; i++) {
+			if (sentenceParagraph[i] != paragraph) {
+				paragraph = sentenceParagraph[i];
+				paragraphFirst = paragraphStart[paragraph];
+				paragraphLast = (paragraph + 1 < numParagraphs ? paragraphStart[paragraph + 1] : numSentences) - 1;
+				if (paragraphSection[paragraph] != section) {
+					section = paragraphSection[paragraph];
+					sectionFirst = sectionStart[section];
+					sectionLast = (section + 1 < numSections ? sectionStart[section + 1] : numSentences) - 1;
+				}
+			}
+			double[] row = rows[i];
+			row[SentenceScorer.FEATURE_POSITION_IN_TEXT] = normalize(i, 0, numSentences - 1);
+			row[SentenceScorer.FEATURE_POSITION_IN_PARAGRAPH] = normalize(i, paragraphFirst, paragraphLast);
+			row[SentenceScorer.FEATURE_POSITION_IN_SECTION] = normalize(i, sectionFirst, sectionLast);
+		}
+	}
+
+	/**
+	 * @param sentence : index of a sentence
+	 * @return its position in the text normalized to [0,1], as expected by {@link SentenceScorer}
+	 */
+	public double getPositionInText ( int sentence )
+	{
+		return normalize(sentence, 0, numSentences - 1);
+	}
+
+	/** @return the paragraph of a sentence */
+	public int getParagraph ( int sentence ) { return sentenceParagraph[sentence]; }
+
+	/** @return the section of a sentence */
+	public int getSection ( int sentence ) { return paragraphSection[sentenceParagraph[sentence]]; }
+
+	public int getNumSentences () { return numSentences; }
+	public int getNumParagraphs () { return numParagraphs; }
+	public int getNumSections () { return numSections; }
+
+	private static double normalize ( int i , int first , int last )
+	{
+		return last > first ? (double) (i - first) / (last - first) : 0;
+	}
+
+	private static int[] grow ( int[] array )
+	{
+		int[] grown = new int[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	/* Variables */
+	private int[] sentenceParagraph;
+	private int[] paragraphSection;
+	private int[] paragraphStart;
+	private int[] sectionStart;
+	private int numSentences;
+	private int numParagraphs;
+	private int numSections;
+	private boolean paragraphOpen;
+}
@@ -0,0 +1,97 @@
+package common;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Re-scores and re-selects documents from their persisted feature matrices.
+ *
+ * Used when tuning the weights of the scoring model: the features of a corpus
+ * are extracted once (see {@link ScoringEngine#score(java.util.List, PositionIndex, File)}) and
+ * every new set of weights is then evaluated without the PDF converter or the parser.
+ * The summaries are selected as {@link Integration#select(Document)} does, by the
+ * same {@link SummarySelector} and word budget, so that they can be compared.
+ */
+public class Rescorer {
+
+	/**
+	 * @param model : the weights to score with
+	 */
+	public Rescorer ( LinearScoringModel model )
+	{
+		this.model = model;
+		this.summarySelector = new SummarySelector();
+		this.summaryRatio = Integration.DEFAULT_SUMMARY_RATIO;
+	}
+
+	/**
+	 * @param featureFile : a file written by {@link FeatureMatrixStore}
+	 * @return the score of each sentence of the document
+	 * @throws IOException if the file cannot be read
+	 */
+	public double[] rescore ( File featureFile ) throws IOException
+	{
+		return model.score(FeatureMatrixStore.read(featureFile));
+	}
+
+	/**
+	 * Re-scores a document and selects its summary
+	 * @param featureFile : a file written by {@link FeatureMatrixStore}
+	 * @return the indices of the selected sentences, in document order
+	 * @throws IOException if the file cannot be read
+	 */
+	public int[] select ( File featureFile ) throws IOException
+	{
+		FeatureMatrixStore.Entry entry = FeatureMatrixStore.readEntry(featureFile);
+		return summarySelector.select(model.score(entry.getFeatures()), entry.getLengths(), summaryRatio);
+	}
+
+	/**
+	 * Re-scores every feature matrix of a directory and prints the selected sentences
+	 * Usage: java common.Rescorer &lt;featureDirectory&gt; &lt;weightsFile&gt; [summaryRatio]
+	 */
+	public static void main ( String[] args ) throws IOException
+	{
+		if (args.length < 2) {
+			System.out.println("Usage: java common.Rescorer <featureDirectory> <weightsFile> [summaryRatio]");
+			System.exit(1);
+		}
+		File[] files = new File(args[0]).listFiles();
+		if (files == null) {
+			System.out.println(args[0] + " is not a directory");
+			System.exit(1);
+		}
+		Arrays.sort(files);
+		Rescorer rescorer = new Rescorer(LinearScoringModel.load(new File(args[1])));
+		if (args.length > 2) {
+			rescorer.setSummaryRatio(Double.parseDouble(args[2]));
+		}
+
+		long start = System.nanoTime();
+		int documents = 0;
+		for (File file : files) {
+			if (!file.getName().endsWith(FeatureMatrixStore.EXTENSION)) {
+				continue;
+			}
+			int[] selected = rescorer.select(file);
+			System.out.println(file.getName() + " " + Arrays.toString(selected));
+			documents++;
+		}
+		double millis = (System.nanoTime() - start) / 1.0e6;
+		System.out.println(documents + " documents re-scored in " + millis + " ms");
+	}
+
+	/** @param summarySelector : how the summaries are selected, as in {@link Integration#setSummarySelector(SummarySelector)} */
+	public void setSummarySelector ( SummarySelector summarySelector ) { this.summarySelector = summarySelector; }
+	public SummarySelector getSummarySelector () { return summarySelector; }
+
+	/** @param summaryRatio : length of the summaries as a fraction of the words of the document */
+	public void setSummaryRatio ( double summaryRatio ) { this.summaryRatio = summaryRatio; }
+	public double getSummaryRatio () { return summaryRatio; }
+
+	/* Variables */
+	private final LinearScoringModel model;
+	private SummarySelector summarySelector;
+	private double summaryRatio;
+}
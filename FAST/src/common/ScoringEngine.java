@@ -0,0 +1,134 @@
+package common;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import lp.linear.Array2DRowRealMatrix;
+import lp.linear.RealMatrix;
+
+/**
+ * Scores all the sentences of a document in one go.
+ *
+ * The features of every sentence are first gathered in a sentences x features
+ * matrix, then the scores of the whole document are obtained with a single
+ * matrix-vector product against the weights of a {@link LinearScoringModel}.
+ */
+public class ScoringEngine {
+
+	public ScoringEngine ()
+	{
+		this(LinearScoringModel.defaultModel());
+	}
+
+	/**
+	 * @param model : the weights used to combine the features
+	 */
+	public ScoringEngine ( LinearScoringModel model )
+	{
+		this.model = model;
+	}
+
+	/**
+	 * Builds the feature matrix of a document, one row per sentence
+	 * @param sentences : the sentences of the document, in document order
+	 * @return the sentences x features matrix
+	 */
+	public RealMatrix buildFeatureMatrix ( List<SentenceScorer> sentences )
+	{
+		double[][] data = new double[sentences.size()][SentenceScorer.NUM_FEATURES];
+		for (int i = 0; i < data.length; i++) {
+			sentences.get(i).computeFeatures(data[i]);
+		}
+		return new Array2DRowRealMatrix(data, false);
+	}
+
+	/**
+	 * Builds the feature matrix of a document, taking the position features from its structure
+	 * @param sentences : the sentences of the document, in document order
+	 * @param positions : the structure of the document, one sentence per scorer
+	 * @return the sentences x features matrix
+	 */
+	public RealMatrix buildFeatureMatrix ( List<SentenceScorer> sentences , PositionIndex positions )
+	{
+		RealMatrix features = buildFeatureMatrix(sentences);
+		if (positions != null) {
+			positions.computeFeatures(((Array2DRowRealMatrix) features).getDataRef());
+		}
+		return features;
+	}
+
+	/**
+	 * Scores the sentences of a document and saves each score in its scorer
+	 * @param sentences : the sentences of the document, in document order
+	 * @return the score of each sentence
+	 */
+	public double[] score ( List<SentenceScorer> sentences )
+	{
+		return score(sentences, (PositionIndex) null);
+	}
+
+	/**
+	 * Scores the sentences of a document and saves each score in its scorer
+	 * @param sentences : the sentences of the document, in document order
+	 * @param positions : the structure of the document, may be null
+	 * @return the score of each sentence
+	 */
+	public double[] score ( List<SentenceScorer> sentences , PositionIndex positions )
+	{
+		double[] scores = score(buildFeatureMatrix(sentences, positions));
+		for (int i = 0; i < scores.length; i++) {
+			sentences.get(i).setScore(scores[i]);
+		}
+		return scores;
+	}
+
+	/**
+	 * Scores the sentences of a document and persists its feature matrix, so that
+	 * the document can later be re-scored with other weights by {@link Rescorer}
+	 * @param sentences : the sentences of the document, in document order
+	 * @param positions : the structure of the document, may be null
+	 * @param featureFile : where to save the feature matrix
+	 * @return the score of each sentence
+	 * @throws IOException if the feature matrix cannot be written
+	 */
+	public double[] score ( List<SentenceScorer> sentences , PositionIndex positions ,
+							File featureFile ) throws IOException
+	{
+		RealMatrix features = buildFeatureMatrix(sentences, positions);
+		FeatureMatrixStore.write(features, getLengths(features), featureFile);
+		double[] scores = score(features);
+		for (int i = 0; i < scores.length; i++) {
+			sentences.get(i).setScore(scores[i]);
+		}
+		return scores;
+	}
+
+	/**
+	 * @param features : a feature matrix built by {@link #buildFeatureMatrix(List)}
+	 * @return the length of each sentence in words, as the summary budget counts them
+	 */
+	public static int[] getLengths ( RealMatrix features )
+	{
+		int[] lengths = new int[features.getRowDimension()];
+		for (int i = 0; i < lengths.length; i++) {
+			lengths[i] = (int) features.getEntry(i, SentenceScorer.FEATURE_WORD_COUNT);
+		}
+		return lengths;
+	}
+
+	/**
+	 * @param features : a feature matrix built by {@link #buildFeatureMatrix(List)}
+	 * @return the score of each sentence
+	 */
+	public double[] score ( RealMatrix features )
+	{
+		return model.score(features);
+	}
+
+	public void setModel ( LinearScoringModel model ) { this.model = model; }
+	public LinearScoringModel getModel () { return model; }
+
+	/* Variables */
+	private LinearScoringModel model;
+}
@@ -11,6 +11,30 @@ import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
 import edu.stanford.nlp.trees.*;
 
 public class SentenceScorer {
+	
+	/** Columns of the feature row of a sentence, see {@link #computeFeatures(double[])} */
+	public static final int FEATURE_TERM_FREQUENCY = 0;
+	public static final int FEATURE_WORD_LENGTH = 1;
+	public static final int FEATURE_PART_OF_SPEECH = 2;
+	public static final int FEATURE_FAMILIARITY = 3;
+	public static final int FEATURE_NAMED_ENTITY = 4;
+	public static final int FEATURE_HEADING = 5;
+	public static final int FEATURE_SENTENCE_LENGTH = 6;
+	public static final int FEATURE_VERB_PRESENT = 7;
+	public static final int FEATURE_WORD_COUNT = 8;
+	public static final int FEATURE_POSITION_IN_TEXT = 9;
+	public static final int FEATURE_POSITION_IN_PARAGRAPH = 10;
+	public static final int FEATURE_POSITION_IN_SECTION = 11;
+	
+	/** Number of features in a feature row */
+	public static final int NUM_FEATURES = 12;
+	
+	/** Names of the features, indexed by column (used as keys in weight files) */
+	public static final String[] FEATURE_NAMES = {
+		"termFrequency", "wordLength", "partOfSpeech", "familiarity",
+		"namedEntity", "heading", "sentenceLength", "verbPresent", "wordCount",
+		"positionInText", "positionInParagraph", "positionInSection"
+	};
 	 
 	/**
 	 * @param sentence : 
@@ -23,12 +47,43 @@ public class SentenceScorer {
 		this.sentence = sentence;
 		this.positionInText = positionInText;
 		this.parseTree = parseTree;
-		this.wordsInHeadings = wordsInHeadings;
+		setWordsInHeadings(wordsInHeadings);
+	}
+	
+	/**
+	 * @param sentence : 
+	 * @param positionInText : relative position of a sentence in the text normalized to [0,1];
+	 * @param parseTree : parse tree of the sentence
+	 * @param headingIndex : heading terms of the whole document, built once and shared by all its sentences
+	 */
+	public SentenceScorer ( String sentence , double positionInText , 
+							Tree parseTree , HeadingIndex headingIndex )
+	{
+		this.sentence = sentence;
+		this.positionInText = positionInText;
+		this.parseTree = parseTree;
+		this.headingIndex = headingIndex;
+	}
+	
+	/**
+	 * @param sentence : 
+	 * @param positionInText : relative position of a sentence in the text normalized to [0,1];
+	 * @param section : the section the sentence belongs to, so that the headings of its own section count more
+	 * @param parseTree : parse tree of the sentence
+	 * @param headingIndex : heading terms of the whole document, built once and shared by all its sentences
+	 */
+	public SentenceScorer ( String sentence , double positionInText , int section ,
+							Tree parseTree , HeadingIndex headingIndex )
+	{
+		this(sentence, positionInText, parseTree, headingIndex);
+		this.section = section;
 	}
 	
 	/**
 	 * Computes the score of a sentence and saves in the variable 'score'
 	 * Also returns the computed value
+	 * Whole documents are scored with {@link ScoringEngine}, which combines the features
+	 * of {@link #computeFeatures(double[])} linearly instead of multiplying them
 	 * @return a relative score in double
 	 */
 	public double computeScore ()
@@ -57,7 +112,7 @@ public class SentenceScorer {
 		
 			int familiarityScore = WordLevelFeatures.computeFamiliarityScore(t);
 			int namedEntityScore = WordLevelFeatures.computNamedEntityScore(t);
-			int headingScore = WordLevelFeatures.computeHeadingScore(str, wordsInHeadings);
+			int headingScore = WordLevelFeatures.computeHeadingScore(str, headingIndex, section);
 			
 			/* This multiplication formula to be suitable due to a no. of reasons but 
 			 * I have still put it this way as of now
@@ -67,7 +122,53 @@ public class SentenceScorer {
 			/* Not Required for now */
 			sum = sum + wordScore;
 		}
-		return (double) sum + lengthOfSentence;
+		score = (double) sum + lengthOfSentence;
+		return score;
+	}
+	
+	/**
+	 * Computes the features of the sentence as one row of the document feature matrix.
+	 * Word level features are summed over the leaves of the parse tree; the weighting
+	 * is left to {@link LinearScoringModel}.
+	 * @param row : the row to fill, of length at least NUM_FEATURES
+	 */
+	public void computeFeatures ( double[] row )
+	{
+		int termFrequency = 0;
+		int wordLength = 0;
+		int partOfSpeech = 0;
+		int familiarity = 0;
+		int namedEntity = 0;
+		int heading = 0;
+		
+		List<Tree> leafNodes = parseTree.getLeaves();
+		for ( Tree t : leafNodes ) {
+			String str = t.label().value();
+			termFrequency += WordLevelFeatures.computeTermFrequency(t);
+			wordLength += str.length();
+			partOfSpeech += WordLevelFeatures.computePartOfSpeechScore(t);
+			familiarity += WordLevelFeatures.computeFamiliarityScore(t);
+			namedEntity += WordLevelFeatures.computNamedEntityScore(t);
+			heading += WordLevelFeatures.computeHeadingScore(str, headingIndex, section);
+		}
+		
+		row[FEATURE_TERM_FREQUENCY] = termFrequency;
+		row[FEATURE_WORD_LENGTH] = wordLength;
+		row[FEATURE_PART_OF_SPEECH] = partOfSpeech;
+		row[FEATURE_FAMILIARITY] = familiarity;
+		row[FEATURE_NAMED_ENTITY] = namedEntity;
+		row[FEATURE_HEADING] = heading;
+		row[FEATURE_SENTENCE_LENGTH] = computeLengthOfSentence();
+		row[FEATURE_VERB_PRESENT] = isVerbPresent() ? 1 : 0;
+		row[FEATURE_WORD_COUNT] = leafNodes.size();
+		
+		// a sentence does not know its paragraph nor its section: these two columns are
+		// filled from the document structure by PositionIndex.computeFeatures, which
+		// ScoringEngine.buildFeatureMatrix runs on the whole matrix. Without a structure
+		// every sentence counts as leading its paragraph and section
+		row[FEATURE_POSITION_IN_TEXT] = positionInText;
+		row[FEATURE_POSITION_IN_PARAGRAPH] = 0;
+		row[FEATURE_POSITION_IN_SECTION] = 0;
 	}
 
         /*
@@ -87,6 +188,7 @@ public class SentenceScorer {
 	
 	/** Some Accessor / Mutator Methods */
 	public double getScore () { return score; }
+	void setScore ( double score ) { this.score = score; }
 	
 	public void setSentence ( String sentence ) { this.sentence = sentence; }
 	public String getSentence () { return sentence; }
@@ -94,12 +196,22 @@ public class SentenceScorer {
 	public void setPositionInText ( double positionInText ) { this.positionInText = positionInText; }
 	public double getPositionInText () { return positionInText; }
 	
+	public void setSection ( int section ) { this.section = section; }
+	public int getSection () { return section; }
+	
 	public void setParseTree ( Tree parseTree ) { this.parseTree = parseTree; }
 	public Tree getParseTree () { return parseTree; }
 	
-	public void setWordsInHeadings ( ArrayList<String> wordsInHeadings ) { this.wordsInHeadings = wordsInHeadings; }
+	public void setWordsInHeadings ( ArrayList<String> wordsInHeadings ) 
+	{ 
+		this.wordsInHeadings = wordsInHeadings;
+		this.headingIndex = wordsInHeadings == null ? null : new HeadingIndex(wordsInHeadings);
+	}
 	public ArrayList<String> getWordsInHeadings () { return wordsInHeadings; } 
 	
+	public void setHeadingIndex ( HeadingIndex headingIndex ) { this.headingIndex = headingIndex; }
+	public HeadingIndex getHeadingIndex () { return headingIndex; }
+	
 	
 	/** A dummy main method */
 	public static void main ( String[] args )
@@ -107,16 +219,18 @@ public class SentenceScorer {
 		LexicalizedParser lp = new LexicalizedParser("englishPCFG.ser.gz");
 		String parseInput = "This is just a test input";
 		Tree parse = (Tree) lp.apply(parseInput);
-		SentenceScorer scorer = new SentenceScorer(parseInput, 0.5, parse, null);
+		SentenceScorer scorer = new SentenceScorer(parseInput, 0.5, parse, (HeadingIndex) null);
 		double score = scorer.computeScore();		
 	}
 
         /* Variables */
 	private String sentence; 
 	private double positionInText;
+	private int section = HeadingIndex.DOCUMENT_WIDE;
 	private double score;
 	private Tree parseTree;
 	private ArrayList<String> wordsInHeadings;
+	private HeadingIndex headingIndex;
 }
 
 
@@ -27,12 +27,51 @@ public class WordLevelFeatures {
 	}
 	
 	/**
-	 * @param t : the leaf node containing the word for which the score has to be computed
+	 * Linear scan over the heading words, kept for callers that only have the raw list.
+	 * Prefer {@link #computeHeadingScore(String, HeadingIndex)} with an index built once per document.
+	 * @param str : the word for which the score has to be computed
 	 * @param wordsInHeadings : the words that are there in headings of the text
 	 */
 	public static int computeHeadingScore ( String str , ArrayList<String> wordsInHeadings )
 	{		
+		if (wordsInHeadings == null) {
+			return 1;
+		}
+		String stem = HeadingIndex.stem(str);
+		for (String word : wordsInHeadings) {
+			if (HeadingIndex.stem(word).equals(stem)) {
+				return 1 + HeadingIndex.DEFAULT_WEIGHT;
+			}
+		}
 		return 1;
 	}
+	
+	/**
+	 * @param str : the word for which the score has to be computed
+	 * @param headingIndex : the heading terms of the document, may be null
+	 * @return 1 for a word that is not in any heading, 1 + the weight of the heading term otherwise
+	 */
+	public static int computeHeadingScore ( String str , HeadingIndex headingIndex )
+	{
+		if (headingIndex == null) {
+			return 1;
+		}
+		return 1 + headingIndex.getWeight(str);
+	}
+	
+	/**
+	 * @param str : the word for which the score has to be computed
+	 * @param headingIndex : the heading terms of the document, may be null
+	 * @param section : the section of the sentence the word is in, HeadingIndex.DOCUMENT_WIDE if unknown
+	 * @return 1 for a word that is not in any heading, 1 + the weight of the heading term otherwise,
+	 * the weight counting double when the term comes from the heading of the same section
+	 */
+	public static int computeHeadingScore ( String str , HeadingIndex headingIndex , int section )
+	{
+		if (headingIndex == null) {
+			return 1;
+		}
+		return 1 + headingIndex.getWeight(str, section);
+	}
 
 }
@@ -26,7 +26,7 @@ public class PdfToTextConverter {
     }
     
     // Extract text from PDF Document
-    String pdftoText(String fileName) {
+    public String pdftoText(String fileName) {
         
         System.out.println("Parsing text from PDF file " + fileName + "....");
         File f = new File(fileName);
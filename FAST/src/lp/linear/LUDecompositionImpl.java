@@ -96,18 +96,26 @@ public class LUDecompositionImpl implements LUDecomposition {
         singular = false;
 
         // Loop over columns
+        final double[] column = new double[m];
         for (int col = 0; col < m; col++) {
 
             double sum = 0;
 
+            // work on a copy of the column, so that the inner loops run over
+            // contiguous memory instead of jumping from row to row
+            for (int row = 0; row < m; row++) {
+                column[row] = lu[row][col];
+            }
+
             // upper
             for (int row = 0; row < col; row++) {
                 final double[] luRow = lu[row];
-                sum = luRow[col];
+                sum = column[row];
                 for (int i = 0; i < row; i++) {
-                    sum -= luRow[i] * lu[i][col];
+                    sum -= luRow[i] * column[i];
                 }
-                luRow[col] = sum;
+                luRow[col]  = sum;
+                column[row] = sum;
             }
 
             // lower
@@ -115,9 +123,9 @@ public class LUDecompositionImpl implements LUDecomposition {
             double largest = Double.NEGATIVE_INFINITY;
             for (int row = col; row < m; row++) {
                 final double[] luRow = lu[row];
-                sum = luRow[col];
+                sum = column[row];
                 for (int i = 0; i < col; i++) {
-                    sum -= luRow[i] * lu[i][col];
+                    sum -= luRow[i] * column[i];
                 }
                 luRow[col] = sum;
 
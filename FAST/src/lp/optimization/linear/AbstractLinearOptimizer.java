@@ -17,8 +17,17 @@
 
 package lp.optimization.linear;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import lp.MathRuntimeException;
 import lp.MaxIterationsExceededException;
 import lp.optimization.GoalType;
 import lp.optimization.OptimizationException;
@@ -28,11 +37,17 @@ import lp.optimization.RealPointValuePair;
  * Base class for implementing linear optimizers.
  * <p>This base class handles the boilerplate methods associated to thresholds
  * settings and iterations counters.</p>
+ * <p>{@link #optimize(LinearObjectiveFunction, Collection, GoalType, boolean)}
+ * keeps the problem and the iterations counter in the optimizer, so one
+ * instance solves one problem at a time. {@link #solve(LinearProblem)} and
+ * {@link #solveAll(List, int)} run each solve on a {@link #copy() copy} of the
+ * optimizer instead: once configured, an optimizer can serve concurrent solves
+ * from any number of threads, as long as its settings are not changed meanwhile.</p>
  * @version $Revision: 1.1 $ $Date: 2009/12/12 00:08:03 $
  * @since 2.0
  *
  */
-public abstract class AbstractLinearOptimizer implements LinearOptimizer {
+public abstract class AbstractLinearOptimizer implements LinearOptimizer, Cloneable {
 
     /** Default maximal number of iterations allowed. */
     public static final int DEFAULT_MAX_ITERATIONS = 100;
@@ -43,6 +58,9 @@ public abstract class AbstractLinearOptimizer implements LinearOptimizer {
     /** Number of iterations already performed. */
     private int iterations;
 
+    /** Token stopping the solve when cancelled, may be null. */
+    private CancellationToken cancellationToken;
+
     /** Linear objective function. */
     protected LinearObjectiveFunction f;
 
@@ -55,6 +73,12 @@ public abstract class AbstractLinearOptimizer implements LinearOptimizer {
     /** Whether to restrict the variables to non-negative values. */
     protected boolean restrictToNonNegative;
 
+    /** Lower bounds of the variables, null unless the solver handles the bounds itself. */
+    protected double[] lowerBounds;
+
+    /** Upper bounds of the variables, null unless the solver handles the bounds itself. */
+    protected double[] upperBounds;
+
     /** Simple constructor with default settings.
      * <p>The maximal number of evaluation is set to its default value.</p>
      */
@@ -77,12 +101,55 @@ public abstract class AbstractLinearOptimizer implements LinearOptimizer {
         return iterations;
     }
 
+    /**
+     * Set the token that stops the solves of this optimizer when cancelled.
+     * <p>The token is shared by the copies running {@link #solve(LinearProblem)}
+     * and {@link #solveAll(List, int)}, so one token stops all of them.</p>
+     * @param cancellationToken cancellation token, null for none
+     */
+    public void setCancellationToken(final CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    /**
+     * Get the token that stops the solves of this optimizer when cancelled.
+     * @return cancellation token, null if none was set
+     */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Get how the last solve that returned a point ended.
+     * <p>
+     * The default implementation returns {@link SolveStatus#OPTIMAL}: an
+     * optimizer that cannot stop early either returns an optimal point or
+     * throws an exception. Optimizers that return the best point found when
+     * a limit stops them override this method.
+     * </p>
+     * @return status of the last solve that returned a point
+     */
+    public SolveStatus getStatus() {
+        return SolveStatus.OPTIMAL;
+    }
+
+    /**
+     * Check whether the running solve has been cancelled.
+     * @return true if the cancellation token has been cancelled
+     */
+    protected boolean isCancelled() {
+        return cancellationToken != null && cancellationToken.isCancelled();
+    }
+
     /** Increment the iterations counter by 1.
      * @exception OptimizationException if the maximal number
-     * of iterations is exceeded
+     * of iterations is exceeded or if the solve has been cancelled
      */
     protected void incrementIterationsCounter()
         throws OptimizationException {
+        if (isCancelled()) {
+            throw new OptimizationException("solve cancelled");
+        }
         if (++iterations > maxIterations) {
             throw new OptimizationException(new MaxIterationsExceededException(maxIterations));
         }
@@ -99,6 +166,8 @@ public abstract class AbstractLinearOptimizer implements LinearOptimizer {
         this.constraints           = constraints;
         this.goalType              = goalType;
         this.restrictToNonNegative = restrictToNonNegative;
+        this.lowerBounds           = null;
+        this.upperBounds           = null;
 
         iterations  = 0;
 
@@ -107,6 +176,212 @@ public abstract class AbstractLinearOptimizer implements LinearOptimizer {
 
     }
 
+    /** {@inheritDoc}
+     * <p>
+     * Solvers that {@link #isBoundsSupported() support bounds} receive them
+     * in {@link #lowerBounds} and {@link #upperBounds} along with the
+     * constraints, as long as no variable is free. Otherwise the finite
+     * bounds are turned into constraints, one per bound.
+     * </p>
+     * @exception IllegalArgumentException if the number of bounds does not
+     * match the dimension of the objective function
+     */
+    public RealPointValuePair optimize(final LinearObjectiveFunction f,
+                                       final Collection<LinearConstraint> constraints,
+                                       final GoalType goalType,
+                                       final double[] lowerBounds, final double[] upperBounds)
+        throws OptimizationException {
+
+        final int n = f.getCoefficients().getDimension();
+        if (lowerBounds.length != n || upperBounds.length != n) {
+            throw MathRuntimeException.createIllegalArgumentException(
+                  "dimension mismatch {0} != {1}", Math.min(lowerBounds.length, upperBounds.length), n);
+        }
+
+        // store linear problem characteristics
+        this.f        = f;
+        this.goalType = goalType;
+        iterations    = 0;
+
+        boolean nonNegative = true;
+        boolean handled     = isBoundsSupported();
+        for (int j = 0; j < n; ++j) {
+            if (lowerBounds[j] > upperBounds[j]) {
+                throw new NoFeasibleSolutionException();
+            }
+            nonNegative &= lowerBounds[j] >= 0;
+            handled     &= lowerBounds[j] > Double.NEGATIVE_INFINITY ||
+                           upperBounds[j] < Double.POSITIVE_INFINITY;
+        }
+
+        if (handled) {
+            this.constraints           = constraints;
+            this.restrictToNonNegative = true;
+            this.lowerBounds           = lowerBounds.clone();
+            this.upperBounds           = upperBounds.clone();
+        } else {
+            // one constraint per finite bound
+            final List<LinearConstraint> all = new ArrayList<LinearConstraint>(constraints);
+            for (int j = 0; j < n; ++j) {
+                final int[] index = new int[] { j };
+                final double[] one = new double[] { 1.0 };
+                if (lowerBounds[j] > (nonNegative ? 0 : Double.NEGATIVE_INFINITY)) {
+                    all.add(new LinearConstraint(n, index, one, Relationship.GEQ, lowerBounds[j]));
+                }
+                if (upperBounds[j] < Double.POSITIVE_INFINITY) {
+                    all.add(new LinearConstraint(n, index, one, Relationship.LEQ, upperBounds[j]));
+                }
+            }
+            this.constraints           = all;
+            this.restrictToNonNegative = nonNegative;
+            this.lowerBounds           = null;
+            this.upperBounds           = null;
+        }
+
+        // solve the problem
+        return doOptimize();
+
+    }
+
+    /**
+     * Check whether the solver handles variable bounds itself.
+     * <p>
+     * The default implementation returns false, so the bounds given to
+     * {@link #optimize(LinearObjectiveFunction, Collection, GoalType, double[], double[])}
+     * are turned into constraints.
+     * </p>
+     * @return true if {@link #doOptimize()} uses {@link #lowerBounds} and {@link #upperBounds}
+     */
+    protected boolean isBoundsSupported() {
+        return false;
+    }
+
+    /**
+     * Solve a problem without changing the state of this optimizer.
+     * <p>This method can be called concurrently from several threads.</p>
+     * @param problem problem to solve
+     * @return the solution with the number of iterations and the time it took
+     * @exception OptimizationException if no solution fulfilling the constraints
+     * can be found in the allowed number of iterations
+     */
+    public LinearOptimizationResult solve(final LinearProblem problem)
+        throws OptimizationException {
+        final LinearOptimizationResult result = solveCopy(problem, false);
+        if (result.getFailure() != null) {
+            throw result.getFailure();
+        }
+        return result;
+    }
+
+    /**
+     * Solve independent problems in parallel.
+     * <p>
+     * The problems are handed out to the worker threads one at a time. The
+     * simplex tableaux built by a worker reuse the rows of its previous
+     * tableau instead of allocating new ones. A problem that cannot be solved
+     * does not stop the batch: its result holds the exception instead of a
+     * solution. This includes runtime exceptions thrown while solving a
+     * problem, for example by an invalid model, which the result holds
+     * wrapped in an {@link OptimizationException}.
+     * </p>
+     * @param problems problems to solve
+     * @param threads number of worker threads
+     * @return results, in the order of the problems
+     * @exception OptimizationException if the batch is interrupted
+     */
+    public List<LinearOptimizationResult> solveAll(final List<LinearProblem> problems, final int threads)
+        throws OptimizationException {
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("at least one thread is needed");
+        }
+        final LinearOptimizationResult[] results = new LinearOptimizationResult[problems.size()];
+        final AtomicInteger next = new AtomicInteger();
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "LinearOptimizer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < threads; i++) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    SimplexTableau.BUFFERS.set(new SimplexTableau.Buffer());
+                    try {
+                        for (int k = next.getAndIncrement(); k < results.length; k = next.getAndIncrement()) {
+                            results[k] = solveCopy(problems.get(k), true);
+                        }
+                    } finally {
+                        SimplexTableau.BUFFERS.remove();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            next.set(results.length);
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new OptimizationException("batch solve interrupted");
+        }
+
+        return Arrays.asList(results);
+
+    }
+
+    /**
+     * Solve a problem on a copy of this optimizer.
+     * @param problem problem to solve
+     * @param isolated if true, runtime exceptions are wrapped in the result
+     * like optimization failures, otherwise they are propagated
+     * @return the solution or the exception that ended the solve
+     */
+    private LinearOptimizationResult solveCopy(final LinearProblem problem, final boolean isolated) {
+        final AbstractLinearOptimizer worker = copy();
+        final long start = System.nanoTime();
+        try {
+            final RealPointValuePair solution = problem.isBounded() ?
+                worker.optimize(problem.getObjectiveFunction(), problem.getConstraints(),
+                                problem.getGoalType(), problem.getLowerBounds(), problem.getUpperBounds()) :
+                worker.optimize(problem.getObjectiveFunction(), problem.getConstraints(),
+                                problem.getGoalType(), problem.isRestrictedToNonNegative());
+            return new LinearOptimizationResult(solution, worker.getStatus(), null, worker.getIterations(),
+                                                System.nanoTime() - start);
+        } catch (OptimizationException e) {
+            return new LinearOptimizationResult(null, null, e, worker.getIterations(),
+                                                System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            if (!isolated) {
+                throw e;
+            }
+            return new LinearOptimizationResult(null, null, new OptimizationException(e),
+                                                worker.getIterations(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Create an optimizer with the same settings as this one, used to run one
+     * solve without touching the state of this instance.
+     * <p>
+     * The default implementation is a shallow clone. Subclasses that reuse
+     * mutable objects from one solve to the next must give the copy its own.
+     * </p>
+     * @return a new optimizer with the same settings
+     */
+    protected AbstractLinearOptimizer copy() {
+        try {
+            return (AbstractLinearOptimizer) clone();
+        } catch (CloneNotSupportedException e) {
+            // this class is cloneable
+            throw new IllegalStateException(e);
+        }
+    }
+
     /** Perform the bulk of optimization algorithm.
      * @return the point/value pair giving the optimal value for objective function
      * @exception OptimizationException if no solution fulfilling the constraints
@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lp.linear.Array2DRowRealMatrix;
+import lp.linear.LUDecompositionImpl;
+import lp.optimization.OptimizationException;
+
+/**
+ * Factorization of a simplex basis in product form.
+ * <p>
+ * Most columns of a typical basis are slack columns, with a single non-zero
+ * entry. When the basis is {@link #factorize(int[], int[], int[], double[])
+ * built}, such singleton columns are matched with the rows of their entry and
+ * solved for directly; only the nucleus made of the other columns and the
+ * rows no singleton covers is factored as P<sup>-1</sup> L U by
+ * {@link LUDecompositionImpl}. The dense factors therefore grow with the
+ * number of structural columns in the basis, not with the number of
+ * constraints.
+ * </p>
+ * <p>
+ * Each later change of one basis column is recorded as an elementary eta
+ * matrix E<sub>k</sub>, so that B<sup>-1</sup> = E<sub>k</sub> ...
+ * E<sub>1</sub> B<sub>0</sub><sup>-1</sup>. The eta file grows by one
+ * column per update; the owner refactorizes when it gets too long.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+class BasisFactorization {
+
+    /** Singularity threshold of the LU decomposition. */
+    private static final double SINGULARITY_THRESHOLD = 1.0e-11;
+
+    /** An eta column with more than m / DENSE_ETA_RATIO non-zeros is stored densely. */
+    private static final int DENSE_ETA_RATIO = 3;
+
+    /** Dimension of the basis. */
+    private final int m;
+
+    /** Start of each column in {@link #rowIndex} and {@link #values}, plus the end. */
+    private int[] columnStart;
+
+    /** Rows of the non-zero coefficients, column by column. */
+    private int[] rowIndex;
+
+    /** Non-zero coefficients, column by column. */
+    private double[] values;
+
+    /** Row covered by each basis position, -1 for the positions of the nucleus. */
+    private int[] singletonRow;
+
+    /** Entry of the singleton column at each covered basis position. */
+    private double[] singletonValue;
+
+    /** Basis position of each nucleus column. */
+    private int[] nucleusPosition;
+
+    /** Column of the constraint matrix of each nucleus column. */
+    private int[] nucleusColumn;
+
+    /** Row of the basis of each nucleus row. */
+    private int[] nucleusRow;
+
+    /** Index in the nucleus of each row of the basis, -1 for the covered rows. */
+    private int[] nucleusIndex;
+
+    /** Unit lower triangular factor L of the nucleus, by rows. */
+    private double[][] lower;
+
+    /** Upper triangular factor U of the nucleus, by rows. */
+    private double[][] upper;
+
+    /** Row permutation: row i of L U is row pivot[i] of the nucleus. */
+    private int[] pivot;
+
+    /** Eta matrices applied since the last factorization, oldest first. */
+    private final List<Eta> etas;
+
+    /**
+     * Build an empty factorization.
+     * @param m dimension of the basis
+     */
+    BasisFactorization(final int m) {
+        this.m    = m;
+        this.etas = new ArrayList<Eta>();
+    }
+
+    /**
+     * Factorize a basis from scratch, discarding the eta file.
+     * <p>
+     * The column storage is kept by reference and must not change until the
+     * next factorization.
+     * </p>
+     * @param basis column of the constraint matrix at each basis position
+     * @param columnStart start of each column in rowIndex and values, plus the end
+     * @param rowIndex rows of the non-zero coefficients, column by column
+     * @param values non-zero coefficients, column by column
+     * @exception OptimizationException if the basis is singular
+     */
+    void factorize(final int[] basis, final int[] columnStart,
+                   final int[] rowIndex, final double[] values)
+        throws OptimizationException {
+
+        etas.clear();
+        this.columnStart = columnStart;
+        this.rowIndex    = rowIndex;
+        this.values      = values;
+
+        // match the singleton columns with their rows
+        singletonRow   = new int[m];
+        singletonValue = new double[m];
+        nucleusIndex   = new int[m];
+        int k = 0;
+        for (int p = 0; p < m; p++) {
+            final int j = basis[p];
+            singletonRow[p] = -1;
+            if (columnStart[j + 1] - columnStart[j] == 1) {
+                final int r = rowIndex[columnStart[j]];
+                if (nucleusIndex[r] == 0 && Math.abs(values[columnStart[j]]) > SINGULARITY_THRESHOLD) {
+                    nucleusIndex[r]   = -1;
+                    singletonRow[p]   = r;
+                    singletonValue[p] = values[columnStart[j]];
+                }
+            }
+            if (singletonRow[p] < 0) {
+                ++k;
+            }
+        }
+
+        // the nucleus: the other columns, restricted to the rows not covered
+        nucleusPosition = new int[k];
+        nucleusColumn   = new int[k];
+        nucleusRow      = new int[k];
+        for (int p = 0, i = 0; p < m; p++) {
+            if (singletonRow[p] < 0) {
+                nucleusPosition[i] = p;
+                nucleusColumn[i++] = basis[p];
+            }
+        }
+        for (int r = 0, i = 0; r < m; r++) {
+            if (nucleusIndex[r] == 0) {
+                nucleusRow[i]   = r;
+                nucleusIndex[r] = i++;
+            }
+        }
+        if (k == 0) {
+            return;
+        }
+
+        final double[][] nucleus = new double[k][k];
+        for (int i = 0; i < k; i++) {
+            final int j = nucleusColumn[i];
+            for (int l = columnStart[j]; l < columnStart[j + 1]; l++) {
+                final int r = nucleusIndex[rowIndex[l]];
+                if (r >= 0) {
+                    nucleus[r][i] = values[l];
+                }
+            }
+        }
+        final LUDecompositionImpl lu =
+            new LUDecompositionImpl(new Array2DRowRealMatrix(nucleus, false), SINGULARITY_THRESHOLD);
+        if (!lu.getSolver().isNonSingular()) {
+            throw new OptimizationException("singular simplex basis");
+        }
+        lower = lu.getL().getData();
+        upper = lu.getU().getData();
+        pivot = lu.getPivot();
+
+    }
+
+    /**
+     * Get the dimension of the basis.
+     * @return dimension of the basis
+     */
+    int getDimension() {
+        return m;
+    }
+
+    /**
+     * Get the dimension of the nucleus factored by the last factorization.
+     * @return number of basis columns that are not matched singletons
+     */
+    int getNucleusDimension() {
+        return nucleusPosition.length;
+    }
+
+    /**
+     * Get the number of updates since the last factorization.
+     * @return number of eta matrices in the file
+     */
+    int getNumUpdates() {
+        return etas.size();
+    }
+
+    /**
+     * Solve B x = b (forward transformation).
+     * @param b right hand side, one entry per row (it is not modified)
+     * @return solution x, one entry per basis position
+     */
+    double[] ftran(final double[] b) {
+
+        final int k = nucleusPosition.length;
+        final double[] x = new double[m];
+
+        // nucleus columns first: the singleton columns have no entry in the nucleus rows
+        final double[] residual = b.clone();
+        if (k > 0) {
+            final double[] bN = new double[k];
+            for (int i = 0; i < k; i++) {
+                bN[i] = b[nucleusRow[i]];
+            }
+            final double[] xN = solve(bN);
+            for (int i = 0; i < k; i++) {
+                final double xi = xN[i];
+                x[nucleusPosition[i]] = xi;
+                if (xi != 0) {
+                    final int j = nucleusColumn[i];
+                    for (int l = columnStart[j]; l < columnStart[j + 1]; l++) {
+                        residual[rowIndex[l]] -= values[l] * xi;
+                    }
+                }
+            }
+        }
+
+        // then each singleton column from the row it covers
+        for (int p = 0; p < m; p++) {
+            if (singletonRow[p] >= 0) {
+                x[p] = residual[singletonRow[p]] / singletonValue[p];
+            }
+        }
+
+        // B^-1 = E_k ... E_1 B_0^-1: apply the eta matrices oldest first
+        for (final Eta eta : etas) {
+            final double xr = x[eta.row] / eta.pivotValue;
+            if (xr != 0) {
+                final double[] value = eta.value;
+                if (eta.index == null) {
+                    for (int i = 0; i < m; i++) {
+                        x[i] -= value[i] * xr;
+                    }
+                } else {
+                    final int[] index = eta.index;
+                    for (int l = 0; l < index.length; l++) {
+                        x[index[l]] -= value[l] * xr;
+                    }
+                }
+            }
+            x[eta.row] = xr;
+        }
+        return x;
+
+    }
+
+    /**
+     * Solve y<sup>T</sup> B = c<sup>T</sup> (backward transformation).
+     * @param c right hand side, one entry per basis position (it is not modified)
+     * @return solution y, one entry per row
+     */
+    double[] btran(final double[] c) {
+
+        final double[] v = c.clone();
+
+        // y^T = c^T E_k ... E_1 B_0^-1: apply the eta matrices newest first
+        for (int e = etas.size() - 1; e >= 0; e--) {
+            final Eta eta = etas.get(e);
+            final double[] value = eta.value;
+            double sum = v[eta.row];
+            if (eta.index == null) {
+                for (int i = 0; i < m; i++) {
+                    sum -= v[i] * value[i];
+                }
+            } else {
+                final int[] index = eta.index;
+                for (int l = 0; l < index.length; l++) {
+                    sum -= v[index[l]] * value[l];
+                }
+            }
+            v[eta.row] = sum / eta.pivotValue;
+        }
+
+        // singleton columns first: each one involves a single row
+        final double[] y = new double[m];
+        for (int p = 0; p < m; p++) {
+            if (singletonRow[p] >= 0) {
+                y[singletonRow[p]] = v[p] / singletonValue[p];
+            }
+        }
+
+        // then the nucleus, once the covered rows are known
+        final int k = nucleusPosition.length;
+        if (k > 0) {
+            final double[] cN = new double[k];
+            for (int i = 0; i < k; i++) {
+                final int j = nucleusColumn[i];
+                double sum = v[nucleusPosition[i]];
+                for (int l = columnStart[j]; l < columnStart[j + 1]; l++) {
+                    if (nucleusIndex[rowIndex[l]] < 0) {
+                        sum -= y[rowIndex[l]] * values[l];
+                    }
+                }
+                cN[i] = sum;
+            }
+            final double[] yN = solveTransposed(cN);
+            for (int i = 0; i < k; i++) {
+                y[nucleusRow[i]] = yN[i];
+            }
+        }
+        return y;
+
+    }
+
+    /**
+     * Solve N x = b for the nucleus N = P<sup>-1</sup> L U.
+     * @param b right hand side (it is not modified)
+     * @return solution x
+     */
+    private double[] solve(final double[] b) {
+        final int k = pivot.length;
+
+        // solve L w = P b, then U x = w, both by rows
+        final double[] x = new double[k];
+        for (int i = 0; i < k; i++) {
+            final double[] lRow = lower[i];
+            double sum = b[pivot[i]];
+            for (int l = 0; l < i; l++) {
+                sum -= lRow[l] * x[l];
+            }
+            x[i] = sum;
+        }
+        for (int i = k - 1; i >= 0; i--) {
+            final double[] uRow = upper[i];
+            double sum = x[i];
+            for (int l = i + 1; l < k; l++) {
+                sum -= uRow[l] * x[l];
+            }
+            x[i] = sum / uRow[i];
+        }
+        return x;
+    }
+
+    /**
+     * Solve N<sup>T</sup> y = c for the nucleus N = P<sup>-1</sup> L U.
+     * @param c right hand side (it is modified)
+     * @return solution y
+     */
+    private double[] solveTransposed(final double[] c) {
+        final int k = pivot.length;
+
+        // N^T = U^T L^T P: solve U^T u = c, then L^T w = u, then y = P^T w
+        for (int col = 0; col < k; col++) {
+            c[col] /= upper[col][col];
+            final double cCol = c[col];
+            final double[] uRow = upper[col];
+            for (int i = col + 1; i < k; i++) {
+                c[i] -= cCol * uRow[i];
+            }
+        }
+        for (int col = k - 1; col >= 0; col--) {
+            final double cCol = c[col];
+            final double[] lRow = lower[col];
+            for (int i = 0; i < col; i++) {
+                c[i] -= cCol * lRow[i];
+            }
+        }
+        final double[] y = new double[k];
+        for (int i = 0; i < k; i++) {
+            y[pivot[i]] = c[i];
+        }
+        return y;
+    }
+
+    /**
+     * Replace one column of the basis.
+     * @param row position of the leaving column in the basis
+     * @param alpha entering column transformed by the current basis,
+     * as returned by {@link #ftran(double[])}
+     */
+    void update(final int row, final double[] alpha) {
+        int nonZeros = 0;
+        for (int i = 0; i < m; i++) {
+            if (i != row && alpha[i] != 0) {
+                ++nonZeros;
+            }
+        }
+        if (nonZeros * DENSE_ETA_RATIO > m) {
+            final double[] value = alpha.clone();
+            value[row] = 0;
+            etas.add(new Eta(row, alpha[row], null, value));
+            return;
+        }
+        final int[] index    = new int[nonZeros];
+        final double[] value = new double[nonZeros];
+        for (int i = 0, k = 0; i < m; i++) {
+            if (i != row && alpha[i] != 0) {
+                index[k]   = i;
+                value[k++] = alpha[i];
+            }
+        }
+        etas.add(new Eta(row, alpha[row], index, value));
+    }
+
+    /**
+     * Elementary matrix differing from identity in one column.
+     */
+    private static class Eta {
+
+        /** Index of the column that differs from identity. */
+        final int row;
+
+        /** Entry of the transformed column at the pivot row. */
+        final double pivotValue;
+
+        /** Rows of the other non-zero entries of the transformed column, null if it is stored densely. */
+        final int[] index;
+
+        /** Values of the other non-zero entries of the transformed column, or all its entries
+         * but the pivot one if it is stored densely. */
+        final double[] value;
+
+        /**
+         * @param row index of the column that differs from identity
+         * @param pivotValue entry of the transformed column at the pivot row
+         * @param index rows of the other non-zero entries, null for a dense column
+         * @param value values of the other non-zero entries, or all of them for a dense column
+         */
+        Eta(final int row, final double pivotValue, final int[] index, final double[] value) {
+            this.row        = row;
+            this.pivotValue = pivotValue;
+            this.index      = index;
+            this.value      = value;
+        }
+
+    }
+
+}
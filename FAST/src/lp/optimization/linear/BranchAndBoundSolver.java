@@ -0,0 +1,654 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+/**
+ * Solves a mixed integer linear problem by branch and bound over LP relaxations.
+ * <p>
+ * Each node of the search tree is the original problem plus a set of branching
+ * bounds x<sub>j</sub> &lt;= floor(v) or x<sub>j</sub> &gt;= ceil(v). Nodes are
+ * evaluated eagerly: the relaxation of a child is solved as soon as it is
+ * created, so that every open node carries its exact LP bound. The open node
+ * with the best bound is expanded next (best-bound search), and nodes whose
+ * bound cannot beat the incumbent are pruned.
+ * </p>
+ * <p>
+ * The search can be limited in nodes and in wall clock time, and stopped
+ * by a {@link #setCancellationToken(CancellationToken) cancellation token};
+ * when it stops early the best integer solution found so far is returned,
+ * {@link #isProvenOptimal()} returns false and {@link #getStatus()} tells
+ * which limit stopped the search.
+ * </p>
+ * <p>
+ * Problems with non-negative variables are first reduced by a {@link Presolver},
+ * and the relaxation of the root is strengthened by a few rounds of knapsack
+ * cover cuts before branching starts. Both can be switched off.
+ * </p>
+ * <p>
+ * The {@link #getMaxIterations() maximal number of iterations} applies to
+ * each relaxation solved, not to the whole search.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+public class BranchAndBoundSolver extends AbstractLinearOptimizer {
+
+    /** Default maximal number of nodes explored. */
+    public static final int DEFAULT_MAX_NODES = 100000;
+
+    /** Default maximal number of simplex iterations per relaxation. */
+    public static final int DEFAULT_MAX_LP_ITERATIONS = 10000;
+
+    /** Default maximal number of cut rounds at the root. */
+    public static final int DEFAULT_CUT_ROUNDS = 5;
+
+    /** Default tolerance on integrality and on bound comparisons. */
+    private static final double DEFAULT_EPSILON = 1.0e-6;
+
+    /** Tolerance on integrality and on bound comparisons. */
+    protected final double epsilon;
+
+    /** Indices of the variables that must take integer values, null for all of them. */
+    private int[] integerVariables;
+
+    /** Maximal number of nodes explored. */
+    private int maxNodes;
+
+    /** Maximal wall clock time of a search in milliseconds, 0 for no limit. */
+    private long timeLimit;
+
+    /** Whether to presolve the problem. */
+    private boolean presolve;
+
+    /** Maximal number of cut rounds at the root. */
+    private int cutRounds;
+
+    /** Presolver of the running search, null if the problem is not presolved. */
+    protected Presolver presolver;
+
+    /** Number of nodes explored by the last search. */
+    protected int nodes;
+
+    /** Number of simplex iterations performed by the last search. */
+    protected int lpIterations;
+
+    /** Whether the last search proved its solution optimal. */
+    protected boolean provenOptimal;
+
+    /** Status of the last search that returned a point, null if none did. */
+    protected SolveStatus status;
+
+    /** Relaxations of the running search, one per thread. */
+    private ThreadLocal<Relaxation> relaxations;
+
+    /**
+     * Build a solver where all the variables are integer.
+     */
+    public BranchAndBoundSolver() {
+        this(DEFAULT_EPSILON);
+    }
+
+    /**
+     * Build a solver where all the variables are integer.
+     * @param epsilon tolerance on integrality and on bound comparisons
+     */
+    public BranchAndBoundSolver(final double epsilon) {
+        this.epsilon  = epsilon;
+        this.maxNodes  = DEFAULT_MAX_NODES;
+        this.presolve  = true;
+        this.cutRounds = DEFAULT_CUT_ROUNDS;
+        setMaxIterations(DEFAULT_MAX_LP_ITERATIONS);
+    }
+
+    /**
+     * Set the variables that must take integer values.
+     * @param integerVariables indices of the integer variables, null for all the variables
+     */
+    public void setIntegerVariables(final int[] integerVariables) {
+        this.integerVariables = (integerVariables == null) ? null : integerVariables.clone();
+    }
+
+    /**
+     * Set the maximal number of nodes explored.
+     * @param maxNodes maximal number of nodes (each node is one relaxation solved)
+     */
+    public void setMaxNodes(final int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Get the maximal number of nodes explored.
+     * @return maximal number of nodes
+     */
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Set the maximal wall clock time of a search.
+     * @param timeLimit time limit in milliseconds, 0 for no limit
+     */
+    public void setTimeLimit(final long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Get the maximal wall clock time of a search.
+     * @return time limit in milliseconds, 0 for no limit
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Set whether the problem is presolved before the search.
+     * <p>Presolving only applies to problems restricted to non-negative values.</p>
+     * @param presolve if true, the problem is reduced and cover cuts are added at the root
+     */
+    public void setPresolve(final boolean presolve) {
+        this.presolve = presolve;
+    }
+
+    /**
+     * Check whether the problem is presolved before the search.
+     * @return true if the problem is presolved
+     */
+    public boolean isPresolve() {
+        return presolve;
+    }
+
+    /**
+     * Set the maximal number of cut rounds at the root.
+     * @param cutRounds maximal number of times the root relaxation is solved again with new cuts
+     */
+    public void setCutRounds(final int cutRounds) {
+        this.cutRounds = cutRounds;
+    }
+
+    /**
+     * Get the maximal number of cut rounds at the root.
+     * @return maximal number of cut rounds
+     */
+    public int getCutRounds() {
+        return cutRounds;
+    }
+
+    /**
+     * Get the number of nodes explored by the last search.
+     * @return number of nodes explored
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the number of simplex iterations performed by the last search.
+     * <p>This is the sum over all the relaxations solved.</p>
+     * @return number of simplex iterations
+     */
+    @Override
+    public int getIterations() {
+        return lpIterations;
+    }
+
+    /**
+     * Check whether the last search proved its solution optimal.
+     * @return false if the search stopped on a node or time limit or was cancelled
+     */
+    public boolean isProvenOptimal() {
+        return provenOptimal;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When the search stops early, the status is the limit that stopped it.
+     * </p>
+     * @return status of the last search that returned a point, null if none did
+     */
+    @Override
+    public SolveStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Check the limits of the search before a node is expanded.
+     * @param explored number of nodes explored so far
+     * @param deadline time at which the search must stop
+     * @return the limit reached, null if the search can go on
+     */
+    protected SolveStatus checkLimits(final int explored, final long deadline) {
+        if (isCancelled()) {
+            return SolveStatus.CANCELLED;
+        }
+        if (explored >= maxNodes) {
+            return SolveStatus.NODE_LIMIT_REACHED;
+        }
+        if (System.currentTimeMillis() >= deadline) {
+            return SolveStatus.TIME_LIMIT_REACHED;
+        }
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected RealPointValuePair doOptimize()
+        throws OptimizationException {
+
+        presolver   = null;
+        status      = null;
+        relaxations = new ThreadLocal<Relaxation>();
+        if (!presolve || !restrictToNonNegative) {
+            return search();
+        }
+
+        final Presolver reducer = new Presolver(f, constraints, goalType, integerVariables, epsilon);
+        reducer.presolve();
+        final LinearObjectiveFunction originalF                = f;
+        final Collection<LinearConstraint> originalConstraints = constraints;
+        final int[] originalIntegerVariables                   = integerVariables;
+        if (reducer.getNumVariables() == 0) {
+            nodes         = 0;
+            lpIterations  = 0;
+            provenOptimal = true;
+            status        = SolveStatus.OPTIMAL;
+            final double[] point = reducer.postsolve(new double[0]);
+            return new RealPointValuePair(point, f.getValue(point), false);
+        }
+
+        // search the reduced problem, the cuts are added to its own constraints list
+        try {
+            presolver        = reducer;
+            f                = reducer.getObjectiveFunction();
+            constraints      = new ArrayList<LinearConstraint>(reducer.getConstraints());
+            integerVariables = reducer.getIntegerVariables();
+            final double[] point = reducer.postsolve(search().getPointRef());
+            return new RealPointValuePair(point, originalF.getValue(point), false);
+        } finally {
+            f                = originalF;
+            constraints      = originalConstraints;
+            integerVariables = originalIntegerVariables;
+        }
+
+    }
+
+    /**
+     * Run the branch and bound search on the current problem.
+     * @return the best integer solution found
+     * @exception OptimizationException if no integer solution can be found
+     */
+    protected RealPointValuePair search()
+        throws OptimizationException {
+
+        nodes         = 0;
+        lpIterations  = 0;
+        provenOptimal = false;
+        final long deadline = (timeLimit > 0) ? System.currentTimeMillis() + timeLimit : Long.MAX_VALUE;
+
+        final Node root = solveRoot();
+        if (root == null) {
+            throw new NoFeasibleSolutionException();
+        }
+
+        final PriorityQueue<Node> open = new PriorityQueue<Node>();
+        Node incumbent = null;
+        if (getBranchingVariable(root.solution.getPointRef()) < 0) {
+            incumbent = root;
+        } else {
+            open.add(root);
+        }
+
+        SolveStatus stop = null;
+        while (!open.isEmpty()) {
+            stop = checkLimits(nodes, deadline);
+            if (stop != null) {
+                break;
+            }
+            final Node node = open.poll();
+            if (incumbent != null && !canImprove(node.bound, incumbent.bound)) {
+                // best-bound order: no open node can improve the incumbent anymore
+                open.clear();
+                break;
+            }
+            for (final Node child : branch(node)) {
+                final Node solved = solve(child);
+                if (solved == null ||
+                    (incumbent != null && !canImprove(solved.bound, incumbent.bound))) {
+                    continue;
+                }
+                if (getBranchingVariable(solved.solution.getPointRef()) < 0) {
+                    incumbent = solved;
+                } else {
+                    open.add(solved);
+                }
+            }
+            node.basis = null;
+        }
+
+        if (incumbent == null) {
+            if (open.isEmpty()) {
+                throw new NoFeasibleSolutionException();
+            }
+            throw new OptimizationException("no integer solution found within {0} nodes", nodes);
+        }
+        provenOptimal = open.isEmpty();
+        status        = provenOptimal ? SolveStatus.OPTIMAL : stop;
+        return round(incumbent.solution);
+
+    }
+
+    /**
+     * Solve the root relaxation, strengthened by cover cuts when the problem is presolved.
+     * <p>The cuts are valid for all the integer solutions, they are added to the
+     * problem constraints and therefore inherited by every node.</p>
+     * @return the solved root, null if the relaxation is infeasible
+     * @exception OptimizationException if the relaxation is unbounded or cannot be solved
+     */
+    protected Node solveRoot() throws OptimizationException {
+        Node root = solve(new Node(null, -1, 0, false, 0));
+        for (int round = 0; root != null && presolver != null && round < cutRounds; ++round) {
+            if (getBranchingVariable(root.solution.getPointRef()) < 0) {
+                break;
+            }
+            final List<LinearConstraint> cuts = presolver.separateCoverCuts(root.solution.getPointRef());
+            if (cuts.isEmpty()) {
+                break;
+            }
+            constraints.addAll(cuts);
+            root = solve(new Node(null, -1, 0, false, 0));
+        }
+        return root;
+    }
+
+    /**
+     * Check whether a node bound can still improve on the incumbent value.
+     * @param bound bound of the node (internal sign, larger is better)
+     * @param incumbent value of the incumbent (internal sign, larger is better)
+     * @return true if the node is worth exploring
+     */
+    protected boolean canImprove(final double bound, final double incumbent) {
+        return bound > incumbent + epsilon * Math.max(1.0, Math.abs(incumbent));
+    }
+
+    /**
+     * Create the two children of a node, branching on its most fractional variable.
+     * @param node node to branch on (already solved)
+     * @return the down and up children, not solved yet
+     */
+    protected Node[] branch(final Node node) {
+        final double[] point = node.solution.getPointRef();
+        final int j = getBranchingVariable(point);
+        return new Node[] {
+            new Node(node, j, Math.floor(point[j]), true,  point.length),
+            new Node(node, j, Math.ceil(point[j]),  false, point.length)
+        };
+    }
+
+    /**
+     * Get the integer variable with the most fractional value.
+     * @param point point to check
+     * @return index of the variable, -1 if all the integer variables have integer values
+     */
+    protected int getBranchingVariable(final double[] point) {
+        int best = -1;
+        double bestFraction = epsilon;
+        final int count = (integerVariables == null) ? point.length : integerVariables.length;
+        for (int k = 0; k < count; k++) {
+            final int j = (integerVariables == null) ? k : integerVariables[k];
+            final double fraction = Math.abs(point[j] - Math.rint(point[j]));
+            if (fraction > bestFraction) {
+                bestFraction = fraction;
+                best = j;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Solve the relaxation of a node.
+     * <p>
+     * With non-negative variables, the relaxation is solved again in a
+     * {@link SimplexSession} owned by the current thread, starting from the
+     * basis of the parent node: the new branching bound leaves it dual
+     * feasible, so a few dual simplex pivots are usually enough.
+     * </p>
+     * @param node node to solve
+     * @return the node with its solution and bound set, null if the relaxation is infeasible
+     * @exception OptimizationException if the relaxation is unbounded or cannot be solved
+     */
+    protected Node solve(final Node node) throws OptimizationException {
+        if (restrictToNonNegative) {
+            Relaxation relaxation = relaxations.get();
+            if (relaxation == null) {
+                relaxation = new Relaxation();
+                relaxations.set(relaxation);
+            }
+            final SimplexSession session = relaxation.prepare(node);
+            try {
+                node.solution = session.optimize();
+            } catch (NoFeasibleSolutionException e) {
+                return null;
+            } finally {
+                countNode(session.getIterations());
+            }
+            node.basis = session.getBasis();
+        } else {
+            final SimplexSolver solver = new SimplexSolver(epsilon);
+            solver.setMaxIterations(getMaxIterations());
+            try {
+                node.solution = solver.optimize(f, node.getConstraints(constraints), goalType, false);
+            } catch (NoFeasibleSolutionException e) {
+                return null;
+            } finally {
+                countNode(solver.getIterations());
+            }
+        }
+        node.bound = (goalType == GoalType.MAXIMIZE) ? node.solution.getValue() : -node.solution.getValue();
+        return node;
+    }
+
+    /**
+     * Account for one relaxation solved.
+     * @param iterations number of simplex iterations it took
+     */
+    protected void countNode(final int iterations) {
+        nodes++;
+        lpIterations += iterations;
+    }
+
+    /**
+     * Round the integer variables of an integer feasible solution.
+     * @param solution solution of a relaxation with integer values up to epsilon
+     * @return the rounded solution
+     */
+    protected RealPointValuePair round(final RealPointValuePair solution) {
+        final double[] point = solution.getPoint();
+        final int count = (integerVariables == null) ? point.length : integerVariables.length;
+        for (int k = 0; k < count; k++) {
+            final int j = (integerVariables == null) ? k : integerVariables[k];
+            point[j] = Math.rint(point[j]);
+        }
+        return new RealPointValuePair(point, f.getValue(point), false);
+    }
+
+    /**
+     * The relaxations solved by one thread.
+     * <p>
+     * The session holds the problem constraints followed by the branching
+     * bounds of the last node solved. Moving to another node only removes and
+     * adds the bounds that differ, from the deepest common ancestor down.
+     * </p>
+     */
+    private class Relaxation {
+
+        /** Session solving the relaxations. */
+        private final SimplexSession session;
+
+        /** Number of problem constraints already in the session. */
+        private int problemConstraints;
+
+        /** Branching bounds in the session, from the root down. */
+        private final List<LinearConstraint> bounds;
+
+        /** Build a session for the current problem. */
+        Relaxation() {
+            session = new SimplexSession(f, goalType);
+            bounds  = new ArrayList<LinearConstraint>();
+        }
+
+        /**
+         * Set the session up for the relaxation of a node.
+         * @param node node to solve
+         * @return session holding the relaxation of the node
+         * @exception OptimizationException if the basis is singular
+         */
+        SimplexSession prepare(final Node node) throws OptimizationException {
+
+            // cuts are appended to the problem constraints
+            int k = 0;
+            for (final LinearConstraint constraint : constraints) {
+                if (k++ >= problemConstraints) {
+                    session.addConstraint(constraint);
+                }
+            }
+            problemConstraints = k;
+
+            if (node.parent != null && node.parent.basis != null) {
+                session.setBasis(node.parent.basis);
+            }
+            final List<LinearConstraint> path = node.getBounds();
+            int common = 0;
+            while (common < bounds.size() && common < path.size() && bounds.get(common) == path.get(common)) {
+                ++common;
+            }
+            for (int i = bounds.size() - 1; i >= common; --i) {
+                session.removeConstraint(bounds.remove(i));
+            }
+            for (int i = common; i < path.size(); ++i) {
+                session.addConstraint(path.get(i));
+                bounds.add(path.get(i));
+            }
+
+            session.setMaxIterations(getMaxIterations());
+            return session;
+
+        }
+
+    }
+
+    /**
+     * A node of the search tree.
+     * <p>
+     * A node only stores the branching bound that created it and a link to its
+     * parent; the full set of bounds is rebuilt by walking up the tree.
+     * </p>
+     */
+    protected static class Node implements Comparable<Node> {
+
+        /** Parent node, null for the root. */
+        final Node parent;
+
+        /** Branching variable, -1 for the root. */
+        final int variable;
+
+        /** Branching bound. */
+        final double value;
+
+        /** Whether the bound is an upper bound (x &lt;= value) or a lower bound (x &gt;= value). */
+        final boolean upper;
+
+        /** Branching bound as a constraint, null for the root. */
+        final LinearConstraint constraint;
+
+        /** Depth of the node in the tree. */
+        final int depth;
+
+        /** Solution of the relaxation, once solved. */
+        RealPointValuePair solution;
+
+        /** Bound given by the relaxation, with the sign such that larger is better. */
+        double bound;
+
+        /** Final basis of the relaxation, kept until the children are solved. */
+        SimplexSession.Basis basis;
+
+        /**
+         * @param parent parent node, null for the root
+         * @param variable branching variable
+         * @param value branching bound
+         * @param upper whether the bound is an upper bound
+         * @param n number of variables
+         */
+        Node(final Node parent, final int variable, final double value, final boolean upper, final int n) {
+            this.parent     = parent;
+            this.variable   = variable;
+            this.value      = value;
+            this.upper      = upper;
+            this.constraint = (parent == null) ? null :
+                              new LinearConstraint(n, new int[] { variable }, new double[] { 1 },
+                                                   upper ? Relationship.LEQ : Relationship.GEQ, value);
+            this.depth      = (parent == null) ? 0 : parent.depth + 1;
+        }
+
+        /**
+         * Get the constraints of the relaxation of this node.
+         * @param base constraints of the original problem
+         * @return original constraints plus the branching bounds of this node and its ancestors
+         */
+        Collection<LinearConstraint> getConstraints(final Collection<LinearConstraint> base) {
+            final Collection<LinearConstraint> all = new ArrayList<LinearConstraint>(base.size() + depth);
+            all.addAll(base);
+            all.addAll(getBounds());
+            return all;
+        }
+
+        /**
+         * Get the branching bounds of this node and its ancestors.
+         * @return branching bounds, from the root down to this node
+         */
+        List<LinearConstraint> getBounds() {
+            final LinearConstraint[] bounds = new LinearConstraint[depth];
+            for (Node node = this; node.parent != null; node = node.parent) {
+                bounds[node.depth - 1] = node.constraint;
+            }
+            return Arrays.asList(bounds);
+        }
+
+        /** Best bound first, deeper nodes first on ties.
+         * @param other node to compare to
+         * @return a negative value if this node must be explored first
+         */
+        public int compareTo(final Node other) {
+            if (bound != other.bound) {
+                return (bound > other.bound) ? -1 : 1;
+            }
+            return other.depth - depth;
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+/**
+ * Flag asking a running solve to stop.
+ * <p>
+ * The token is set from any thread and checked by the optimizer before
+ * each iteration (each node for branch and bound), so the solve stops
+ * shortly after the call to {@link #cancel()}. One token can be shared by several solvers, for example
+ * all the copies running a {@link AbstractLinearOptimizer#solveAll(java.util.List, int) batch}.
+ * </p>
+ * @see AbstractLinearOptimizer#setCancellationToken(CancellationToken)
+ * @version $Revision$ $Date$
+ */
+public class CancellationToken {
+
+    /** Whether cancellation was requested. */
+    private volatile boolean cancelled;
+
+    /**
+     * Ask the solves using this token to stop.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check whether cancellation was requested.
+     * @return true if {@link #cancel()} was called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+}
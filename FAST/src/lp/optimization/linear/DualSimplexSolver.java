@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+import lp.util.MathUtils;
+
+/**
+ * Solves a linear problem with the dual simplex method when it starts dual feasible.
+ * <p>
+ * The problem is written with a slack variable in every row, greater than or
+ * equal constraints being negated and equations split in two. When no
+ * coefficient of the objective function row is negative, this slack basis is
+ * dual feasible: the dual simplex method then keeps it so while it drives the
+ * negative right hand sides out, and reaches the optimum without the
+ * artificial variables and the Phase 1 iterations of the primal method. This
+ * is the case for instance when minimizing non-negative costs, or for a
+ * problem already solved once whose constraints were tightened.
+ * </p>
+ * <p>
+ * Otherwise the problem is solved by the two-phase primal method of
+ * {@link SimplexSolver}. The {@link #setPricingRule(PricingRule) pricing rule}
+ * only applies to the primal iterations; the dual iterations select the row
+ * with the most negative right hand side.
+ * </p>
+ * <p>
+ * Variable bounds are turned into constraints, whose slack variables keep
+ * the starting basis dual feasible.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+public class DualSimplexSolver extends SimplexSolver {
+
+    /**
+     * Build a dual simplex solver with default settings.
+     */
+    public DualSimplexSolver() {
+        super();
+    }
+
+    /**
+     * Build a dual simplex solver with a specified accepted amount of error
+     * @param epsilon the amount of error to accept in floating point comparisons
+     */
+    public DualSimplexSolver(final double epsilon) {
+        super(epsilon);
+    }
+
+    /**
+     * Check whether the slack basis is dual feasible.
+     * @return true if no coefficient of the objective function row of the
+     * slack basis tableau is negative
+     */
+    private boolean isDualFeasible() {
+        final double[] coefficients = f.getCoefficients().getData();
+        double sum = 0;
+        for (final double coefficient : coefficients) {
+            final double reducedCost = (goalType == GoalType.MAXIMIZE) ? -coefficient : coefficient;
+            if (MathUtils.compareTo(reducedCost, 0, epsilon) < 0) {
+                return false;
+            }
+            sum += reducedCost;
+        }
+        // the column of the extra variable x- holds the opposite of the sum
+        return restrictToNonNegative || MathUtils.compareTo(-sum, 0, epsilon) >= 0;
+    }
+
+    /**
+     * Returns the row with the most negative right hand side.
+     * @param tableau simple tableau for the problem
+     * @return row leaving the basis, or -1 if no right hand side is negative
+     */
+    private int getDualPivotRow(final SimplexTableau tableau) {
+        final int rhs = tableau.getRhsOffset();
+        double minValue = 0;
+        int minPos = -1;
+        for (int i = tableau.getNumObjectiveFunctions(); i < tableau.getHeight(); i++) {
+            final double value = tableau.getEntry(i, rhs);
+            if (MathUtils.compareTo(value, 0, epsilon) < 0 && value < minValue) {
+                minValue = value;
+                minPos   = i;
+            }
+        }
+        return minPos;
+    }
+
+    /**
+     * Returns the column entering the basis, which keeps the objective function
+     * row non-negative.
+     * @param row row leaving the basis
+     * @param tableau simple tableau for the problem
+     * @return column entering the basis, or -1 if no entry of the row is negative
+     */
+    private int getDualPivotColumn(final int row, final SimplexTableau tableau) {
+        double minRatio = Double.MAX_VALUE;
+        double maxEntry = 0;
+        int minRatioPos = -1;
+        for (int j = tableau.getNumObjectiveFunctions(); j < tableau.getWidth() - 1; j++) {
+            final double entry = tableau.getEntry(row, j);
+            if (MathUtils.compareTo(entry, 0, epsilon) < 0) {
+                final double ratio = Math.max(0, tableau.getEntry(0, j)) / -entry;
+                // among tied ratios, the largest entry is the most stable pivot
+                if (ratio < minRatio - epsilon ||
+                    (ratio <= minRatio + epsilon && -entry > maxEntry)) {
+                    minRatio    = Math.min(ratio, minRatio);
+                    maxEntry    = -entry;
+                    minRatioPos = j;
+                }
+            }
+        }
+        return minRatioPos;
+    }
+
+    /**
+     * Runs one iteration of the dual simplex method on the given model.
+     * @param tableau simple tableau for the problem
+     * @return false if the basis is already primal feasible, true if an
+     * iteration was performed
+     * @throws OptimizationException if the maximal iteration count has been
+     * exceeded, if the solve is stopped by the time limit or the cancellation
+     * token, or if the model is found to have no feasible solution
+     */
+    protected boolean doDualIteration(final SimplexTableau tableau)
+        throws OptimizationException {
+
+        final int pivotRow = getDualPivotRow(tableau);
+        if (pivotRow < 0) {
+            return false;
+        }
+        incrementIterationsCounter();
+
+        final int pivotCol = getDualPivotColumn(pivotRow, tableau);
+        if (pivotCol < 0) {
+            // the row cannot be satisfied: sum of non-negative terms equal to a negative value
+            throw new NoFeasibleSolutionException();
+        }
+        tableau.pivot(pivotRow, pivotCol);
+
+        notifyProgress(tableau, false);
+        return true;
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isBoundsSupported() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealPointValuePair doOptimize()
+        throws OptimizationException {
+        if (!isDualFeasible()) {
+            return super.doOptimize();
+        }
+        startSolve();
+        final SimplexTableau tableau =
+            new SimplexTableau(f, constraints, goalType, restrictToNonNegative, epsilon, true, getScalingMethod());
+        while (doDualIteration(tableau)) {
+            // the basis stays dual feasible until it becomes primal feasible
+        }
+        // primal iterations only remain if rounding errors left a negative reduced cost
+        return solvePhase2(tableau);
+    }
+
+}
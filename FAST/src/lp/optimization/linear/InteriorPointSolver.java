@@ -0,0 +1,991 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+/**
+ * Solves a linear problem using a primal-dual interior point method.
+ * <p>
+ * The problem is written in standard form, min c<sup>T</sup>x subject to
+ * Ax = b and 0 &lt;= x &lt;= u, with one slack variable per inequality.
+ * Variable bounds are handled natively: each variable is shifted to its lower
+ * bound, and the finite upper bounds enter the optimality conditions as
+ * x + w = u with a second complementarity pair w z, so that they add no
+ * constraint row. Each iteration follows Mehrotra's predictor-corrector
+ * scheme: a Newton step towards the optimality conditions is computed from
+ * the sparse Cholesky factorization of the normal equations matrix
+ * A&Theta;A<sup>T</sup>, whose dimension is the number of constraints, then
+ * corrected towards the central path with the same factorization. The number
+ * of iterations hardly depends on the size of the problem, a few tens in
+ * practice, and each one costs the formation and the factorization of the
+ * normal equations. Large problems on which the simplex method needs many
+ * pivots are therefore solved in a time that grows polynomially and
+ * predictably with their size.
+ * </p>
+ * <p>
+ * The interior point iterations converge to the analytic center of the
+ * optimal face, which is not a vertex when the optimum is not unique. With
+ * {@link #setCrossover(boolean) crossover} (the default), the variables that
+ * are large compared to their reduced cost are taken as a starting basis for
+ * a {@link SimplexSession}, which ends with the few pivots needed to reach an
+ * optimal basic solution. Bounded variables that end clearly at one of their
+ * bounds are fixed there for the crossover, the others keep their upper bound
+ * as a constraint row; the fixings are checked against the dual bound of the
+ * interior point iterations. Problems on which the iterates diverge, which is
+ * the case of infeasible and unbounded problems, and problems with free
+ * variables are solved by the simplex method alone.
+ * </p>
+ * <p>
+ * The {@link #getMaxIterations() maximal number of iterations} applies to
+ * the interior point iterations; the simplex iterations that follow are
+ * bounded by {@link SimplexSession#DEFAULT_MAX_ITERATIONS}.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+public class InteriorPointSolver extends AbstractLinearOptimizer {
+
+    /** Default relative accuracy of the residuals and of the duality gap. */
+    public static final double DEFAULT_TOLERANCE = 1.0e-8;
+
+    /** Default amount of error to accept in floating point comparisons. */
+    private static final double DEFAULT_EPSILON = 1.0e-6;
+
+    /** Fraction of the step to the boundary actually taken. */
+    private static final double STEP_RATIO = 0.9995;
+
+    /** Norm of the iterates above which they are considered divergent. */
+    private static final double DIVERGENCE = 1.0e12;
+
+    /** Amount of error to accept in floating point comparisons, used by the crossover. */
+    protected final double epsilon;
+
+    /** Relative accuracy of the residuals and of the duality gap. */
+    private double tolerance;
+
+    /** Whether the interior solution is turned into a basic solution. */
+    private boolean crossover;
+
+    /** Number of simplex iterations performed by the last solve. */
+    private int simplexIterations;
+
+    /** Number of constraints of the problem being solved. */
+    private int m;
+
+    /** Number of columns: decision variables and slacks. */
+    private int numColumns;
+
+    /** Slack column of each constraint, -1 for equations. */
+    private int[] slackColumn;
+
+    /** Start of each column in {@link #rowIndex} and {@link #values}, plus the end. */
+    private int[] columnStart;
+
+    /** Rows of the non-zero coefficients, column by column. */
+    private int[] rowIndex;
+
+    /** Non-zero coefficients, column by column. */
+    private double[] values;
+
+    /** Costs of the columns, with the goal turned into a minimization. */
+    private double[] cost;
+
+    /** Right hand side. */
+    private double[] rhs;
+
+    /** Upper bounds of the columns, {@link Double#POSITIVE_INFINITY} if none. */
+    private double[] upper;
+
+    /** Number of columns with a finite upper bound. */
+    private int numBounded;
+
+    /** Normal equations, analyzed once per problem. */
+    private NormalEquations normalEquations;
+
+    /** Dual objective at the end of the iterations, a lower bound of the minimized objective. */
+    private double dualObjective;
+
+    /**
+     * Build an interior point solver with default settings.
+     */
+    public InteriorPointSolver() {
+        this(DEFAULT_EPSILON);
+    }
+
+    /**
+     * Build an interior point solver with a specified accepted amount of error.
+     * @param epsilon the amount of error to accept in floating point comparisons
+     * during the crossover
+     */
+    public InteriorPointSolver(final double epsilon) {
+        this.epsilon   = epsilon;
+        this.tolerance = DEFAULT_TOLERANCE;
+        this.crossover = true;
+    }
+
+    /**
+     * Set the relative accuracy at which the interior point iterations stop.
+     * @param tolerance relative accuracy of the residuals and of the duality gap
+     */
+    public void setTolerance(final double tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("tolerance must be positive");
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Get the relative accuracy at which the interior point iterations stop.
+     * @return relative accuracy of the residuals and of the duality gap
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Set whether the interior solution is turned into a basic solution.
+     * @param crossover if true, the solve ends with simplex iterations
+     * reaching an optimal vertex
+     */
+    public void setCrossover(final boolean crossover) {
+        this.crossover = crossover;
+    }
+
+    /**
+     * Check whether the interior solution is turned into a basic solution.
+     * @return true if the solve ends with simplex iterations
+     */
+    public boolean isCrossover() {
+        return crossover;
+    }
+
+    /**
+     * Get the number of simplex iterations performed by the last solve.
+     * <p>They are the crossover iterations, or all the iterations when the
+     * problem was handed over to the simplex method.</p>
+     * @return number of simplex iterations
+     */
+    public int getSimplexIterations() {
+        return simplexIterations;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected RealPointValuePair doOptimize()
+        throws OptimizationException {
+
+        simplexIterations = 0;
+        if (!restrictToNonNegative || constraints.isEmpty()) {
+            return solveBySimplex();
+        }
+
+        // with bounds, the variables are measured from their lower bound (or
+        // downward from their upper bound), only the ranges remain
+        final SimplexTableau.VariableBounds bounds =
+            (lowerBounds == null) ? null : new SimplexTableau.VariableBounds(lowerBounds, upperBounds);
+        final LinearObjectiveFunction objective = (bounds == null) ? f : bounds.shift(f);
+        final List<LinearConstraint> rows = (bounds == null) ?
+                                            new ArrayList<LinearConstraint>(constraints) :
+                                            bounds.shift(constraints);
+
+        buildStandardForm(objective, rows, (bounds == null) ? null : bounds.range);
+        final double[] x = new double[numColumns];
+        final double[] w = new double[numColumns];
+        final double[] y = new double[m];
+        final double[] s = new double[numColumns];
+        final double[] z = new double[numColumns];
+        if (!initialize(x, w, y, s, z) || !iterate(x, w, y, s, z)) {
+            // the iterates diverged: let the simplex method prove infeasibility or unboundedness
+            return solveBySimplex();
+        }
+
+        final int n = f.getCoefficients().getDimension();
+        double[] point = new double[n];
+        System.arraycopy(x, 0, point, 0, n);
+        if (crossover) {
+            point = crossover(objective, rows, x, w, s, z);
+            if (point == null) {
+                // a variable fixed at a bound for the crossover is not there at the optimum
+                return solveBySimplex();
+            }
+        }
+        if (bounds != null) {
+            bounds.restore(point);
+        }
+        return new RealPointValuePair(point, f.getValue(point), false);
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isBoundsSupported() {
+        return true;
+    }
+
+    /**
+     * Store the problem in standard form, by columns.
+     * @param objective objective function of the non-negative variables
+     * @param rows constraints on the non-negative variables
+     * @param range upper bound of each variable, null if there are none
+     */
+    private void buildStandardForm(final LinearObjectiveFunction objective,
+                                   final List<LinearConstraint> rows, final double[] range) {
+
+        final int n = objective.getCoefficients().getDimension();
+        m           = rows.size();
+        slackColumn = new int[m];
+        numColumns  = n;
+        for (int i = 0; i < m; i++) {
+            slackColumn[i] = (rows.get(i).getRelationship() == Relationship.EQ) ? -1 : numColumns++;
+        }
+
+        // count the non-zero coefficients of each column
+        final int[] columnCount = new int[numColumns];
+        for (int i = 0; i < m; i++) {
+            for (final int j : rows.get(i).getNonZeroIndices()) {
+                ++columnCount[j];
+            }
+            if (slackColumn[i] >= 0) {
+                columnCount[slackColumn[i]] = 1;
+            }
+        }
+        columnStart = new int[numColumns + 1];
+        for (int j = 0; j < numColumns; j++) {
+            columnStart[j + 1] = columnStart[j] + columnCount[j];
+        }
+
+        // fill the columns
+        rowIndex = new int[columnStart[numColumns]];
+        values   = new double[columnStart[numColumns]];
+        rhs      = new double[m];
+        final int[] next = new int[numColumns];
+        System.arraycopy(columnStart, 0, next, 0, numColumns);
+        for (int i = 0; i < m; i++) {
+            final LinearConstraint constraint = rows.get(i);
+            final int[] indices  = constraint.getNonZeroIndices();
+            final double[] coefs = constraint.getNonZeroValues();
+            for (int k = 0; k < indices.length; k++) {
+                final int position = next[indices[k]]++;
+                rowIndex[position] = i;
+                values[position]   = coefs[k];
+            }
+            if (slackColumn[i] >= 0) {
+                final int position = next[slackColumn[i]]++;
+                rowIndex[position] = i;
+                values[position]   = (constraint.getRelationship() == Relationship.GEQ) ? -1 : 1;
+            }
+            rhs[i] = constraint.getValue();
+        }
+
+        cost = new double[numColumns];
+        final double sign = (goalType == GoalType.MAXIMIZE) ? -1 : 1;
+        for (int j = 0; j < n; j++) {
+            cost[j] = sign * objective.getCoefficients().getEntry(j);
+        }
+
+        upper = new double[numColumns];
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+        numBounded = 0;
+        if (range != null) {
+            for (int j = 0; j < n; j++) {
+                upper[j] = range[j];
+                if (range[j] < Double.POSITIVE_INFINITY) {
+                    ++numBounded;
+                }
+            }
+        }
+        normalEquations = new NormalEquations(m, columnStart, rowIndex, values);
+
+    }
+
+    /**
+     * Compute Mehrotra's starting point.
+     * <p>
+     * The point is the least squares solution of the equality constraints
+     * and of the dual constraints, shifted so that all the products
+     * x<sub>j</sub>s<sub>j</sub> are positive and of similar sizes. Bounded
+     * variables are kept below their upper bound, and the products
+     * w<sub>j</sub>z<sub>j</sub> of their upper bound pair equal
+     * x<sub>j</sub>s<sub>j</sub>.
+     * </p>
+     * @param x primal variables (output)
+     * @param w upper bound slacks, zero for the columns without upper bound (output)
+     * @param y dual variables (output)
+     * @param s reduced costs (output)
+     * @param z upper bound duals, zero for the columns without upper bound (output)
+     * @return false if the normal matrix cannot be factorized
+     */
+    private boolean initialize(final double[] x, final double[] w, final double[] y,
+                               final double[] s, final double[] z) {
+
+        final double[] d = new double[numColumns];
+        Arrays.fill(d, 1.0);
+        if (!normalEquations.factorize(d)) {
+            return false;
+        }
+
+        // x = A^T (AA^T)^-1 b, y = (AA^T)^-1 Ac, s = c - A^T y
+        final double[] v = rhs.clone();
+        normalEquations.solve(v);
+        multiplyTransposed(v, x);
+        multiply(cost, y);
+        normalEquations.solve(y);
+        multiplyTransposed(y, s);
+        for (int j = 0; j < numColumns; j++) {
+            s[j] = cost[j] - s[j];
+        }
+
+        // shift into the positive orthant
+        double minX = 0;
+        double minS = 0;
+        for (int j = 0; j < numColumns; j++) {
+            minX = Math.min(minX, x[j]);
+            minS = Math.min(minS, s[j]);
+        }
+        double sumX = 0;
+        double sumS = 0;
+        double xs   = 0;
+        for (int j = 0; j < numColumns; j++) {
+            x[j] -= 1.5 * minX;
+            s[j] -= 1.5 * minS;
+            sumX += x[j];
+            sumS += s[j];
+            xs   += x[j] * s[j];
+        }
+
+        // balance the products, keeping every variable away from zero
+        final double shiftX = (sumS > 0) ? 0.5 * xs / sumS : 0;
+        final double shiftS = (sumX > 0) ? 0.5 * xs / sumX : 0;
+        for (int j = 0; j < numColumns; j++) {
+            x[j] = Math.max(x[j] + shiftX, 1.0e-2);
+            s[j] = Math.max(s[j] + shiftS, 1.0e-2);
+            if (upper[j] < Double.POSITIVE_INFINITY) {
+                if (x[j] >= upper[j]) {
+                    x[j] = Math.max(0.5 * upper[j], 1.0e-2);
+                }
+                w[j] = Math.max(upper[j] - x[j], 1.0e-2);
+                z[j] = x[j] * s[j] / w[j];
+            }
+        }
+        return true;
+
+    }
+
+    /**
+     * Run the predictor-corrector iterations.
+     * <p>
+     * On an infeasible or unbounded problem, the iterates either grow without
+     * bound or get stuck on the boundary with non-zero residuals; the
+     * iterations are stopped in both cases.
+     * </p>
+     * @param x primal variables
+     * @param w upper bound slacks
+     * @param y dual variables
+     * @param s reduced costs
+     * @param z upper bound duals
+     * @return false if the iterates diverged or stalled
+     * @exception OptimizationException if the maximal number of iterations is
+     * exceeded or the solve is cancelled
+     */
+    private boolean iterate(final double[] x, final double[] w, final double[] y,
+                            final double[] s, final double[] z)
+        throws OptimizationException {
+
+        final double normB = 1 + Math.max(normInf(rhs), getLargestBound());
+        final double normC = 1 + normInf(cost);
+        final double[] rp  = new double[m];
+        final double[] ru  = new double[numColumns];
+        final double[] rd  = new double[numColumns];
+        final double[] rxs = new double[numColumns];
+        final double[] rwz = new double[numColumns];
+        final double[] d   = new double[numColumns];
+        final double[] dx  = new double[numColumns];
+        final double[] dw  = new double[numColumns];
+        final double[] dy  = new double[m];
+        final double[] ds  = new double[numColumns];
+        final double[] dz  = new double[numColumns];
+        final double[] dxAffine = new double[numColumns];
+        final double[] dwAffine = new double[numColumns];
+        final double[] dsAffine = new double[numColumns];
+        final double[] dzAffine = new double[numColumns];
+
+        while (true) {
+
+            // residuals of the primal, upper bound and dual constraints
+            multiply(x, rp);
+            for (int i = 0; i < m; i++) {
+                rp[i] = rhs[i] - rp[i];
+            }
+            multiplyTransposed(y, rd);
+            double gap = 0;
+            double primalValue = 0;
+            double dualValue   = 0;
+            for (int j = 0; j < numColumns; j++) {
+                rd[j] = cost[j] - rd[j] - s[j] + z[j];
+                gap  += x[j] * s[j];
+                primalValue += cost[j] * x[j];
+                if (upper[j] < Double.POSITIVE_INFINITY) {
+                    ru[j] = upper[j] - x[j] - w[j];
+                    gap  += w[j] * z[j];
+                    dualValue -= upper[j] * z[j];
+                }
+            }
+            for (int i = 0; i < m; i++) {
+                dualValue += rhs[i] * y[i];
+            }
+            final double primalResidual = Math.max(normInf(rp), normInf(ru));
+            if (primalResidual <= tolerance * normB && normInf(rd) <= tolerance * normC &&
+                Math.abs(primalValue - dualValue) <= tolerance * (1 + Math.abs(primalValue))) {
+                dualObjective = dualValue;
+                return true;
+            }
+            if (normInf(x) > DIVERGENCE * normB || normInf(y) > DIVERGENCE * normC ||
+                (gap <= tolerance * (1 + Math.abs(primalValue)) &&
+                 Math.max(primalResidual / normB, normInf(rd) / normC) > Math.sqrt(tolerance))) {
+                // diverging, or stalled: the complementarity products vanished but the residuals did not
+                return false;
+            }
+            incrementIterationsCounter();
+            final double mu = gap / (numColumns + numBounded);
+
+            // factorize the normal matrix A D A^T with D = (S / X + Z / W)^-1
+            for (int j = 0; j < numColumns; j++) {
+                final double inverse = s[j] / x[j];
+                d[j] = 1.0 / ((upper[j] < Double.POSITIVE_INFINITY) ? inverse + z[j] / w[j] : inverse);
+            }
+            if (!normalEquations.factorize(d)) {
+                return false;
+            }
+
+            // predictor: pure Newton step
+            for (int j = 0; j < numColumns; j++) {
+                rxs[j] = -x[j] * s[j];
+                rwz[j] = -w[j] * z[j];
+            }
+            solveNewton(x, w, s, z, d, rp, ru, rd, rxs, rwz, dxAffine, dwAffine, dy, dsAffine, dzAffine);
+            final double alphaPrimal = Math.min(getMaxStep(x, dxAffine), getMaxStep(w, dwAffine));
+            final double alphaDual   = Math.min(getMaxStep(s, dsAffine), getMaxStep(z, dzAffine));
+            double affineGap = 0;
+            for (int j = 0; j < numColumns; j++) {
+                affineGap += (x[j] + alphaPrimal * dxAffine[j]) * (s[j] + alphaDual * dsAffine[j]) +
+                             (w[j] + alphaPrimal * dwAffine[j]) * (z[j] + alphaDual * dzAffine[j]);
+            }
+            final double ratio = affineGap / gap;
+            final double sigma = ratio * ratio * ratio;
+
+            // corrector: centering and second order terms
+            for (int j = 0; j < numColumns; j++) {
+                rxs[j] = sigma * mu - x[j] * s[j] - dxAffine[j] * dsAffine[j];
+                if (upper[j] < Double.POSITIVE_INFINITY) {
+                    rwz[j] = sigma * mu - w[j] * z[j] - dwAffine[j] * dzAffine[j];
+                }
+            }
+            solveNewton(x, w, s, z, d, rp, ru, rd, rxs, rwz, dx, dw, dy, ds, dz);
+            final double stepPrimal = Math.min(1.0, STEP_RATIO * Math.min(getMaxStep(x, dx), getMaxStep(w, dw)));
+            final double stepDual   = Math.min(1.0, STEP_RATIO * Math.min(getMaxStep(s, ds), getMaxStep(z, dz)));
+            for (int j = 0; j < numColumns; j++) {
+                x[j] += stepPrimal * dx[j];
+                w[j] += stepPrimal * dw[j];
+                s[j] += stepDual   * ds[j];
+                z[j] += stepDual   * dz[j];
+            }
+            for (int i = 0; i < m; i++) {
+                y[i] += stepDual * dy[i];
+            }
+
+        }
+
+    }
+
+    /**
+     * Solve the Newton system of the optimality conditions.
+     * <p>
+     * The system A dx = rp, dx + dw = ru, A<sup>T</sup>dy + ds - dz = rd,
+     * S dx + X ds = rxs, Z dw + W dz = rwz (the upper bound rows only for the
+     * bounded columns) is reduced to the normal equations A D A<sup>T</sup> dy
+     * = rp + A D r, with r = rd - X<sup>-1</sup>rxs + W<sup>-1</sup>(rwz - Z ru).
+     * </p>
+     * @param x primal variables
+     * @param w upper bound slacks
+     * @param s reduced costs
+     * @param z upper bound duals
+     * @param d diagonal of D = (S / X + Z / W)<sup>-1</sup>, factorized in the normal equations
+     * @param rp primal residual
+     * @param ru upper bound residual
+     * @param rd dual residual
+     * @param rxs complementarity residual of the lower bounds
+     * @param rwz complementarity residual of the upper bounds
+     * @param dx step of the primal variables (output)
+     * @param dw step of the upper bound slacks (output)
+     * @param dy step of the dual variables (output)
+     * @param ds step of the reduced costs (output)
+     * @param dz step of the upper bound duals (output)
+     */
+    private void solveNewton(final double[] x, final double[] w, final double[] s, final double[] z,
+                             final double[] d, final double[] rp, final double[] ru, final double[] rd,
+                             final double[] rxs, final double[] rwz,
+                             final double[] dx, final double[] dw, final double[] dy,
+                             final double[] ds, final double[] dz) {
+        // dw holds D r until dx is known
+        for (int j = 0; j < numColumns; j++) {
+            double r = rd[j] - rxs[j] / x[j];
+            if (upper[j] < Double.POSITIVE_INFINITY) {
+                r += (rwz[j] - z[j] * ru[j]) / w[j];
+            }
+            dw[j] = d[j] * r;
+        }
+        multiply(dw, dy);
+        for (int i = 0; i < m; i++) {
+            dy[i] += rp[i];
+        }
+        normalEquations.solve(dy);
+        multiplyTransposed(dy, dx);
+        for (int j = 0; j < numColumns; j++) {
+            dx[j] = d[j] * dx[j] - dw[j];
+            ds[j] = (rxs[j] - s[j] * dx[j]) / x[j];
+            if (upper[j] < Double.POSITIVE_INFINITY) {
+                dw[j] = ru[j] - dx[j];
+                dz[j] = (rwz[j] - z[j] * dw[j]) / w[j];
+            } else {
+                dw[j] = 0;
+                dz[j] = 0;
+            }
+        }
+    }
+
+    /**
+     * Get the largest finite upper bound.
+     * @return largest finite upper bound, 0 if there are none
+     */
+    private double getLargestBound() {
+        double largest = 0;
+        for (final double u : upper) {
+            if (u < Double.POSITIVE_INFINITY) {
+                largest = Math.max(largest, u);
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Get the largest step keeping a vector non-negative.
+     * @param v current vector, non-negative
+     * @param dv direction
+     * @return largest step, infinite if the direction is non-negative
+     */
+    private static double getMaxStep(final double[] v, final double[] dv) {
+        double step = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < v.length; j++) {
+            if (dv[j] < 0) {
+                step = Math.min(step, -v[j] / dv[j]);
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Reach an optimal basic solution from the interior solution.
+     * <p>
+     * A bounded variable whose value (or distance to its upper bound) is small
+     * compared to the matching dual is fixed at that bound, so that the simplex
+     * method only sees the constraint rows that keep a variable, plus one
+     * upper bound row per remaining bounded variable. Fixing is an assumption:
+     * the basic solution is accepted only if its value reaches the dual bound
+     * of the interior point iterations, which proves it optimal for the whole
+     * problem.
+     * </p>
+     * @param objective objective function of the non-negative variables
+     * @param rows constraints on the non-negative variables
+     * @param x primal variables
+     * @param w upper bound slacks
+     * @param s reduced costs
+     * @param z upper bound duals
+     * @return optimal basic solution, null if the fixed variables prevent reaching the optimum
+     * @exception OptimizationException if the simplex iterations fail
+     */
+    private double[] crossover(final LinearObjectiveFunction objective, final List<LinearConstraint> rows,
+                               final double[] x, final double[] w, final double[] s, final double[] z)
+        throws OptimizationException {
+
+        // index of each variable in the crossover problem, -1 for the fixed ones
+        final int n = objective.getCoefficients().getDimension();
+        final int[] kept     = new int[n];
+        final double[] fixed = new double[n];
+        int numKept      = 0;
+        int numBoundRows = 0;
+        for (int j = 0; j < n; j++) {
+            if (upper[j] < Double.POSITIVE_INFINITY) {
+                final double atLower = x[j] / s[j];
+                final double atUpper = w[j] / z[j];
+                if (Math.min(atLower, atUpper) < 1) {
+                    kept[j]  = -1;
+                    fixed[j] = (atLower <= atUpper) ? 0 : upper[j];
+                    continue;
+                }
+                ++numBoundRows;
+            }
+            kept[j] = numKept++;
+        }
+
+        // crossover problem: the constraint rows without the fixed variables, then the upper bound rows
+        final double[] coefficients = objective.getCoefficients().getData();
+        final double[] keptCoefficients = new double[numKept];
+        double constant = objective.getConstantTerm();
+        for (int j = 0; j < n; j++) {
+            if (kept[j] < 0) {
+                constant += coefficients[j] * fixed[j];
+            } else {
+                keptCoefficients[kept[j]] = coefficients[j];
+            }
+        }
+        // a row left with fixed variables only is checked and dropped
+        final List<LinearConstraint> keptRows = new ArrayList<LinearConstraint>(m + numBoundRows);
+        final LinearConstraintBuilder builder = new LinearConstraintBuilder(numKept);
+        final int[] rowMap = new int[m];
+        for (int i = 0; i < m; i++) {
+            final LinearConstraint row = rows.get(i);
+            final int[] indices   = row.getNonZeroIndices();
+            final double[] coefs  = row.getNonZeroValues();
+            double value = row.getValue();
+            int entries  = 0;
+            builder.clear();
+            for (int k = 0; k < indices.length; k++) {
+                if (kept[indices[k]] < 0) {
+                    value -= coefs[k] * fixed[indices[k]];
+                } else {
+                    builder.add(kept[indices[k]], coefs[k]);
+                    ++entries;
+                }
+            }
+            if (entries > 0) {
+                rowMap[i] = keptRows.size();
+                keptRows.add(builder.build(row.getRelationship(), value));
+            } else {
+                rowMap[i] = -1;
+                final double tolerance = epsilon * (1 + Math.abs(row.getValue()));
+                final Relationship relationship = row.getRelationship();
+                if ((relationship != Relationship.GEQ && value < -tolerance) ||
+                    (relationship != Relationship.LEQ && value > tolerance)) {
+                    return null;
+                }
+            }
+        }
+        final int[] boundRow = new int[n];
+        for (int j = 0; j < n; j++) {
+            boundRow[j] = -1;
+            if (kept[j] >= 0 && upper[j] < Double.POSITIVE_INFINITY) {
+                boundRow[j] = keptRows.size();
+                keptRows.add(builder.clear().add(kept[j], 1).build(Relationship.LEQ, upper[j]));
+            }
+        }
+
+        // the same problem in standard form, with one slack column per row
+        // after the variables, and the interior values of all its columns
+        final int rowCount = keptRows.size();
+        final int[] start      = new int[numKept + rowCount + 1];
+        final double[] primal  = new double[numKept + rowCount];
+        final double[] dual    = new double[numKept + rowCount];
+        final int[] index      = new int[columnStart[numColumns] + 2 * numBoundRows];
+        final double[] value   = new double[index.length];
+        int size = 0;
+        for (int j = 0; j < n; j++) {
+            if (kept[j] >= 0) {
+                for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                    index[size]   = rowMap[rowIndex[k]];
+                    value[size++] = values[k];
+                }
+                if (boundRow[j] >= 0) {
+                    index[size]   = boundRow[j];
+                    value[size++] = 1;
+                }
+                primal[kept[j]]    = x[j];
+                dual[kept[j]]      = s[j];
+                start[kept[j] + 1] = size;
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            final int r = rowMap[i];
+            if (r < 0) {
+                continue;
+            }
+            final int j = slackColumn[i];
+            if (j >= 0) {
+                index[size]   = r;
+                value[size++] = values[columnStart[j]];
+                primal[numKept + r] = x[j];
+                dual[numKept + r]   = s[j];
+            }
+            start[numKept + r + 1] = size;
+        }
+        for (int j = 0; j < n; j++) {
+            if (boundRow[j] >= 0) {
+                index[size]   = boundRow[j];
+                value[size++] = 1;
+                primal[numKept + boundRow[j]]    = w[j];
+                dual[numKept + boundRow[j]]      = z[j];
+                start[numKept + boundRow[j] + 1] = size;
+            }
+        }
+
+        final boolean[] pivoted = new boolean[rowCount];
+        final boolean[] basic   = getBasis(rowCount, start, index, value, primal, dual, pivoted);
+        int count = 0;
+        for (int k = 0; k < numKept; k++) {
+            if (basic[k]) {
+                ++count;
+            }
+        }
+        final int[] variables = new int[count];
+        for (int k = 0, l = 0; k < numKept; k++) {
+            if (basic[k]) {
+                variables[l++] = k;
+            }
+        }
+        final List<LinearConstraint> nonBasicSlacks = new ArrayList<LinearConstraint>();
+        for (int i = 0; i < rowCount; i++) {
+            if (pivoted[i] && !basic[numKept + i]) {
+                nonBasicSlacks.add(keptRows.get(i));
+            }
+        }
+
+        final SimplexSession session =
+            new SimplexSession(new LinearObjectiveFunction(keptCoefficients, constant), keptRows, goalType, epsilon);
+        session.setBasis(new SimplexSession.Basis(variables,
+                                                  nonBasicSlacks.toArray(new LinearConstraint[nonBasicSlacks.size()])));
+        final double[] keptPoint;
+        try {
+            keptPoint = session.optimize().getPoint();
+        } catch (NoFeasibleSolutionException e) {
+            if (numKept == n) {
+                throw e;
+            }
+            return null;
+        } finally {
+            simplexIterations += session.getIterations();
+        }
+
+        final double[] point = new double[n];
+        double minimized = 0;
+        for (int j = 0; j < n; j++) {
+            point[j]   = (kept[j] < 0) ? fixed[j] : keptPoint[kept[j]];
+            minimized += cost[j] * point[j];
+        }
+        if (numKept < n &&
+            minimized - dualObjective > epsilon * (1 + Math.abs(dualObjective))) {
+            return null;
+        }
+        return point;
+
+    }
+
+    /**
+     * Choose a starting basis for the crossover.
+     * <p>
+     * The columns whose value is larger than their reduced cost are taken in
+     * decreasing order of their ratio, and kept when they are independent of
+     * the columns already kept; independence is checked by Gaussian
+     * elimination, which also gives each kept column a pivot row. The
+     * eliminated columns are stored sparse, as the constraint matrix. The slack
+     * variables of the rows left without a pivot complete the basis, which is
+     * therefore never singular, even at a degenerate optimum where fewer
+     * columns than constraints are large.
+     * </p>
+     * @param rowCount number of rows
+     * @param start start of each column in index and value, plus the end
+     * @param index rows of the non-zero coefficients, column by column
+     * @param value non-zero coefficients, column by column
+     * @param primal interior value of each column
+     * @param dual interior reduced cost of each column
+     * @param pivoted rows given a pivot by a kept column (output)
+     * @return kept columns
+     */
+    private boolean[] getBasis(final int rowCount, final int[] start, final int[] index, final double[] value,
+                               final double[] primal, final double[] dual, final boolean[] pivoted) {
+
+        // candidates, the most clearly basic first
+        final int columns = start.length - 1;
+        final List<Integer> candidates = new ArrayList<Integer>();
+        for (int j = 0; j < columns; j++) {
+            if (primal[j] > dual[j]) {
+                candidates.add(j);
+            }
+        }
+        Collections.sort(candidates, new Comparator<Integer>() {
+            public int compare(final Integer a, final Integer b) {
+                return Double.compare(primal[b] / dual[b], primal[a] / dual[a]);
+            }
+        });
+
+        // keep the independent candidates; each one is eliminated against
+        // the kept columns whose pivot row it reaches, in the order they were
+        // kept, so that only the rows it fills are ever visited
+        final boolean[] basic = new boolean[columns];
+        final int[] pivotRows = new int[rowCount];
+        final int[] keptAt    = new int[rowCount];
+        Arrays.fill(keptAt, -1);
+        final int[][] eliminatedIndex   = new int[rowCount][];
+        final double[][] eliminatedValue = new double[rowCount][];
+        final double[] v        = new double[rowCount];
+        final boolean[] touched = new boolean[rowCount];
+        final int[] pattern     = new int[rowCount];
+        final PriorityQueue<Integer> pending = new PriorityQueue<Integer>();
+        int kept = 0;
+        for (final int j : candidates) {
+            double scale = 0;
+            int nonZeros = 0;
+            for (int k = start[j]; k < start[j + 1]; k++) {
+                final int i = index[k];
+                v[i] = value[k];
+                touched[i] = true;
+                pattern[nonZeros++] = i;
+                if (keptAt[i] >= 0) {
+                    pending.add(keptAt[i]);
+                }
+                scale = Math.max(scale, Math.abs(value[k]));
+            }
+            while (!pending.isEmpty()) {
+                final int k = pending.poll();
+                final double factor = v[pivotRows[k]];
+                if (factor != 0) {
+                    final int[] uIndex   = eliminatedIndex[k];
+                    final double[] uValue = eliminatedValue[k];
+                    for (int l = 0; l < uIndex.length; l++) {
+                        final int i = uIndex[l];
+                        v[i] -= factor * uValue[l];
+                        if (!touched[i]) {
+                            touched[i] = true;
+                            pattern[nonZeros++] = i;
+                            if (keptAt[i] >= 0) {
+                                pending.add(keptAt[i]);
+                            }
+                        }
+                    }
+                    v[pivotRows[k]] = 0;
+                }
+            }
+            int pivot = -1;
+            int count = 0;
+            for (int l = 0; l < nonZeros; l++) {
+                final int i = pattern[l];
+                if (v[i] != 0) {
+                    ++count;
+                    if (keptAt[i] < 0 && (pivot < 0 || Math.abs(v[i]) > Math.abs(v[pivot]))) {
+                        pivot = i;
+                    }
+                }
+            }
+            if (pivot >= 0 && Math.abs(v[pivot]) > epsilon * scale) {
+                final double inverse = 1.0 / v[pivot];
+                final int[] uIndex   = new int[count];
+                final double[] uValue = new double[count];
+                for (int l = 0, c = 0; l < nonZeros; l++) {
+                    final int i = pattern[l];
+                    if (v[i] != 0) {
+                        uIndex[c]   = i;
+                        uValue[c++] = (i == pivot) ? 1 : v[i] * inverse;
+                    }
+                }
+                eliminatedIndex[kept] = uIndex;
+                eliminatedValue[kept] = uValue;
+                pivotRows[kept]       = pivot;
+                keptAt[pivot]         = kept++;
+                pivoted[pivot]        = true;
+                basic[j]              = true;
+            }
+            for (int l = 0; l < nonZeros; l++) {
+                v[pattern[l]]       = 0;
+                touched[pattern[l]] = false;
+            }
+        }
+        return basic;
+
+    }
+
+    /**
+     * Solve the problem with the two-phase simplex method.
+     * @return optimal basic solution
+     * @exception OptimizationException if the problem is infeasible or unbounded
+     */
+    private RealPointValuePair solveBySimplex()
+        throws OptimizationException {
+        final SimplexSolver solver = new SimplexSolver(epsilon);
+        solver.setMaxIterations(SimplexSession.DEFAULT_MAX_ITERATIONS);
+        try {
+            return (lowerBounds == null) ?
+                   solver.optimize(f, constraints, goalType, restrictToNonNegative) :
+                   solver.optimize(f, constraints, goalType, lowerBounds, upperBounds);
+        } finally {
+            simplexIterations += solver.getIterations();
+        }
+    }
+
+    /**
+     * Compute A v.
+     * @param v vector with one entry per column
+     * @param result vector with one entry per constraint (output)
+     */
+    private void multiply(final double[] v, final double[] result) {
+        Arrays.fill(result, 0.0);
+        for (int j = 0; j < numColumns; j++) {
+            final double vj = v[j];
+            if (vj != 0) {
+                for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                    result[rowIndex[k]] += values[k] * vj;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute A<sup>T</sup> w.
+     * @param w vector with one entry per constraint
+     * @param result vector with one entry per column (output)
+     */
+    private void multiplyTransposed(final double[] w, final double[] result) {
+        for (int j = 0; j < numColumns; j++) {
+            double sum = 0;
+            for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                sum += values[k] * w[rowIndex[k]];
+            }
+            result[j] = sum;
+        }
+    }
+
+    /**
+     * Compute the maximum norm of a vector.
+     * @param v vector
+     * @return largest absolute value of the entries
+     */
+    private static double normInf(final double[] v) {
+        double norm = 0;
+        for (final double vi : v) {
+            norm = Math.max(norm, Math.abs(vi));
+        }
+        return norm;
+    }
+
+}
@@ -17,12 +17,10 @@
 
 package lp.optimization.linear;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 
-import lp.linear.MatrixUtils;
+import lp.MathRuntimeException;
 import lp.linear.RealVector;
 import lp.linear.ArrayRealVector;
 
@@ -45,16 +43,29 @@ import lp.linear.ArrayRealVector;
  * The c<sub>i</sub>, l<sub>i</sub> or r<sub>i</sub> are the coefficients of the constraints, the x<sub>i</sub>
  * are the coordinates of the current point and v is the value of the constraint.
  * </p>
+ * <p>
+ * A constraint involving few of many variables can be built from its non-zero
+ * coefficients only (see {@link LinearConstraintBuilder}). Whatever the way
+ * it is built, the constraint keeps only these coefficients: the full
+ * coefficients vector is created anew by each call to
+ * {@link #getCoefficients()}, which the solvers of this package avoid.
+ * </p>
  * @version $Revision: 1.1 $ $Date: 2009/12/12 00:08:03 $
  * @since 2.0
  */
 public class LinearConstraint implements Serializable {
 
     /** Serializable version identifier. */
-    private static final long serialVersionUID = -764632794033034092L;
+    private static final long serialVersionUID = 7046617916163212547L;
+
+    /** Number of variables. */
+    private final int dimension;
+
+    /** Indices of the non-zero coefficients, in increasing order. */
+    private final int[] indices;
 
-    /** Coefficients of the constraint (left hand side). */
-    private final transient RealVector coefficients;
+    /** Non-zero coefficients. */
+    private final double[] values;
 
     /** Relationship between left and right hand sides (=, &lt;=, >=). */
     private final Relationship relationship;
@@ -97,7 +108,59 @@ public class LinearConstraint implements Serializable {
      */
     public LinearConstraint(final RealVector coefficients, final Relationship relationship,
                             final double value) {
-        this.coefficients = coefficients;
+        this.dimension    = coefficients.getDimension();
+        this.indices      = getNonZeroIndices(coefficients);
+        this.values       = getNonZeroValues(coefficients, indices);
+        this.relationship = relationship;
+        this.value        = value;
+    }
+
+    /**
+     * Build a constraint involving a single linear equation from its non-zero coefficients.
+     * <p>
+     * A linear constraint with a single linear equation has one of the forms:
+     * <ul>
+     *   <li>c<sub>1</sub>x<sub>1</sub> + ... c<sub>n</sub>x<sub>n</sub> = v</li>
+     *   <li>c<sub>1</sub>x<sub>1</sub> + ... c<sub>n</sub>x<sub>n</sub> &lt;= v</li>
+     *   <li>c<sub>1</sub>x<sub>1</sub> + ... c<sub>n</sub>x<sub>n</sub> >= v</li>
+     * </ul>
+     * where only the c<sub>i</sub> that are not 0 are given.
+     * </p>
+     * @param dimension The number of variables n
+     * @param indices The indices i of the given coefficients, in strictly increasing order
+     * @param values The given coefficients c<sub>i</sub>
+     * @param relationship The type of (in)equality used in the constraint
+     * @param value The value of the constraint (right hand side)
+     * @exception IllegalArgumentException if the arrays have different lengths
+     * or the indices are not strictly increasing between 0 and n - 1
+     */
+    public LinearConstraint(final int dimension, final int[] indices, final double[] values,
+                            final Relationship relationship, final double value) {
+        if (indices.length != values.length) {
+            throw MathRuntimeException.createIllegalArgumentException(
+                  "{0} indices but {1} coefficients", indices.length, values.length);
+        }
+        int nonZeros = 0;
+        for (int k = 0; k < indices.length; ++k) {
+            if (indices[k] < 0 || indices[k] >= dimension ||
+                (k > 0 && indices[k] <= indices[k - 1])) {
+                throw MathRuntimeException.createIllegalArgumentException(
+                      "coefficient indices must be strictly increasing between 0 and {0}",
+                      dimension - 1);
+            }
+            if (values[k] != 0) {
+                ++nonZeros;
+            }
+        }
+        this.dimension = dimension;
+        this.indices   = new int[nonZeros];
+        this.values    = new double[nonZeros];
+        for (int k = 0, l = 0; k < indices.length; ++k) {
+            if (values[k] != 0) {
+                this.indices[l]  = indices[k];
+                this.values[l++] = values[k];
+            }
+        }
         this.relationship = relationship;
         this.value        = value;
     }
@@ -128,7 +191,10 @@ public class LinearConstraint implements Serializable {
         for (int i = 0; i < sub.length; ++i) {
             sub[i] = lhsCoefficients[i] - rhsCoefficients[i];
         }
-        this.coefficients = new ArrayRealVector(sub, false);
+        final RealVector coefficients = new ArrayRealVector(sub, false);
+        this.dimension    = sub.length;
+        this.indices      = getNonZeroIndices(coefficients);
+        this.values       = getNonZeroValues(coefficients, indices);
         this.relationship = relationship;
         this.value        = rhsConstant - lhsConstant;
     }
@@ -155,17 +221,88 @@ public class LinearConstraint implements Serializable {
     public LinearConstraint(final RealVector lhsCoefficients, final double lhsConstant,
                             final Relationship relationship,
                             final RealVector rhsCoefficients, final double rhsConstant) {
-        this.coefficients = lhsCoefficients.subtract(rhsCoefficients);
+        final RealVector coefficients = lhsCoefficients.subtract(rhsCoefficients);
+        this.dimension    = coefficients.getDimension();
+        this.indices      = getNonZeroIndices(coefficients);
+        this.values       = getNonZeroValues(coefficients, indices);
         this.relationship = relationship;
         this.value        = rhsConstant - lhsConstant;
     }
 
     /**
      * Get the coefficients of the constraint (left hand side).
+     * <p>
+     * Each call builds a new vector of {@link #getDimension()} entries.
+     * </p>
      * @return coefficients of the constraint (left hand side)
      */
     public RealVector getCoefficients() {
-        return coefficients;
+        final double[] data = new double[dimension];
+        for (int k = 0; k < indices.length; ++k) {
+            data[indices[k]] = values[k];
+        }
+        return new ArrayRealVector(data, false);
+    }
+
+    /**
+     * Get the number of variables of the constraint.
+     * @return number of variables
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Get the indices of the non-zero coefficients.
+     * @return indices of the non-zero coefficients, in increasing order
+     * (the array is shared and must not be modified)
+     */
+    int[] getNonZeroIndices() {
+        return indices;
+    }
+
+    /**
+     * Get the non-zero coefficients.
+     * @return non-zero coefficients, in the order of {@link #getNonZeroIndices()}
+     * (the array is shared and must not be modified)
+     */
+    double[] getNonZeroValues() {
+        return values;
+    }
+
+    /**
+     * Find the non-zero coefficients of a vector.
+     * @param vector coefficients vector
+     * @return indices of the non-zero coefficients, in increasing order
+     */
+    private static int[] getNonZeroIndices(final RealVector vector) {
+        int nonZeros = 0;
+        for (int i = 0; i < vector.getDimension(); ++i) {
+            if (vector.getEntry(i) != 0) {
+                ++nonZeros;
+            }
+        }
+        final int[] nonZeroIndices = new int[nonZeros];
+        for (int i = 0, k = 0; k < nonZeros; ++i) {
+            if (vector.getEntry(i) != 0) {
+                nonZeroIndices[k++] = i;
+            }
+        }
+        return nonZeroIndices;
+    }
+
+    /**
+     * Get some coefficients of a vector.
+     * @param vector coefficients vector
+     * @param nonZeroIndices indices of the coefficients
+     * @return coefficients at the given indices
+     */
+    private static double[] getNonZeroValues(final RealVector vector, final int[] nonZeroIndices) {
+        final double[] nonZeroValues = new double[nonZeroIndices.length];
+        for (int k = 0; k < nonZeroIndices.length; ++k) {
+            nonZeroValues[k] = vector.getEntry(nonZeroIndices[k]);
+        }
+        return nonZeroValues;
     }
 
     /**
@@ -201,7 +338,9 @@ public class LinearConstraint implements Serializable {
           LinearConstraint rhs = (LinearConstraint) other;
           return (relationship == rhs.relationship) &&
                  (value        == rhs.value) &&
-                 coefficients.equals(rhs.coefficients);
+                 (dimension    == rhs.dimension) &&
+                 Arrays.equals(indices, rhs.indices) &&
+                 Arrays.equals(values, rhs.values);
 
       } catch (ClassCastException ex) {
           // ignore exception
@@ -215,28 +354,9 @@ public class LinearConstraint implements Serializable {
     public int hashCode() {
         return relationship.hashCode() ^
                Double.valueOf(value).hashCode() ^
-               coefficients.hashCode();
-    }
-
-    /** Serialize the instance.
-     * @param oos stream where object should be written
-     * @throws IOException if object cannot be written to stream
-     */
-    private void writeObject(ObjectOutputStream oos)
-        throws IOException {
-        oos.defaultWriteObject();
-        MatrixUtils.serializeRealVector(coefficients, oos);
-    }
-
-    /** Deserialize the instance.
-     * @param ois stream from which the object should be read
-     * @throws ClassNotFoundException if a class in the stream cannot be found
-     * @throws IOException if object cannot be read from the stream
-     */
-    private void readObject(ObjectInputStream ois)
-      throws ClassNotFoundException, IOException {
-        ois.defaultReadObject();
-        MatrixUtils.deserializeRealVector(this, "coefficients", ois);
+               dimension ^
+               Arrays.hashCode(indices) ^
+               Arrays.hashCode(values);
     }
 
 }
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.Arrays;
+
+import lp.MathRuntimeException;
+
+/**
+ * Builds sparse linear constraints one coefficient at a time.
+ * <p>
+ * Only the coefficients that are added are stored, so building a constraint
+ * over a few of many variables takes memory in proportion to the few. The
+ * coefficients can be added in any order, and several coefficients added for
+ * the same variable are summed. A builder can be reused: {@link #clear()}
+ * removes all the coefficients, and {@link #build(Relationship, double)}
+ * leaves them in place so that similar constraints can be built in a row.
+ * </p>
+ * <pre>
+ *   LinearConstraintBuilder builder = new LinearConstraintBuilder(n);
+ *   LinearConstraint atMostOne = builder.add(i, 1).add(j, 1).build(Relationship.LEQ, 1);
+ * </pre>
+ * @version $Revision$ $Date$
+ */
+public class LinearConstraintBuilder {
+
+    /** Number of variables. */
+    private final int dimension;
+
+    /** Number of coefficients added. */
+    private int size;
+
+    /** Indices of the coefficients added. */
+    private int[] indices;
+
+    /** Coefficients added. */
+    private double[] values;
+
+    /**
+     * Build an empty builder.
+     * @param dimension number of variables of the constraints
+     */
+    public LinearConstraintBuilder(final int dimension) {
+        this.dimension = dimension;
+        this.indices   = new int[4];
+        this.values    = new double[4];
+    }
+
+    /**
+     * Add a coefficient.
+     * @param index index of the variable
+     * @param coefficient coefficient of the variable, added to the ones
+     * already given for the same variable
+     * @return this builder
+     * @exception IllegalArgumentException if the index is not between 0 and
+     * the number of variables - 1
+     */
+    public LinearConstraintBuilder add(final int index, final double coefficient) {
+        if (index < 0 || index >= dimension) {
+            throw MathRuntimeException.createIllegalArgumentException(
+                  "index {0} out of allowed range [{1}, {2}]", index, 0, dimension - 1);
+        }
+        if (size == indices.length) {
+            final int[] newIndices = new int[2 * size];
+            System.arraycopy(indices, 0, newIndices, 0, size);
+            indices = newIndices;
+            final double[] newValues = new double[2 * size];
+            System.arraycopy(values, 0, newValues, 0, size);
+            values = newValues;
+        }
+        indices[size]  = index;
+        values[size++] = coefficient;
+        return this;
+    }
+
+    /**
+     * Remove all the coefficients.
+     * @return this builder
+     */
+    public LinearConstraintBuilder clear() {
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Build a constraint from the coefficients added so far.
+     * @param relationship type of (in)equality used in the constraint
+     * @param value value of the constraint (right hand side)
+     * @return a new constraint
+     */
+    public LinearConstraint build(final Relationship relationship, final double value) {
+
+        // coefficients added in increasing index order, as by a reader going
+        // through a file column by column, need neither sorting nor summing
+        boolean increasing = true;
+        for (int k = 1; increasing && k < size; ++k) {
+            increasing = indices[k] > indices[k - 1];
+        }
+        if (increasing) {
+            final int[] constraintIndices   = new int[size];
+            final double[] constraintValues = new double[size];
+            System.arraycopy(indices, 0, constraintIndices, 0, size);
+            System.arraycopy(values, 0, constraintValues, 0, size);
+            return new LinearConstraint(dimension, constraintIndices, constraintValues, relationship, value);
+        }
+
+        // sort the coefficients by index, keeping the order of addition on ties
+        final long[] keys = new long[size];
+        for (int k = 0; k < size; ++k) {
+            keys[k] = (((long) indices[k]) << 32) | k;
+        }
+        Arrays.sort(keys);
+
+        // sum the coefficients of the same variable
+        final int[] sortedIndices   = new int[size];
+        final double[] sortedValues = new double[size];
+        int count = 0;
+        for (int k = 0; k < size; ++k) {
+            final int position = (int) (keys[k] & 0xffffffffL);
+            if (count > 0 && sortedIndices[count - 1] == indices[position]) {
+                sortedValues[count - 1] += values[position];
+            } else {
+                sortedIndices[count]  = indices[position];
+                sortedValues[count++] = values[position];
+            }
+        }
+
+        final int[] constraintIndices   = new int[count];
+        final double[] constraintValues = new double[count];
+        System.arraycopy(sortedIndices, 0, constraintIndices, 0, count);
+        System.arraycopy(sortedValues, 0, constraintValues, 0, count);
+        return new LinearConstraint(dimension, constraintIndices, constraintValues, relationship, value);
+
+    }
+
+}
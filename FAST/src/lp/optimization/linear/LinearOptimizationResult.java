@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+/**
+ * Outcome of one solve by {@link AbstractLinearOptimizer#solve(LinearProblem)}
+ * or {@link AbstractLinearOptimizer#solveAll(java.util.List, int)}.
+ * <p>
+ * A result holds either the solution and its {@link SolveStatus status}, or
+ * the exception that ended the solve, with the work done in both cases. The
+ * status tells whether a solution is optimal or only the best point found
+ * before a limit stopped the solve. In a batch, a runtime exception thrown
+ * by the optimizer is held as the cause of an {@link OptimizationException}.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+public class LinearOptimizationResult {
+
+    /** Solution, null if the solve failed. */
+    private final RealPointValuePair solution;
+
+    /** How the solve ended, null if it failed. */
+    private final SolveStatus status;
+
+    /** Exception that ended the solve, null if it succeeded. */
+    private final OptimizationException failure;
+
+    /** Number of iterations performed. */
+    private final int iterations;
+
+    /** Wall clock duration of the solve in nanoseconds. */
+    private final long solveTime;
+
+    /**
+     * Build a result.
+     * @param solution solution, null if the solve failed
+     * @param status how the solve ended, null if it failed
+     * @param failure exception that ended the solve, null if it succeeded
+     * @param iterations number of iterations performed
+     * @param solveTime wall clock duration of the solve in nanoseconds
+     */
+    public LinearOptimizationResult(final RealPointValuePair solution, final SolveStatus status,
+                                    final OptimizationException failure,
+                                    final int iterations, final long solveTime) {
+        this.solution   = solution;
+        this.status     = status;
+        this.failure    = failure;
+        this.iterations = iterations;
+        this.solveTime  = solveTime;
+    }
+
+    /**
+     * Check whether the solve found a solution.
+     * @return true if a solution is available
+     */
+    public boolean isSolved() {
+        return solution != null;
+    }
+
+    /**
+     * Get the solution.
+     * @return the point/value pair giving the optimal value for objective function,
+     * null if the solve failed
+     */
+    public RealPointValuePair getSolution() {
+        return solution;
+    }
+
+    /**
+     * Get how the solve ended.
+     * @return {@link SolveStatus#OPTIMAL} if the solution is optimal, the limit
+     * that stopped the solve otherwise, null if the solve failed
+     */
+    public SolveStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the exception that ended the solve.
+     * @return exception thrown by the optimizer, null if the solve succeeded
+     */
+    public OptimizationException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Get the number of iterations performed.
+     * @return number of iterations performed
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Get the wall clock duration of the solve.
+     * @return duration of the solve in nanoseconds
+     */
+    public long getSolveTime() {
+        return solveTime;
+    }
+
+}
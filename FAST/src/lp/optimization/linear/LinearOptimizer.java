@@ -86,4 +86,27 @@ public interface LinearOptimizer {
                                GoalType goalType, boolean restrictToNonNegative)
         throws OptimizationException;
 
+    /** Optimizes an objective function with bounded variables.
+     * <p>
+     * Each variable x<sub>j</sub> is restricted to the interval
+     * [lowerBounds[j], upperBounds[j]]. Infinite bounds are allowed on
+     * either side, so a variable can be free, bounded on one side only
+     * or bounded on both sides.
+     * </p>
+     * @param f linear objective function
+     * @param constraints linear constraints
+     * @param goalType type of optimization goal: either {@link GoalType#MAXIMIZE}
+     * or {@link GoalType#MINIMIZE}
+     * @param lowerBounds lower bounds of the variables, may contain
+     * {@link Double#NEGATIVE_INFINITY}
+     * @param upperBounds upper bounds of the variables, may contain
+     * {@link Double#POSITIVE_INFINITY}
+     * @return point/value pair giving the optimal value for objective function
+     * @exception OptimizationException if no solution fulfilling the constraints
+     * and the bounds can be found in the allowed number of iterations
+     */
+    RealPointValuePair optimize(LinearObjectiveFunction f, Collection<LinearConstraint> constraints,
+                                GoalType goalType, double[] lowerBounds, double[] upperBounds)
+        throws OptimizationException;
+
 }
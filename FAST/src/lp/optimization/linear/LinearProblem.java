@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import lp.optimization.GoalType;
+
+/**
+ * A linear optimization problem, as given to
+ * {@link AbstractLinearOptimizer#solve(LinearProblem)}.
+ * <p>Instances are immutable and can be shared between threads.</p>
+ * @version $Revision$ $Date$
+ */
+public class LinearProblem {
+
+    /** Linear objective function. */
+    private final LinearObjectiveFunction f;
+
+    /** Linear constraints. */
+    private final List<LinearConstraint> constraints;
+
+    /** Type of optimization goal. */
+    private final GoalType goalType;
+
+    /** Whether to restrict the variables to non-negative values. */
+    private final boolean restrictToNonNegative;
+
+    /** Lower bounds of the variables, null if the problem has no bounds. */
+    private final double[] lowerBounds;
+
+    /** Upper bounds of the variables, null if the problem has no bounds. */
+    private final double[] upperBounds;
+
+    /**
+     * Build a problem.
+     * @param f linear objective function
+     * @param constraints linear constraints (they are copied)
+     * @param goalType type of optimization goal: either {@link GoalType#MAXIMIZE}
+     * or {@link GoalType#MINIMIZE}
+     * @param restrictToNonNegative whether to restrict the variables to non-negative values
+     */
+    public LinearProblem(final LinearObjectiveFunction f, final Collection<LinearConstraint> constraints,
+                         final GoalType goalType, final boolean restrictToNonNegative) {
+        this.f                     = f;
+        this.constraints           = Collections.unmodifiableList(new ArrayList<LinearConstraint>(constraints));
+        this.goalType              = goalType;
+        this.restrictToNonNegative = restrictToNonNegative;
+        this.lowerBounds           = null;
+        this.upperBounds           = null;
+    }
+
+    /**
+     * Build a problem with bounded variables.
+     * @param f linear objective function
+     * @param constraints linear constraints (they are copied)
+     * @param goalType type of optimization goal: either {@link GoalType#MAXIMIZE}
+     * or {@link GoalType#MINIMIZE}
+     * @param lowerBounds lower bounds of the variables (they are copied)
+     * @param upperBounds upper bounds of the variables (they are copied)
+     * @see LinearOptimizer#optimize(LinearObjectiveFunction, Collection, GoalType, double[], double[])
+     */
+    public LinearProblem(final LinearObjectiveFunction f, final Collection<LinearConstraint> constraints,
+                         final GoalType goalType, final double[] lowerBounds, final double[] upperBounds) {
+        this.f                     = f;
+        this.constraints           = Collections.unmodifiableList(new ArrayList<LinearConstraint>(constraints));
+        this.goalType              = goalType;
+        this.lowerBounds           = lowerBounds.clone();
+        this.upperBounds           = upperBounds.clone();
+        boolean nonNegative = true;
+        for (final double bound : lowerBounds) {
+            nonNegative &= bound >= 0;
+        }
+        this.restrictToNonNegative = nonNegative;
+    }
+
+    /**
+     * Get the objective function.
+     * @return linear objective function
+     */
+    public LinearObjectiveFunction getObjectiveFunction() {
+        return f;
+    }
+
+    /**
+     * Get the constraints.
+     * @return unmodifiable list of the linear constraints
+     */
+    public List<LinearConstraint> getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Get the type of optimization goal.
+     * @return type of optimization goal
+     */
+    public GoalType getGoalType() {
+        return goalType;
+    }
+
+    /**
+     * Check whether the variables are restricted to non-negative values.
+     * @return true if the variables are restricted to non-negative values
+     */
+    public boolean isRestrictedToNonNegative() {
+        return restrictToNonNegative;
+    }
+
+    /**
+     * Check whether the problem has variable bounds.
+     * @return true if the problem was built with lower and upper bounds
+     */
+    public boolean isBounded() {
+        return lowerBounds != null;
+    }
+
+    /**
+     * Get the lower bounds of the variables.
+     * @return a copy of the lower bounds, null if the problem has no bounds
+     */
+    public double[] getLowerBounds() {
+        return (lowerBounds == null) ? null : lowerBounds.clone();
+    }
+
+    /**
+     * Get the upper bounds of the variables.
+     * @return a copy of the upper bounds, null if the problem has no bounds
+     */
+    public double[] getUpperBounds() {
+        return (upperBounds == null) ? null : upperBounds.clone();
+    }
+
+}
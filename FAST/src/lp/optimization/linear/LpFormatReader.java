@@ -0,0 +1,718 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.List;
+
+import lp.MathRuntimeException;
+import lp.optimization.GoalType;
+
+/**
+ * Reads a linear problem in CPLEX LP format.
+ * <p>
+ * The input is tokenized from a character buffer as it is read, so the
+ * memory used does not depend on the size of the file but on the number of
+ * non-zero coefficients. Keywords are case insensitive and section keywords
+ * are only recognized at the start of a line.
+ * </p>
+ * <p>
+ * The supported sections are the objective (maximize or minimize), subject
+ * to, bounds, general, integer, binary and end. The objective function may
+ * have a constant term. Integrality is not represented in a
+ * {@link LinearProblem}: general and integer variables are read as
+ * continuous ones and binary variables as continuous variables bounded by
+ * 0 and 1. Bounds of magnitude 1e20 or more are infinite. Quadratic terms,
+ * ranged constraints, semi-continuous variables and SOS are not supported.
+ * </p>
+ * @see LpFormatWriter
+ * @version $Revision$ $Date$
+ */
+public class LpFormatReader {
+
+    /** Size of the input buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Token type: end of input. */
+    private static final int END = 0;
+
+    /** Token type: name. */
+    private static final int NAME = 1;
+
+    /** Token type: number. */
+    private static final int NUMBER = 2;
+
+    /** Token type: operator. */
+    private static final int OPERATOR = 3;
+
+    /** Section: objective function. */
+    private static final int OBJECTIVE = 0;
+
+    /** Section: constraints. */
+    private static final int CONSTRAINTS = 1;
+
+    /** Section: bounds. */
+    private static final int BOUNDS = 2;
+
+    /** Section: list of integer variables. */
+    private static final int INTEGERS = 3;
+
+    /** Section: list of binary variables. */
+    private static final int BINARIES = 4;
+
+    /** Input. */
+    private final Reader in;
+
+    /** Input buffer. */
+    private final char[] buffer;
+
+    /** Position of the next character in the buffer. */
+    private int position;
+
+    /** Number of characters in the buffer. */
+    private int limit;
+
+    /** Current line number. */
+    private int lineNumber;
+
+    /** Whether no token has been read yet on the current line. */
+    private boolean lineStart;
+
+    /** Look-ahead tokens. */
+    private final Token[] lookAhead;
+
+    /** Number of look-ahead tokens available. */
+    private int available;
+
+    /** Problem read so far. */
+    private ProblemBuilder builder;
+
+    /**
+     * Build a reader.
+     * @param in input, the reader does its own buffering
+     */
+    public LpFormatReader(final Reader in) {
+        this.in        = in;
+        this.buffer    = new char[BUFFER_SIZE];
+        this.lookAhead = new Token[2];
+    }
+
+    /**
+     * Read a problem.
+     * @return problem read
+     * @exception IOException if the input cannot be read
+     * @exception ParseException if the input is not a valid LP file, the
+     * error offset is the line number
+     */
+    public LinearProblem read()
+        throws IOException, ParseException {
+
+        builder    = new ProblemBuilder();
+        position   = 0;
+        limit      = 0;
+        lineNumber = 1;
+        lineStart  = true;
+        available  = 0;
+
+        GoalType goalType = null;
+        int section = -1;
+        while (true) {
+
+            final Token token = peek(0);
+            if (token.type == END) {
+                break;
+            }
+
+            final int keyword = getSection(token);
+            if (keyword >= 0 || isEnd(token)) {
+                next();
+                if (isEnd(token)) {
+                    break;
+                }
+                if (keyword == OBJECTIVE) {
+                    if (goalType != null) {
+                        throw error(token, "duplicate objective section");
+                    }
+                    goalType = token.text.toLowerCase().startsWith("max") ? GoalType.MAXIMIZE : GoalType.MINIMIZE;
+                } else if (keyword == CONSTRAINTS && token.text.equalsIgnoreCase("subject")) {
+                    expectName("to");
+                } else if (keyword == CONSTRAINTS && token.text.equalsIgnoreCase("such")) {
+                    expectName("that");
+                }
+                section = keyword;
+                continue;
+            }
+
+            switch (section) {
+            case OBJECTIVE :
+                skipLabel();
+                builder.addObjectiveConstant(readExpression(-1));
+                break;
+            case CONSTRAINTS :
+                readConstraint();
+                break;
+            case BOUNDS :
+                readBound();
+                break;
+            case INTEGERS :
+            case BINARIES :
+                if (token.type != NAME) {
+                    throw error(token, "variable name expected instead of {0}", token.text);
+                }
+                next();
+                final int column = builder.getVariable(token.text);
+                if (section == BINARIES) {
+                    builder.setLowerBound(column, 0);
+                    builder.setUpperBound(column, 1);
+                }
+                break;
+            default :
+                throw error(token, "objective section expected instead of {0}", token.text);
+            }
+
+        }
+
+        if (goalType == null) {
+            throw MathRuntimeException.createParseException(lineNumber, "missing objective section");
+        }
+        return builder.build(goalType);
+
+    }
+
+    /**
+     * Get the names of the variables of the problem read.
+     * @return variable names, in the order of their first appearance
+     */
+    public List<String> getVariableNames() {
+        return builder.getVariableNames();
+    }
+
+    /**
+     * Get the names of the constraints of the problem read.
+     * @return constraint names, unnamed constraints are named R1, R2...
+     * after their position
+     */
+    public List<String> getConstraintNames() {
+        return builder.getConstraintNames();
+    }
+
+    /**
+     * Read one constraint: [name:] expression operator [sign] number.
+     * @exception IOException if the input cannot be read
+     * @exception ParseException if the constraint is invalid
+     */
+    private void readConstraint()
+        throws IOException, ParseException {
+
+        final Token first = peek(0);
+        String name = skipLabel();
+        if (name == null) {
+            name = "R" + (builder.getConstraintCount() + 1);
+        }
+
+        // the relationship is only known at the end, store the terms in a temporary row
+        final int row = builder.addConstraint(name, Relationship.EQ);
+        if (row < 0) {
+            throw error(first, "duplicate constraint {0}", name);
+        }
+        final double constant = readExpression(row);
+
+        final Token operator = next();
+        final Relationship relationship = getRelationship(operator);
+        if (relationship == null) {
+            throw error(operator, "comparison operator expected instead of {0}", operator.text);
+        }
+        builder.setRelationship(row, relationship);
+        builder.setRhs(row, readValue() - constant);
+
+    }
+
+    /**
+     * Read one bound: name free, name op value, value op name [op value].
+     * @exception IOException if the input cannot be read
+     * @exception ParseException if the bound is invalid
+     */
+    private void readBound()
+        throws IOException, ParseException {
+
+        final Token first = peek(0);
+        if (first.type == NAME && !isInfinity(first)) {
+            next();
+            final int column = builder.getVariable(first.text);
+            final Token operator = next();
+            if (operator.type == NAME && operator.text.equalsIgnoreCase("free")) {
+                builder.setLowerBound(column, Double.NEGATIVE_INFINITY);
+                builder.setUpperBound(column, Double.POSITIVE_INFINITY);
+                return;
+            }
+            setBound(column, getRelationship(operator), readValue(), operator);
+            return;
+        }
+
+        final double value = readValue();
+        final Token operator = next();
+        final Relationship relationship = getRelationship(operator);
+        final Token variable = next();
+        if (variable.type != NAME) {
+            throw error(variable, "variable name expected instead of {0}", variable.text);
+        }
+        final int column = builder.getVariable(variable.text);
+        // value op x is x reverse(op) value
+        setBound(column, reverse(relationship), value, operator);
+        if (getRelationship(peek(0)) != null) {
+            final Token second = next();
+            setBound(column, getRelationship(second), readValue(), second);
+        }
+
+    }
+
+    /**
+     * Set a bound of a variable.
+     * @param column index of the variable
+     * @param relationship relationship between the variable and the value
+     * @param value bound
+     * @param operator operator token, for error messages
+     * @exception ParseException if the relationship is null
+     */
+    private void setBound(final int column, final Relationship relationship, final double value,
+                          final Token operator)
+        throws ParseException {
+        if (relationship == null) {
+            throw error(operator, "comparison operator expected instead of {0}", operator.text);
+        }
+        if (relationship != Relationship.LEQ) {
+            builder.setLowerBound(column, value);
+        }
+        if (relationship != Relationship.GEQ) {
+            builder.setUpperBound(column, value);
+        }
+    }
+
+    /**
+     * Read a linear expression, up to a comparison operator, a section keyword or the end of input.
+     * @param row constraint receiving the terms, -1 for the objective function
+     * @return constant term of the expression
+     * @exception IOException if the input cannot be read
+     * @exception ParseException if the expression is invalid
+     */
+    private double readExpression(final int row)
+        throws IOException, ParseException {
+
+        double constant = 0;
+        while (true) {
+
+            Token token = peek(0);
+            if (token.type == END || getRelationship(token) != null ||
+                getSection(token) >= 0 || isEnd(token)) {
+                return constant;
+            }
+
+            double sign = 1;
+            while (token.type == OPERATOR && (token.text.equals("+") || token.text.equals("-"))) {
+                if (token.text.equals("-")) {
+                    sign = -sign;
+                }
+                next();
+                token = peek(0);
+            }
+
+            double coefficient = sign;
+            if (token.type == NUMBER) {
+                coefficient *= token.value;
+                next();
+                token = peek(0);
+                if (token.type != NAME || (token.lineStart && (getSection(token) >= 0 || isEnd(token)))) {
+                    constant += coefficient;
+                    continue;
+                }
+            }
+            if (token.type != NAME) {
+                throw error(token, "variable name expected instead of {0}", token.text);
+            }
+            next();
+            final int column = builder.getVariable(token.text);
+            if (row < 0) {
+                builder.addObjectiveCoefficient(column, coefficient);
+            } else {
+                builder.addCoefficient(row, column, coefficient);
+            }
+
+        }
+
+    }
+
+    /**
+     * Skip a "name:" label if there is one.
+     * @return the label, null if there was none
+     * @exception IOException if the input cannot be read
+     */
+    private String skipLabel()
+        throws IOException {
+        final Token first = peek(0);
+        if (first.type == NAME && peek(1).type == OPERATOR && peek(1).text.equals(":")) {
+            final String label = first.text;
+            next();
+            next();
+            return label;
+        }
+        return null;
+    }
+
+    /**
+     * Read a signed number, possibly infinite.
+     * @return value read
+     * @exception IOException if the input cannot be read
+     * @exception ParseException if there is no number
+     */
+    private double readValue()
+        throws IOException, ParseException {
+        double sign = 1;
+        Token token = next();
+        while (token.type == OPERATOR && (token.text.equals("+") || token.text.equals("-"))) {
+            if (token.text.equals("-")) {
+                sign = -sign;
+            }
+            token = next();
+        }
+        if (token.type == NUMBER) {
+            return sign * token.value;
+        } else if (isInfinity(token)) {
+            return sign * Double.POSITIVE_INFINITY;
+        }
+        throw error(token, "number expected instead of {0}", token.text);
+    }
+
+    /**
+     * Read a name and check it.
+     * @param expected expected name, case insensitive
+     * @exception IOException if the input cannot be read
+     * @exception ParseException if the next token is not the expected name
+     */
+    private void expectName(final String expected)
+        throws IOException, ParseException {
+        final Token token = next();
+        if (token.type != NAME || !token.text.equalsIgnoreCase(expected)) {
+            throw error(token, "{0} expected instead of {1}", expected, token.text);
+        }
+    }
+
+    /**
+     * Get the section a token starts.
+     * @param token token
+     * @return section started by the token, -1 if the token does not start a section
+     * @exception ParseException if the token starts an unsupported section
+     */
+    private int getSection(final Token token)
+        throws ParseException {
+        if (token.type != NAME || !token.lineStart) {
+            return -1;
+        }
+        final String keyword = token.text.toLowerCase();
+        if (keyword.equals("maximize") || keyword.equals("maximise") || keyword.equals("maximum") ||
+            keyword.equals("max")      || keyword.equals("minimize") || keyword.equals("minimise") ||
+            keyword.equals("minimum")  || keyword.equals("min")) {
+            return OBJECTIVE;
+        } else if (keyword.equals("subject") || keyword.equals("such") ||
+                   keyword.equals("st")      || keyword.equals("s.t.") || keyword.equals("st.")) {
+            return CONSTRAINTS;
+        } else if (keyword.equals("bounds") || keyword.equals("bound")) {
+            return BOUNDS;
+        } else if (keyword.equals("general") || keyword.equals("generals") || keyword.equals("gen") ||
+                   keyword.equals("integer") || keyword.equals("integers")) {
+            return INTEGERS;
+        } else if (keyword.equals("binary") || keyword.equals("binaries") || keyword.equals("bin")) {
+            return BINARIES;
+        } else if (keyword.equals("semi-continuous") || keyword.equals("semis") || keyword.equals("semi") ||
+                   keyword.equals("sos")) {
+            throw error(token, "unsupported section {0}", token.text);
+        }
+        return -1;
+    }
+
+    /**
+     * Check whether a token is the end keyword.
+     * @param token token
+     * @return true if the token is "end" at the start of a line
+     */
+    private static boolean isEnd(final Token token) {
+        return token.type == NAME && token.lineStart && token.text.equalsIgnoreCase("end");
+    }
+
+    /**
+     * Check whether a token is an infinite value.
+     * @param token token
+     * @return true if the token is "inf" or "infinity"
+     */
+    private static boolean isInfinity(final Token token) {
+        return token.type == NAME &&
+               (token.text.equalsIgnoreCase("inf") || token.text.equalsIgnoreCase("infinity"));
+    }
+
+    /**
+     * Get the relationship of a comparison operator.
+     * @param token token
+     * @return relationship, null if the token is not a comparison operator
+     */
+    private static Relationship getRelationship(final Token token) {
+        if (token.type != OPERATOR) {
+            return null;
+        }
+        final String text = token.text;
+        if (text.equals("<=") || text.equals("=<") || text.equals("<")) {
+            return Relationship.LEQ;
+        } else if (text.equals(">=") || text.equals("=>") || text.equals(">")) {
+            return Relationship.GEQ;
+        } else if (text.equals("=")) {
+            return Relationship.EQ;
+        }
+        return null;
+    }
+
+    /**
+     * Reverse a relationship, as when swapping its sides.
+     * @param relationship relationship to reverse, may be null
+     * @return reversed relationship
+     */
+    private static Relationship reverse(final Relationship relationship) {
+        if (relationship == Relationship.LEQ) {
+            return Relationship.GEQ;
+        } else if (relationship == Relationship.GEQ) {
+            return Relationship.LEQ;
+        }
+        return relationship;
+    }
+
+    /**
+     * Create an exception at a token.
+     * @param token token where the error was found
+     * @param pattern format specifier
+     * @param arguments format arguments
+     * @return exception with the line number of the token as error offset
+     */
+    private static ParseException error(final Token token, final String pattern, final Object ... arguments) {
+        return MathRuntimeException.createParseException(token.line, pattern, arguments);
+    }
+
+    /**
+     * Look at a token ahead without consuming it.
+     * @param k index of the token, 0 for the next one
+     * @return token
+     * @exception IOException if the input cannot be read
+     */
+    private Token peek(final int k)
+        throws IOException {
+        while (available <= k) {
+            lookAhead[available++] = scan();
+        }
+        return lookAhead[k];
+    }
+
+    /**
+     * Consume the next token.
+     * @return token
+     * @exception IOException if the input cannot be read
+     */
+    private Token next()
+        throws IOException {
+        final Token token = peek(0);
+        lookAhead[0] = lookAhead[1];
+        lookAhead[1] = null;
+        --available;
+        return token;
+    }
+
+    /**
+     * Scan the next token of the input.
+     * @return token read
+     * @exception IOException if the input cannot be read
+     */
+    private Token scan()
+        throws IOException {
+
+        // skip white space and comments
+        int c = readChar();
+        while (true) {
+            if (c == '\n') {
+                ++lineNumber;
+                lineStart = true;
+            } else if (c == '\\') {
+                while (c >= 0 && c != '\n') {
+                    c = readChar();
+                }
+                continue;
+            } else if (c < 0 || c > ' ') {
+                break;
+            }
+            c = readChar();
+        }
+
+        final Token token = new Token();
+        token.line      = lineNumber;
+        token.lineStart = lineStart;
+        lineStart       = false;
+        if (c < 0) {
+            token.type = END;
+            token.text = "end of input";
+            return token;
+        }
+
+        final StringBuilder text = new StringBuilder();
+        text.append((char) c);
+        if (isDigit(c) || (c == '.' && isDigit(peekChar()))) {
+            token.type = NUMBER;
+            while (isDigit(peekChar()) || peekChar() == '.') {
+                text.append((char) readChar());
+            }
+            final int e = peekChar();
+            if (e == 'e' || e == 'E') {
+                // an exponent only if digits follow, otherwise the letter starts a name
+                final int after = peekChar(1);
+                if (isDigit(after) ||
+                    ((after == '+' || after == '-') && isDigit(peekChar(2)))) {
+                    text.append((char) readChar()).append((char) readChar());
+                    while (isDigit(peekChar())) {
+                        text.append((char) readChar());
+                    }
+                }
+            }
+            token.text = text.toString();
+            try {
+                token.value = ProblemBuilder.parseNumber(token.text);
+            } catch (NumberFormatException nfe) {
+                token.type = NAME;
+            }
+        } else if (isNameStart(c)) {
+            token.type = NAME;
+            while (isNameStart(peekChar()) || isDigit(peekChar()) || peekChar() == '.') {
+                text.append((char) readChar());
+            }
+            token.text = text.toString();
+        } else {
+            token.type = OPERATOR;
+            if ((c == '<' || c == '>' || c == '=') &&
+                (peekChar() == '=' || (c == '=' && (peekChar() == '<' || peekChar() == '>')))) {
+                text.append((char) readChar());
+            }
+            token.text = text.toString();
+        }
+        return token;
+
+    }
+
+    /**
+     * Check whether a character is a decimal digit.
+     * @param c character
+     * @return true if the character is a digit
+     */
+    private static boolean isDigit(final int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Check whether a character can start a name.
+     * @param c character
+     * @return true if the character is a letter or one of the symbols allowed in names
+     */
+    private static boolean isNameStart(final int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') ||
+               (c >= 0 && "!\"#$%&()/,;?@_`'{}|~".indexOf(c) >= 0) || c > 127;
+    }
+
+    /**
+     * Read one character.
+     * @return next character, -1 at the end of the input
+     * @exception IOException if the input cannot be read
+     */
+    private int readChar()
+        throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * Look at the next character without consuming it.
+     * @return next character, -1 at the end of the input
+     * @exception IOException if the input cannot be read
+     */
+    private int peekChar()
+        throws IOException {
+        return peekChar(0);
+    }
+
+    /**
+     * Look at a character ahead without consuming it.
+     * @param k index of the character, 0 for the next one, at most 2
+     * @return character, -1 beyond the end of the input
+     * @exception IOException if the input cannot be read
+     */
+    private int peekChar(final int k)
+        throws IOException {
+        while (position + k >= limit) {
+            if (!fill()) {
+                return -1;
+            }
+        }
+        return buffer[position + k];
+    }
+
+    /**
+     * Move the unread characters to the start of the buffer and read more.
+     * @return false at the end of the input
+     * @exception IOException if the input cannot be read
+     */
+    private boolean fill()
+        throws IOException {
+        final int left = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, left);
+        position = 0;
+        limit    = left;
+        final int count = in.read(buffer, limit, buffer.length - limit);
+        if (count <= 0) {
+            return false;
+        }
+        limit += count;
+        return true;
+    }
+
+    /**
+     * A token of the input, never changed once scanned.
+     */
+    private static class Token {
+
+        /** Type of the token. */
+        private int type;
+
+        /** Text of the token. */
+        private String text;
+
+        /** Value of a number. */
+        private double value;
+
+        /** Whether the token is the first one of its line. */
+        private boolean lineStart;
+
+        /** Line of the token. */
+        private int line;
+
+    }
+
+}
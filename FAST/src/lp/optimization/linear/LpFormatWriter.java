@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import lp.optimization.GoalType;
+
+/**
+ * Writes a linear problem in CPLEX LP format.
+ * <p>
+ * Every variable appears in the objective function, with a zero
+ * coefficient if needed, so that {@link LpFormatReader} reads back the
+ * variables in the same order. Long expressions are split over several
+ * lines.
+ * </p>
+ * @see LpFormatReader
+ * @version $Revision$ $Date$
+ */
+public class LpFormatWriter {
+
+    /** Number of terms written per line. */
+    private static final int TERMS_PER_LINE = 8;
+
+    /** Output. */
+    private final Writer out;
+
+    /**
+     * Build a writer.
+     * @param out output, it is buffered by the writer
+     */
+    public LpFormatWriter(final Writer out) {
+        this.out = (out instanceof BufferedWriter) ? out : new BufferedWriter(out);
+    }
+
+    /**
+     * Write a problem with generated names: x0, x1... for the variables and
+     * c0, c1... for the constraints.
+     * @param problem problem to write
+     * @exception IOException if the output cannot be written
+     */
+    public void write(final LinearProblem problem)
+        throws IOException {
+        final int n = problem.getObjectiveFunction().getCoefficients().getDimension();
+        write(problem, MpsWriter.getNames("x", n), MpsWriter.getNames("c", problem.getConstraints().size()));
+    }
+
+    /**
+     * Write a problem.
+     * @param problem problem to write
+     * @param variableNames names of the variables, valid LP names all different
+     * @param constraintNames names of the constraints, valid LP names all different
+     * @exception IOException if the output cannot be written
+     */
+    public void write(final LinearProblem problem,
+                      final List<String> variableNames, final List<String> constraintNames)
+        throws IOException {
+
+        final LinearObjectiveFunction f = problem.getObjectiveFunction();
+        final double[] objective = f.getCoefficients().getData();
+        final int n = objective.length;
+
+        out.write((problem.getGoalType() == GoalType.MAXIMIZE) ? "Maximize\n" : "Minimize\n");
+        out.write(" obj:");
+        final int[] all = new int[n];
+        for (int j = 0; j < n; ++j) {
+            all[j] = j;
+        }
+        writeTerms(all, objective, variableNames);
+        if (f.getConstantTerm() != 0) {
+            writeTerm(f.getConstantTerm(), null);
+        }
+        out.write('\n');
+
+        out.write("Subject To\n");
+        final List<LinearConstraint> constraints = problem.getConstraints();
+        for (int i = 0; i < constraints.size(); ++i) {
+            final LinearConstraint constraint = constraints.get(i);
+            out.write(" " + constraintNames.get(i) + ":");
+            writeTerms(constraint.getNonZeroIndices(), constraint.getNonZeroValues(), variableNames);
+            if (constraint.getNonZeroIndices().length == 0) {
+                // an empty row still needs a left hand side
+                writeTerm(0, null);
+            }
+            final Relationship relationship = constraint.getRelationship();
+            out.write((relationship == Relationship.LEQ) ? " <= " :
+                      ((relationship == Relationship.GEQ) ? " >= " : " = "));
+            out.write(Double.toString(constraint.getValue()));
+            out.write('\n');
+        }
+
+        if (problem.isBounded() || !problem.isRestrictedToNonNegative()) {
+            out.write("Bounds\n");
+            final double[] lower = problem.getLowerBounds();
+            final double[] upper = problem.getUpperBounds();
+            for (int j = 0; j < n; ++j) {
+                final double l = (lower == null) ? Double.NEGATIVE_INFINITY : lower[j];
+                final double u = (upper == null) ? Double.POSITIVE_INFINITY : upper[j];
+                final String name = variableNames.get(j);
+                if (l == Double.NEGATIVE_INFINITY && u == Double.POSITIVE_INFINITY) {
+                    out.write(" " + name + " free\n");
+                } else if (l == u) {
+                    out.write(" " + name + " = " + l + "\n");
+                } else if (u == Double.POSITIVE_INFINITY) {
+                    if (l != 0) {
+                        out.write(" " + name + " >= " + l + "\n");
+                    }
+                } else {
+                    out.write(" " + ((l == Double.NEGATIVE_INFINITY) ? "-inf" : Double.toString(l)) +
+                              " <= " + name + " <= " + u + "\n");
+                }
+            }
+        }
+
+        out.write("End\n");
+        out.flush();
+
+    }
+
+    /**
+     * Write the terms of an expression.
+     * @param indices indices of the variables
+     * @param values coefficients
+     * @param variableNames names of the variables
+     * @exception IOException if the output cannot be written
+     */
+    private void writeTerms(final int[] indices, final double[] values, final List<String> variableNames)
+        throws IOException {
+        for (int k = 0; k < indices.length; ++k) {
+            if (k > 0 && k % TERMS_PER_LINE == 0) {
+                out.write("\n   ");
+            }
+            writeTerm(values[k], variableNames.get(indices[k]));
+        }
+    }
+
+    /**
+     * Write one term of an expression.
+     * @param coefficient coefficient of the term
+     * @param name name of the variable, null for a constant term
+     * @exception IOException if the output cannot be written
+     */
+    private void writeTerm(final double coefficient, final String name)
+        throws IOException {
+        out.write((coefficient < 0 || (coefficient == 0 && 1 / coefficient < 0)) ? " - " : " + ");
+        out.write(Double.toString(Math.abs(coefficient)));
+        if (name != null) {
+            out.write(' ');
+            out.write(name);
+        }
+    }
+
+}
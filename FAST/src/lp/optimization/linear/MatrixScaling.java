@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Row and column scale factors of a linear problem.
+ * <p>
+ * Constraint i is multiplied by r<sub>i</sub> and variable x<sub>j</sub> is
+ * replaced by s<sub>j</sub>x'<sub>j</sub>: the coefficient a<sub>ij</sub>
+ * becomes r<sub>i</sub>a<sub>ij</sub>s<sub>j</sub>, the right hand side
+ * b<sub>i</sub> becomes r<sub>i</sub>b<sub>i</sub>, the objective coefficient
+ * c<sub>j</sub> becomes c<sub>j</sub>s<sub>j</sub> and the objective value
+ * is unchanged.
+ * </p>
+ * @see ScalingMethod
+ * @version $Revision$ $Date$
+ */
+class MatrixScaling implements Serializable {
+
+    /** Serializable version identifier. */
+    private static final long serialVersionUID = -3520874301297612416L;
+
+    /** Maximal number of geometric mean passes. */
+    private static final int MAX_PASSES = 20;
+
+    /** Spread reduction below which the geometric mean passes stop. */
+    private static final double MIN_IMPROVEMENT = 0.9;
+
+    /** Natural logarithm of 2. */
+    private static final double LN2 = Math.log(2.0);
+
+    /** Row scale factors, in the order of the constraints. */
+    private final double[] rowScales;
+
+    /** Column scale factors. */
+    private final double[] columnScales;
+
+    /**
+     * Compute the scale factors of a set of constraints.
+     * @param dimension number of variables
+     * @param constraints constraints to scale
+     * @param method scaling method
+     * @param scaleColumns if false, only the rows are scaled
+     */
+    MatrixScaling(final int dimension, final Collection<LinearConstraint> constraints,
+                  final ScalingMethod method, final boolean scaleColumns) {
+
+        final LinearConstraint[] rows = constraints.toArray(new LinearConstraint[constraints.size()]);
+        rowScales    = new double[rows.length];
+        columnScales = new double[dimension];
+        Arrays.fill(rowScales, 1.0);
+        Arrays.fill(columnScales, 1.0);
+
+        if (method == ScalingMethod.GEOMETRIC_MEAN) {
+            double spread = getSpread(rows);
+            for (int pass = 0; pass < MAX_PASSES; ++pass) {
+                scaleRows(rows, true);
+                if (scaleColumns) {
+                    scaleColumns(rows, true);
+                }
+                final double newSpread = getSpread(rows);
+                if (newSpread > MIN_IMPROVEMENT * spread) {
+                    break;
+                }
+                spread = newSpread;
+            }
+        }
+        if (method != ScalingMethod.NONE) {
+            scaleRows(rows, false);
+            if (scaleColumns) {
+                scaleColumns(rows, false);
+            }
+        }
+
+        for (int i = 0; i < rowScales.length; ++i) {
+            rowScales[i] = roundToPowerOfTwo(rowScales[i]);
+        }
+        for (int j = 0; j < columnScales.length; ++j) {
+            columnScales[j] = roundToPowerOfTwo(columnScales[j]);
+        }
+
+    }
+
+    /**
+     * Divide each row by the geometric mean of its extreme coefficients, or by its largest one.
+     * @param rows constraints
+     * @param geometricMean if true, use the geometric mean, otherwise the largest coefficient
+     */
+    private void scaleRows(final LinearConstraint[] rows, final boolean geometricMean) {
+        for (int i = 0; i < rows.length; ++i) {
+            final int[] indices   = rows[i].getNonZeroIndices();
+            final double[] values = rows[i].getNonZeroValues();
+            double min = Double.POSITIVE_INFINITY;
+            double max = 0;
+            for (int k = 0; k < indices.length; ++k) {
+                final double a = Math.abs(values[k] * rowScales[i] * columnScales[indices[k]]);
+                min = Math.min(min, a);
+                max = Math.max(max, a);
+            }
+            if (max > 0) {
+                rowScales[i] /= geometricMean ? Math.sqrt(min * max) : max;
+            }
+        }
+    }
+
+    /**
+     * Divide each column by the geometric mean of its extreme coefficients, or by its largest one.
+     * @param rows constraints
+     * @param geometricMean if true, use the geometric mean, otherwise the largest coefficient
+     */
+    private void scaleColumns(final LinearConstraint[] rows, final boolean geometricMean) {
+        final double[] min = new double[columnScales.length];
+        final double[] max = new double[columnScales.length];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < rows.length; ++i) {
+            final int[] indices   = rows[i].getNonZeroIndices();
+            final double[] values = rows[i].getNonZeroValues();
+            for (int k = 0; k < indices.length; ++k) {
+                final int j = indices[k];
+                final double a = Math.abs(values[k] * rowScales[i] * columnScales[j]);
+                min[j] = Math.min(min[j], a);
+                max[j] = Math.max(max[j], a);
+            }
+        }
+        for (int j = 0; j < columnScales.length; ++j) {
+            if (max[j] > 0) {
+                columnScales[j] /= geometricMean ? Math.sqrt(min[j] * max[j]) : max[j];
+            }
+        }
+    }
+
+    /**
+     * Get the ratio between the largest and the smallest scaled coefficients.
+     * @param rows constraints
+     * @return spread of the scaled coefficients, 1 if there are none
+     */
+    private double getSpread(final LinearConstraint[] rows) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = 0;
+        for (int i = 0; i < rows.length; ++i) {
+            final int[] indices   = rows[i].getNonZeroIndices();
+            final double[] values = rows[i].getNonZeroValues();
+            for (int k = 0; k < indices.length; ++k) {
+                final double a = Math.abs(values[k] * rowScales[i] * columnScales[indices[k]]);
+                min = Math.min(min, a);
+                max = Math.max(max, a);
+            }
+        }
+        return (max > 0) ? max / min : 1.0;
+    }
+
+    /**
+     * Round a scale factor to the nearest power of 2.
+     * @param factor scale factor
+     * @return power of 2 closest to the factor in relative terms
+     */
+    private static double roundToPowerOfTwo(final double factor) {
+        return Math.pow(2.0, Math.rint(Math.log(factor) / LN2));
+    }
+
+    /**
+     * Scale an objective function.
+     * @param f objective function of the original variables
+     * @return objective function of the scaled variables
+     */
+    LinearObjectiveFunction scale(final LinearObjectiveFunction f) {
+        final double[] coefficients = f.getCoefficients().getData();
+        for (int j = 0; j < coefficients.length; ++j) {
+            coefficients[j] *= columnScales[j];
+        }
+        return new LinearObjectiveFunction(coefficients, f.getConstantTerm());
+    }
+
+    /**
+     * Scale constraints.
+     * @param constraints constraints the factors were computed from, in the same order
+     * @return scaled constraints
+     */
+    List<LinearConstraint> scale(final Collection<LinearConstraint> constraints) {
+        final List<LinearConstraint> scaled = new ArrayList<LinearConstraint>(constraints.size());
+        int i = 0;
+        for (final LinearConstraint constraint : constraints) {
+            final int[] indices   = constraint.getNonZeroIndices();
+            final double[] values = constraint.getNonZeroValues().clone();
+            for (int k = 0; k < indices.length; ++k) {
+                values[k] *= rowScales[i] * columnScales[indices[k]];
+            }
+            scaled.add(new LinearConstraint(columnScales.length, indices, values,
+                                            constraint.getRelationship(), constraint.getValue() * rowScales[i]));
+            ++i;
+        }
+        return scaled;
+    }
+
+    /**
+     * Scale variable bounds.
+     * @param bounds bounds of the original variables
+     * @return bounds of the scaled variables
+     */
+    double[] scaleBounds(final double[] bounds) {
+        final double[] scaled = new double[bounds.length];
+        for (int j = 0; j < bounds.length; ++j) {
+            scaled[j] = bounds[j] / columnScales[j];
+        }
+        return scaled;
+    }
+
+    /**
+     * Map a point of the scaled variables back to the original variables.
+     * @param point point to map, replaced by the original variables
+     */
+    void unscale(final double[] point) {
+        for (int j = 0; j < point.length; ++j) {
+            point[j] *= columnScales[j];
+        }
+    }
+
+}
@@ -0,0 +1,582 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import lp.MathRuntimeException;
+import lp.optimization.GoalType;
+
+/**
+ * Reads a linear problem in MPS format.
+ * <p>
+ * The input is read one line at a time and the coefficients are stored
+ * sparse as they come, so the memory used does not depend on the size of
+ * the file but on the number of non-zero coefficients. Both the fixed and
+ * the free format are accepted, as long as names do not contain spaces.
+ * Lines are split in place in the input buffer and names and numbers are
+ * read from there, strings are only created for new names.
+ * </p>
+ * <p>
+ * The supported sections are NAME, OBJSENSE, OBJNAME, ROWS, COLUMNS, RHS,
+ * RANGES, BOUNDS and ENDATA. The first N row is the objective function
+ * unless OBJNAME names another one, the other N rows are ignored. A right
+ * hand side given to the objective row is the opposite of its constant
+ * term. Constraints with a non-zero range become two constraints, a zero
+ * range makes an inequality an equality. Bounds of magnitude 1e20 or more
+ * are infinite. Integer markers are skipped and integer bounds read as
+ * continuous ones, as a {@link LinearProblem} has no integer variables.
+ * </p>
+ * @see MpsWriter
+ * @version $Revision$ $Date$
+ */
+public class MpsReader {
+
+    /** Section names, in the order of the section codes. */
+    private static final String[] SECTIONS = {
+        "NAME", "OBJSENSE", "OBJNAME", "ROWS", "COLUMNS", "RHS", "RANGES", "BOUNDS", "ENDATA",
+        "SOS", "QUADOBJ", "QMATRIX", "QSECTION"
+    };
+
+    /** Code of the NAME section. */
+    private static final int NAME = 0;
+
+    /** Code of the OBJSENSE section. */
+    private static final int OBJSENSE = 1;
+
+    /** Code of the OBJNAME section. */
+    private static final int OBJNAME = 2;
+
+    /** Code of the ROWS section. */
+    private static final int ROWS = 3;
+
+    /** Code of the COLUMNS section. */
+    private static final int COLUMNS = 4;
+
+    /** Code of the RHS section. */
+    private static final int RHS = 5;
+
+    /** Code of the RANGES section. */
+    private static final int RANGES = 6;
+
+    /** Code of the BOUNDS section. */
+    private static final int BOUNDS = 7;
+
+    /** Code of the ENDATA section. */
+    private static final int ENDATA = 8;
+
+    /** Size of the input buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Maximal number of tokens stored for a line. */
+    private static final int MAX_TOKENS = 8;
+
+    /** Input. */
+    private final Reader in;
+
+    /** Input buffer, grown if a line does not fit. */
+    private char[] buffer;
+
+    /** Position of the next line in the buffer. */
+    private int position;
+
+    /** Number of characters in the buffer. */
+    private int limit;
+
+    /** Whether the previous line ended with a carriage return. */
+    private boolean carriageReturn;
+
+    /** Index of the first character of the current line in the buffer. */
+    private int lineStart;
+
+    /** Index after the last character of the current line in the buffer. */
+    private int lineEnd;
+
+    /** Index of the first character of each token of the current line. */
+    private final int[] starts;
+
+    /** Index after the last character of each token of the current line. */
+    private final int[] ends;
+
+    /** Problem read so far. */
+    private ProblemBuilder builder;
+
+    /** Name of the problem. */
+    private String name;
+
+    /** Current line number. */
+    private int lineNumber;
+
+    /** Name of the objective row, null until it is known. */
+    private String objective;
+
+    /** Names of the ignored N rows. */
+    private Set<String> freeRows;
+
+    /** Name of the current column of the COLUMNS section, null before the first one. */
+    private String columnName;
+
+    /** Index of the current column of the COLUMNS section. */
+    private int column;
+
+    /**
+     * Build a reader.
+     * @param in input, the reader does its own buffering
+     */
+    public MpsReader(final Reader in) {
+        this.in     = in;
+        this.buffer = new char[BUFFER_SIZE];
+        this.starts = new int[MAX_TOKENS];
+        this.ends   = new int[MAX_TOKENS];
+    }
+
+    /**
+     * Read a problem.
+     * @return problem read
+     * @exception IOException if the input cannot be read
+     * @exception ParseException if the input is not a valid MPS file, the
+     * error offset is the line number
+     */
+    public LinearProblem read()
+        throws IOException, ParseException {
+
+        builder        = new ProblemBuilder();
+        name           = null;
+        lineNumber     = 0;
+        position       = 0;
+        limit          = 0;
+        carriageReturn = false;
+
+        GoalType goalType = GoalType.MINIMIZE;
+        int section = -1;
+        objective  = null;
+        freeRows   = new HashSet<String>();
+        columnName = null;
+
+        while (nextLine()) {
+
+            ++lineNumber;
+            final int count = tokenize();
+            if (count == 0 || buffer[lineStart] == '*') {
+                continue;
+            }
+
+            if (!Character.isWhitespace(buffer[lineStart])) {
+                final int header = getSection();
+                if (header >= 0) {
+                    section = header;
+                    if (section == ENDATA) {
+                        break;
+                    } else if (section == NAME) {
+                        name = (count > 1) ? token(1) : "";
+                    } else if (section == OBJSENSE && count > 1) {
+                        goalType = parseSense(1);
+                    } else if (section == OBJNAME && count > 1) {
+                        objective = token(1);
+                    }
+                    continue;
+                }
+            }
+
+            if (section == COLUMNS) {
+                readColumn(count);
+            } else if (section < 0) {
+                throw error("data line outside of any section");
+            } else if (section == OBJSENSE) {
+                goalType = parseSense(0);
+            } else if (section == OBJNAME) {
+                objective = token(0);
+            } else if (section == ROWS) {
+                readRow(count);
+            } else if (section == RHS || section == RANGES) {
+                readValues(count, section == RHS);
+            } else if (section == BOUNDS) {
+                readBound(count);
+            } else {
+                throw error("unsupported section {0}", SECTIONS[section]);
+            }
+
+        }
+
+        return builder.build(goalType);
+
+    }
+
+    /**
+     * Get the name of the problem read.
+     * @return name given in the NAME section, null if there was none
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the names of the variables of the problem read.
+     * @return variable names, in the order of the variables
+     */
+    public List<String> getVariableNames() {
+        return builder.getVariableNames();
+    }
+
+    /**
+     * Get the names of the constraints of the problem read.
+     * @return constraint names, in the order of the constraints; a row with
+     * a range gives two constraints with the same name
+     */
+    public List<String> getConstraintNames() {
+        return builder.getConstraintNames();
+    }
+
+    /**
+     * Read one line of the ROWS section.
+     * @param count number of tokens
+     * @exception ParseException if the line is not a valid row
+     */
+    private void readRow(final int count)
+        throws ParseException {
+        check(count == 2);
+        if (is(0, "N")) {
+            if (objective == null) {
+                objective = token(1);
+            } else if (!is(1, objective)) {
+                freeRows.add(token(1));
+            }
+        } else {
+            final Relationship relationship;
+            if (is(0, "L")) {
+                relationship = Relationship.LEQ;
+            } else if (is(0, "G")) {
+                relationship = Relationship.GEQ;
+            } else if (is(0, "E")) {
+                relationship = Relationship.EQ;
+            } else {
+                throw error("unknown row type {0}", token(0));
+            }
+            if (builder.addConstraint(token(1), relationship) < 0) {
+                throw error("duplicate row {0}", token(1));
+            }
+        }
+    }
+
+    /**
+     * Read one line of the COLUMNS section.
+     * @param count number of tokens
+     * @exception ParseException if the line is not a valid column entry
+     */
+    private void readColumn(final int count)
+        throws ParseException {
+        if (count == 3 && is(1, "'MARKER'")) {
+            return;
+        }
+        check(count == 3 || count == 5);
+        // the entries of a column are consecutive
+        if (columnName == null || !is(0, columnName)) {
+            column     = builder.getVariable(buffer, starts[0], ends[0]);
+            columnName = builder.getVariableNames().get(column);
+        }
+        for (int k = 1; k < count; k += 2) {
+            final double value = parseNumber(k + 1);
+            if (objective != null && is(k, objective)) {
+                builder.addObjectiveCoefficient(column, value);
+            } else {
+                final int row = getRow(k);
+                if (row >= 0) {
+                    builder.addCoefficient(row, column, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read one line of the RHS or RANGES section.
+     * @param count number of tokens
+     * @param isRhs if true the values are right hand sides, otherwise ranges
+     * @exception ParseException if the line is not a valid entry
+     */
+    private void readValues(final int count, final boolean isRhs)
+        throws ParseException {
+        // the set name is optional
+        check(count >= 2 && count <= 5);
+        for (int k = count % 2; k < count; k += 2) {
+            final double value = parseNumber(k + 1);
+            if (objective != null && is(k, objective)) {
+                if (isRhs) {
+                    builder.addObjectiveConstant(-value);
+                }
+            } else {
+                final int row = getRow(k);
+                if (row < 0) {
+                    continue;
+                } else if (isRhs) {
+                    builder.setRhs(row, value);
+                } else {
+                    builder.setRange(row, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read one line of the BOUNDS section.
+     * @param count number of tokens
+     * @exception ParseException if the line is not a valid bound
+     */
+    private void readBound(final int count)
+        throws ParseException {
+
+        final boolean valued = !(is(0, "FR") || is(0, "MI") || is(0, "PL") || is(0, "BV"));
+        // the set name is optional
+        final int field = valued ? count - 2 : count - 1;
+        check(field == 1 || field == 2);
+        if (!builder.hasVariable(buffer, starts[field], ends[field])) {
+            throw error("unknown column {0}", token(field));
+        }
+        final int variable = builder.getVariable(buffer, starts[field], ends[field]);
+        final double value = valued ? parseNumber(field + 1) : 0;
+
+        if (is(0, "UP") || is(0, "UI")) {
+            if (value < 0 && builder.getLowerBound(variable) == 0) {
+                builder.setLowerBound(variable, Double.NEGATIVE_INFINITY);
+            }
+            builder.setUpperBound(variable, value);
+        } else if (is(0, "LO") || is(0, "LI")) {
+            builder.setLowerBound(variable, value);
+        } else if (is(0, "FX")) {
+            builder.setLowerBound(variable, value);
+            builder.setUpperBound(variable, value);
+        } else if (is(0, "FR")) {
+            builder.setLowerBound(variable, Double.NEGATIVE_INFINITY);
+            builder.setUpperBound(variable, Double.POSITIVE_INFINITY);
+        } else if (is(0, "MI")) {
+            builder.setLowerBound(variable, Double.NEGATIVE_INFINITY);
+        } else if (is(0, "PL")) {
+            builder.setUpperBound(variable, Double.POSITIVE_INFINITY);
+        } else if (is(0, "BV")) {
+            builder.setLowerBound(variable, 0);
+            builder.setUpperBound(variable, 1);
+        } else {
+            throw error("unsupported bound type {0}", token(0));
+        }
+
+    }
+
+    /**
+     * Get the index of a constraint row.
+     * @param k index of the token holding the name of the row
+     * @return index of the constraint, -1 for an ignored row
+     * @exception ParseException if the row is unknown
+     */
+    private int getRow(final int k)
+        throws ParseException {
+        final int index = builder.getConstraint(buffer, starts[k], ends[k]);
+        if (index < 0 && !freeRows.contains(token(k))) {
+            throw error("unknown row {0}", token(k));
+        }
+        return index;
+    }
+
+    /**
+     * Get the code of the section started by the current line.
+     * @return code of the section, -1 if the first token is not a section name
+     */
+    private int getSection() {
+        for (int i = 0; i < SECTIONS.length; ++i) {
+            if (is(0, SECTIONS[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse an optimization sense.
+     * @param k index of the token holding the sense
+     * @return type of optimization goal
+     * @exception ParseException if the sense is unknown
+     */
+    private GoalType parseSense(final int k)
+        throws ParseException {
+        if (is(k, "MAX") || is(k, "MAXIMIZE")) {
+            return GoalType.MAXIMIZE;
+        } else if (is(k, "MIN") || is(k, "MINIMIZE")) {
+            return GoalType.MINIMIZE;
+        }
+        throw error("unknown objective sense {0}", token(k));
+    }
+
+    /**
+     * Parse a number.
+     * @param k index of the token holding the number
+     * @return value of the number
+     * @exception ParseException if the token is not a number
+     */
+    private double parseNumber(final int k)
+        throws ParseException {
+        try {
+            return ProblemBuilder.parseNumber(buffer, starts[k], ends[k]);
+        } catch (NumberFormatException e) {
+            throw error("invalid number {0}", token(k));
+        }
+    }
+
+    /**
+     * Check the number of fields of a line.
+     * @param valid whether the number of fields is valid
+     * @exception ParseException if it is not
+     */
+    private void check(final boolean valid)
+        throws ParseException {
+        if (!valid) {
+            throw error("wrong number of fields");
+        }
+    }
+
+    /**
+     * Create an exception for the current line.
+     * @param pattern format specifier
+     * @param arguments format arguments
+     * @return exception with the line number as error offset
+     */
+    private ParseException error(final String pattern, final Object ... arguments) {
+        return MathRuntimeException.createParseException(lineNumber, pattern, arguments);
+    }
+
+    /**
+     * Check whether a token of the current line is a given text.
+     * @param k index of the token
+     * @param text text
+     * @return true if the token has exactly the characters of the text
+     */
+    private boolean is(final int k, final String text) {
+        return NameTable.matches(text, buffer, starts[k], ends[k]);
+    }
+
+    /**
+     * Get a token of the current line as a string.
+     * @param k index of the token
+     * @return token
+     */
+    private String token(final int k) {
+        return new String(buffer, starts[k], ends[k] - starts[k]);
+    }
+
+    /**
+     * Split the current line on white space.
+     * @return number of tokens, tokens beyond {@link #MAX_TOKENS} are counted but not stored
+     */
+    private int tokenize() {
+        int count = 0;
+        int k = lineStart;
+        while (true) {
+            while (k < lineEnd && buffer[k] <= ' ') {
+                ++k;
+            }
+            if (k == lineEnd) {
+                return count;
+            }
+            final int start = k;
+            while (k < lineEnd && buffer[k] > ' ') {
+                ++k;
+            }
+            if (count < MAX_TOKENS) {
+                starts[count] = start;
+                ends[count]   = k;
+            }
+            ++count;
+        }
+    }
+
+    /**
+     * Find the next line in the buffer, reading more input if needed.
+     * <p>
+     * Lines end with a line feed, a carriage return or both, as for
+     * {@link java.io.BufferedReader#readLine()}.
+     * </p>
+     * @return false at the end of the input
+     * @exception IOException if the input cannot be read
+     */
+    private boolean nextLine()
+        throws IOException {
+
+        if (carriageReturn) {
+            // skip the line feed of a carriage return, line feed pair
+            carriageReturn = false;
+            if ((position < limit || fill()) && buffer[position] == '\n') {
+                ++position;
+            }
+        }
+
+        int k = position;
+        while (true) {
+            while (k < limit && buffer[k] != '\n' && buffer[k] != '\r') {
+                ++k;
+            }
+            if (k < limit) {
+                lineStart      = position;
+                lineEnd        = k;
+                position       = k + 1;
+                carriageReturn = buffer[k] == '\r';
+                return true;
+            }
+            k -= position;
+            if (!fill()) {
+                if (position == limit) {
+                    return false;
+                }
+                // last line without end of line
+                lineStart = position;
+                lineEnd   = limit;
+                position  = limit;
+                return true;
+            }
+        }
+
+    }
+
+    /**
+     * Move the unread characters to the start of the buffer and read more.
+     * @return false at the end of the input
+     * @exception IOException if the input cannot be read
+     */
+    private boolean fill()
+        throws IOException {
+        final int left = limit - position;
+        if (left == buffer.length) {
+            // a line longer than the buffer
+            final char[] grown = new char[2 * buffer.length];
+            System.arraycopy(buffer, position, grown, 0, left);
+            buffer = grown;
+        } else {
+            System.arraycopy(buffer, position, buffer, 0, left);
+        }
+        position = 0;
+        limit    = left;
+        final int count = in.read(buffer, limit, buffer.length - limit);
+        if (count <= 0) {
+            return false;
+        }
+        limit += count;
+        return true;
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import lp.optimization.GoalType;
+
+/**
+ * Writes a linear problem in free MPS format.
+ * <p>
+ * The constraints are transposed to the column order of the format with
+ * memory proportional to their non-zero coefficients. Every variable is
+ * written in the COLUMNS section, with an explicit zero objective
+ * coefficient if it appears nowhere else, so that {@link MpsReader} reads
+ * back the variables in the same order. Maximization problems are written
+ * with an OBJSENSE section.
+ * </p>
+ * @see MpsReader
+ * @version $Revision$ $Date$
+ */
+public class MpsWriter {
+
+    /** Name of the objective row. */
+    private static final String OBJECTIVE = "obj";
+
+    /** Output. */
+    private final Writer out;
+
+    /**
+     * Build a writer.
+     * @param out output, it is buffered by the writer
+     */
+    public MpsWriter(final Writer out) {
+        this.out = (out instanceof BufferedWriter) ? out : new BufferedWriter(out);
+    }
+
+    /**
+     * Write a problem with generated names: x0, x1... for the variables and
+     * c0, c1... for the constraints.
+     * @param problem problem to write
+     * @exception IOException if the output cannot be written
+     */
+    public void write(final LinearProblem problem)
+        throws IOException {
+        final int n = problem.getObjectiveFunction().getCoefficients().getDimension();
+        write(problem, getNames("x", n), getNames("c", problem.getConstraints().size()));
+    }
+
+    /**
+     * Write a problem.
+     * @param problem problem to write
+     * @param variableNames names of the variables, without spaces and all different
+     * @param constraintNames names of the constraints, without spaces, all
+     * different and different from "obj"
+     * @exception IOException if the output cannot be written
+     */
+    public void write(final LinearProblem problem,
+                      final List<String> variableNames, final List<String> constraintNames)
+        throws IOException {
+
+        final LinearObjectiveFunction f = problem.getObjectiveFunction();
+        final List<LinearConstraint> constraints = problem.getConstraints();
+        final double[] objective = f.getCoefficients().getData();
+        final int n = objective.length;
+        final int m = constraints.size();
+
+        out.write("NAME\n");
+        if (problem.getGoalType() == GoalType.MAXIMIZE) {
+            out.write("OBJSENSE\n    MAX\n");
+        }
+
+        out.write("ROWS\n");
+        out.write(" N  " + OBJECTIVE + "\n");
+        for (int i = 0; i < m; ++i) {
+            final Relationship relationship = constraints.get(i).getRelationship();
+            final char type = (relationship == Relationship.LEQ) ? 'L' :
+                              ((relationship == Relationship.GEQ) ? 'G' : 'E');
+            out.write(" " + type + "  " + constraintNames.get(i) + "\n");
+        }
+
+        // transpose the constraints
+        final int[] start = new int[n + 1];
+        for (final LinearConstraint constraint : constraints) {
+            for (final int j : constraint.getNonZeroIndices()) {
+                ++start[j + 1];
+            }
+        }
+        for (int j = 0; j < n; ++j) {
+            start[j + 1] += start[j];
+        }
+        final int[] next = start.clone();
+        final int[] rows = new int[start[n]];
+        final double[] values = new double[start[n]];
+        for (int i = 0; i < m; ++i) {
+            final int[] indices = constraints.get(i).getNonZeroIndices();
+            final double[] coefficients = constraints.get(i).getNonZeroValues();
+            for (int k = 0; k < indices.length; ++k) {
+                final int p = next[indices[k]]++;
+                rows[p]   = i;
+                values[p] = coefficients[k];
+            }
+        }
+
+        out.write("COLUMNS\n");
+        for (int j = 0; j < n; ++j) {
+            final String column = variableNames.get(j);
+            if (objective[j] != 0 || start[j] == start[j + 1]) {
+                writeEntry(column, OBJECTIVE, objective[j]);
+            }
+            for (int p = start[j]; p < start[j + 1]; ++p) {
+                writeEntry(column, constraintNames.get(rows[p]), values[p]);
+            }
+        }
+
+        out.write("RHS\n");
+        if (f.getConstantTerm() != 0) {
+            writeEntry("RHS", OBJECTIVE, -f.getConstantTerm());
+        }
+        for (int i = 0; i < m; ++i) {
+            if (constraints.get(i).getValue() != 0) {
+                writeEntry("RHS", constraintNames.get(i), constraints.get(i).getValue());
+            }
+        }
+
+        if (problem.isBounded() || !problem.isRestrictedToNonNegative()) {
+            out.write("BOUNDS\n");
+            final double[] lower = problem.getLowerBounds();
+            final double[] upper = problem.getUpperBounds();
+            for (int j = 0; j < n; ++j) {
+                final double l = (lower == null) ? Double.NEGATIVE_INFINITY : lower[j];
+                final double u = (upper == null) ? Double.POSITIVE_INFINITY : upper[j];
+                final String column = variableNames.get(j);
+                if (l == Double.NEGATIVE_INFINITY && u == Double.POSITIVE_INFINITY) {
+                    writeBound("FR", column, null);
+                } else if (l == u) {
+                    writeBound("FX", column, l);
+                } else {
+                    if (l == Double.NEGATIVE_INFINITY) {
+                        writeBound("MI", column, null);
+                    } else if (l != 0) {
+                        writeBound("LO", column, l);
+                    }
+                    if (u < Double.POSITIVE_INFINITY) {
+                        writeBound("UP", column, u);
+                    }
+                }
+            }
+        }
+
+        out.write("ENDATA\n");
+        out.flush();
+
+    }
+
+    /**
+     * Write one entry of the COLUMNS or RHS section.
+     * @param column column or set name
+     * @param row row name
+     * @param value value of the entry
+     * @exception IOException if the output cannot be written
+     */
+    private void writeEntry(final String column, final String row, final double value)
+        throws IOException {
+        out.write("    ");
+        out.write(column);
+        out.write("  ");
+        out.write(row);
+        out.write("  ");
+        out.write(Double.toString(value));
+        out.write('\n');
+    }
+
+    /**
+     * Write one line of the BOUNDS section.
+     * @param type bound type
+     * @param column column name
+     * @param value bound, null for the types without value
+     * @exception IOException if the output cannot be written
+     */
+    private void writeBound(final String type, final String column, final Double value)
+        throws IOException {
+        out.write(" " + type + " BND  " + column);
+        if (value != null) {
+            out.write("  ");
+            out.write(value.toString());
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Generate names.
+     * @param prefix prefix of the names
+     * @param count number of names
+     * @return prefix0, prefix1...
+     */
+    static List<String> getNames(final String prefix, final int count) {
+        final List<String> names = new ArrayList<String>(count);
+        for (int i = 0; i < count; ++i) {
+            names.add(prefix + i);
+        }
+        return names;
+    }
+
+}
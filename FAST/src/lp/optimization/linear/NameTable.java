@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+/**
+ * Index of names, looked up either by string or by a range of characters.
+ * <p>
+ * Readers look names up directly in their input buffer, so no string is
+ * created for a name that is already known. Each slot of the open
+ * addressing table holds the hash code and the index of its name, with
+ * its first eight characters; the other characters of long names are kept
+ * in a single array. A lookup of a name of at most eight characters, as in
+ * fixed format MPS files, usually reads a single slot, which matters when
+ * the table is much larger than the caches.
+ * </p>
+ * @see ProblemBuilder
+ * @version $Revision$ $Date$
+ */
+class NameTable {
+
+    /**
+     * Number of ints per slot: hash code, index plus one, length of the
+     * name, start of its other characters and its first characters.
+     */
+    private static final int SLOT = 8;
+
+    /** Number of characters of a name held in its slot, two per int. */
+    private static final int INLINE = 8;
+
+    /** Characters of the names beyond the ones held in their slots, one name after the other. */
+    private char[] chars;
+
+    /** Number of characters used. */
+    private int used;
+
+    /** Slots of the table, an index of 0 marks an empty slot. */
+    private int[] slots;
+
+    /** Mask giving a slot number from a hash code. */
+    private int mask;
+
+    /** Number of names. */
+    private int size;
+
+    /**
+     * Build an empty table.
+     */
+    NameTable() {
+        chars = new char[256];
+        slots = new int[SLOT * 32];
+        mask  = 31;
+    }
+
+    /**
+     * Get the number of names.
+     * @return number of names
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the index of a name.
+     * @param name name
+     * @return index of the name, -1 if it is not in the table
+     */
+    int get(final String name) {
+        return get(name.toCharArray(), 0, name.length());
+    }
+
+    /**
+     * Get the index of a name held in a character array.
+     * @param name characters holding the name
+     * @param start index of the first character of the name
+     * @param end index after the last character of the name
+     * @return index of the name, -1 if it is not in the table
+     */
+    int get(final char[] name, final int start, final int end) {
+        final int hash = hash(name, start, end);
+        for (int s = SLOT * (hash & mask); slots[s + 1] != 0; s = SLOT * ((s / SLOT + 1) & mask)) {
+            if (slots[s] == hash && equals(s, name, start, end)) {
+                return slots[s + 1] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Add a name that is not in the table yet.
+     * @param name name
+     * @return index of the name, the number of names before the call
+     */
+    int add(final String name) {
+
+        if (2 * (size + 1) > mask + 1) {
+            // keep the load factor at most 1/2
+            final int[] old = slots;
+            slots = new int[2 * old.length];
+            mask  = 2 * mask + 1;
+            for (int s = 0; s < old.length; s += SLOT) {
+                if (old[s + 1] != 0) {
+                    System.arraycopy(old, s, slots, freeSlot(old[s]), SLOT);
+                }
+            }
+        }
+
+        final char[] text = name.toCharArray();
+        final int hash = hash(text, 0, text.length);
+        final int s = freeSlot(hash);
+        slots[s]     = hash;
+        slots[s + 1] = size + 1;
+        slots[s + 2] = text.length;
+        slots[s + 3] = used;
+        for (int k = 0; k < Math.min(text.length, INLINE); ++k) {
+            slots[s + 4 + k / 2] |= text[k] << (16 * (k % 2));
+        }
+        if (text.length > INLINE) {
+            final int rest = text.length - INLINE;
+            while (used + rest > chars.length) {
+                final char[] grown = new char[2 * chars.length];
+                System.arraycopy(chars, 0, grown, 0, used);
+                chars = grown;
+            }
+            System.arraycopy(text, INLINE, chars, used, rest);
+            used += rest;
+        }
+        return size++;
+
+    }
+
+    /**
+     * Find the first free slot after a hash code.
+     * @param hash hash code
+     * @return index of the first int of the slot
+     */
+    private int freeSlot(final int hash) {
+        int s = SLOT * (hash & mask);
+        while (slots[s + 1] != 0) {
+            s = SLOT * ((s / SLOT + 1) & mask);
+        }
+        return s;
+    }
+
+    /**
+     * Check whether the name of a slot is equal to a range of characters.
+     * @param s index of the first int of the slot
+     * @param name characters to compare with
+     * @param start index of the first character to compare with
+     * @param end index after the last character to compare with
+     * @return true if both have exactly the same characters
+     */
+    private boolean equals(final int s, final char[] name, final int start, final int end) {
+        final int length = end - start;
+        if (slots[s + 2] != length) {
+            return false;
+        }
+        for (int k = 0; k < Math.min(length, INLINE); ++k) {
+            if ((char) (slots[s + 4 + k / 2] >>> (16 * (k % 2))) != name[start + k]) {
+                return false;
+            }
+        }
+        final int from = slots[s + 3] - INLINE;
+        for (int k = INLINE; k < length; ++k) {
+            if (chars[from + k] != name[start + k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a string is equal to a range of characters.
+     * @param text string
+     * @param name characters
+     * @param start index of the first character
+     * @param end index after the last character
+     * @return true if the string has exactly these characters
+     */
+    static boolean matches(final String text, final char[] name, final int start, final int end) {
+        if (text.length() != end - start) {
+            return false;
+        }
+        for (int k = start; k < end; ++k) {
+            if (text.charAt(k - start) != name[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compute the hash code of a range of characters.
+     * <p>
+     * The high bits of the string hash code are spread to the low ones, as
+     * names like x1, x2, ... have consecutive string hash codes, which would
+     * fill runs of adjacent slots.
+     * </p>
+     * @param name characters
+     * @param start index of the first character
+     * @param end index after the last character
+     * @return hash code
+     */
+    private static int hash(final char[] name, final int start, final int end) {
+        int h = 0;
+        for (int k = start; k < end; ++k) {
+            h = 31 * h + name[k];
+        }
+        final int m = h * 0x9E3779B9;
+        return m ^ (m >>> 16);
+    }
+
+}
@@ -0,0 +1,455 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Sparse Cholesky factorization of the normal equations matrix
+ * A D A<sup>T</sup> of an interior point method.
+ * <p>
+ * The non-zero pattern of A D A<sup>T</sup> does not depend on the positive
+ * diagonal D, so it is analyzed once, when the factorization is built: the
+ * rows are ordered by minimum degree to limit the fill-in, the dense rows (a
+ * length budget covering every variable, for instance) being kept for the
+ * end, and the pattern of the Cholesky factor L is computed from the
+ * elimination tree. Each {@link #factorize(double[]) factorization} then
+ * assembles the matrix one column at a time and computes L row by row, in
+ * memory proportional to the number of non-zeros of L.
+ * </p>
+ * <p>
+ * Pivots that vanish, which happens with redundant equations or when the
+ * iterates get close to a degenerate optimum, are replaced by a huge value,
+ * so that the matching component of the solution is zero. This is the usual
+ * way for interior point methods to go through singular normal matrices.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+class NormalEquations {
+
+    /** Pivots below this ratio to the diagonal element they are computed from are taken as zero. */
+    private static final double POSITIVITY_RATIO = 1.0e-14;
+
+    /** Value replacing a zero pivot. */
+    private static final double HUGE_PIVOT = 1.0e64;
+
+    /** Rows with more neighbors than this multiple of the square root of the number of rows are dense. */
+    private static final int DENSE_RATIO = 10;
+
+    /** Number of rows of A. */
+    private final int m;
+
+    /** Start of each column of A in {@link #rowIndex} and {@link #values}, plus the end. */
+    private final int[] columnStart;
+
+    /** Rows of the non-zero coefficients of A, column by column. */
+    private final int[] rowIndex;
+
+    /** Non-zero coefficients of A, column by column. */
+    private final double[] values;
+
+    /** Start of each row of A in {@link #columnIndex} and {@link #rowValues}, plus the end. */
+    private final int[] rowStart;
+
+    /** Columns of the non-zero coefficients of A, row by row. */
+    private final int[] columnIndex;
+
+    /** Non-zero coefficients of A, row by row. */
+    private final double[] rowValues;
+
+    /** Start of the neighbors of each row in {@link #neighbors}, plus the end. */
+    private final int[] neighborStart;
+
+    /** Rows sharing a column with each row: the off-diagonal pattern of A A<sup>T</sup>. */
+    private final int[] neighbors;
+
+    /** Row of A at each position of the ordering. */
+    private final int[] permutation;
+
+    /** Position of each row of A in the ordering. */
+    private final int[] position;
+
+    /** Parent of each position in the elimination tree, -1 for the roots. */
+    private final int[] parent;
+
+    /** Start of each column of L in {@link #lIndex} and {@link #lValues}, diagonal first, plus the end. */
+    private final int[] lStart;
+
+    /** Rows of the non-zero entries of L, column by column. */
+    private final int[] lIndex;
+
+    /** Non-zero entries of L, column by column. */
+    private final double[] lValues;
+
+    /** Dense work vector, kept at zero between uses. */
+    private final double[] work;
+
+    /** Marks of the rows already reached, by position. */
+    private final int[] mark;
+
+    /** Pattern of the current row of L, in topological order at its end. */
+    private final int[] stack;
+
+    /**
+     * Analyze the pattern of A A<sup>T</sup>.
+     * @param m number of rows of A
+     * @param columnStart start of each column in rowIndex and values, plus the end
+     * @param rowIndex rows of the non-zero coefficients, column by column
+     * @param values non-zero coefficients, column by column
+     */
+    NormalEquations(final int m, final int[] columnStart, final int[] rowIndex, final double[] values) {
+
+        this.m           = m;
+        this.columnStart = columnStart;
+        this.rowIndex    = rowIndex;
+        this.values      = values;
+        this.work        = new double[m];
+        this.mark        = new int[m];
+        this.stack       = new int[m];
+        final int numColumns = columnStart.length - 1;
+
+        // copy of A by rows, to assemble A D A^T one column at a time
+        rowStart = new int[m + 1];
+        for (int k = 0; k < columnStart[numColumns]; k++) {
+            ++rowStart[rowIndex[k] + 1];
+        }
+        for (int i = 0; i < m; i++) {
+            rowStart[i + 1] += rowStart[i];
+        }
+        columnIndex = new int[rowStart[m]];
+        rowValues   = new double[rowStart[m]];
+        final int[] next = new int[m];
+        System.arraycopy(rowStart, 0, next, 0, m);
+        for (int j = 0; j < numColumns; j++) {
+            for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                final int p = next[rowIndex[k]]++;
+                columnIndex[p] = j;
+                rowValues[p]   = values[k];
+            }
+        }
+
+        // rows i and l are neighbors when they share a column: count, then fill
+        neighborStart = new int[m + 1];
+        Arrays.fill(mark, -1);
+        for (int i = 0; i < m; i++) {
+            neighborStart[i + 1] = neighborStart[i];
+            mark[i] = i;
+            for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+                final int j = columnIndex[p];
+                for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                    if (mark[rowIndex[k]] != i) {
+                        mark[rowIndex[k]] = i;
+                        ++neighborStart[i + 1];
+                    }
+                }
+            }
+        }
+        neighbors = new int[neighborStart[m]];
+        Arrays.fill(mark, -1);
+        for (int i = 0; i < m; i++) {
+            int q = neighborStart[i];
+            mark[i] = i;
+            for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+                final int j = columnIndex[p];
+                for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                    if (mark[rowIndex[k]] != i) {
+                        mark[rowIndex[k]] = i;
+                        neighbors[q++]    = rowIndex[k];
+                    }
+                }
+            }
+        }
+
+        permutation = order();
+        position    = new int[m];
+        for (int k = 0; k < m; k++) {
+            position[permutation[k]] = k;
+        }
+
+        // elimination tree of the permuted matrix, with path compression
+        parent = new int[m];
+        final int[] ancestor = new int[m];
+        for (int k = 0; k < m; k++) {
+            parent[k]   = -1;
+            ancestor[k] = -1;
+            final int i = permutation[k];
+            for (int p = neighborStart[i]; p < neighborStart[i + 1]; p++) {
+                int r = position[neighbors[p]];
+                while (r != -1 && r < k) {
+                    final int up = ancestor[r];
+                    ancestor[r] = k;
+                    if (up == -1) {
+                        parent[r] = k;
+                    }
+                    r = up;
+                }
+            }
+        }
+
+        // the pattern of row k of L is the set of positions reached from the
+        // pattern of column k of the upper triangle: count the entries per column
+        final int[] count = new int[m];
+        Arrays.fill(mark, -1);
+        for (int k = 0; k < m; k++) {
+            ++count[k];
+            for (int top = reach(k); top < m; top++) {
+                ++count[stack[top]];
+            }
+        }
+        lStart = new int[m + 1];
+        for (int k = 0; k < m; k++) {
+            lStart[k + 1] = lStart[k] + count[k];
+        }
+        lIndex  = new int[lStart[m]];
+        lValues = new double[lStart[m]];
+
+    }
+
+    /**
+     * Compute the Cholesky factorization of A D A<sup>T</sup>.
+     * @param d diagonal of D, one non-negative entry per column of A
+     * @return false if the matrix has no positive diagonal element, or
+     * non-finite ones
+     */
+    boolean factorize(final double[] d) {
+
+        double maxDiagonal = 0;
+        for (int i = 0; i < m; i++) {
+            double diagonal = 0;
+            for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+                diagonal += d[columnIndex[p]] * rowValues[p] * rowValues[p];
+            }
+            maxDiagonal = Math.max(maxDiagonal, diagonal);
+        }
+        if (maxDiagonal == 0 || Double.isInfinite(maxDiagonal) || Double.isNaN(maxDiagonal)) {
+            return false;
+        }
+
+        // up-looking factorization: row k of L solves L(0:k,0:k) l = column k
+        final int[] next = new int[m];
+        Arrays.fill(mark, -1);
+        for (int k = 0; k < m; k++) {
+
+            // scatter the upper part of column k of P A D A^T P^T
+            final int i = permutation[k];
+            for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+                final int j = columnIndex[p];
+                final double v = d[j] * rowValues[p];
+                for (int q = columnStart[j]; q < columnStart[j + 1]; q++) {
+                    final int r = position[rowIndex[q]];
+                    if (r <= k) {
+                        work[r] += v * values[q];
+                    }
+                }
+            }
+            final double original = work[k];
+            double diagonal = original;
+            work[k] = 0;
+
+            for (int top = reach(k); top < m; top++) {
+                final int r = stack[top];
+                final double lkr = work[r] / lValues[lStart[r]];
+                work[r] = 0;
+                for (int q = lStart[r] + 1; q < next[r]; q++) {
+                    work[lIndex[q]] -= lValues[q] * lkr;
+                }
+                diagonal -= lkr * lkr;
+                final int q = next[r]++;
+                lIndex[q]  = k;
+                lValues[q] = lkr;
+            }
+
+            lIndex[lStart[k]]  = k;
+            // a pivot lost to cancellation belongs to a dependent row
+            lValues[lStart[k]] = (diagonal > POSITIVITY_RATIO * original) ? Math.sqrt(diagonal) : HUGE_PIVOT;
+            next[k] = lStart[k] + 1;
+
+        }
+        return true;
+
+    }
+
+    /**
+     * Solve A D A<sup>T</sup> y = b with the last factorization.
+     * @param b right hand side, replaced by the solution y
+     */
+    void solve(final double[] b) {
+
+        for (int k = 0; k < m; k++) {
+            work[k] = b[permutation[k]];
+        }
+
+        // L z = P b, by columns
+        for (int k = 0; k < m; k++) {
+            final double zk = work[k] / lValues[lStart[k]];
+            work[k] = zk;
+            if (zk != 0) {
+                for (int q = lStart[k] + 1; q < lStart[k + 1]; q++) {
+                    work[lIndex[q]] -= lValues[q] * zk;
+                }
+            }
+        }
+
+        // L^T w = z, by rows of L^T
+        for (int k = m - 1; k >= 0; k--) {
+            double sum = work[k];
+            for (int q = lStart[k] + 1; q < lStart[k + 1]; q++) {
+                sum -= lValues[q] * work[lIndex[q]];
+            }
+            work[k] = sum / lValues[lStart[k]];
+        }
+
+        for (int k = 0; k < m; k++) {
+            b[permutation[k]] = work[k];
+            work[k] = 0;
+        }
+
+    }
+
+    /**
+     * Find the pattern of a row of L.
+     * <p>
+     * The pattern is the set of positions reached by walking up the
+     * elimination tree from the positions before k in column k of the
+     * permuted matrix. {@link #mark} must not hold k on entry.
+     * </p>
+     * @param k position of the row
+     * @return start of the pattern in {@link #stack}, which ends at the end
+     * of the stack; descendants come before their ancestors
+     */
+    private int reach(final int k) {
+        int top = m;
+        mark[k] = k;
+        final int i = permutation[k];
+        for (int p = neighborStart[i]; p < neighborStart[i + 1]; p++) {
+            int r = position[neighbors[p]];
+            if (r > k) {
+                continue;
+            }
+            // the path up to an already reached position goes at the bottom of
+            // the stack, then is moved just before the pattern found so far
+            int length = 0;
+            while (mark[r] != k) {
+                stack[length++] = r;
+                mark[r] = k;
+                r = parent[r];
+            }
+            while (length > 0) {
+                stack[--top] = stack[--length];
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Order the rows by minimum degree.
+     * <p>
+     * The elimination graph is kept explicitly: eliminating a row connects all
+     * its remaining neighbors. Dense rows are left out of the graph and come
+     * last, they would otherwise make every elimination cost a full merge.
+     * </p>
+     * @return row at each position of the ordering
+     */
+    private int[] order() {
+
+        final int[] order = new int[m];
+        final boolean[] eliminated = new boolean[m];
+        final int dense = DENSE_RATIO * (int) Math.ceil(Math.sqrt(m));
+        int last = m;
+        for (int i = m - 1; i >= 0; i--) {
+            if (neighborStart[i + 1] - neighborStart[i] > dense) {
+                eliminated[i]  = true;
+                order[--last] = i;
+            }
+        }
+
+        final int[][] adjacency = new int[m][];
+        final int[] degree      = new int[m];
+        final PriorityQueue<Long> queue = new PriorityQueue<Long>();
+        for (int i = 0; i < m; i++) {
+            if (!eliminated[i]) {
+                final int[] list = new int[neighborStart[i + 1] - neighborStart[i]];
+                for (int p = neighborStart[i]; p < neighborStart[i + 1]; p++) {
+                    if (!eliminated[neighbors[p]]) {
+                        list[degree[i]++] = neighbors[p];
+                    }
+                }
+                adjacency[i] = list;
+                queue.add((((long) degree[i]) << 32) | i);
+            }
+        }
+
+        final boolean[] seen = new boolean[m];
+        int k = 0;
+        while (k < last) {
+
+            // the queue may hold outdated degrees, which are skipped
+            final long key = queue.poll();
+            final int v    = (int) (key & 0xffffffffL);
+            if (eliminated[v] || (int) (key >>> 32) != degree[v]) {
+                continue;
+            }
+            eliminated[v] = true;
+            order[k++]    = v;
+
+            // remaining neighbors of v
+            final int[] clique = adjacency[v];
+            int size = 0;
+            for (int t = 0; t < degree[v]; t++) {
+                if (!eliminated[clique[t]]) {
+                    clique[size++] = clique[t];
+                }
+            }
+            adjacency[v] = null;
+
+            // each of them becomes a neighbor of all the others
+            for (int t = 0; t < size; t++) {
+                final int u = clique[t];
+                final int[] list = new int[degree[u] + size];
+                int count = 0;
+                seen[u] = true;
+                for (int s = 0; s < degree[u]; s++) {
+                    final int w = adjacency[u][s];
+                    if (!eliminated[w] && !seen[w]) {
+                        seen[w] = true;
+                        list[count++] = w;
+                    }
+                }
+                for (int s = 0; s < size; s++) {
+                    final int w = clique[s];
+                    if (!seen[w]) {
+                        seen[w] = true;
+                        list[count++] = w;
+                    }
+                }
+                seen[u] = false;
+                for (int s = 0; s < count; s++) {
+                    seen[list[s]] = false;
+                }
+                adjacency[u] = list;
+                degree[u]    = count;
+                queue.add((((long) count) << 32) | u);
+            }
+
+        }
+        return order;
+
+    }
+
+}
@@ -0,0 +1,432 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+/**
+ * Branch and bound search spread over several threads.
+ * <p>
+ * Every worker thread owns a queue of open nodes ordered by bound and pushes
+ * the children it creates to it. A worker whose queue is empty steals the best
+ * node of another worker, so the threads stay busy as long as the tree has
+ * open nodes anywhere. The incumbent is shared and updated atomically, every
+ * worker prunes against the best solution found by any of them.
+ * </p>
+ * <p>
+ * The order in which nodes are explored depends on thread scheduling. In
+ * {@link #setDeterministic(boolean) deterministic} mode nodes are only pruned
+ * when their bound is strictly worse than the incumbent, and solutions with
+ * the same objective value are ordered by their integer point, so a complete
+ * search returns the same solution whatever the number of threads (at the
+ * price of exploring the nodes that tie with the optimum). A search stopped
+ * by a node or time limit is never deterministic.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+public class ParallelBranchAndBoundSolver extends BranchAndBoundSolver {
+
+    /** Pause of an idle worker before it looks for work again, in nanoseconds. */
+    private static final long IDLE_PAUSE = 50000L;
+
+    /** Number of worker threads. */
+    private int threads;
+
+    /** Whether the result must not depend on thread scheduling. */
+    private boolean deterministic;
+
+    /** Number of nodes explored by the running search. */
+    private AtomicInteger nodeCount;
+
+    /** Number of simplex iterations performed by the running search. */
+    private AtomicInteger iterationCount;
+
+    /**
+     * Build a solver where all the variables are integer, using one thread per processor.
+     */
+    public ParallelBranchAndBoundSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Build a solver where all the variables are integer.
+     * @param threads number of worker threads
+     */
+    public ParallelBranchAndBoundSolver(final int threads) {
+        this.nodeCount      = new AtomicInteger();
+        this.iterationCount = new AtomicInteger();
+        setThreads(threads);
+    }
+
+    /**
+     * Set the number of worker threads.
+     * @param threads number of worker threads
+     */
+    public void setThreads(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("at least one thread is needed");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Get the number of worker threads.
+     * @return number of worker threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set whether the result must not depend on thread scheduling.
+     * @param deterministic if true, ties with the incumbent are explored and
+     * broken by comparing the integer points
+     */
+    public void setDeterministic(final boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Check whether the result does not depend on thread scheduling.
+     * @return true if the solver runs in deterministic mode
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected RealPointValuePair search()
+        throws OptimizationException {
+
+        nodeCount.set(0);
+        iterationCount.set(0);
+        provenOptimal = false;
+        final long deadline = (getTimeLimit() > 0) ?
+                              System.currentTimeMillis() + getTimeLimit() : Long.MAX_VALUE;
+
+        final Search search;
+        try {
+            final Node root = solveRoot();
+            if (root == null) {
+                throw new NoFeasibleSolutionException();
+            }
+            search = new Search(deadline);
+            search.add(0, root);
+            search.run();
+        } finally {
+            nodes        = nodeCount.get();
+            lpIterations = iterationCount.get();
+        }
+
+        if (search.failure != null) {
+            throw search.failure;
+        }
+        final Incumbent incumbent = search.incumbent.get();
+        if (incumbent == null) {
+            if (search.isComplete()) {
+                throw new NoFeasibleSolutionException();
+            }
+            throw new OptimizationException("no integer solution found within {0} nodes", nodes);
+        }
+        provenOptimal = search.isComplete();
+        status        = provenOptimal ? SolveStatus.OPTIMAL : search.stop;
+        return incumbent.solution;
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected AbstractLinearOptimizer copy() {
+        final ParallelBranchAndBoundSolver copy = (ParallelBranchAndBoundSolver) super.copy();
+        copy.nodeCount      = new AtomicInteger();
+        copy.iterationCount = new AtomicInteger();
+        return copy;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void countNode(final int iterations) {
+        nodeCount.incrementAndGet();
+        iterationCount.addAndGet(iterations);
+    }
+
+    /**
+     * State of one parallel search.
+     */
+    private class Search {
+
+        /** Open nodes of each worker, each queue is guarded by its own monitor. */
+        private final List<PriorityQueue<Node>> queues;
+
+        /** Number of nodes queued or being expanded, the search is over when it drops to 0. */
+        private final AtomicInteger pending;
+
+        /** Best integer solution found so far. */
+        private final AtomicReference<Incumbent> incumbent;
+
+        /** Time at which the search must stop. */
+        private final long deadline;
+
+        /** Set when a worker stopped the search before the tree was exhausted. */
+        private volatile boolean stopped;
+
+        /** Limit that stopped the search, null if none did. */
+        private volatile SolveStatus stop;
+
+        /** Error raised by a relaxation, if any. */
+        private volatile OptimizationException failure;
+
+        /**
+         * @param deadline time at which the search must stop
+         */
+        Search(final long deadline) {
+            this.queues    = new ArrayList<PriorityQueue<Node>>(threads);
+            for (int i = 0; i < threads; i++) {
+                queues.add(new PriorityQueue<Node>());
+            }
+            this.pending   = new AtomicInteger();
+            this.incumbent = new AtomicReference<Incumbent>();
+            this.deadline  = deadline;
+        }
+
+        /**
+         * Run the workers until the tree is exhausted or the search is stopped.
+         * @exception OptimizationException if the search is interrupted
+         */
+        void run() throws OptimizationException {
+            final ExecutorService pool = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+            for (int i = 0; i < threads; i++) {
+                final int worker = i;
+                pool.execute(new Runnable() {
+                    public void run() {
+                        work(worker);
+                    }
+                });
+            }
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                stopped = true;
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new OptimizationException("branch and bound search interrupted");
+            }
+        }
+
+        /**
+         * Check whether the search explored the whole tree.
+         * @return true if no node was left unexplored
+         */
+        boolean isComplete() {
+            return !stopped && pending.get() == 0;
+        }
+
+        /**
+         * Queue a solved node that still has fractional variables, or record it
+         * as a candidate incumbent.
+         * @param worker worker that created the node
+         * @param node solved node
+         */
+        void add(final int worker, final Node node) {
+            if (getBranchingVariable(node.solution.getPointRef()) < 0) {
+                offer(node);
+                return;
+            }
+            pending.incrementAndGet();
+            final PriorityQueue<Node> queue = queues.get(worker);
+            synchronized (queue) {
+                queue.add(node);
+            }
+        }
+
+        /**
+         * Main loop of a worker.
+         * @param worker index of the worker
+         */
+        void work(final int worker) {
+            while (!stopped) {
+                final Node node = take(worker);
+                if (node == null) {
+                    if (pending.get() == 0) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PAUSE);
+                    continue;
+                }
+                try {
+                    final SolveStatus limit = checkLimits(nodeCount.get(), deadline);
+                    if (limit != null) {
+                        // the node is left unexplored, keep it counted as pending
+                        stop    = limit;
+                        stopped = true;
+                        pending.incrementAndGet();
+                        return;
+                    }
+                    if (!isWorthExploring(node.bound)) {
+                        continue;
+                    }
+                    for (final Node child : branch(node)) {
+                        final Node solved = solve(child);
+                        if (solved != null && isWorthExploring(solved.bound)) {
+                            add(worker, solved);
+                        }
+                    }
+                    node.basis = null;
+                } catch (OptimizationException e) {
+                    failure = e;
+                    stopped = true;
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Take the best node of the worker, or steal the best node of another worker.
+         * @param worker index of the worker
+         * @return a node to expand, null if all the queues are empty
+         */
+        private Node take(final int worker) {
+            for (int k = 0; k < threads; k++) {
+                final PriorityQueue<Node> queue = queues.get((worker + k) % threads);
+                synchronized (queue) {
+                    final Node node = queue.poll();
+                    if (node != null) {
+                        return node;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Check whether a node bound can still improve on the incumbent.
+         * @param bound bound of the node (internal sign, larger is better)
+         * @return true if the node must be explored
+         */
+        private boolean isWorthExploring(final double bound) {
+            final Incumbent current = incumbent.get();
+            if (current == null) {
+                return true;
+            }
+            if (deterministic) {
+                // keep the nodes that may hold a solution tying with the incumbent
+                return bound >= current.value - epsilon * Math.max(1.0, Math.abs(current.value));
+            }
+            return canImprove(bound, current.value);
+        }
+
+        /**
+         * Replace the incumbent by an integer solution if it is better.
+         * @param node solved node with an integer solution
+         */
+        private void offer(final Node node) {
+            final RealPointValuePair rounded = round(node.solution);
+            final Incumbent candidate =
+                new Incumbent(rounded, (goalType == GoalType.MAXIMIZE) ? rounded.getValue() : -rounded.getValue());
+            while (true) {
+                final Incumbent current = incumbent.get();
+                if (current != null && !candidate.isBetterThan(current)) {
+                    return;
+                }
+                if (incumbent.compareAndSet(current, candidate)) {
+                    return;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * An integer solution with its value in the internal sign.
+     * <p>
+     * Values are computed from the rounded point, so the same point always
+     * gets the same value whichever relaxation produced it.
+     * </p>
+     */
+    private static class Incumbent {
+
+        /** Rounded solution. */
+        final RealPointValuePair solution;
+
+        /** Objective value, with the sign such that larger is better. */
+        final double value;
+
+        /**
+         * @param solution rounded solution
+         * @param value objective value with the sign such that larger is better
+         */
+        Incumbent(final RealPointValuePair solution, final double value) {
+            this.solution = solution;
+            this.value    = value;
+        }
+
+        /**
+         * Total order on solutions: better value first, then smaller point in lexicographic order.
+         * @param other solution to compare to
+         * @return true if this solution must replace the other one
+         */
+        boolean isBetterThan(final Incumbent other) {
+            if (value != other.value) {
+                return value > other.value;
+            }
+            final double[] p = solution.getPointRef();
+            final double[] q = other.solution.getPointRef();
+            for (int i = 0; i < p.length; i++) {
+                if (p[i] != q[i]) {
+                    return p[i] < q[i];
+                }
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Creates daemon worker threads named after the solver.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        /** Number of threads created. */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "BranchAndBound-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lp.MathRuntimeException;
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+/**
+ * Races several optimizers on the same problem.
+ * <p>
+ * Which solver or pricing rule is fastest varies from one problem to the
+ * next. The portfolio runs all of its members concurrently, each on its own
+ * thread and on a {@link AbstractLinearOptimizer#copy() copy} of its settings,
+ * and returns the first conclusive answer: an optimal solution, or the proof
+ * that the problem is infeasible or unbounded. The other members are then
+ * cancelled, so a solve takes about as long as the fastest member on that
+ * problem.
+ * </p>
+ * <p>
+ * A solution returned by a member stopped on a limit is not conclusive: its
+ * {@link AbstractLinearOptimizer#getStatus() status} is not
+ * {@link SolveStatus#OPTIMAL}. If no member concludes, the best of those
+ * solutions is returned, {@link #isProvenOptimal()} returns false and
+ * {@link #getStatus()} is the status of that member; if none returned a solution, the
+ * exception raised by the first member is thrown.
+ * </p>
+ * <p>
+ * The members keep their own settings, including their maximal number of
+ * iterations, but not their cancellation tokens which are replaced by the one
+ * of the race. The settings of the portfolio itself are not used, except its
+ * own cancellation token which stops the whole race.
+ * </p>
+ * <pre>
+ *   SimplexSolver dantzig = new SimplexSolver();
+ *   SimplexSolver devex   = new SimplexSolver();
+ *   devex.setPricingRule(PricingRule.DEVEX);
+ *   PortfolioOptimizer portfolio =
+ *       new PortfolioOptimizer(dantzig, devex, new RevisedSimplexSolver());
+ * </pre>
+ * @version $Revision$ $Date$
+ */
+public class PortfolioOptimizer extends AbstractLinearOptimizer {
+
+    /** Delay between two checks of the cancellation token, in milliseconds. */
+    private static final long CANCELLATION_POLL = 10L;
+
+    /** Members of the portfolio. */
+    private final List<AbstractLinearOptimizer> solvers;
+
+    /** Member that produced the last result. */
+    private AbstractLinearOptimizer winner;
+
+    /** Number of iterations performed by the member that produced the last result. */
+    private int winnerIterations;
+
+    /** Whether the last result is conclusive. */
+    private boolean provenOptimal;
+
+    /** Status of the member that produced the last solution, null if none did. */
+    private SolveStatus status;
+
+    /**
+     * Build a portfolio.
+     * @param solvers members of the portfolio
+     */
+    public PortfolioOptimizer(final AbstractLinearOptimizer ... solvers) {
+        this.solvers = new ArrayList<AbstractLinearOptimizer>(Arrays.asList(solvers));
+    }
+
+    /**
+     * Add a member to the portfolio.
+     * @param solver optimizer to race against the other members
+     */
+    public void addSolver(final AbstractLinearOptimizer solver) {
+        solvers.add(solver);
+    }
+
+    /**
+     * Get the members of the portfolio.
+     * @return unmodifiable list of the members
+     */
+    public List<AbstractLinearOptimizer> getSolvers() {
+        return Collections.unmodifiableList(solvers);
+    }
+
+    /**
+     * Get the member that produced the result of the last solve.
+     * @return member whose solution or exception ended the last solve
+     */
+    public AbstractLinearOptimizer getWinner() {
+        return winner;
+    }
+
+    /**
+     * Get the number of iterations performed by the member that produced the
+     * result of the last solve.
+     * @return number of iterations of the winner
+     */
+    @Override
+    public int getIterations() {
+        return winnerIterations;
+    }
+
+    /**
+     * Check whether the last solve returned a conclusive result.
+     * @return false if all the members stopped on a limit
+     */
+    public boolean isProvenOptimal() {
+        return provenOptimal;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return status of the member that produced the last solution, null if none did
+     */
+    @Override
+    public SolveStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The bounds are handed to the members, each one handles them its own way.
+     * </p>
+     */
+    @Override
+    protected boolean isBoundsSupported() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected RealPointValuePair doOptimize()
+        throws OptimizationException {
+
+        if (solvers.isEmpty()) {
+            throw MathRuntimeException.createIllegalStateException("portfolio has no solver");
+        }
+        winner           = null;
+        winnerIterations = 0;
+        provenOptimal    = false;
+        status           = null;
+
+        // the copies share one token, cancelled as soon as the race is decided
+        final CancellationToken race = new CancellationToken();
+        final BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<Outcome>();
+        final ExecutorService pool = Executors.newFixedThreadPool(solvers.size(), new RacerThreadFactory());
+        for (int i = 0; i < solvers.size(); i++) {
+            final int member = i;
+            final AbstractLinearOptimizer racer = solvers.get(i).copy();
+            racer.setCancellationToken(race);
+            pool.execute(new Runnable() {
+                public void run() {
+                    outcomes.add(runMember(member, racer));
+                }
+            });
+        }
+        pool.shutdown();
+
+        try {
+            Outcome best    = null;
+            Outcome failure = null;
+            for (int received = 0; received < solvers.size();) {
+                final Outcome outcome = outcomes.poll(CANCELLATION_POLL, TimeUnit.MILLISECONDS);
+                if (outcome == null) {
+                    if (isCancelled()) {
+                        throw new OptimizationException("solve cancelled");
+                    }
+                    continue;
+                }
+                ++received;
+                if (outcome.error != null) {
+                    throw outcome.error;
+                }
+                if (outcome.conclusive) {
+                    return conclude(outcome, true);
+                }
+                if (outcome.solution == null) {
+                    if (failure == null || outcome.member < failure.member) {
+                        failure = outcome;
+                    }
+                } else if (best == null || isBetter(outcome.solution, best.solution)) {
+                    best = outcome;
+                }
+            }
+            return conclude((best == null) ? failure : best, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OptimizationException("portfolio solve interrupted");
+        } finally {
+            race.cancel();
+        }
+
+    }
+
+    /**
+     * Run one member of the portfolio.
+     * @param member index of the member
+     * @param racer copy of the member
+     * @return outcome of the solve
+     */
+    private Outcome runMember(final int member, final AbstractLinearOptimizer racer) {
+        try {
+            final RealPointValuePair solution = (lowerBounds == null) ?
+                racer.optimize(f, constraints, goalType, restrictToNonNegative) :
+                racer.optimize(f, constraints, goalType, lowerBounds, upperBounds);
+            final boolean conclusive = racer.getStatus() == SolveStatus.OPTIMAL;
+            return new Outcome(member, racer, solution, conclusive, null, null);
+        } catch (OptimizationException e) {
+            final boolean conclusive =
+                (e instanceof NoFeasibleSolutionException) || (e instanceof UnboundedSolutionException);
+            return new Outcome(member, racer, null, conclusive, e, null);
+        } catch (RuntimeException e) {
+            return new Outcome(member, racer, null, false, null, e);
+        }
+    }
+
+    /**
+     * Record the outcome retained as the result of the race.
+     * @param outcome retained outcome
+     * @param proven whether the outcome is conclusive
+     * @return solution of the outcome
+     * @exception OptimizationException if the outcome is a failure
+     */
+    private RealPointValuePair conclude(final Outcome outcome, final boolean proven)
+        throws OptimizationException {
+        winner           = solvers.get(outcome.member);
+        winnerIterations = outcome.racer.getIterations();
+        if (outcome.solution == null) {
+            throw outcome.failure;
+        }
+        provenOptimal = proven;
+        status        = outcome.racer.getStatus();
+        return outcome.solution;
+    }
+
+    /**
+     * Compare two solutions according to the goal.
+     * @param a first solution
+     * @param b second solution
+     * @return true if a is strictly better than b
+     */
+    private boolean isBetter(final RealPointValuePair a, final RealPointValuePair b) {
+        return (goalType == GoalType.MAXIMIZE) ? a.getValue() > b.getValue() : a.getValue() < b.getValue();
+    }
+
+    /**
+     * Result of one member of the race.
+     */
+    private static class Outcome {
+
+        /** Index of the member. */
+        final int member;
+
+        /** Copy of the member that ran the solve. */
+        final AbstractLinearOptimizer racer;
+
+        /** Solution returned, null if the solve failed. */
+        final RealPointValuePair solution;
+
+        /** Whether the outcome is an optimal solution or a proof of infeasibility or unboundedness. */
+        final boolean conclusive;
+
+        /** Exception raised by the solve, null if it returned a solution. */
+        final OptimizationException failure;
+
+        /** Unexpected error raised by the solve, if any. */
+        final RuntimeException error;
+
+        /**
+         * @param member index of the member
+         * @param racer copy of the member that ran the solve
+         * @param solution solution returned, null if the solve failed
+         * @param conclusive whether the outcome decides the race
+         * @param failure exception raised by the solve, null if it returned a solution
+         * @param error unexpected error raised by the solve, if any
+         */
+        Outcome(final int member, final AbstractLinearOptimizer racer,
+                final RealPointValuePair solution, final boolean conclusive,
+                final OptimizationException failure, final RuntimeException error) {
+            this.member     = member;
+            this.racer      = racer;
+            this.solution   = solution;
+            this.conclusive = conclusive;
+            this.failure    = failure;
+            this.error      = error;
+        }
+
+    }
+
+    /**
+     * Creates daemon threads for the members of the race.
+     */
+    private static class RacerThreadFactory implements ThreadFactory {
+
+        /** Number of threads created. */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "Portfolio-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,948 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lp.optimization.GoalType;
+
+/**
+ * Reduces a linear problem with non-negative variables before it is solved,
+ * and generates cutting planes for its integer variables.
+ * <p>
+ * The reductions are the classical ones, repeated until nothing changes:
+ * <ul>
+ *   <li>constraints with a single variable become bounds on that variable,</li>
+ *   <li>bounds are tightened from the activity range of every constraint
+ *   (integer bounds are rounded), and constraints that can never be violated
+ *   are removed,</li>
+ *   <li>variables with equal bounds, and variables whose best objective value
+ *   is at a bound no constraint prevents them from reaching (dual fixing),
+ *   are fixed,</li>
+ *   <li>coefficients of binary variables in inequalities are tightened,</li>
+ *   <li>duplicate inequalities are merged and inequalities dominated by
+ *   another one (smaller coefficients, larger right hand side) are removed.</li>
+ * </ul>
+ * Fixed variables are removed from the reduced problem; {@link #postsolve(double[])}
+ * maps a solution of the reduced problem back to the original variables.
+ * </p>
+ * <p>
+ * For knapsack rows of the reduced problem (inequalities with positive
+ * coefficients over binary variables), {@link #separateCoverCuts(double[])}
+ * returns the extended cover inequalities violated by a relaxation solution.
+ * </p>
+ * <p>
+ * The rows are kept sparse, as the constraints give them: each reduction
+ * goes through the non-zero coefficients only, so presolving a problem
+ * with many variables and short rows does not take time or memory in
+ * proportion to the number of variables times the number of rows.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+public class Presolver {
+
+    /** Maximal number of passes over the reductions. */
+    private static final int MAX_PASSES = 20;
+
+    /** Relative improvement below which a continuous bound is not tightened. */
+    private static final double MIN_BOUND_IMPROVEMENT = 1.0e-3;
+
+    /** Tolerance on feasibility and integrality. */
+    private final double epsilon;
+
+    /** Number of variables of the original problem. */
+    private final int n;
+
+    /** Original objective function. */
+    private final LinearObjectiveFunction f;
+
+    /** Objective coefficients with the sign such that larger is better. */
+    private final double[] gain;
+
+    /** Whether each original variable must be integer. */
+    private final boolean[] integer;
+
+    /** Lower bounds of the original variables. */
+    private final double[] lower;
+
+    /** Upper bounds of the original variables. */
+    private final double[] upper;
+
+    /** Constraints of the original problem still active, as &lt;= or = rows. */
+    private final List<Row> rows;
+
+    /** Reduced objective function. */
+    private LinearObjectiveFunction reducedF;
+
+    /** Rows of the reduced problem, over the reduced variables. */
+    private List<Row> reducedRows;
+
+    /** Constraints of the reduced problem, rows plus bounds. */
+    private List<LinearConstraint> reducedConstraints;
+
+    /** Original index of each reduced variable. */
+    private int[] columns;
+
+    /** Signatures of the cuts already generated. */
+    private final Set<String> cutSignatures;
+
+    /** Number of original constraints removed. */
+    private int removedConstraints;
+
+    /** Number of variables fixed. */
+    private int fixedVariables;
+
+    /** Number of coefficients tightened. */
+    private int tightenedCoefficients;
+
+    /** Number of cuts generated. */
+    private int cuts;
+
+    /**
+     * Build a presolver for a problem whose variables are all non-negative.
+     * @param f objective function
+     * @param constraints constraints
+     * @param goalType type of optimization goal
+     * @param integerVariables indices of the integer variables, null if all the variables are integer
+     * @param epsilon tolerance on feasibility and integrality
+     */
+    public Presolver(final LinearObjectiveFunction f, final Collection<LinearConstraint> constraints,
+                     final GoalType goalType, final int[] integerVariables, final double epsilon) {
+        this.epsilon = epsilon;
+        this.f       = f;
+        this.n       = f.getCoefficients().getDimension();
+        this.gain    = f.getCoefficients().getData();
+        if (goalType == GoalType.MINIMIZE) {
+            for (int j = 0; j < n; j++) {
+                gain[j] = -gain[j];
+            }
+        }
+        this.integer = new boolean[n];
+        if (integerVariables == null) {
+            Arrays.fill(integer, true);
+        } else {
+            for (final int j : integerVariables) {
+                integer[j] = true;
+            }
+        }
+        this.lower = new double[n];
+        this.upper = new double[n];
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+        this.rows = new ArrayList<Row>(constraints.size());
+        for (final LinearConstraint constraint : constraints) {
+            final int[] index = constraint.getNonZeroIndices().clone();
+            final double[] a  = constraint.getNonZeroValues().clone();
+            switch (constraint.getRelationship()) {
+            case LEQ :
+                rows.add(new Row(index, a, constraint.getValue(), false));
+                break;
+            case GEQ :
+                for (int k = 0; k < a.length; k++) {
+                    a[k] = -a[k];
+                }
+                rows.add(new Row(index, a, -constraint.getValue(), false));
+                break;
+            default :
+                rows.add(new Row(index, a, constraint.getValue(), true));
+            }
+        }
+        this.cutSignatures = new HashSet<String>();
+    }
+
+    /**
+     * Apply the reductions and build the reduced problem.
+     * @exception NoFeasibleSolutionException if the reductions prove the problem infeasible
+     */
+    public void presolve() throws NoFeasibleSolutionException {
+        final int originalRows = rows.size();
+        boolean changed = true;
+        for (int pass = 0; changed && pass < MAX_PASSES; ++pass) {
+            changed = removeSingletonRows();
+            changed = tightenBounds()          || changed;
+            changed = fixVariables()           || changed;
+            changed = tightenCoefficients()    || changed;
+            changed = removeDuplicateRows()    || changed;
+            changed = removeDominatedRows()    || changed;
+        }
+        removedConstraints = originalRows - rows.size();
+        buildReducedProblem();
+    }
+
+    /**
+     * Get the objective function of the reduced problem.
+     * @return reduced objective function, its constant term accounts for the fixed variables
+     */
+    public LinearObjectiveFunction getObjectiveFunction() {
+        return reducedF;
+    }
+
+    /**
+     * Get the constraints of the reduced problem.
+     * <p>The bounds found by the reductions are included as single variable constraints.</p>
+     * @return reduced constraints
+     */
+    public List<LinearConstraint> getConstraints() {
+        return reducedConstraints;
+    }
+
+    /**
+     * Get the integer variables of the reduced problem.
+     * @return indices of the integer reduced variables
+     */
+    public int[] getIntegerVariables() {
+        int count = 0;
+        for (final int j : columns) {
+            if (integer[j]) {
+                ++count;
+            }
+        }
+        final int[] reduced = new int[count];
+        for (int k = 0, i = 0; k < columns.length; ++k) {
+            if (integer[columns[k]]) {
+                reduced[i++] = k;
+            }
+        }
+        return reduced;
+    }
+
+    /**
+     * Get the number of variables of the reduced problem.
+     * @return number of variables left after fixing
+     */
+    public int getNumVariables() {
+        return columns.length;
+    }
+
+    /**
+     * Map a point of the reduced problem back to the original variables.
+     * @param reducedPoint point of the reduced problem
+     * @return point of the original problem
+     */
+    public double[] postsolve(final double[] reducedPoint) {
+        final double[] point = lower.clone();
+        for (int k = 0; k < columns.length; ++k) {
+            point[columns[k]] = reducedPoint[k];
+        }
+        return point;
+    }
+
+    /**
+     * Generate extended cover inequalities violated by a point.
+     * <p>
+     * For every knapsack row a<sub>1</sub>x<sub>1</sub> + ... + a<sub>k</sub>x<sub>k</sub> &lt;= b
+     * of the reduced problem, a cover C (a set of items whose weights exceed b)
+     * is built greedily from the items the point selects most, made minimal, and
+     * extended with the items heavier than all the items of C. The inequality
+     * sum<sub>j in E(C)</sub> x<sub>j</sub> &lt;= |C| - 1 holds for all binary
+     * solutions and is returned if the point violates it.
+     * </p>
+     * @param point point of the reduced problem, typically a relaxation solution
+     * @return violated cuts over the reduced variables, not generated before
+     */
+    public List<LinearConstraint> separateCoverCuts(final double[] point) {
+        final List<LinearConstraint> found = new ArrayList<LinearConstraint>();
+        for (final Row row : reducedRows) {
+            final Integer[] items = getKnapsackItems(row);
+            if (items == null) {
+                continue;
+            }
+
+            // items the point selects most come first, by unselected fraction per unit of weight
+            Arrays.sort(items, new Comparator<Integer>() {
+                public int compare(final Integer i, final Integer j) {
+                    return Double.compare((1 - point[row.index[i]]) / row.a[i],
+                                          (1 - point[row.index[j]]) / row.a[j]);
+                }
+            });
+            int size = 0;
+            double weight = 0;
+            while (size < items.length && weight <= row.b + epsilon) {
+                weight += row.a[items[size++]];
+            }
+            if (weight <= row.b + epsilon) {
+                continue;
+            }
+
+            // make the cover minimal, dropping the least selected items first
+            final boolean[] inCover = new boolean[row.a.length];
+            for (int k = 0; k < size; ++k) {
+                inCover[items[k]] = true;
+            }
+            int coverSize = size;
+            for (int k = size - 1; k >= 0; --k) {
+                final int item = items[k];
+                if (weight - row.a[item] > row.b + epsilon) {
+                    inCover[item] = false;
+                    weight -= row.a[item];
+                    --coverSize;
+                }
+            }
+            double heaviest = 0;
+            double activity = 0;
+            for (int k = 0; k < row.a.length; ++k) {
+                if (inCover[k]) {
+                    heaviest = Math.max(heaviest, row.a[k]);
+                    activity += point[row.index[k]];
+                }
+            }
+            if (activity <= coverSize - 1 + epsilon) {
+                continue;
+            }
+
+            // extend the cover with the items at least as heavy as all its items
+            int extended = 0;
+            for (int k = 0; k < row.a.length; ++k) {
+                if (inCover[k] || row.a[k] >= heaviest) {
+                    ++extended;
+                }
+            }
+            final int[] indices = new int[extended];
+            final double[] ones = new double[extended];
+            final StringBuilder signature = new StringBuilder();
+            for (int k = 0, l = 0; k < row.a.length; ++k) {
+                if (inCover[k] || row.a[k] >= heaviest) {
+                    indices[l] = row.index[k];
+                    ones[l++]  = 1;
+                    signature.append(row.index[k]).append(' ');
+                }
+            }
+            signature.append("<= ").append(coverSize - 1);
+            if (cutSignatures.add(signature.toString())) {
+                found.add(new LinearConstraint(point.length, indices, ones, Relationship.LEQ, coverSize - 1));
+            }
+        }
+        cuts += found.size();
+        return found;
+    }
+
+    /**
+     * Get the number of original constraints removed by the last presolve.
+     * @return number of constraints removed
+     */
+    public int getRemovedConstraints() {
+        return removedConstraints;
+    }
+
+    /**
+     * Get the number of variables fixed by the last presolve.
+     * @return number of variables fixed
+     */
+    public int getFixedVariables() {
+        return fixedVariables;
+    }
+
+    /**
+     * Get the number of coefficients tightened by the last presolve.
+     * @return number of coefficients tightened
+     */
+    public int getTightenedCoefficients() {
+        return tightenedCoefficients;
+    }
+
+    /**
+     * Get the number of cuts generated since the presolve.
+     * @return number of cuts
+     */
+    public int getCuts() {
+        return cuts;
+    }
+
+    /**
+     * Turn the rows with at most one variable into bounds.
+     * @return true if a row was removed
+     * @exception NoFeasibleSolutionException if a row cannot be satisfied
+     */
+    private boolean removeSingletonRows() throws NoFeasibleSolutionException {
+        boolean changed = false;
+        for (int r = rows.size() - 1; r >= 0; --r) {
+            final Row row = rows.get(r);
+            if (row.a.length > 1) {
+                continue;
+            }
+            if (row.a.length == 0) {
+                if (row.b < -epsilon || (row.equality && row.b > epsilon)) {
+                    throw new NoFeasibleSolutionException();
+                }
+            } else {
+                final int variable = row.index[0];
+                final double value = row.b / row.a[0];
+                if (row.equality || row.a[0] > 0) {
+                    setUpper(variable, value);
+                }
+                if (row.equality || row.a[0] < 0) {
+                    setLower(variable, value);
+                }
+            }
+            rows.remove(r);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Tighten the variable bounds using the activity range of every row, and
+     * remove the rows that can never be violated.
+     * @return true if a bound changed or a row was removed
+     * @exception NoFeasibleSolutionException if a row cannot be satisfied
+     */
+    private boolean tightenBounds() throws NoFeasibleSolutionException {
+        boolean changed = false;
+        for (int r = rows.size() - 1; r >= 0; --r) {
+            final Row row = rows.get(r);
+            final double tolerance = epsilon * Math.max(1.0, Math.abs(row.b));
+            if (getMinActivity(row, 1) > row.b + tolerance ||
+                (row.equality && getMaxActivity(row) < row.b - tolerance)) {
+                throw new NoFeasibleSolutionException();
+            }
+            if (!row.equality && getMaxActivity(row) <= row.b + tolerance) {
+                rows.remove(r);
+                changed = true;
+                continue;
+            }
+            changed = tightenBounds(row, 1) || changed;
+            if (row.equality) {
+                changed = tightenBounds(row, -1) || changed;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Tighten the variable bounds implied by the inequality s a.x &lt;= s b of a row.
+     * @param row row giving a and b
+     * @param sign sign s applied to both sides of the row, 1 or -1
+     * @return true if a bound changed
+     * @exception NoFeasibleSolutionException if the bounds of a variable cross
+     */
+    private boolean tightenBounds(final Row row, final double sign) throws NoFeasibleSolutionException {
+        final double minActivity = getMinActivity(row, sign);
+        if (Double.isInfinite(minActivity)) {
+            return false;
+        }
+        final double b = sign * row.b;
+        boolean changed = false;
+        for (int k = 0; k < row.a.length; ++k) {
+            final int j       = row.index[k];
+            final double a    = sign * row.a[k];
+            // largest value a x[j] can take when the other terms are at their minimum
+            final double residual = b - (minActivity - getMinContribution(a, j));
+            if (a > 0) {
+                changed = setUpper(j, residual / a) || changed;
+            } else {
+                changed = setLower(j, residual / a) || changed;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Fix the variables whose bounds are equal, and the variables that the
+     * objective pushes towards a bound no constraint prevents them from reaching.
+     * @return true if a variable was fixed
+     */
+    private boolean fixVariables() {
+
+        // a row prevents a variable from going up (down) if increasing
+        // (decreasing) the variable increases its activity
+        final boolean[] upLocked   = new boolean[n];
+        final boolean[] downLocked = new boolean[n];
+        for (final Row row : rows) {
+            for (int k = 0; k < row.a.length; ++k) {
+                upLocked[row.index[k]]   |= row.equality || row.a[k] > 0;
+                downLocked[row.index[k]] |= row.equality || row.a[k] < 0;
+            }
+        }
+
+        boolean changed = false;
+        for (int j = 0; j < n; ++j) {
+            if (isFixed(j)) {
+                continue;
+            }
+            if (gain[j] <= 0 && !downLocked[j]) {
+                upper[j] = lower[j];
+            } else if (gain[j] >= 0 && !upLocked[j] && !Double.isInfinite(upper[j])) {
+                lower[j] = upper[j];
+            } else {
+                continue;
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Tighten the coefficients of the binary variables in the inequalities.
+     * <p>
+     * If an inequality a.x &lt;= b cannot be violated when the binary x<sub>j</sub>
+     * is at one of its bounds, a<sub>j</sub> (and b) can be moved by the slack
+     * left at that bound without changing the integer solutions; the relaxation
+     * gets tighter. The slack must be smaller than |a<sub>j</sub>|, which holds
+     * as long as the row can be violated at all: redundant rows are skipped
+     * (they are removed by the next bound tightening) as moving a coefficient
+     * across 0 would invalidate the maximal activity the other moves rely on.
+     * </p>
+     * @return true if a coefficient changed
+     */
+    private boolean tightenCoefficients() {
+        boolean changed = false;
+        for (final Row row : rows) {
+            double maxActivity = getMaxActivity(row);
+            if (row.equality || Double.isInfinite(maxActivity) ||
+                maxActivity <= row.b + epsilon * Math.max(1.0, Math.abs(row.b))) {
+                continue;
+            }
+            for (int k = 0; k < row.a.length; ++k) {
+                if (!isBinary(row.index[k])) {
+                    continue;
+                }
+                if (row.a[k] > 0) {
+                    // slack of the row when x[j] = 0
+                    final double d = row.b - (maxActivity - row.a[k]);
+                    if (d > epsilon && d < row.a[k]) {
+                        row.a[k]    -= d;
+                        row.b       -= d;
+                        maxActivity -= d;
+                        ++tightenedCoefficients;
+                        changed = true;
+                    }
+                } else {
+                    // slack of the row when x[j] = 1
+                    final double d = row.b - (maxActivity + row.a[k]);
+                    if (d > epsilon && d < -row.a[k]) {
+                        row.a[k] += d;
+                        ++tightenedCoefficients;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Merge the rows with proportional coefficients.
+     * @return true if a row was removed
+     * @exception NoFeasibleSolutionException if two equalities contradict each other
+     */
+    private boolean removeDuplicateRows() throws NoFeasibleSolutionException {
+        final Map<RowKey, Row> seen = new HashMap<RowKey, Row>();
+        boolean changed = false;
+        for (int r = 0; r < rows.size(); ++r) {
+            final Row row = rows.get(r);
+            final double scale = row.getScale();
+            final double[] scaled = new double[row.a.length];
+            for (int k = 0; k < scaled.length; ++k) {
+                scaled[k] = row.a[k] / scale;
+            }
+            final RowKey key = new RowKey(row.index, scaled, row.equality);
+            final Row kept = seen.get(key);
+            if (kept == null) {
+                seen.put(key, row);
+                continue;
+            }
+            // same coefficients up to a positive factor: compare the right hand sides on the same scale
+            final double keptScale = kept.getScale();
+            if (row.equality) {
+                if (Math.abs(row.b / scale - kept.b / keptScale) > epsilon) {
+                    throw new NoFeasibleSolutionException();
+                }
+            } else if (row.b / scale < kept.b / keptScale) {
+                kept.b = row.b * keptScale / scale;
+            }
+            rows.remove(r--);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Remove the inequalities a.x &lt;= b implied by another inequality
+     * a'.x &lt;= b' with a &lt;= a' and b &gt;= b' (the variables being non-negative).
+     * @return true if a row was removed
+     */
+    private boolean removeDominatedRows() {
+
+        // rows with a positive coefficient on each variable
+        final List<List<Row>> byColumn = new ArrayList<List<Row>>(n);
+        for (int j = 0; j < n; ++j) {
+            byColumn.add(new ArrayList<Row>());
+        }
+        for (final Row row : rows) {
+            if (!row.equality) {
+                for (int k = 0; k < row.a.length; ++k) {
+                    if (row.a[k] > 0) {
+                        byColumn.get(row.index[k]).add(row);
+                    }
+                }
+            }
+        }
+
+        final Set<Row> removed = new HashSet<Row>();
+        for (final Row row : rows) {
+            if (row.equality) {
+                continue;
+            }
+            // a dominating row has a positive coefficient wherever this one has, use the rarest column
+            List<Row> candidates = null;
+            for (int k = 0; k < row.a.length; ++k) {
+                final List<Row> column = byColumn.get(row.index[k]);
+                if (row.a[k] > 0 && (candidates == null || column.size() < candidates.size())) {
+                    candidates = column;
+                }
+            }
+            if (candidates == null) {
+                continue;
+            }
+            for (final Row other : candidates) {
+                if (other != row && !removed.contains(other) && dominates(other, row)) {
+                    removed.add(row);
+                    break;
+                }
+            }
+        }
+        return rows.removeAll(removed);
+
+    }
+
+    /**
+     * Check whether an inequality implies another one on non-negative variables.
+     * @param strong candidate dominating inequality
+     * @param weak candidate dominated inequality
+     * @return true if strong implies weak
+     */
+    private boolean dominates(final Row strong, final Row weak) {
+        if (strong.b > weak.b + epsilon) {
+            return false;
+        }
+        // merge the two sparse rows, a missing coefficient is 0
+        int k = 0;
+        int l = 0;
+        while (k < weak.a.length || l < strong.a.length) {
+            final int j = Math.min((k < weak.a.length)   ? weak.index[k]   : n,
+                                   (l < strong.a.length) ? strong.index[l] : n);
+            final double weakA   = (k < weak.a.length   && weak.index[k]   == j) ? weak.a[k++]   : 0;
+            final double strongA = (l < strong.a.length && strong.index[l] == j) ? strong.a[l++] : 0;
+            if (weakA > strongA + epsilon) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build the reduced problem over the variables that are not fixed.
+     * @exception NoFeasibleSolutionException if a row becomes infeasible
+     */
+    private void buildReducedProblem() throws NoFeasibleSolutionException {
+
+        int count = 0;
+        final int[] index = new int[n];
+        for (int j = 0; j < n; ++j) {
+            if (isFixed(j)) {
+                index[j] = -1;
+                ++fixedVariables;
+            } else {
+                index[j] = count++;
+            }
+        }
+        columns = new int[count];
+        for (int j = 0; j < n; ++j) {
+            if (index[j] >= 0) {
+                columns[index[j]] = j;
+            }
+        }
+
+        // objective, the fixed variables go to the constant term
+        final double[] c = f.getCoefficients().getData();
+        final double[] reducedC = new double[count];
+        double constant = f.getConstantTerm();
+        for (int j = 0; j < n; ++j) {
+            if (index[j] < 0) {
+                constant += c[j] * lower[j];
+            } else {
+                reducedC[index[j]] = c[j];
+            }
+        }
+        reducedF = new LinearObjectiveFunction(reducedC, constant);
+
+        reducedRows        = new ArrayList<Row>(rows.size());
+        reducedConstraints = new ArrayList<LinearConstraint>(rows.size() + count);
+        for (final Row row : rows) {
+            // the reduced indices increase with the original ones
+            int size = 0;
+            for (int k = 0; k < row.a.length; ++k) {
+                if (index[row.index[k]] >= 0) {
+                    ++size;
+                }
+            }
+            final int[] reducedIndex = new int[size];
+            final double[] a         = new double[size];
+            double b = row.b;
+            for (int k = 0, l = 0; k < row.a.length; ++k) {
+                final int j = row.index[k];
+                if (index[j] < 0) {
+                    b -= row.a[k] * lower[j];
+                } else {
+                    reducedIndex[l] = index[j];
+                    a[l++]          = row.a[k];
+                }
+            }
+            if (size == 0) {
+                if (b < -epsilon || (row.equality && b > epsilon)) {
+                    throw new NoFeasibleSolutionException();
+                }
+                continue;
+            }
+            reducedRows.add(new Row(reducedIndex, a, b, row.equality));
+            reducedConstraints.add(new LinearConstraint(count, reducedIndex, a,
+                                                        row.equality ? Relationship.EQ : Relationship.LEQ, b));
+        }
+
+        // bounds
+        for (int k = 0; k < count; ++k) {
+            final int j = columns[k];
+            if (!Double.isInfinite(upper[j])) {
+                reducedConstraints.add(new LinearConstraint(count, new int[] { k }, new double[] { 1 },
+                                                             Relationship.LEQ, upper[j]));
+            }
+            if (lower[j] > 0) {
+                reducedConstraints.add(new LinearConstraint(count, new int[] { k }, new double[] { 1 },
+                                                             Relationship.GEQ, lower[j]));
+            }
+        }
+
+    }
+
+    /**
+     * Get the items of a knapsack row of the reduced problem.
+     * @param row reduced row
+     * @return positions of the variables in the row, null if it is not a knapsack row
+     */
+    private Integer[] getKnapsackItems(final Row row) {
+        if (row.equality || row.a.length < 2) {
+            return null;
+        }
+        final Integer[] items = new Integer[row.a.length];
+        double weight = 0;
+        for (int k = 0; k < row.a.length; ++k) {
+            if (row.a[k] < 0 || !isBinary(columns[row.index[k]])) {
+                return null;
+            }
+            items[k] = k;
+            weight  += row.a[k];
+        }
+        if (weight <= row.b + epsilon) {
+            return null;
+        }
+        return items;
+    }
+
+    /**
+     * Lower the upper bound of a variable.
+     * @param j variable index
+     * @param bound new upper bound
+     * @return true if the bound changed
+     * @exception NoFeasibleSolutionException if the bounds cross
+     */
+    private boolean setUpper(final int j, final double bound) throws NoFeasibleSolutionException {
+        final double value = integer[j] ? Math.floor(bound + epsilon) : bound;
+        if (value < lower[j] - epsilon) {
+            throw new NoFeasibleSolutionException();
+        }
+        if (value >= upper[j] - MIN_BOUND_IMPROVEMENT * Math.max(1.0, Math.abs(value))) {
+            return false;
+        }
+        upper[j] = Math.max(value, lower[j]);
+        return true;
+    }
+
+    /**
+     * Raise the lower bound of a variable.
+     * @param j variable index
+     * @param bound new lower bound
+     * @return true if the bound changed
+     * @exception NoFeasibleSolutionException if the bounds cross
+     */
+    private boolean setLower(final int j, final double bound) throws NoFeasibleSolutionException {
+        final double value = integer[j] ? Math.ceil(bound - epsilon) : bound;
+        if (value > upper[j] + epsilon) {
+            throw new NoFeasibleSolutionException();
+        }
+        if (value <= lower[j] + MIN_BOUND_IMPROVEMENT * Math.max(1.0, Math.abs(value))) {
+            return false;
+        }
+        lower[j] = Math.min(value, upper[j]);
+        return true;
+    }
+
+    /**
+     * Get the smallest value a term can take.
+     * @param a coefficient of the term
+     * @param j variable index
+     * @return smallest value of a x<sub>j</sub> within the bounds
+     */
+    private double getMinContribution(final double a, final int j) {
+        if (a == 0) {
+            return 0;
+        }
+        return (a > 0) ? a * lower[j] : a * upper[j];
+    }
+
+    /**
+     * Get the smallest value s a.x can take within the bounds.
+     * @param row row giving a
+     * @param sign sign s applied to the row, 1 or -1
+     * @return smallest activity, possibly -infinity
+     */
+    private double getMinActivity(final Row row, final double sign) {
+        double activity = 0;
+        for (int k = 0; k < row.a.length; ++k) {
+            activity += getMinContribution(sign * row.a[k], row.index[k]);
+        }
+        return activity;
+    }
+
+    /**
+     * Get the largest value a row can take within the bounds.
+     * @param row row
+     * @return largest activity, possibly +infinity
+     */
+    private double getMaxActivity(final Row row) {
+        double activity = 0;
+        for (int k = 0; k < row.a.length; ++k) {
+            final int j = row.index[k];
+            activity += (row.a[k] > 0) ? row.a[k] * upper[j] : row.a[k] * lower[j];
+        }
+        return activity;
+    }
+
+    /**
+     * Check whether a variable is fixed.
+     * @param j original variable index
+     * @return true if its bounds are equal
+     */
+    private boolean isFixed(final int j) {
+        return upper[j] - lower[j] <= epsilon;
+    }
+
+    /**
+     * Check whether a variable is binary.
+     * @param j original variable index
+     * @return true if it is integer with bounds 0 and 1
+     */
+    private boolean isBinary(final int j) {
+        return integer[j] && lower[j] == 0 && upper[j] == 1;
+    }
+
+    /**
+     * A constraint a.x &lt;= b or a.x = b, sparse.
+     */
+    private static class Row {
+
+        /** Indices of the variables of the row, in increasing order. */
+        final int[] index;
+
+        /** Coefficients of the variables of the row, none of them 0. */
+        final double[] a;
+
+        /** Right hand side. */
+        double b;
+
+        /** Whether the row is an equality. */
+        final boolean equality;
+
+        /**
+         * @param index indices of the variables of the row, in increasing order
+         * @param a coefficients of the variables of the row
+         * @param b right hand side
+         * @param equality whether the row is an equality
+         */
+        Row(final int[] index, final double[] a, final double b, final boolean equality) {
+            this.index    = index;
+            this.a        = a;
+            this.b        = b;
+            this.equality = equality;
+        }
+
+        /**
+         * Get the largest absolute coefficient.
+         * @return largest absolute coefficient
+         */
+        double getScale() {
+            double scale = 0;
+            for (final double coefficient : a) {
+                scale = Math.max(scale, Math.abs(coefficient));
+            }
+            return scale;
+        }
+
+    }
+
+    /**
+     * Hash key of a row with scaled coefficients.
+     */
+    private static class RowKey {
+
+        /** Indices of the variables of the row. */
+        private final int[] index;
+
+        /** Scaled coefficients. */
+        private final double[] scaled;
+
+        /** Whether the row is an equality. */
+        private final boolean equality;
+
+        /**
+         * @param index indices of the variables of the row
+         * @param scaled scaled coefficients
+         * @param equality whether the row is an equality
+         */
+        RowKey(final int[] index, final double[] scaled, final boolean equality) {
+            this.index    = index;
+            this.scaled   = scaled;
+            this.equality = equality;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof RowKey)) {
+                return false;
+            }
+            final RowKey key = (RowKey) other;
+            return equality == key.equality &&
+                   Arrays.equals(index, key.index) && Arrays.equals(scaled, key.scaled);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(index) ^ Arrays.hashCode(scaled) ^ (equality ? 1 : 0);
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+/**
+ * Rules selecting the column that enters the basis at each simplex iteration.
+ * <p>
+ * The rules only differ in the number of iterations they need and in the work
+ * they do per iteration, all of them reach an optimal solution. Dantzig's rule
+ * is cheap but may cycle on degenerate problems; Bland's rule never cycles
+ * but usually needs many more iterations; the weighted rules take fewer and
+ * better iterations at the price of maintaining a weight per column. After a
+ * long run of degenerate pivots the solver switches to Bland's rule until it
+ * makes progress again, so none of the rules can cycle forever.
+ * </p>
+ * @see SimplexSolver#setPricingRule(PricingRule)
+ * @version $Revision$ $Date$
+ */
+public enum PricingRule {
+
+    /** Most negative reduced cost. */
+    DANTZIG,
+
+    /**
+     * Smallest index with a negative reduced cost, and smallest basic index
+     * among the rows tied in the ratio test. Guaranteed not to cycle.
+     */
+    BLAND,
+
+    /**
+     * Most negative reduced cost within one segment of the columns, the next
+     * segments being scanned only when the current one has no candidate.
+     */
+    PARTIAL,
+
+    /**
+     * Most negative reduced cost relative to approximate norms of the edges,
+     * updated from the pivot row (Forrest and Goldfarb's Devex weights).
+     */
+    DEVEX,
+
+    /**
+     * Most negative reduced cost relative to the exact norms of the edges,
+     * computed once from the tableau and then updated at each pivot
+     * (Goldfarb and Reid's recurrence).
+     */
+    STEEPEST_EDGE
+
+}
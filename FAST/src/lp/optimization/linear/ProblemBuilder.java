@@ -0,0 +1,571 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lp.optimization.GoalType;
+
+/**
+ * Collects a linear problem read from a file, one coefficient at a time.
+ * <p>
+ * Variables and constraints are created on first use and numbered in that
+ * order. Constraint coefficients are kept as (row, column, value) triplets
+ * in growing arrays, so the memory used is proportional to the number of
+ * non-zero coefficients whatever order they come in; the sparse constraints
+ * are only built once the number of variables is known.
+ * </p>
+ * <p>
+ * Names can be given as strings or as ranges of characters of the input
+ * buffer of a reader; a string is only created for a new name. Bounds of
+ * magnitude {@link #INFINITE_BOUND} or more are infinite, as usual in model
+ * files.
+ * </p>
+ * @see MpsReader
+ * @see LpFormatReader
+ * @version $Revision$ $Date$
+ */
+class ProblemBuilder {
+
+    /** Powers of 10 represented exactly as doubles. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Largest integer such that all the smaller ones are exact doubles. */
+    private static final long MAX_EXACT = 1L << 53;
+
+    /** Smallest bound magnitude read as infinite. */
+    private static final double INFINITE_BOUND = 1e20;
+
+    /** Index of each variable name. */
+    private final NameTable variables;
+
+    /** Variable names, in index order. */
+    private final List<String> variableNames;
+
+    /** Index of each constraint name. */
+    private final NameTable rows;
+
+    /** Constraint names, in index order. */
+    private final List<String> rowNames;
+
+    /** Type of each constraint. */
+    private final List<Relationship> relationships;
+
+    /** Right hand side of each constraint. */
+    private double[] rhs;
+
+    /** Range of each constraint. */
+    private double[] ranges;
+
+    /** Whether a range was given for each constraint, even a zero one. */
+    private boolean[] hasRange;
+
+    /** Objective coefficient of each variable. */
+    private double[] objective;
+
+    /** Constant term of the objective function. */
+    private double constant;
+
+    /** Lower bound of each variable. */
+    private double[] lower;
+
+    /** Upper bound of each variable. */
+    private double[] upper;
+
+    /** Number of coefficients. */
+    private int size;
+
+    /** Constraint of each coefficient. */
+    private int[] entryRows;
+
+    /** Variable of each coefficient. */
+    private int[] entryColumns;
+
+    /** Value of each coefficient. */
+    private double[] entryValues;
+
+    /**
+     * Build an empty problem.
+     */
+    ProblemBuilder() {
+        variables     = new NameTable();
+        variableNames = new ArrayList<String>();
+        rows          = new NameTable();
+        rowNames      = new ArrayList<String>();
+        relationships = new ArrayList<Relationship>();
+        rhs           = new double[16];
+        ranges        = new double[16];
+        hasRange      = new boolean[16];
+        objective     = new double[16];
+        lower         = new double[16];
+        upper         = new double[16];
+        entryRows     = new int[64];
+        entryColumns  = new int[64];
+        entryValues   = new double[64];
+    }
+
+    /**
+     * Get the index of a variable, creating it if needed.
+     * <p>A new variable has bounds [0, +&infin;) and no objective coefficient.</p>
+     * @param name name of the variable
+     * @return index of the variable
+     */
+    int getVariable(final String name) {
+        final int index = variables.get(name);
+        return (index < 0) ? addVariable(name) : index;
+    }
+
+    /**
+     * Get the index of a variable, creating it if needed.
+     * <p>A new variable has bounds [0, +&infin;) and no objective coefficient.</p>
+     * @param chars characters holding the name of the variable
+     * @param start index of the first character of the name
+     * @param end index after the last character of the name
+     * @return index of the variable
+     */
+    int getVariable(final char[] chars, final int start, final int end) {
+        final int index = variables.get(chars, start, end);
+        return (index < 0) ? addVariable(new String(chars, start, end - start)) : index;
+    }
+
+    /**
+     * Create a variable.
+     * @param name name of the variable, not used yet
+     * @return index of the variable
+     */
+    private int addVariable(final String name) {
+        final int j = variables.add(name);
+        if (j == objective.length) {
+            objective = grow(objective);
+            lower     = grow(lower);
+            upper     = grow(upper);
+        }
+        upper[j] = Double.POSITIVE_INFINITY;
+        variableNames.add(name);
+        return j;
+    }
+
+    /**
+     * Check whether a variable exists.
+     * @param name name of the variable
+     * @return true if the variable has been created
+     */
+    boolean hasVariable(final String name) {
+        return variables.get(name) >= 0;
+    }
+
+    /**
+     * Check whether a variable exists.
+     * @param chars characters holding the name of the variable
+     * @param start index of the first character of the name
+     * @param end index after the last character of the name
+     * @return true if the variable has been created
+     */
+    boolean hasVariable(final char[] chars, final int start, final int end) {
+        return variables.get(chars, start, end) >= 0;
+    }
+
+    /**
+     * Create a constraint.
+     * @param name name of the constraint
+     * @param relationship type of the constraint
+     * @return index of the constraint, -1 if a constraint with the same name exists
+     */
+    int addConstraint(final String name, final Relationship relationship) {
+        if (rows.get(name) >= 0) {
+            return -1;
+        }
+        final int i = rows.add(name);
+        if (i == rhs.length) {
+            rhs    = grow(rhs);
+            ranges = grow(ranges);
+            final boolean[] newHasRange = new boolean[2 * i];
+            System.arraycopy(hasRange, 0, newHasRange, 0, i);
+            hasRange = newHasRange;
+        }
+        rowNames.add(name);
+        relationships.add(relationship);
+        return i;
+    }
+
+    /**
+     * Change the type of a constraint.
+     * @param row index of the constraint
+     * @param relationship type of the constraint
+     */
+    void setRelationship(final int row, final Relationship relationship) {
+        relationships.set(row, relationship);
+    }
+
+    /**
+     * Get the index of a constraint.
+     * @param name name of the constraint
+     * @return index of the constraint, -1 if there is no constraint with this name
+     */
+    int getConstraint(final String name) {
+        return rows.get(name);
+    }
+
+    /**
+     * Get the index of a constraint.
+     * @param chars characters holding the name of the constraint
+     * @param start index of the first character of the name
+     * @param end index after the last character of the name
+     * @return index of the constraint, -1 if there is no constraint with this name
+     */
+    int getConstraint(final char[] chars, final int start, final int end) {
+        return rows.get(chars, start, end);
+    }
+
+    /**
+     * Get the number of constraints created so far.
+     * @return number of constraints
+     */
+    int getConstraintCount() {
+        return rowNames.size();
+    }
+
+    /**
+     * Add a coefficient to a constraint.
+     * @param row index of the constraint
+     * @param column index of the variable
+     * @param value coefficient, added to the ones already given for the same variable
+     */
+    void addCoefficient(final int row, final int column, final double value) {
+        if (size == entryValues.length) {
+            final int[] newRows = new int[2 * size];
+            System.arraycopy(entryRows, 0, newRows, 0, size);
+            entryRows = newRows;
+            final int[] newColumns = new int[2 * size];
+            System.arraycopy(entryColumns, 0, newColumns, 0, size);
+            entryColumns = newColumns;
+            entryValues = grow(entryValues);
+        }
+        entryRows[size]     = row;
+        entryColumns[size]  = column;
+        entryValues[size++] = value;
+    }
+
+    /**
+     * Add a coefficient to the objective function.
+     * @param column index of the variable
+     * @param value coefficient, added to the one already given for the same variable
+     */
+    void addObjectiveCoefficient(final int column, final double value) {
+        objective[column] += value;
+    }
+
+    /**
+     * Add to the constant term of the objective function.
+     * @param value value to add
+     */
+    void addObjectiveConstant(final double value) {
+        constant += value;
+    }
+
+    /**
+     * Set the right hand side of a constraint.
+     * @param row index of the constraint
+     * @param value right hand side
+     */
+    void setRhs(final int row, final double value) {
+        rhs[row] = value;
+    }
+
+    /**
+     * Set the range of a constraint, as defined by the MPS format.
+     * <p>
+     * A zero range makes an inequality an equality.
+     * </p>
+     * @param row index of the constraint
+     * @param value range
+     */
+    void setRange(final int row, final double value) {
+        ranges[row]   = value;
+        hasRange[row] = true;
+    }
+
+    /**
+     * Get the lower bound of a variable.
+     * @param column index of the variable
+     * @return lower bound
+     */
+    double getLowerBound(final int column) {
+        return lower[column];
+    }
+
+    /**
+     * Set the lower bound of a variable.
+     * @param column index of the variable
+     * @param value lower bound
+     */
+    void setLowerBound(final int column, final double value) {
+        lower[column] = toBound(value);
+    }
+
+    /**
+     * Set the upper bound of a variable.
+     * @param column index of the variable
+     * @param value upper bound
+     */
+    void setUpperBound(final int column, final double value) {
+        upper[column] = toBound(value);
+    }
+
+    /**
+     * Read a bound given in a file.
+     * @param value bound
+     * @return infinity of the sign of the value if its magnitude is at least
+     * {@link #INFINITE_BOUND}, the value otherwise
+     */
+    private static double toBound(final double value) {
+        if (value >= INFINITE_BOUND) {
+            return Double.POSITIVE_INFINITY;
+        } else if (value <= -INFINITE_BOUND) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return value;
+    }
+
+    /**
+     * Get the variable names.
+     * @return variable names, in index order
+     */
+    List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * Get the names of the constraints of the problem.
+     * <p>
+     * A constraint with a non-zero range gives two constraints of the
+     * problem, both with the name of the constraint.
+     * </p>
+     * @return constraint names, in the order of the constraints of the built problem
+     */
+    List<String> getConstraintNames() {
+        final List<String> names = new ArrayList<String>(rowNames.size());
+        for (int i = 0; i < rowNames.size(); ++i) {
+            names.add(rowNames.get(i));
+            if (isRanged(i)) {
+                names.add(rowNames.get(i));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Build the problem.
+     * @param goalType type of optimization goal
+     * @return the problem, with bounds unless all the variables are only restricted to be non-negative
+     */
+    LinearProblem build(final GoalType goalType) {
+
+        final int n = variableNames.size();
+        final int m = rowNames.size();
+
+        // sort the coefficients by row
+        final int[] start = new int[m + 1];
+        for (int k = 0; k < size; ++k) {
+            ++start[entryRows[k] + 1];
+        }
+        for (int i = 0; i < m; ++i) {
+            start[i + 1] += start[i];
+        }
+        final int[] next = start.clone();
+        final int[] order = new int[size];
+        for (int k = 0; k < size; ++k) {
+            order[next[entryRows[k]]++] = k;
+        }
+
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>(m);
+        final LinearConstraintBuilder builder = new LinearConstraintBuilder(n);
+        for (int i = 0; i < m; ++i) {
+            final Relationship relationship = relationships.get(i);
+            builder.clear();
+            for (int p = start[i]; p < start[i + 1]; ++p) {
+                builder.add(entryColumns[order[p]], entryValues[order[p]]);
+            }
+            if (hasRange[i] && ranges[i] == 0) {
+                // a zero range leaves a single value
+                constraints.add(builder.build(Relationship.EQ, rhs[i]));
+            } else if (!isRanged(i)) {
+                constraints.add(builder.build(relationship, rhs[i]));
+            } else {
+                // the row lies within [rhs[i] - |R|, rhs[i]], [rhs[i], rhs[i] + |R|]
+                // or between rhs[i] and rhs[i] + R for an equality
+                final double r = ranges[i];
+                final double low;
+                final double high;
+                if (relationship == Relationship.LEQ) {
+                    low  = rhs[i] - Math.abs(r);
+                    high = rhs[i];
+                } else if (relationship == Relationship.GEQ) {
+                    low  = rhs[i];
+                    high = rhs[i] + Math.abs(r);
+                } else {
+                    low  = Math.min(rhs[i], rhs[i] + r);
+                    high = Math.max(rhs[i], rhs[i] + r);
+                }
+                constraints.add(builder.build(Relationship.GEQ, low));
+                constraints.add(builder.build(Relationship.LEQ, high));
+            }
+        }
+
+        final double[] coefficients = new double[n];
+        System.arraycopy(objective, 0, coefficients, 0, n);
+        final LinearObjectiveFunction f = new LinearObjectiveFunction(coefficients, constant);
+
+        boolean nonNegative = true;
+        for (int j = 0; j < n; ++j) {
+            nonNegative &= lower[j] == 0 && upper[j] == Double.POSITIVE_INFINITY;
+        }
+        if (nonNegative) {
+            return new LinearProblem(f, constraints, goalType, true);
+        }
+        final double[] lowerBounds = new double[n];
+        final double[] upperBounds = new double[n];
+        System.arraycopy(lower, 0, lowerBounds, 0, n);
+        System.arraycopy(upper, 0, upperBounds, 0, n);
+        return new LinearProblem(f, constraints, goalType, lowerBounds, upperBounds);
+
+    }
+
+    /**
+     * Check whether a constraint is split in two by its range.
+     * @param row index of the constraint
+     * @return true if the constraint has a non-zero range
+     */
+    private boolean isRanged(final int row) {
+        return hasRange[row] && ranges[row] != 0;
+    }
+
+    /**
+     * Parse a decimal number.
+     * @param text number
+     * @return value of the number
+     * @exception NumberFormatException if the text is not a number
+     * @see #parseNumber(char[], int, int)
+     */
+    static double parseNumber(final String text) {
+        return parseNumber(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * Parse a decimal number held in a character array.
+     * <p>
+     * Numbers with at most 15 significant digits and a small exponent, which
+     * are the vast majority in model files, are computed with one exact
+     * floating point operation. The others are handed to
+     * {@link Double#parseDouble(String)}. The result is the correctly rounded
+     * value in both cases.
+     * </p>
+     * @param chars characters holding the number
+     * @param start index of the first character of the number
+     * @param end index after the last character of the number
+     * @return value of the number
+     * @exception NumberFormatException if the characters are not a number
+     */
+    static double parseNumber(final char[] chars, final int start, final int end) {
+
+        int k = start;
+        boolean negative = false;
+        if (k < end && (chars[k] == '-' || chars[k] == '+')) {
+            negative = chars[k++] == '-';
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean point = false;
+        for (; k < end; ++k) {
+            final char c = chars[k];
+            if (c >= '0' && c <= '9') {
+                if (mantissa >= MAX_EXACT / 10) {
+                    return parseDouble(chars, start, end);
+                }
+                mantissa = 10 * mantissa + (c - '0');
+                ++digits;
+                if (point) {
+                    --exponent;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return parseDouble(chars, start, end);
+        }
+
+        if (k < end && (chars[k] == 'e' || chars[k] == 'E')) {
+            ++k;
+            boolean negativeExponent = false;
+            if (k < end && (chars[k] == '-' || chars[k] == '+')) {
+                negativeExponent = chars[k++] == '-';
+            }
+            int value = 0;
+            final int first = k;
+            for (; k < end && chars[k] >= '0' && chars[k] <= '9' && value < 1000; ++k) {
+                value = 10 * value + (chars[k] - '0');
+            }
+            if (k == first) {
+                return parseDouble(chars, start, end);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (k < end || exponent < -22 || exponent > 22) {
+            return parseDouble(chars, start, end);
+        }
+
+        // both operands are exact, so the single operation is correctly rounded
+        final double value = (exponent >= 0) ?
+                             mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+
+    }
+
+    /**
+     * Parse a number with {@link Double#parseDouble(String)}.
+     * @param chars characters holding the number
+     * @param start index of the first character of the number
+     * @param end index after the last character of the number
+     * @return value of the number
+     * @exception NumberFormatException if the characters are not a number
+     */
+    private static double parseDouble(final char[] chars, final int start, final int end) {
+        return Double.parseDouble(new String(chars, start, end - start));
+    }
+
+    /**
+     * Double the length of an array.
+     * @param array array to grow
+     * @return new array, starting with the content of the old one
+     */
+    private static double[] grow(final double[] array) {
+        final double[] grown = new double[2 * array.length];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+/**
+ * Callback notified after each simplex iteration.
+ * <p>
+ * The listener is called from the thread running the solve. It must be quick,
+ * since it is called once per pivot.
+ * </p>
+ * @see SimplexSolver#setProgressListener(ProgressListener)
+ * @version $Revision$ $Date$
+ */
+public interface ProgressListener {
+
+    /**
+     * Notify that an iteration has been performed.
+     * @param iterations number of iterations performed so far
+     * @param feasible true if the current point satisfies the constraints,
+     * false while the solver is still looking for a feasible point
+     * @param value value of the objective function at the current point
+     */
+    void iterationPerformed(int iterations, boolean feasible, double value);
+
+}
@@ -0,0 +1,545 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import lp.optimization.OptimizationException;
+import lp.util.MathUtils;
+
+/**
+ * Revised simplex iterations over a problem in standard form.
+ * <p>
+ * The constraint matrix is made of structural columns, given row by row, and
+ * of unit columns (slack or artificial variables) with a single non-zero
+ * entry each. It is stored without its zero entries by columns, and the first
+ * {@link #getNumPriced() priced} columns, the ones that may enter the basis,
+ * by rows too so that pricing skips the rows where the simplex multipliers
+ * are zero. Only a {@link BasisFactorization} of the current basis is kept,
+ * refactorized from scratch every few pivots.
+ * </p>
+ * <p>
+ * Both {@link RevisedSimplexSolver} and {@link SimplexSession} run their
+ * iterations here. Primal pricing uses the most negative reduced cost; after
+ * a long run of degenerate pivots, which is how cycling shows, Bland's rule
+ * takes over until a pivot moves the point again, as in {@link SimplexSolver}.
+ * Fixed columns never enter the basis, and when basic they block any move
+ * that would take them away from zero.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+abstract class RevisedSimplexCore {
+
+    /** Number of consecutive degenerate pivots after which Bland's rule takes over. */
+    private static final int MAX_DEGENERATE_PIVOTS = 20;
+
+    /** Amount of error to accept in floating point comparisons. */
+    private final double epsilon;
+
+    /** Number of basis updates between two factorizations. */
+    private final int refactorizationFrequency;
+
+    /** Number of constraints. */
+    private final int m;
+
+    /** Number of columns: structural columns then unit columns. */
+    private final int numColumns;
+
+    /** Number of columns that may enter the basis, the first ones. */
+    private final int numPriced;
+
+    /** Start of each column in {@link #rowIndex} and {@link #values}, plus the end. */
+    private final int[] columnStart;
+
+    /** Rows of the non-zero coefficients, column by column. */
+    private final int[] rowIndex;
+
+    /** Non-zero coefficients, column by column. */
+    private final double[] values;
+
+    /** Start of each row in {@link #columnIndex} and {@link #rowValues}, plus the end. */
+    private final int[] rowStart;
+
+    /** Columns of the non-zero coefficients of the priced columns, row by row. */
+    private final int[] columnIndex;
+
+    /** Non-zero coefficients of the priced columns, row by row. */
+    private final double[] rowValues;
+
+    /** Right hand side. */
+    private final double[] rhs;
+
+    /** Columns fixed at zero. */
+    private final boolean[] isFixed;
+
+    /** Column of each basic variable. */
+    private int[] basis;
+
+    /** Basic status of each column. */
+    private boolean[] isBasic;
+
+    /** Values of the basic variables. */
+    private double[] basicValues;
+
+    /** Factorization of the current basis. */
+    private BasisFactorization factorization;
+
+    /** Number of consecutive degenerate pivots of the primal iterations. */
+    private int degeneratePivots;
+
+    /**
+     * Build the standard form of a problem.
+     * @param numStructural number of structural columns
+     * @param rowEntries structural columns of the non-zero coefficients of each row
+     * @param rowEntryValues non-zero coefficients of each row
+     * @param unitRow row of the entry of each unit column
+     * @param unitValue entry of each unit column
+     * @param rhs right hand side
+     * @param numPriced number of columns that may enter the basis, the first ones
+     * @param epsilon amount of error to accept in floating point comparisons
+     * @param refactorizationFrequency number of basis updates between two factorizations
+     */
+    RevisedSimplexCore(final int numStructural, final int[][] rowEntries, final double[][] rowEntryValues,
+                       final int[] unitRow, final double[] unitValue, final double[] rhs,
+                       final int numPriced, final double epsilon, final int refactorizationFrequency) {
+
+        this.m                        = rhs.length;
+        this.numColumns               = numStructural + unitRow.length;
+        this.numPriced                = numPriced;
+        this.rhs                      = rhs;
+        this.epsilon                  = epsilon;
+        this.refactorizationFrequency = refactorizationFrequency;
+        this.isFixed                  = new boolean[numColumns];
+
+        // column layout
+        final int[] columnCount = new int[numColumns];
+        for (int i = 0; i < m; i++) {
+            for (final int j : rowEntries[i]) {
+                ++columnCount[j];
+            }
+        }
+        columnStart = new int[numColumns + 1];
+        for (int j = 0; j < numStructural; j++) {
+            columnStart[j + 1] = columnStart[j] + columnCount[j];
+        }
+        for (int j = numStructural; j < numColumns; j++) {
+            columnStart[j + 1] = columnStart[j] + 1;
+        }
+        rowIndex = new int[columnStart[numColumns]];
+        values   = new double[columnStart[numColumns]];
+
+        // structural columns, then unit columns
+        final int[] next = new int[numStructural];
+        System.arraycopy(columnStart, 0, next, 0, numStructural);
+        for (int i = 0; i < m; i++) {
+            for (int k = 0; k < rowEntries[i].length; k++) {
+                final int position = next[rowEntries[i][k]]++;
+                rowIndex[position] = i;
+                values[position]   = rowEntryValues[i][k];
+            }
+        }
+        for (int k = 0; k < unitRow.length; k++) {
+            rowIndex[columnStart[numStructural + k]] = unitRow[k];
+            values[columnStart[numStructural + k]]   = unitValue[k];
+        }
+
+        // the same coefficients by rows, without the columns that are not priced
+        rowStart = new int[m + 1];
+        for (int k = 0; k < columnStart[numPriced]; k++) {
+            ++rowStart[rowIndex[k] + 1];
+        }
+        for (int i = 0; i < m; i++) {
+            rowStart[i + 1] += rowStart[i];
+        }
+        columnIndex = new int[rowStart[m]];
+        rowValues   = new double[rowStart[m]];
+        final int[] nextInRow = new int[m];
+        System.arraycopy(rowStart, 0, nextInRow, 0, m);
+        for (int j = 0; j < numPriced; j++) {
+            for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                final int position    = nextInRow[rowIndex[k]]++;
+                columnIndex[position] = j;
+                rowValues[position]   = values[k];
+            }
+        }
+
+    }
+
+    /**
+     * Count one iteration.
+     * @exception OptimizationException if the maximal number of iterations is exceeded
+     */
+    protected abstract void incrementIterationsCounter() throws OptimizationException;
+
+    /**
+     * Get the number of constraints.
+     * @return number of constraints
+     */
+    int getNumRows() {
+        return m;
+    }
+
+    /**
+     * Get the number of columns that may enter the basis.
+     * @return number of priced columns, the first ones
+     */
+    int getNumPriced() {
+        return numPriced;
+    }
+
+    /**
+     * Fix a column at zero.
+     * @param column column that must not enter the basis again
+     */
+    void fix(final int column) {
+        isFixed[column] = true;
+    }
+
+    /**
+     * Set the basis and factorize it.
+     * @param basicColumns column of each basic variable, one per constraint
+     * @exception OptimizationException if the basis is singular
+     */
+    void setBasis(final int[] basicColumns) throws OptimizationException {
+        basis   = basicColumns.clone();
+        isBasic = new boolean[numColumns];
+        for (final int j : basis) {
+            isBasic[j] = true;
+        }
+        refactorize();
+    }
+
+    /**
+     * Check whether a column is basic.
+     * @param column column
+     * @return true if the column is basic
+     */
+    boolean isBasic(final int column) {
+        return isBasic[column];
+    }
+
+    /**
+     * Get the basic column of a basis position.
+     * @param row basis position
+     * @return column of the basic variable
+     */
+    int getBasicColumn(final int row) {
+        return basis[row];
+    }
+
+    /**
+     * Get the values of all the columns at the current basis.
+     * @return values, zero for the non-basic columns
+     */
+    double[] getColumnValues() {
+        final double[] columnValues = new double[numColumns];
+        for (int i = 0; i < m; i++) {
+            columnValues[basis[i]] = basicValues[i];
+        }
+        return columnValues;
+    }
+
+    /**
+     * Get the objective value of the current basis.
+     * @param cost costs of the columns
+     * @return objective value
+     */
+    double getBasicCost(final double[] cost) {
+        double sum = 0;
+        for (int i = 0; i < m; i++) {
+            sum += cost[basis[i]] * basicValues[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Compute the reduced costs of the priced columns.
+     * @param cost costs of the columns, for a minimization
+     * @return reduced costs (zero for the basic columns)
+     */
+    double[] getReducedCosts(final double[] cost) {
+        final double[] costB = new double[m];
+        for (int i = 0; i < m; i++) {
+            costB[i] = cost[basis[i]];
+        }
+        final double[] reduced = multiplyTransposed(factorization.btran(costB));
+        for (int j = 0; j < numPriced; j++) {
+            reduced[j] = isBasic[j] ? 0 : cost[j] - reduced[j];
+        }
+        return reduced;
+    }
+
+    /**
+     * Check whether no column that may enter the basis has a negative reduced cost.
+     * @param cost costs of the columns, for a minimization
+     * @return true if the basis is dual feasible
+     */
+    boolean isDualFeasible(final double[] cost) {
+        final double[] reduced = getReducedCosts(cost);
+        for (int j = 0; j < numPriced; j++) {
+            if (!isFixed[j] && MathUtils.compareTo(reduced[j], 0, epsilon) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Run primal simplex iterations from a primal feasible basis.
+     * @param cost costs of the columns, for a minimization
+     * @exception OptimizationException if the maximal number of iterations is
+     * exceeded or the problem is unbounded
+     */
+    void solvePrimal(final double[] cost) throws OptimizationException {
+        degeneratePivots = 0;
+        while (true) {
+
+            final boolean bland = degeneratePivots >= MAX_DEGENERATE_PIVOTS;
+            final int column = getEnteringColumn(getReducedCosts(cost), bland);
+            if (column < 0) {
+                return;
+            }
+            incrementIterationsCounter();
+
+            final double[] alpha = getTransformedColumn(column);
+            final int row = getLeavingRow(alpha, bland);
+            if (row < 0) {
+                throw new UnboundedSolutionException();
+            }
+            if (MathUtils.compareTo(basicValues[row], 0, epsilon) <= 0) {
+                ++degeneratePivots;
+            } else {
+                degeneratePivots = 0;
+            }
+            pivot(row, column, alpha);
+
+        }
+    }
+
+    /**
+     * Select the entering column of a primal iteration.
+     * @param reduced reduced costs of the priced columns
+     * @param bland if true, take the first column with a negative reduced
+     * cost (Bland's rule), otherwise the most negative one
+     * @return entering column, or -1 if the basis is optimal
+     */
+    private int getEnteringColumn(final double[] reduced, final boolean bland) {
+        int column = -1;
+        double minReducedCost = 0;
+        for (int j = 0; j < numPriced; j++) {
+            if (!isFixed[j] && MathUtils.compareTo(reduced[j], minReducedCost, epsilon) < 0) {
+                if (bland) {
+                    return j;
+                }
+                minReducedCost = reduced[j];
+                column = j;
+            }
+        }
+        return column;
+    }
+
+    /**
+     * Select the basic variable that first reaches zero when the entering one increases.
+     * <p>
+     * Fixed basic variables block any move. Ties are broken by the largest
+     * pivot, which is the most stable one, or with Bland's rule by the
+     * smallest basic column.
+     * </p>
+     * @param alpha entering column transformed by the basis
+     * @param bland if true, break ties by the smallest basic column
+     * @return leaving row, or -1 if the entering variable can increase forever
+     */
+    private int getLeavingRow(final double[] alpha, final boolean bland) {
+        int row = -1;
+        double minRatio = Double.MAX_VALUE;
+        for (int i = 0; i < m; i++) {
+            final double a = isFixed[basis[i]] ? Math.abs(alpha[i]) : alpha[i];
+            if (MathUtils.compareTo(a, 0, epsilon) > 0) {
+                final double ratio = Math.max(basicValues[i], 0) / a;
+                if (row < 0 || ratio < minRatio ||
+                    (ratio == minRatio && (bland ? basis[i] < basis[row] :
+                                                   Math.abs(alpha[i]) > Math.abs(alpha[row])))) {
+                    minRatio = ratio;
+                    row      = i;
+                }
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Select the basic variable with the largest infeasibility.
+     * @return leaving row, or -1 if the basis is primal feasible
+     */
+    int getInfeasibleRow() {
+        int row = -1;
+        double maxInfeasibility = epsilon;
+        for (int i = 0; i < m; i++) {
+            final double infeasibility = isFixed[basis[i]] ? Math.abs(basicValues[i]) : -basicValues[i];
+            if (infeasibility > maxInfeasibility) {
+                maxInfeasibility = infeasibility;
+                row = i;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Run dual simplex iterations from a dual feasible basis.
+     * @param cost costs of the columns, for a minimization
+     * @exception OptimizationException if the maximal number of iterations is
+     * exceeded or the problem has no feasible solution
+     */
+    void solveDual(final double[] cost) throws OptimizationException {
+        double[] reduced = getReducedCosts(cost);
+        while (true) {
+
+            final int row = getInfeasibleRow();
+            if (row < 0) {
+                return;
+            }
+            incrementIterationsCounter();
+
+            // row of the leaving variable in the basis, over the priced columns
+            final double[] pivotRow = getTransformedRow(row);
+
+            // entering column: ratio test on the reduced costs, keeping them non-negative
+            final double direction = (basicValues[row] < 0) ? -1 : 1;
+            int column = -1;
+            double minRatio = Double.MAX_VALUE;
+            for (int j = 0; j < numPriced; j++) {
+                if (!isBasic[j] && !isFixed[j]) {
+                    final double a = direction * pivotRow[j];
+                    if (MathUtils.compareTo(a, 0, epsilon) > 0) {
+                        final double ratio = Math.max(reduced[j], 0) / a;
+                        if (column < 0 || ratio < minRatio ||
+                            (ratio == minRatio && Math.abs(pivotRow[j]) > Math.abs(pivotRow[column]))) {
+                            minRatio = ratio;
+                            column   = j;
+                        }
+                    }
+                }
+            }
+            if (column < 0) {
+                throw new NoFeasibleSolutionException();
+            }
+
+            // the pivot row updates the reduced costs, the leaving column gets -step
+            final double step = reduced[column] / pivotRow[column];
+            final int leaving = basis[row];
+            for (int j = 0; j < numPriced; j++) {
+                if (!isBasic[j] || j == leaving) {
+                    reduced[j] -= step * pivotRow[j];
+                }
+            }
+            reduced[column] = 0;
+
+            pivot(row, column, getTransformedColumn(column));
+            if (factorization.getNumUpdates() == 0) {
+                // fresh factorization, drop the rounding errors of the updates too
+                reduced = getReducedCosts(cost);
+            }
+
+        }
+    }
+
+    /**
+     * Get a column of the constraint matrix transformed by the basis.
+     * @param j index of the column
+     * @return B<sup>-1</sup> a<sub>j</sub>
+     */
+    double[] getTransformedColumn(final int j) {
+        final double[] column = new double[m];
+        for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+            column[rowIndex[k]] = values[k];
+        }
+        return factorization.ftran(column);
+    }
+
+    /**
+     * Get a row of the priced columns transformed by the basis.
+     * @param row basis position
+     * @return row of B<sup>-1</sup> A, one entry per priced column
+     */
+    double[] getTransformedRow(final int row) {
+        final double[] unit = new double[m];
+        unit[row] = 1;
+        return multiplyTransposed(factorization.btran(unit));
+    }
+
+    /**
+     * Replace a basic variable by a non-basic one.
+     * @param row leaving row
+     * @param column entering column
+     * @param alpha entering column transformed by the basis
+     * @exception OptimizationException if the new basis is singular
+     */
+    void pivot(final int row, final int column, final double[] alpha)
+        throws OptimizationException {
+
+        final double theta = basicValues[row] / alpha[row];
+        for (int i = 0; i < m; i++) {
+            basicValues[i] -= theta * alpha[i];
+        }
+        basicValues[row] = theta;
+
+        isBasic[basis[row]] = false;
+        isBasic[column]     = true;
+        basis[row]          = column;
+
+        factorization.update(row, alpha);
+        if (factorization.getNumUpdates() >= refactorizationFrequency) {
+            refactorize();
+        }
+
+    }
+
+    /**
+     * Factorize the current basis from scratch and recompute the basic variables.
+     * @exception OptimizationException if the basis is singular
+     */
+    private void refactorize() throws OptimizationException {
+        if (factorization == null) {
+            factorization = new BasisFactorization(m);
+        }
+        factorization.factorize(basis, columnStart, rowIndex, values);
+        basicValues = factorization.ftran(rhs);
+    }
+
+    /**
+     * Multiply the priced columns by a row vector.
+     * <p>
+     * The product is accumulated row by row, so rows where the vector is zero,
+     * such as the rows of basic slack variables in the simplex multipliers,
+     * cost nothing.
+     * </p>
+     * @param y row vector, one entry per constraint
+     * @return y<sup>T</sup> a<sub>j</sub> for all the priced columns j
+     */
+    private double[] multiplyTransposed(final double[] y) {
+        final double[] products = new double[numPriced];
+        for (int i = 0; i < m; i++) {
+            final double yi = y[i];
+            if (yi != 0) {
+                for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                    products[columnIndex[k]] += yi * rowValues[k];
+                }
+            }
+        }
+        return products;
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+import lp.util.MathUtils;
+
+/**
+ * Solves a linear problem using the two-phase revised simplex method.
+ * <p>
+ * Unlike {@link SimplexSolver}, which updates a full tableau with one column
+ * per variable on each pivot, this solver only keeps a factorization of the
+ * current basis (see {@link BasisFactorization}). The constraint matrix is
+ * stored without its zero entries, by columns and by rows, and reduced costs
+ * are computed from the simplex multipliers when the columns are priced. Each
+ * iteration therefore costs a few solves with the basis plus one pass over the
+ * non-zero coefficients, and the memory used grows with the square of the
+ * number of constraints instead of their product with the number of columns.
+ * </p>
+ * <p>
+ * The basis is refactorized from scratch every
+ * {@link #getRefactorizationFrequency()} pivots; in between, basis changes are
+ * appended to an eta file.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+public class RevisedSimplexSolver extends AbstractLinearOptimizer {
+
+    /** Default number of basis updates between two factorizations. */
+    public static final int DEFAULT_REFACTORIZATION_FREQUENCY = 100;
+
+    /** Default amount of error to accept in floating point comparisons. */
+    private static final double DEFAULT_EPSILON = 1.0e-6;
+
+    /** Amount of error to accept in floating point comparisons. */
+    protected final double epsilon;
+
+    /** Number of basis updates between two factorizations. */
+    private int refactorizationFrequency;
+
+    /** Number of constraints of the problem being solved. */
+    private int m;
+
+    /** Number of columns: decision variables, negative part, slacks and artificials. */
+    private int numColumns;
+
+    /** Index of the first artificial column. */
+    private int firstArtificial;
+
+    /** Standard form of the problem being solved, with its basis. */
+    private RevisedSimplexCore core;
+
+    /**
+     * Build a revised simplex solver with default settings.
+     */
+    public RevisedSimplexSolver() {
+        this(DEFAULT_EPSILON);
+    }
+
+    /**
+     * Build a revised simplex solver with a specified accepted amount of error.
+     * @param epsilon the amount of error to accept in floating point comparisons
+     */
+    public RevisedSimplexSolver(final double epsilon) {
+        this.epsilon                  = epsilon;
+        this.refactorizationFrequency = DEFAULT_REFACTORIZATION_FREQUENCY;
+    }
+
+    /**
+     * Set the number of basis updates between two factorizations.
+     * @param refactorizationFrequency number of pivots after which the basis
+     * is factorized again from scratch
+     */
+    public void setRefactorizationFrequency(final int refactorizationFrequency) {
+        if (refactorizationFrequency < 1) {
+            throw new IllegalArgumentException("refactorization frequency must be positive");
+        }
+        this.refactorizationFrequency = refactorizationFrequency;
+    }
+
+    /**
+     * Get the number of basis updates between two factorizations.
+     * @return number of pivots after which the basis is factorized again from scratch
+     */
+    public int getRefactorizationFrequency() {
+        return refactorizationFrequency;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected RealPointValuePair doOptimize()
+        throws OptimizationException {
+
+        final double[] cost = buildStandardForm();
+
+        // phase 1: minimize the sum of the artificial variables
+        if (firstArtificial < numColumns) {
+            final double[] artificialCost = new double[numColumns];
+            for (int j = firstArtificial; j < numColumns; j++) {
+                artificialCost[j] = 1;
+            }
+            core.solvePrimal(artificialCost);
+            if (MathUtils.compareTo(core.getBasicCost(artificialCost), 0, epsilon) > 0) {
+                throw new NoFeasibleSolutionException();
+            }
+            dropArtificialVariables();
+        }
+
+        // phase 2
+        core.solvePrimal(cost);
+        return getSolution();
+
+    }
+
+    /**
+     * Build the standard form, with slack and artificial columns, and its starting basis.
+     * <p>
+     * Constraints with a negative right hand side are negated first, so that
+     * slack and artificial variables form a feasible starting basis.
+     * </p>
+     * @return costs of the columns, for a minimization
+     * @exception OptimizationException if the starting basis is singular
+     */
+    private double[] buildStandardForm() throws OptimizationException {
+
+        final int n = f.getCoefficients().getDimension();
+        final List<LinearConstraint> rows = new ArrayList<LinearConstraint>(constraints);
+        m = rows.size();
+
+        // count the extra columns
+        int numSlack      = 0;
+        int numArtificial = 0;
+        final Relationship[] relationships = new Relationship[m];
+        final double[] rhs = new double[m];
+        for (int i = 0; i < m; i++) {
+            final LinearConstraint constraint = rows.get(i);
+            relationships[i] = constraint.getRelationship();
+            rhs[i]           = constraint.getValue();
+            if (rhs[i] < 0) {
+                relationships[i] = relationships[i].oppositeRelationship();
+                rhs[i]           = -rhs[i];
+            }
+            if (relationships[i] != Relationship.EQ) {
+                ++numSlack;
+            }
+            if (relationships[i] != Relationship.LEQ) {
+                ++numArtificial;
+            }
+        }
+        final int numStructural = restrictToNonNegative ? n : n + 1;
+        firstArtificial = numStructural + numSlack;
+        numColumns      = firstArtificial + numArtificial;
+
+        // non-zero coefficients of the structural columns, row by row
+        final int[][] rowEntries       = new int[m][];
+        final double[][] rowEntryValues = new double[m][];
+        for (int i = 0; i < m; i++) {
+            final int[] indices    = rows.get(i).getNonZeroIndices();
+            final double[] entries = rows.get(i).getNonZeroValues();
+            final double sign = (rows.get(i).getValue() < 0) ? -1 : 1;
+            final int nonZeros = indices.length;
+            double sum = 0;
+            for (int k = 0; k < nonZeros; k++) {
+                sum += sign * entries[k];
+            }
+            final boolean hasNegativePart = !restrictToNonNegative && sum != 0;
+            rowEntries[i]     = new int[hasNegativePart ? nonZeros + 1 : nonZeros];
+            rowEntryValues[i] = new double[rowEntries[i].length];
+            for (int k = 0; k < nonZeros; k++) {
+                rowEntries[i][k]     = indices[k];
+                rowEntryValues[i][k] = sign * entries[k];
+            }
+            if (hasNegativePart) {
+                // x = x+ - x-, with a single x- shared by all the variables
+                rowEntries[i][nonZeros]     = n;
+                rowEntryValues[i][nonZeros] = -sum;
+            }
+        }
+
+        // slack and artificial columns, and the starting basis
+        final int[] unitRow      = new int[numSlack + numArtificial];
+        final double[] unitValue = new double[unitRow.length];
+        final int[] basis        = new int[m];
+        int slack      = numStructural;
+        int artificial = firstArtificial;
+        for (int i = 0; i < m; i++) {
+            if (relationships[i] == Relationship.LEQ) {
+                basis[i] = slack;
+            } else {
+                basis[i] = artificial;
+                unitRow[artificial - numStructural]     = i;
+                unitValue[artificial++ - numStructural] = 1;
+            }
+            if (relationships[i] != Relationship.EQ) {
+                unitRow[slack - numStructural]     = i;
+                unitValue[slack++ - numStructural] = (relationships[i] == Relationship.LEQ) ? 1 : -1;
+            }
+        }
+        core = new RevisedSimplexCore(numStructural, rowEntries, rowEntryValues, unitRow, unitValue, rhs,
+                                      firstArtificial, epsilon, refactorizationFrequency) {
+            /** {@inheritDoc} */
+            @Override
+            protected void incrementIterationsCounter() throws OptimizationException {
+                RevisedSimplexSolver.this.incrementIterationsCounter();
+            }
+        };
+        core.setBasis(basis);
+
+        // costs, with the goal turned into a minimization
+        final double sign = (goalType == GoalType.MAXIMIZE) ? -1 : 1;
+        final double[] cost = new double[numColumns];
+        for (int j = 0; j < n; j++) {
+            cost[j] = sign * f.getCoefficients().getEntry(j);
+            if (!restrictToNonNegative) {
+                cost[n] -= cost[j];
+            }
+        }
+        return cost;
+
+    }
+
+    /**
+     * Pivot the artificial variables left in the basis at zero level out of it.
+     * <p>
+     * An artificial variable that cannot be replaced belongs to a redundant
+     * constraint; it stays basic, fixed at zero, and as artificial columns
+     * are not priced it never enters the basis again once it has left.
+     * </p>
+     * @exception OptimizationException if a new basis is singular
+     */
+    private void dropArtificialVariables() throws OptimizationException {
+        for (int row = 0; row < m; row++) {
+            if (core.getBasicColumn(row) >= firstArtificial) {
+                final double[] entries = core.getTransformedRow(row);
+                int column = -1;
+                double maxEntry = epsilon;
+                for (int j = 0; j < firstArtificial; j++) {
+                    if (!core.isBasic(j) && Math.abs(entries[j]) > maxEntry) {
+                        maxEntry = Math.abs(entries[j]);
+                        column   = j;
+                    }
+                }
+                if (column >= 0) {
+                    core.pivot(row, column, core.getTransformedColumn(column));
+                }
+            }
+        }
+        for (int j = firstArtificial; j < numColumns; j++) {
+            core.fix(j);
+        }
+    }
+
+    /**
+     * Get the current solution.
+     * @return current solution
+     */
+    private RealPointValuePair getSolution() {
+        final int n = f.getCoefficients().getDimension();
+        final double[] columnValues = core.getColumnValues();
+        final double negativePart = restrictToNonNegative ? 0 : columnValues[n];
+        final double[] point = new double[n];
+        for (int j = 0; j < n; j++) {
+            point[j] = columnValues[j] - negativePart;
+        }
+        return new RealPointValuePair(point, f.getValue(point));
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+/**
+ * Methods choosing the row and column scale factors applied to a linear
+ * problem before it is solved.
+ * <p>
+ * Scaling brings the constraint coefficients close to 1, so that the
+ * absolute tolerance of the solver is meaningful for every row and column.
+ * It does not change the solution: the solver scales the problem on entry
+ * and unscales the point it returns. Every factor is rounded to a power of
+ * 2, so scaling does not introduce rounding errors.
+ * </p>
+ * @see SimplexSolver#setScalingMethod(ScalingMethod)
+ * @version $Revision$ $Date$
+ */
+public enum ScalingMethod {
+
+    /** No scaling. */
+    NONE,
+
+    /**
+     * Each row, then each column, divided by its largest absolute coefficient.
+     * The spread between the coefficients of a row is left as it is, which is
+     * not enough when a single row mixes magnitudes several orders apart.
+     */
+    EQUILIBRATION,
+
+    /**
+     * Rows and columns alternately divided by the geometric mean of their
+     * smallest and largest absolute coefficients until the spread of the
+     * coefficients stops decreasing, followed by an equilibration.
+     */
+    GEOMETRIC_MEAN
+
+}
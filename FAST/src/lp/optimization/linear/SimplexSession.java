@@ -0,0 +1,632 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lp.MathRuntimeException;
+import lp.MaxIterationsExceededException;
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+/**
+ * A linear problem that is edited and solved again, starting from the basis
+ * of the previous solution.
+ * <p>
+ * The variables are restricted to non-negative values. Every constraint gets
+ * a slack variable, and the basis is kept as the basic status of each
+ * variable and of each slack variable. After an edit, {@link #optimize()}
+ * refactorizes the basis and continues from it:
+ * </p>
+ * <ul>
+ *   <li>a new objective function leaves the basis primal feasible, the primal
+ *   simplex method continues from it,</li>
+ *   <li>a new constraint enters with its slack variable basic and a new right
+ *   hand side keeps the basis, both leave it dual feasible and the dual simplex
+ *   method restores feasibility,</li>
+ *   <li>a removed constraint whose slack variable is not basic first has its
+ *   slack variable pivoted into the basis.</li>
+ * </ul>
+ * <p>
+ * Re-solving after a small edit therefore usually takes a few pivots. When the
+ * basis is neither primal nor dual feasible, the dual simplex method is first
+ * run with zero costs to find a feasible basis, then the primal simplex method
+ * completes the solve; a new session starts this way from the basis made of
+ * all the slack variables.
+ * </p>
+ * <p>
+ * Constraints are identified by reference: {@link #removeConstraint(LinearConstraint)},
+ * {@link #replaceConstraint(LinearConstraint, LinearConstraint)} and
+ * {@link #setBasis(Basis) bases} match the constraint instances added to the
+ * session. Constraints are immutable, so a new right hand side is set by
+ * replacing a constraint by another one with the same coefficients.
+ * </p>
+ * @version $Revision$ $Date$
+ */
+public class SimplexSession {
+
+    /** Default maximal number of iterations of one solve. */
+    public static final int DEFAULT_MAX_ITERATIONS = 10000;
+
+    /** Default number of basis updates between two factorizations. */
+    public static final int DEFAULT_REFACTORIZATION_FREQUENCY = 100;
+
+    /** Default amount of error to accept in floating point comparisons. */
+    private static final double DEFAULT_EPSILON = 1.0e-6;
+
+    /** Amount of error to accept in floating point comparisons. */
+    private final double epsilon;
+
+    /** Number of variables. */
+    private final int n;
+
+    /** Linear objective function. */
+    private LinearObjectiveFunction f;
+
+    /** Type of optimization goal. */
+    private GoalType goalType;
+
+    /** Constraints, in the order they were added. */
+    private final List<Row> rows;
+
+    /** Basic status of the variables. */
+    private final boolean[] basicVariable;
+
+    /** Basis to restore at the next solve, null if the current statuses are kept. */
+    private Basis pendingBasis;
+
+    /** Whether the model changed since the columns were last built. */
+    private boolean dirty;
+
+    /** Maximal number of iterations of one solve. */
+    private int maxIterations;
+
+    /** Number of basis updates between two factorizations. */
+    private int refactorizationFrequency;
+
+    /** Number of iterations of the last solve. */
+    private int iterations;
+
+    /** Number of constraints when the columns were last built. */
+    private int m;
+
+    /** Standard form of the constraints with their current basis, null before the first solve. */
+    private RevisedSimplexCore core;
+
+    /**
+     * Build a session without constraints.
+     * @param f linear objective function
+     * @param goalType type of optimization goal
+     */
+    public SimplexSession(final LinearObjectiveFunction f, final GoalType goalType) {
+        this(f, Collections.<LinearConstraint>emptyList(), goalType, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Build a session.
+     * @param f linear objective function
+     * @param constraints linear constraints
+     * @param goalType type of optimization goal
+     */
+    public SimplexSession(final LinearObjectiveFunction f, final Collection<LinearConstraint> constraints,
+                          final GoalType goalType) {
+        this(f, constraints, goalType, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Build a session with a specified accepted amount of error.
+     * @param f linear objective function
+     * @param constraints linear constraints
+     * @param goalType type of optimization goal
+     * @param epsilon the amount of error to accept in floating point comparisons
+     */
+    public SimplexSession(final LinearObjectiveFunction f, final Collection<LinearConstraint> constraints,
+                          final GoalType goalType, final double epsilon) {
+        this.epsilon                  = epsilon;
+        this.n                        = f.getCoefficients().getDimension();
+        this.f                        = f;
+        this.goalType                 = goalType;
+        this.rows                     = new ArrayList<Row>(constraints.size());
+        this.basicVariable            = new boolean[n];
+        this.maxIterations            = DEFAULT_MAX_ITERATIONS;
+        this.refactorizationFrequency = DEFAULT_REFACTORIZATION_FREQUENCY;
+        for (final LinearConstraint constraint : constraints) {
+            addConstraint(constraint);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Set the maximal number of iterations of one solve.
+     * @param maxIterations maximal number of iterations of one call to {@link #optimize()}
+     */
+    public void setMaxIterations(final int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Get the maximal number of iterations of one solve.
+     * @return maximal number of iterations of one call to {@link #optimize()}
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Get the number of iterations of the last solve.
+     * @return number of pivots of the last call to {@link #optimize()}
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Set the number of basis updates between two factorizations.
+     * @param refactorizationFrequency number of pivots after which the basis
+     * is factorized again from scratch
+     */
+    public void setRefactorizationFrequency(final int refactorizationFrequency) {
+        if (refactorizationFrequency < 1) {
+            throw new IllegalArgumentException("refactorization frequency must be positive");
+        }
+        this.refactorizationFrequency = refactorizationFrequency;
+    }
+
+    /**
+     * Get the number of basis updates between two factorizations.
+     * @return number of pivots after which the basis is factorized again from scratch
+     */
+    public int getRefactorizationFrequency() {
+        return refactorizationFrequency;
+    }
+
+    /**
+     * Replace the objective function.
+     * @param objective new objective function, over the same variables
+     * @param goal type of optimization goal
+     */
+    public void setObjectiveFunction(final LinearObjectiveFunction objective, final GoalType goal) {
+        if (objective.getCoefficients().getDimension() != n) {
+            throw MathRuntimeException.createIllegalArgumentException(
+                  "dimension mismatch {0} != {1}", objective.getCoefficients().getDimension(), n);
+        }
+        this.f        = objective;
+        this.goalType = goal;
+    }
+
+    /**
+     * Get the objective function.
+     * @return objective function
+     */
+    public LinearObjectiveFunction getObjectiveFunction() {
+        return f;
+    }
+
+    /**
+     * Get the type of optimization goal.
+     * @return type of optimization goal
+     */
+    public GoalType getGoalType() {
+        return goalType;
+    }
+
+    /**
+     * Add a constraint.
+     * <p>The slack variable of the constraint enters the basis.</p>
+     * @param constraint constraint to add
+     */
+    public void addConstraint(final LinearConstraint constraint) {
+        if (constraint.getDimension() != n) {
+            throw MathRuntimeException.createIllegalArgumentException(
+                  "dimension mismatch {0} != {1}", constraint.getDimension(), n);
+        }
+        rows.add(new Row(constraint));
+        dirty = true;
+    }
+
+    /**
+     * Remove a constraint.
+     * @param constraint constraint to remove (the instance added to the session)
+     * @return true if the constraint was part of the session
+     * @exception OptimizationException if the basis had to be refactorized and is singular
+     */
+    public boolean removeConstraint(final LinearConstraint constraint)
+        throws OptimizationException {
+        final int i = indexOf(constraint);
+        if (i < 0) {
+            return false;
+        }
+        if (!rows.get(i).basic && pendingBasis == null) {
+            // keep the basis square: the slack variable replaces a basic variable first
+            update();
+            final double[] alpha = core.getTransformedColumn(n + i);
+            int row = -1;
+            for (int k = 0; k < m; k++) {
+                if (row < 0 || Math.abs(alpha[k]) > Math.abs(alpha[row])) {
+                    row = k;
+                }
+            }
+            core.pivot(row, n + i, alpha);
+            saveStatuses();
+        }
+        rows.remove(i);
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Replace a constraint, keeping the basic status of its slack variable.
+     * <p>
+     * This is the way to change the right hand side of a constraint. If the
+     * coefficients change too, the basis may become singular; the session then
+     * starts again from the basis made of all the slack variables.
+     * </p>
+     * @param oldConstraint constraint to replace (the instance added to the session)
+     * @param newConstraint new constraint
+     * @return true if the old constraint was part of the session
+     */
+    public boolean replaceConstraint(final LinearConstraint oldConstraint,
+                                     final LinearConstraint newConstraint) {
+        if (newConstraint.getDimension() != n) {
+            throw MathRuntimeException.createIllegalArgumentException(
+                  "dimension mismatch {0} != {1}", newConstraint.getDimension(), n);
+        }
+        final int i = indexOf(oldConstraint);
+        if (i < 0) {
+            return false;
+        }
+        rows.get(i).constraint = newConstraint;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Get the constraints of the session.
+     * @return unmodifiable list of the constraints, in the order they were added
+     */
+    public List<LinearConstraint> getConstraints() {
+        final List<LinearConstraint> list = new ArrayList<LinearConstraint>(rows.size());
+        for (final Row row : rows) {
+            list.add(row.constraint);
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Get the current basis.
+     * @return basis that can be given back to {@link #setBasis(Basis)}
+     */
+    public Basis getBasis() {
+        int basicCount = 0;
+        for (int j = 0; j < n; j++) {
+            if (basicVariable[j]) {
+                ++basicCount;
+            }
+        }
+        final int[] variables = new int[basicCount];
+        for (int j = 0, k = 0; j < n; j++) {
+            if (basicVariable[j]) {
+                variables[k++] = j;
+            }
+        }
+        final List<LinearConstraint> slacks = new ArrayList<LinearConstraint>();
+        for (final Row row : rows) {
+            if (!row.basic) {
+                slacks.add(row.constraint);
+            }
+        }
+        return new Basis(variables, slacks.toArray(new LinearConstraint[slacks.size()]));
+    }
+
+    /**
+     * Set the basis the next solve starts from.
+     * <p>
+     * The basis is applied when {@link #optimize()} is called, after the other
+     * edits: constraints the basis does not know have their slack variable
+     * basic. If the basis does not have one basic variable per constraint
+     * then, some slack variables are made basic or some variables non-basic,
+     * and a singular basis is replaced by the basis of all the slack variables.
+     * </p>
+     * @param basis basis returned by {@link #getBasis()}
+     */
+    public void setBasis(final Basis basis) {
+        pendingBasis = basis;
+        dirty = true;
+    }
+
+    /**
+     * Solve the problem, starting from the current basis.
+     * @return the point/value pair giving the optimal value for objective function
+     * @exception OptimizationException if no solution fulfilling the constraints
+     * can be found in the allowed number of iterations
+     */
+    public RealPointValuePair optimize() throws OptimizationException {
+
+        iterations = 0;
+        update();
+
+        // costs, with the goal turned into a minimization
+        final double sign = (goalType == GoalType.MAXIMIZE) ? -1 : 1;
+        final double[] cost = new double[n + m];
+        for (int j = 0; j < n; j++) {
+            cost[j] = sign * f.getCoefficients().getEntry(j);
+        }
+
+        try {
+            if (core.getInfeasibleRow() >= 0) {
+                // after a new constraint or right hand side the basis is still dual
+                // feasible, otherwise any basis is dual feasible for zero costs
+                core.solveDual(core.isDualFeasible(cost) ? cost : new double[n + m]);
+            }
+            core.solvePrimal(cost);
+        } finally {
+            // the next solve starts from wherever this one stopped
+            saveStatuses();
+        }
+        return getSolution();
+
+    }
+
+    /**
+     * Find the index of a constraint.
+     * @param constraint constraint to look for
+     * @return index of the constraint in the session, -1 if it is not part of it
+     */
+    private int indexOf(final LinearConstraint constraint) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).constraint == constraint) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Bring the columns, the basis and its factorization in line with the model.
+     * @exception OptimizationException if the basis is singular
+     */
+    private void update() throws OptimizationException {
+        if (!dirty) {
+            return;
+        }
+        if (pendingBasis != null) {
+            pendingBasis.apply(this);
+            pendingBasis = null;
+        }
+        buildColumns();
+        dirty = false;
+        int[] basis = selectBasis();
+        if (basis == null) {
+            resetBasis();
+            basis = selectBasis();
+        }
+        try {
+            core.setBasis(basis);
+        } catch (OptimizationException e) {
+            resetBasis();
+            core.setBasis(selectBasis());
+        }
+    }
+
+    /**
+     * Build the standard form of the constraints, with one slack column per
+     * constraint; the slack variables of the equality constraints are fixed.
+     */
+    private void buildColumns() {
+
+        m = rows.size();
+        final double[] rhs              = new double[m];
+        final int[][] rowEntries        = new int[m][];
+        final double[][] rowEntryValues = new double[m][];
+        final int[] slackRow            = new int[m];
+        final double[] slackValue       = new double[m];
+        for (int i = 0; i < m; i++) {
+            final LinearConstraint constraint = rows.get(i).constraint;
+            rhs[i]            = constraint.getValue();
+            rowEntries[i]     = constraint.getNonZeroIndices();
+            rowEntryValues[i] = constraint.getNonZeroValues();
+            slackRow[i]       = i;
+            slackValue[i]     = (constraint.getRelationship() == Relationship.GEQ) ? -1 : 1;
+        }
+
+        core = new RevisedSimplexCore(n, rowEntries, rowEntryValues, slackRow, slackValue, rhs,
+                                      n + m, epsilon, refactorizationFrequency) {
+            /** {@inheritDoc} */
+            @Override
+            protected void incrementIterationsCounter() throws OptimizationException {
+                SimplexSession.this.incrementIterationsCounter();
+            }
+        };
+        for (int i = 0; i < m; i++) {
+            if (rows.get(i).constraint.getRelationship() == Relationship.EQ) {
+                core.fix(n + i);
+            }
+        }
+
+    }
+
+    /**
+     * Collect the basic columns from the basic statuses.
+     * @return column of each basic variable, or null if the statuses do not
+     * give one basic variable per constraint
+     */
+    private int[] selectBasis() {
+
+        // new constraints or a restored basis may leave too few or too many basic variables
+        int count = 0;
+        for (int j = 0; j < n; j++) {
+            if (basicVariable[j]) {
+                ++count;
+            }
+        }
+        for (final Row row : rows) {
+            if (row.basic) {
+                ++count;
+            }
+        }
+        for (int i = m - 1; i >= 0 && count < m; i--) {
+            if (!rows.get(i).basic) {
+                rows.get(i).basic = true;
+                ++count;
+            }
+        }
+        for (int j = n - 1; j >= 0 && count > m; j--) {
+            if (basicVariable[j]) {
+                basicVariable[j] = false;
+                --count;
+            }
+        }
+        if (count != m) {
+            return null;
+        }
+
+        final int[] basis = new int[m];
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            if (basicVariable[j]) {
+                basis[k++] = j;
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            if (rows.get(i).basic) {
+                basis[k++] = n + i;
+            }
+        }
+        return basis;
+
+    }
+
+    /**
+     * Make all the slack variables basic.
+     */
+    private void resetBasis() {
+        for (int j = 0; j < n; j++) {
+            basicVariable[j] = false;
+        }
+        for (final Row row : rows) {
+            row.basic = true;
+        }
+    }
+
+    /**
+     * Copy the basic statuses of the columns back to the variables and constraints.
+     */
+    private void saveStatuses() {
+        for (int j = 0; j < n; j++) {
+            basicVariable[j] = core.isBasic(j);
+        }
+        for (int i = 0; i < m; i++) {
+            rows.get(i).basic = core.isBasic(n + i);
+        }
+    }
+
+    /**
+     * Increment the iterations counter by 1.
+     * @exception OptimizationException if the maximal number of iterations is exceeded
+     */
+    private void incrementIterationsCounter() throws OptimizationException {
+        if (++iterations > maxIterations) {
+            throw new OptimizationException(new MaxIterationsExceededException(maxIterations));
+        }
+    }
+
+    /**
+     * Extract the values of the variables from the basis.
+     * @return solution
+     */
+    private RealPointValuePair getSolution() {
+        final double[] columnValues = core.getColumnValues();
+        final double[] point = new double[n];
+        for (int j = 0; j < n; j++) {
+            point[j] = Math.max(columnValues[j], 0);
+        }
+        return new RealPointValuePair(point, f.getValue(point), false);
+    }
+
+    /**
+     * A constraint of the session with the basic status of its slack variable.
+     */
+    private static class Row {
+
+        /** Constraint. */
+        LinearConstraint constraint;
+
+        /** Basic status of the slack variable. */
+        boolean basic;
+
+        /**
+         * @param constraint constraint
+         */
+        Row(final LinearConstraint constraint) {
+            this.constraint = constraint;
+            this.basic      = true;
+        }
+
+    }
+
+    /**
+     * Basic statuses of the variables and of the slack variables of the
+     * constraints, saved to restart a later solve from them.
+     */
+    public static class Basis {
+
+        /** Basic variables. */
+        private final int[] variables;
+
+        /** Constraints whose slack variable is not basic. */
+        private final LinearConstraint[] nonBasicSlacks;
+
+        /**
+         * @param variables basic variables
+         * @param nonBasicSlacks constraints whose slack variable is not basic
+         */
+        Basis(final int[] variables, final LinearConstraint[] nonBasicSlacks) {
+            this.variables      = variables;
+            this.nonBasicSlacks = nonBasicSlacks;
+        }
+
+        /**
+         * Copy the statuses to a session.
+         * @param session session using the basis
+         */
+        void apply(final SimplexSession session) {
+            final boolean[] basicVariable = session.basicVariable;
+            for (int j = 0; j < basicVariable.length; j++) {
+                basicVariable[j] = false;
+            }
+            for (final int j : variables) {
+                basicVariable[j] = true;
+            }
+            final Map<LinearConstraint, Boolean> nonBasic = new IdentityHashMap<LinearConstraint, Boolean>();
+            for (final LinearConstraint constraint : nonBasicSlacks) {
+                nonBasic.put(constraint, Boolean.TRUE);
+            }
+            for (final Row row : session.rows) {
+                row.basic = !nonBasic.containsKey(row.constraint);
+            }
+        }
+
+    }
+
+}
@@ -17,6 +17,8 @@
 
 package lp.optimization.linear;
 
+import java.util.Arrays;
+
 import lp.optimization.OptimizationException;
 import lp.optimization.RealPointValuePair;
 import lp.util.MathUtils;
@@ -24,6 +26,22 @@ import lp.util.MathUtils;
 
 /**
  * Solves a linear problem using the Two-Phase Simplex Method.
+ * <p>
+ * Besides the maximal number of iterations, a solve can be bounded by a
+ * {@link #setTimeLimit(long) time limit} and stopped from another thread
+ * through a {@link #setCancellationToken(CancellationToken) cancellation token}.
+ * Both are checked before each iteration. When they stop the solve after a
+ * feasible point has been found, that point is returned and
+ * {@link #getStatus()} tells it may not be optimal; when they stop it before,
+ * an {@link OptimizationException} is thrown.
+ * </p>
+ * <p>
+ * Variable bounds given to
+ * {@link #optimize(LinearObjectiveFunction, java.util.Collection, lp.optimization.GoalType, double[], double[])}
+ * do not add rows to the tableau: the ratio test also stops a basic variable
+ * at its upper bound, and a variable reaching its upper bound is replaced by
+ * the distance to that bound.
+ * </p>
  * @version $Revision: 1.1 $ $Date: 2009/12/12 00:08:03 $
  * @since 2.0
  */
@@ -32,9 +50,45 @@ public class SimplexSolver extends AbstractLinearOptimizer {
     /** Default amount of error to accept in floating point comparisons. */ 
     private static final double DEFAULT_EPSILON = 1.0e-6;
 
+    /** Number of segments the columns are split into by partial pricing. */
+    private static final int PARTIAL_PRICING_SEGMENTS = 8;
+
+    /** Number of consecutive degenerate pivots after which Bland's rule takes over. */
+    private static final int MAX_DEGENERATE_PIVOTS = 20;
+
     /** Amount of error to accept in floating point comparisons. */ 
     protected final double epsilon;  
 
+    /** Rule selecting the entering column. */
+    private PricingRule pricingRule;
+
+    /** Method scaling the problem before the tableau is built. */
+    private ScalingMethod scalingMethod;
+
+    /**
+     * Weights of the columns for the weighted rules, null until the first
+     * weighted iteration: Devex reference weights or squared edge norms.
+     */
+    private double[] weights;
+
+    /** First column of the segment partial pricing scans next. */
+    private int partialStart;
+
+    /** Number of consecutive pivots that did not move the point. */
+    private int degeneratePivots;
+
+    /** Maximal wall clock time of a solve in milliseconds, 0 for no limit. */
+    private long timeLimit;
+
+    /** Listener notified after each iteration, may be null. */
+    private ProgressListener progressListener;
+
+    /** Time at which the running solve must stop. */
+    private long deadline;
+
+    /** How the last solve ended. */
+    private SolveStatus status;
+
     /**
      * Build a simplex solver with default settings.
      */
@@ -47,18 +101,152 @@ public class SimplexSolver extends AbstractLinearOptimizer {
      * @param epsilon the amount of error to accept in floating point comparisons
      */
     public SimplexSolver(final double epsilon) {
-        this.epsilon = epsilon;
+        this.epsilon       = epsilon;
+        this.pricingRule   = PricingRule.DANTZIG;
+        this.scalingMethod = ScalingMethod.GEOMETRIC_MEAN;
+    }
+
+    /**
+     * Set the rule selecting the entering column.
+     * @param pricingRule rule selecting the entering column
+     */
+    public void setPricingRule(final PricingRule pricingRule) {
+        this.pricingRule = pricingRule;
+    }
+
+    /**
+     * Get the rule selecting the entering column.
+     * @return rule selecting the entering column
+     */
+    public PricingRule getPricingRule() {
+        return pricingRule;
+    }
+
+    /**
+     * Set the method scaling the rows and columns of the problem.
+     * <p>
+     * The tolerance of the solver is absolute, so it is only meaningful when
+     * the coefficients have comparable magnitudes; scaling brings them close
+     * to 1. The default is {@link ScalingMethod#GEOMETRIC_MEAN}.
+     * </p>
+     * @param scalingMethod scaling method
+     */
+    public void setScalingMethod(final ScalingMethod scalingMethod) {
+        this.scalingMethod = scalingMethod;
+    }
+
+    /**
+     * Get the method scaling the rows and columns of the problem.
+     * @return scaling method
+     */
+    public ScalingMethod getScalingMethod() {
+        return scalingMethod;
+    }
+
+    /**
+     * Set the maximal wall clock time of a solve.
+     * @param timeLimit time limit in milliseconds, 0 for no limit
+     */
+    public void setTimeLimit(final long timeLimit) {
+        if (timeLimit < 0) {
+            throw new IllegalArgumentException("time limit must not be negative");
+        }
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Get the maximal wall clock time of a solve.
+     * @return time limit in milliseconds, 0 for no limit
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Set the listener notified after each iteration.
+     * @param progressListener progress listener, null for none
+     */
+    public void setProgressListener(final ProgressListener progressListener) {
+        this.progressListener = progressListener;
     }
 
     /**
-     * Returns the column with the most negative coefficient in the objective function row.
+     * Get the listener notified after each iteration.
+     * @return progress listener, null if none was set
+     */
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * Get how the last solve ended.
+     * @return status of the last solve that returned a point, null if none did
+     */
+    @Override
+    public SolveStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the rule used for the next iteration.
+     * <p>
+     * Only Bland's rule is guaranteed not to cycle. After a long run of
+     * degenerate pivots, which is how cycling shows, it replaces the
+     * configured rule until a pivot moves the point again. The weights of
+     * the weighted rules are still updated meanwhile.
+     * </p>
+     * @return rule selecting the entering column and breaking the ratio test ties
+     */
+    private PricingRule getActiveRule() {
+        return (degeneratePivots < MAX_DEGENERATE_PIVOTS) ? pricingRule : PricingRule.BLAND;
+    }
+
+    /**
+     * Returns the column selected by the pricing rule among the columns with
+     * a negative coefficient in the objective function row.
+     * @param tableau simple tableau for the problem
+     * @return selected column, or -1 if no coefficient is negative
+     */
+    private int getPivotColumn(final SimplexTableau tableau) {
+        final int first = tableau.getNumObjectiveFunctions();
+        final int end   = tableau.getWidth() - 1;
+        switch (getActiveRule()) {
+        case BLAND :
+            for (int i = first; i < end; i++) {
+                if (MathUtils.compareTo(tableau.getEntry(0, i), 0, epsilon) < 0) {
+                    return i;
+                }
+            }
+            return -1;
+        case PARTIAL :
+            return getPartialPivotColumn(tableau, first, end);
+        case DEVEX :
+            if (weights == null) {
+                weights = new double[end];
+                Arrays.fill(weights, 1.0);
+            }
+            return getWeightedPivotColumn(tableau, first, end, weights);
+        case STEEPEST_EDGE :
+            if (weights == null) {
+                weights = getEdgeNorms(tableau);
+            }
+            return getWeightedPivotColumn(tableau, first, end, weights);
+        default :
+            return getDantzigPivotColumn(tableau, first, end);
+        }
+    }
+
+    /**
+     * Returns the column with the most negative coefficient in a range of the objective function row.
      * @param tableau simple tableau for the problem
-     * @return column with the most negative coefficient
+     * @param first first column of the range
+     * @param end end of the range (excluded)
+     * @return column with the most negative coefficient, or -1 if none is negative
      */
-    private Integer getPivotColumn(SimplexTableau tableau) {
+    private int getDantzigPivotColumn(final SimplexTableau tableau, final int first, final int end) {
         double minValue = 0;
-        Integer minPos = null;
-        for (int i = tableau.getNumObjectiveFunctions(); i < tableau.getWidth() - 1; i++) {
+        int minPos = -1;
+        for (int i = first; i < end; i++) {
             if (MathUtils.compareTo(tableau.getEntry(0, i), minValue, epsilon) < 0) {
                 minValue = tableau.getEntry(0, i);
                 minPos = i;
@@ -67,56 +255,296 @@ public class SimplexSolver extends AbstractLinearOptimizer {
         return minPos;
     }
 
+    /**
+     * Returns the column with the most negative coefficient in the first
+     * segment of columns that has a negative coefficient, starting from the
+     * segment after the one of the previous selection.
+     * @param tableau simple tableau for the problem
+     * @param first first candidate column
+     * @param end end of the candidate columns (excluded)
+     * @return selected column, or -1 if no coefficient is negative
+     */
+    private int getPartialPivotColumn(final SimplexTableau tableau, final int first, final int end) {
+        final int count   = end - first;
+        final int segment = Math.max(1, (count + PARTIAL_PRICING_SEGMENTS - 1) / PARTIAL_PRICING_SEGMENTS);
+        if (partialStart < first || partialStart >= end) {
+            partialStart = first;
+        }
+        for (int scanned = 0; scanned < count; scanned += segment) {
+            final int start = partialStart;
+            final int stop  = Math.min(start + segment, end);
+            partialStart = (stop == end) ? first : stop;
+            final int selected = getDantzigPivotColumn(tableau, start, stop);
+            if (selected >= 0) {
+                return selected;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the column with the largest squared coefficient relative to its
+     * weight among the columns with a negative coefficient.
+     * @param tableau simple tableau for the problem
+     * @param first first candidate column
+     * @param end end of the candidate columns (excluded)
+     * @param columnWeights weights of the columns (squared norms of their edges)
+     * @return selected column, or -1 if no coefficient is negative
+     */
+    private int getWeightedPivotColumn(final SimplexTableau tableau, final int first, final int end,
+                                       final double[] columnWeights) {
+        double maxScore = 0;
+        int maxPos = -1;
+        for (int i = first; i < end; i++) {
+            final double d = tableau.getEntry(0, i);
+            if (MathUtils.compareTo(d, 0, epsilon) < 0) {
+                final double score = d * d / columnWeights[i];
+                if (score > maxScore) {
+                    maxScore = score;
+                    maxPos = i;
+                }
+            }
+        }
+        return maxPos;
+    }
+
+    /**
+     * Computes the squared norms of the edges along which the non-basic variables enter.
+     * <p>
+     * The edge of column j has the entry 1 for variable j and the opposite of
+     * the constraint rows of column j for the basic variables, so its squared
+     * norm is one plus the sum of the squares of the column entries. The
+     * tableau is scanned once, the norms are then kept up to date by
+     * {@link #updateEdgeNorms(SimplexTableau, int, int)}.
+     * </p>
+     * @param tableau simple tableau for the problem
+     * @return squared norms of the edges, indexed by column
+     */
+    private double[] getEdgeNorms(final SimplexTableau tableau) {
+        final int end = tableau.getWidth() - 1;
+        final double[] norms = new double[end];
+        Arrays.fill(norms, 1.0);
+        for (int i = tableau.getNumObjectiveFunctions(); i < tableau.getHeight(); i++) {
+            for (int j = 0; j < end; j++) {
+                final double a = tableau.getEntry(i, j);
+                norms[j] += a * a;
+            }
+        }
+        return norms;
+    }
+
+    /**
+     * Updates the Devex reference weights before a pivot.
+     * <p>
+     * Each column j gets max(w<sub>j</sub>, (a<sub>rj</sub> / a<sub>rq</sub>)<sup>2</sup> w<sub>q</sub>),
+     * where r is the pivot row and q the pivot column. The leaving column has
+     * the entry 1 in the pivot row and the other basic columns have 0, so a
+     * single pass over the pivot row updates the non-basic weights and sets
+     * the weight of the leaving column as well.
+     * </p>
+     * @param tableau simple tableau for the problem
+     * @param pivotRow pivot row
+     * @param pivotCol pivot column
+     */
+    private void updateWeights(final SimplexTableau tableau, final int pivotRow, final int pivotCol) {
+        final double pivotValue = tableau.getEntry(pivotRow, pivotCol);
+        final double pivotWeight = weights[pivotCol];
+        for (int j = tableau.getNumObjectiveFunctions(); j < weights.length; j++) {
+            final double ratio = tableau.getEntry(pivotRow, j) / pivotValue;
+            if (ratio != 0) {
+                weights[j] = Math.max(weights[j], ratio * ratio * pivotWeight);
+            }
+        }
+        weights[pivotCol] = Math.max(pivotWeight / (pivotValue * pivotValue), 1.0);
+    }
+
+    /**
+     * Updates the squared edge norms before a pivot.
+     * <p>
+     * With &beta;<sub>j</sub> = a<sub>rj</sub> / a<sub>rq</sub>, where r is
+     * the pivot row and q the pivot column, the pivot replaces column j by
+     * a<sub>j</sub> - &beta;<sub>j</sub> a<sub>q</sub> outside of row r and
+     * by &beta;<sub>j</sub> in row r, so its squared norm becomes
+     * &gamma;<sub>j</sub> - 2 &beta;<sub>j</sub> a<sub>j</sub>.a<sub>q</sub> + &beta;<sub>j</sub><sup>2</sup> &gamma;<sub>q</sub>
+     * (Goldfarb and Reid), which gives &gamma;<sub>q</sub> / a<sub>rq</sub><sup>2</sup>
+     * for the leaving column.
+     * The dot products only involve the rows where the pivot column is not
+     * zero, which are the rows the pivot itself updates. The norms are kept
+     * above 1 + &beta;<sub>j</sub><sup>2</sup>, their exact lower bound, to
+     * absorb rounding errors. Bound flips only change signs of columns and
+     * leave the norms unchanged.
+     * </p>
+     * @param tableau simple tableau for the problem
+     * @param pivotRow pivot row
+     * @param pivotCol pivot column
+     */
+    private void updateEdgeNorms(final SimplexTableau tableau, final int pivotRow, final int pivotCol) {
+        final int first = tableau.getNumObjectiveFunctions();
+        final int end   = weights.length;
+        final double[] dots = new double[end];
+        for (int i = first; i < tableau.getHeight(); i++) {
+            final double aiq = tableau.getEntry(i, pivotCol);
+            if (aiq != 0) {
+                for (int j = first; j < end; j++) {
+                    dots[j] += aiq * tableau.getEntry(i, j);
+                }
+            }
+        }
+        final double pivotValue = tableau.getEntry(pivotRow, pivotCol);
+        final double pivotNorm  = weights[pivotCol];
+        for (int j = first; j < end; j++) {
+            final double beta = tableau.getEntry(pivotRow, j) / pivotValue;
+            if (beta != 0) {
+                final double norm = weights[j] - 2 * beta * dots[j] + beta * beta * pivotNorm;
+                weights[j] = Math.max(norm, 1 + beta * beta);
+            }
+        }
+    }
+
     /**
      * Returns the row with the minimum ratio as given by the minimum ratio test (MRT).
+     * <p>
+     * With {@link PricingRule#BLAND Bland's rule}, ties are broken by the
+     * smallest index of the basic variable, otherwise the first row wins.
+     * When the tableau has variable bounds, rows where the basic variable
+     * would reach its upper bound take part in the test too.
+     * </p>
      * @param tableau simple tableau for the problem
      * @param col the column to test the ratio of.  See {@link #getPivotColumn(SimplexTableau)}
-     * @return row with the minimum ratio
+     * @return row with the minimum ratio, or -1 if no row limits the column
      */
-    private Integer getPivotRow(final int col, final SimplexTableau tableau) {
+    private int getPivotRow(final int col, final SimplexTableau tableau) {
         double minRatio = Double.MAX_VALUE;
-        Integer minRatioPos = null;
+        int minRatioPos = -1;
+        int minRatioBasic = -1;
         for (int i = tableau.getNumObjectiveFunctions(); i < tableau.getHeight(); i++) {
-            double rhs = tableau.getEntry(i, tableau.getWidth() - 1);
-            if (MathUtils.compareTo(tableau.getEntry(i, col), 0, epsilon) >= 0) {
-                double ratio = rhs / tableau.getEntry(i, col);
+            final double ratio = getRatio(tableau, i, col);
+            if (ratio < Double.POSITIVE_INFINITY) {
                 if (ratio < minRatio) {
                     minRatio = ratio;
                     minRatioPos = i; 
+                    minRatioBasic = -1;
+                } else if (ratio == minRatio && getActiveRule() == PricingRule.BLAND) {
+                    if (minRatioBasic < 0) {
+                        minRatioBasic = tableau.getBasicColumn(minRatioPos);
+                    }
+                    final int basic = tableau.getBasicColumn(i);
+                    if (basic < minRatioBasic) {
+                        minRatioPos = i;
+                        minRatioBasic = basic;
+                    }
                 }
             }
         }
         return minRatioPos;
     }
 
+    /**
+     * Get how far the variable of a column can increase before the basic
+     * variable of a row reaches one of its bounds.
+     * @param tableau simple tableau for the problem
+     * @param row constraint row
+     * @param col entering column
+     * @return ratio of the row, {@link Double#POSITIVE_INFINITY} if the row
+     * does not limit the column
+     */
+    private double getRatio(final SimplexTableau tableau, final int row, final int col) {
+        final double entry = tableau.getEntry(row, col);
+        final double rhs   = tableau.getEntry(row, tableau.getWidth() - 1);
+        if (MathUtils.compareTo(entry, 0, epsilon) > 0) {
+            return rhs / entry;
+        }
+        if (tableau.hasBounds() && MathUtils.compareTo(entry, 0, epsilon) < 0) {
+            // the basic variable increases toward its upper bound
+            final double upper = tableau.getUpperBound(tableau.getBasicColumn(row));
+            if (upper < Double.POSITIVE_INFINITY) {
+                return (upper - rhs) / -entry;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
 
     /**
      * Runs one iteration of the Simplex method on the given model.
      * @param tableau simple tableau for the problem
      * @throws OptimizationException if the maximal iteration count has been
-     * exceeded or if the model is found not to have a bounded solution
+     * exceeded, if the solve is stopped by the time limit or the cancellation
+     * token, or if the model is found not to have a bounded solution
      */
     protected void doIteration(final SimplexTableau tableau)
         throws OptimizationException {
 
         incrementIterationsCounter();
 
-        Integer pivotCol = getPivotColumn(tableau);
-        Integer pivotRow = getPivotRow(pivotCol, tableau);
-        if (pivotRow == null) {
+        int pivotCol = getPivotColumn(tableau);
+        int pivotRow = getPivotRow(pivotCol, tableau);
+
+        final double range = tableau.getUpperBound(pivotCol);
+        if (range < Double.POSITIVE_INFINITY &&
+            (pivotRow < 0 || range <= getRatio(tableau, pivotRow, pivotCol))) {
+            // the entering variable reaches its own upper bound first: bound flip, the basis is unchanged
+            tableau.complement(pivotCol);
+            degeneratePivots = 0;
+            notifyProgress(tableau, tableau.getNumArtificialVariables() == 0);
+            return;
+        }
+
+        if (pivotRow < 0) {
             throw new UnboundedSolutionException();
         }
 
-        // set the pivot element to 1
-        double pivotVal = tableau.getEntry(pivotRow, pivotCol);
-        tableau.divideRow(pivotRow, pivotVal);
+        if (MathUtils.compareTo(getRatio(tableau, pivotRow, pivotCol), 0, epsilon) == 0) {
+            ++degeneratePivots;
+        } else {
+            degeneratePivots = 0;
+        }
 
-        // set the rest of the pivot column to 0
-        for (int i = 0; i < tableau.getHeight(); i++) {
-            if (i != pivotRow) {
-                double multiplier = tableau.getEntry(i, pivotCol);
-                tableau.subtractRow(i, pivotRow, multiplier);
-            }
+        if (pricingRule == PricingRule.DEVEX) {
+            updateWeights(tableau, pivotRow, pivotCol);
+        } else if (pricingRule == PricingRule.STEEPEST_EDGE) {
+            updateEdgeNorms(tableau, pivotRow, pivotCol);
+        }
+
+        // set the pivot element to 1 and the rest of the pivot column to 0
+        final int leaving = tableau.getBasicColumn(pivotRow);
+        final boolean leavesAtUpperBound = tableau.getEntry(pivotRow, pivotCol) < 0;
+        tableau.pivot(pivotRow, pivotCol);
+        if (leavesAtUpperBound) {
+            tableau.complement(leaving);
+        }
+
+        notifyProgress(tableau, tableau.getNumArtificialVariables() == 0);
+    }
+
+    /**
+     * Increment the iterations counter by 1, checking first that the solve
+     * is neither cancelled nor out of time.
+     * @exception OptimizationException if the solve has been cancelled, if
+     * the time limit is reached or if the maximal number of iterations is exceeded
+     */
+    @Override
+    protected void incrementIterationsCounter()
+        throws OptimizationException {
+        if (isCancelled()) {
+            throw new SolveStoppedException(SolveStatus.CANCELLED, "solve cancelled");
+        }
+        if (System.currentTimeMillis() >= deadline) {
+            throw new SolveStoppedException(SolveStatus.TIME_LIMIT_REACHED,
+                                            "time limit of {0} ms reached", timeLimit);
+        }
+        super.incrementIterationsCounter();
+    }
+
+    /**
+     * Notify the progress listener, if any, of the iteration just performed.
+     * @param tableau simple tableau for the problem
+     * @param feasible whether the current point satisfies the constraints
+     */
+    protected void notifyProgress(final SimplexTableau tableau, final boolean feasible) {
+        if (progressListener != null) {
+            progressListener.iterationPerformed(getIterations(), feasible,
+                                                tableau.getSolution().getValue());
         }
     }
 
@@ -178,18 +606,92 @@ public class SimplexSolver extends AbstractLinearOptimizer {
         }
     }
 
+    /**
+     * Solves Phase 2 of the Simplex method, starting from a feasible basis.
+     * <p>
+     * If the solve is stopped by the time limit or the cancellation token,
+     * the current point is returned and the status records why.
+     * </p>
+     * @param tableau simple tableau for the problem, without artificial variables
+     * @return the optimal point, or the current point if the solve was stopped
+     * @exception OptimizationException if the maximal number of iterations is
+     * exceeded, or if the problem is found not to have a bounded solution
+     */
+    protected RealPointValuePair solvePhase2(final SimplexTableau tableau)
+        throws OptimizationException {
+
+        // the columns may have been renumbered, start a new reference framework
+        weights          = null;
+        partialStart     = 0;
+        degeneratePivots = 0;
+        try {
+            while (!isOptimal(tableau)) {
+                doIteration(tableau);
+            }
+            status = SolveStatus.OPTIMAL;
+        } catch (SolveStoppedException e) {
+            // the current basis is feasible, it is the best point found so far
+            status = e.status;
+        }
+        return tableau.getSolution();
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isBoundsSupported() {
+        return true;
+    }
+
+    /**
+     * Reset the solve state and start the clock of the time limit.
+     */
+    protected void startSolve() {
+        status           = null;
+        deadline         = (timeLimit > 0) ? System.currentTimeMillis() + timeLimit : Long.MAX_VALUE;
+        weights          = null;
+        partialStart     = 0;
+        degeneratePivots = 0;
+    }
+
     /** {@inheritDoc} */
     @Override
     public RealPointValuePair doOptimize()
         throws OptimizationException {
-        final SimplexTableau tableau =
-            new SimplexTableau(f, constraints, goalType, restrictToNonNegative, epsilon);
+        startSolve();
+        final SimplexTableau tableau = (lowerBounds == null) ?
+            new SimplexTableau(f, constraints, goalType, restrictToNonNegative, epsilon, false, scalingMethod) :
+            new SimplexTableau(f, constraints, goalType, lowerBounds, upperBounds, epsilon, scalingMethod);
         solvePhase1(tableau);
         tableau.discardArtificialVariables();
-        while (!isOptimal(tableau)) {
-            doIteration(tableau);
+        return solvePhase2(tableau);
+    }
+
+    /**
+     * Exception stopping a solve on a time limit or a cancellation.
+     * <p>
+     * It is caught once a feasible point is known and only reaches the caller
+     * when the solve is stopped before.
+     * </p>
+     */
+    private static class SolveStoppedException extends OptimizationException {
+
+        /** Serializable version identifier. */
+        private static final long serialVersionUID = 4817463261728532961L;
+
+        /** Status of the solve if a feasible point is returned. */
+        private final SolveStatus status;
+
+        /**
+         * @param status status of the solve if a feasible point is returned
+         * @param pattern format specifier
+         * @param arguments format arguments
+         */
+        SolveStoppedException(final SolveStatus status, final String pattern, final Object ... arguments) {
+            super(pattern + " before a feasible point was found", arguments);
+            this.status = status;
         }
-        return tableau.getSolution();
+
     }
 
 }
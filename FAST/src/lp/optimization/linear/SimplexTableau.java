@@ -17,23 +17,15 @@
 
 package lp.optimization.linear;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
-import lp.linear.MatrixUtils;
-import lp.linear.RealMatrix;
-import lp.linear.Array2DRowRealMatrix;
 import lp.linear.RealVector;
 import lp.optimization.GoalType;
 import lp.optimization.RealPointValuePair;
-import lp.util.MathUtils;
 
 /**
  * A tableau for use in the Simplex method.
@@ -57,6 +49,10 @@ import lp.util.MathUtils;
  * a1: Artificial variable</br>
  * RHS: Right hand side</br>
  * </p>
+ * <p>
+ * The entries are stored in plain arrays, one per row, so that the row
+ * operations of a pivot run as tight loops over primitive values.
+ * </p>
  * @version $Revision: 1.1 $ $Date: 2009/12/12 00:08:03 $
  * @since 2.0
  */
@@ -65,6 +61,12 @@ class SimplexTableau implements Serializable {
     /** Serializable version identifier. */
     private static final long serialVersionUID = -1369660067587938365L;
 
+    /** A pivot row with fewer than width / SPARSE_PIVOT_RATIO non-zeros is applied column by column. */
+    private static final int SPARSE_PIVOT_RATIO = 3;
+
+    /** Rows reused by the tableaux built in the current thread, unset to allocate new rows. */
+    static final ThreadLocal<Buffer> BUFFERS = new ThreadLocal<Buffer>();
+
     /** Linear objective function. */
     private final LinearObjectiveFunction f;
 
@@ -74,8 +76,32 @@ class SimplexTableau implements Serializable {
     /** Whether to restrict the variables to non-negative values. */
     private final boolean restrictToNonNegative;
 
-    /** Simple tableau. */
-    protected transient RealMatrix tableau;
+    /** Whether all the constraints are written as less than or equal rows, with a basic slack variable. */
+    private final boolean slackBasis;
+
+    /** Scale factors of the rows and columns, null if the problem is not scaled. */
+    private final MatrixScaling scaling;
+
+    /** Bounds of the decision variables, null if the variables are only restricted by the constraints. */
+    private final VariableBounds bounds;
+
+    /** Decision variables currently replaced by their upper bound minus themselves. */
+    private boolean[] complemented;
+
+    /** Simple tableau, one array per row; only the first width entries of a row are used. */
+    protected double[][] tableau;
+
+    /** Number of columns of the tableau. */
+    protected int width;
+
+    /** Number of rows of the tableau. */
+    protected int height;
+
+    /** Row in which each column is basic, -1 for the non-basic columns. */
+    protected int[] basicRows;
+
+    /** Column basic in each row, -1 for the objective rows. */
+    protected int[] basicColumns;
 
     /** Number of decision variables. */
     protected final int numDecisionVariables;
@@ -102,8 +128,102 @@ class SimplexTableau implements Serializable {
                    final Collection<LinearConstraint> constraints,
                    final GoalType goalType, final boolean restrictToNonNegative,
                    final double epsilon) {
-        this.f                      = f;
-        this.constraints            = constraints;
+        this(f, constraints, goalType, restrictToNonNegative, epsilon, false, ScalingMethod.NONE);
+    }
+
+    /**
+     * Build a tableau for a linear problem.
+     * <p>
+     * With a slack basis, every constraint is written as one or two less than
+     * or equal rows whose slack variables form the starting basis, without
+     * artificial variables. The right hand sides may then be negative: the
+     * starting basis is not feasible, but it is dual feasible when no
+     * coefficient of the objective function row is negative.
+     * </p>
+     * @param f linear objective function
+     * @param constraints linear constraints
+     * @param goalType type of optimization goal: either {@link GoalType#MAXIMIZE}
+     * or {@link GoalType#MINIMIZE}
+     * @param restrictToNonNegative whether to restrict the variables to non-negative values
+     * @param epsilon amount of error to accept in floating point comparisons
+     * @param slackBasis if true, start from the basis of the slack variables
+     * instead of making the right hand sides positive and adding artificial variables
+     * @param scalingMethod method scaling the rows and the columns, the columns
+     * are only scaled if the variables are restricted to non-negative values
+     */
+    SimplexTableau(final LinearObjectiveFunction f,
+                   final Collection<LinearConstraint> constraints,
+                   final GoalType goalType, final boolean restrictToNonNegative,
+                   final double epsilon, final boolean slackBasis,
+                   final ScalingMethod scalingMethod) {
+        this(f, constraints, goalType, restrictToNonNegative, epsilon, slackBasis, null, null, scalingMethod);
+    }
+
+    /**
+     * Build a tableau for a linear problem with bounded variables.
+     * <p>
+     * Each variable is shifted to its lower bound, or reflected around its
+     * upper bound if it has no lower bound, so that the tableau variables
+     * are non-negative. Upper bounds do not add rows: a variable reaching its
+     * upper bound is {@link #complement(int) complemented} instead. Every
+     * variable must have at least one finite bound.
+     * </p>
+     * @param f linear objective function
+     * @param constraints linear constraints
+     * @param goalType type of optimization goal: either {@link GoalType#MAXIMIZE}
+     * or {@link GoalType#MINIMIZE}
+     * @param lowerBounds lower bounds of the variables
+     * @param upperBounds upper bounds of the variables
+     * @param epsilon amount of error to accept in floating point comparisons
+     * @param scalingMethod method scaling the rows and the columns
+     */
+    SimplexTableau(final LinearObjectiveFunction f,
+                   final Collection<LinearConstraint> constraints,
+                   final GoalType goalType,
+                   final double[] lowerBounds, final double[] upperBounds,
+                   final double epsilon, final ScalingMethod scalingMethod) {
+        this(f, constraints, goalType, true, epsilon, false, lowerBounds, upperBounds, scalingMethod);
+    }
+
+    /**
+     * Build a tableau for a linear problem.
+     * @param f linear objective function
+     * @param constraints linear constraints
+     * @param goalType type of optimization goal: either {@link GoalType#MAXIMIZE}
+     * or {@link GoalType#MINIMIZE}
+     * @param restrictToNonNegative whether to restrict the variables to non-negative values
+     * @param epsilon amount of error to accept in floating point comparisons
+     * @param slackBasis if true, start from the basis of the slack variables
+     * @param lowerBounds lower bounds of the variables, null if none
+     * @param upperBounds upper bounds of the variables, null if none
+     * @param scalingMethod method scaling the rows and the columns
+     */
+    private SimplexTableau(final LinearObjectiveFunction f,
+                           final Collection<LinearConstraint> constraints,
+                           final GoalType goalType, final boolean restrictToNonNegative,
+                           final double epsilon, final boolean slackBasis,
+                           final double[] lowerBounds, final double[] upperBounds,
+                           final ScalingMethod scalingMethod) {
+
+        // scale first, the bounds are then expressed in the scaled variables
+        if (scalingMethod == ScalingMethod.NONE) {
+            this.scaling = null;
+            this.bounds  = (lowerBounds == null) ? null : new VariableBounds(lowerBounds, upperBounds);
+        } else {
+            this.scaling = new MatrixScaling(f.getCoefficients().getDimension(), constraints,
+                                             scalingMethod, restrictToNonNegative);
+            this.bounds  = (lowerBounds == null) ? null :
+                           new VariableBounds(scaling.scaleBounds(lowerBounds), scaling.scaleBounds(upperBounds));
+        }
+        final LinearObjectiveFunction scaledF = (scaling == null) ? f : scaling.scale(f);
+        final Collection<LinearConstraint> scaledConstraints =
+            (scaling == null) ? constraints : scaling.scale(constraints);
+
+        this.f                      = (bounds == null) ? scaledF : bounds.shift(scaledF);
+        this.slackBasis             = slackBasis;
+        this.constraints            = normalizeConstraints((bounds == null) ?
+                                                           scaledConstraints : bounds.shift(scaledConstraints),
+                                                           slackBasis);
         this.restrictToNonNegative  = restrictToNonNegative;
         this.epsilon                = epsilon;
         this.numDecisionVariables   = getNumVariables() + (restrictToNonNegative ? 0 : 1);
@@ -111,7 +231,12 @@ class SimplexTableau implements Serializable {
                                       getConstraintTypeCounts(Relationship.GEQ);
         this.numArtificialVariables = getConstraintTypeCounts(Relationship.EQ) +
                                       getConstraintTypeCounts(Relationship.GEQ);
-        this.tableau = new Array2DRowRealMatrix(createTableau(goalType == GoalType.MAXIMIZE));
+        this.width                  = numDecisionVariables + numSlackVariables +
+                                      numArtificialVariables + getNumObjectiveFunctions() + 1; // + 1 is for RHS
+        this.height                 = this.constraints.size() + getNumObjectiveFunctions();
+        this.tableau                = createTableau(goalType == GoalType.MAXIMIZE);
+        this.complemented           = (bounds == null) ? null : new boolean[getOriginalNumDecisionVariables()];
+        initializeBasis();
         initialize();
     }
 
@@ -124,10 +249,8 @@ class SimplexTableau implements Serializable {
 
         // create a matrix of the correct size
         List<LinearConstraint> constraints = getNormalizedConstraints();
-        int width = numDecisionVariables + numSlackVariables +
-        numArtificialVariables + getNumObjectiveFunctions() + 1; // + 1 is for RHS
-        int height = constraints.size() + getNumObjectiveFunctions();
-        double[][] matrix = new double[height][width];
+        final Buffer buffer = BUFFERS.get();
+        double[][] matrix = (buffer == null) ? new double[height][width] : buffer.getRows(height, width);
 
         // initialize the objective function rows
         if (getNumObjectiveFunctions() == 2) {
@@ -154,12 +277,17 @@ class SimplexTableau implements Serializable {
                     int row = getNumObjectiveFunctions() + i;
 
                     // decision variable coefficients
-                    copyArray(constraint.getCoefficients().getData(), matrix[row], 1);
+                    final int[] indices   = constraint.getNonZeroIndices();
+                    final double[] values = constraint.getNonZeroValues();
+                    double sum = 0;
+                    for (int k = 0; k < indices.length; ++k) {
+                        matrix[row][getNumObjectiveFunctions() + indices[k]] = values[k];
+                        sum -= values[k];
+                    }
 
                     // x-
                     if (!restrictToNonNegative) {
-                        matrix[row][getSlackVariableOffset() - 1] =
-                            getInvertedCoeffiecientSum(constraint.getCoefficients());
+                        matrix[row][getSlackVariableOffset() - 1] = sum;
                     }
 
                     // RHS
@@ -195,9 +323,39 @@ class SimplexTableau implements Serializable {
      * @return new versions of the constraints
      */
     public List<LinearConstraint> getNormalizedConstraints() {
-        List<LinearConstraint> normalized = new ArrayList<LinearConstraint>();
-        for (LinearConstraint constraint : constraints) {
-            normalized.add(normalize(constraint));
+        return normalizeConstraints(constraints, slackBasis);
+    }
+
+    /**
+     * Get new versions of constraints which have positive right hand sides.
+     * <p>
+     * The tableau keeps the normalized constraints: normalization may flip a
+     * relationship, and the slack and artificial variable counts must be
+     * computed on the flipped relationships.
+     * </p>
+     * <p>
+     * For a slack basis the constraints are instead all turned into less than
+     * or equal constraints, whatever the sign of their right hand side: greater
+     * than or equal constraints are negated and equations are split in two.
+     * </p>
+     * @param original original constraints
+     * @param slackBasis if true, only produce less than or equal constraints
+     * @return new versions of the constraints
+     */
+    private static List<LinearConstraint> normalizeConstraints(final Collection<LinearConstraint> original,
+                                                               final boolean slackBasis) {
+        List<LinearConstraint> normalized = new ArrayList<LinearConstraint>(original.size());
+        for (LinearConstraint constraint : original) {
+            if (!slackBasis) {
+                normalized.add(normalize(constraint));
+                continue;
+            }
+            if (constraint.getRelationship() != Relationship.GEQ) {
+                normalized.add(copy(constraint, 1, Relationship.LEQ, constraint.getValue()));
+            }
+            if (constraint.getRelationship() != Relationship.LEQ) {
+                normalized.add(copy(constraint, -1, Relationship.LEQ, -1 * constraint.getValue()));
+            }
         }
         return normalized;
     }
@@ -207,14 +365,30 @@ class SimplexTableau implements Serializable {
      * @param constraint reference constraint
      * @return new equation
      */
-    private LinearConstraint normalize(final LinearConstraint constraint) {
+    private static LinearConstraint normalize(final LinearConstraint constraint) {
         if (constraint.getValue() < 0) {
-            return new LinearConstraint(constraint.getCoefficients().mapMultiply(-1),
-                                        constraint.getRelationship().oppositeRelationship(),
-                                        -1 * constraint.getValue());
+            return copy(constraint, -1, constraint.getRelationship().oppositeRelationship(),
+                        -1 * constraint.getValue());
+        }
+        return copy(constraint, 1, constraint.getRelationship(), constraint.getValue());
+    }
+
+    /**
+     * Build a constraint from the coefficients of another one, without a dense vector.
+     * @param constraint reference constraint
+     * @param sign sign applied to the coefficients, 1 or -1
+     * @param relationship relationship of the new constraint
+     * @param value value of the new constraint
+     * @return new constraint
+     */
+    private static LinearConstraint copy(final LinearConstraint constraint, final double sign,
+                                         final Relationship relationship, final double value) {
+        final double[] values = constraint.getNonZeroValues().clone();
+        for (int k = 0; k < values.length; ++k) {
+            values[k] *= sign;
         }
-        return new LinearConstraint(constraint.getCoefficients(), 
-                                    constraint.getRelationship(), constraint.getValue());
+        return new LinearConstraint(constraint.getDimension(), constraint.getNonZeroIndices(), values,
+                                    relationship, value);
     }
 
     /**
@@ -240,13 +414,41 @@ class SimplexTableau implements Serializable {
         return count;
     }
 
+    /**
+     * Set up the starting basis: the slack variable of each less than or equal
+     * constraint, the artificial variable of each other constraint.
+     */
+    private void initializeBasis() {
+        basicRows    = new int[width];
+        basicColumns = new int[height];
+        Arrays.fill(basicRows, -1);
+        Arrays.fill(basicColumns, -1);
+        int slackVar = 0;
+        int artificialVar = 0;
+        int row = getNumObjectiveFunctions();
+        for (final LinearConstraint constraint : constraints) {
+            final int col;
+            if (constraint.getRelationship() == Relationship.LEQ) {
+                col = getSlackVariableOffset() + slackVar++;
+            } else {
+                if (constraint.getRelationship() == Relationship.GEQ) {
+                    slackVar++;
+                }
+                col = getArtificialVariableOffset() + artificialVar++;
+            }
+            basicRows[col]    = row;
+            basicColumns[row] = col;
+            row++;
+        }
+    }
+
     /**
      * Puts the tableau in proper form by zeroing out the artificial variables
      * in the objective function via elementary row operations.
      */
     private void initialize() {
         for (int artificialVar = 0; artificialVar < numArtificialVariables; artificialVar++) {
-            int row = getBasicRow(getArtificialVariableOffset() + artificialVar);
+            int row = basicRows[getArtificialVariableOffset() + artificialVar];
             subtractRow(0, row, 1.0);
         }
     }
@@ -265,39 +467,94 @@ class SimplexTableau implements Serializable {
     }
 
     /**
-     * Checks whether the given column is basic.
-     * @param col index of the column to check
-     * @return the row that the variable is basic in.  null if the column is not basic
+     * Get the row in which a column is basic.
+     * @param col index of the column
+     * @return the row that the variable is basic in, -1 if the column is not basic
      */
-    private Integer getBasicRow(final int col) {
-        Integer row = null;
-        for (int i = getNumObjectiveFunctions(); i < getHeight(); i++) {
-            if (MathUtils.equals(getEntry(i, col), 1.0, epsilon) && (row == null)) {
-                row = i;
-            } else if (!MathUtils.equals(getEntry(i, col), 0.0, epsilon)) {
-                return null;
-            }
-        }
-        return row;
+    protected int getBasicRow(final int col) {
+        return basicRows[col];
+    }
+
+    /**
+     * Get the column of the variable that is basic in a row.
+     * @param row constraint row
+     * @return the column that is basic in the row, -1 for the objective rows
+     */
+    protected int getBasicColumn(final int row) {
+        return basicColumns[row];
     }
 
     /**
      * Removes the phase 1 objective function and artificial variables from this tableau.
+     * <p>
+     * Artificial variables still basic (at zero level) at the end of phase 1 are
+     * first driven out of the basis by degenerate pivots, otherwise their rows
+     * would be left without a basic variable once the artificial columns are
+     * removed. Rows where no other variable can replace the artificial one are
+     * redundant constraints and are removed too.
+     * </p>
      */
     protected void discardArtificialVariables() {
         if (numArtificialVariables == 0) {
             return;
         }
-        int width = getWidth() - numArtificialVariables - 1;
-        int height = getHeight() - 1;
-        double[][] matrix = new double[height][width];
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width - 1; j++) {
-                matrix[i][j] = getEntry(i + 1, j + 1);
+        final boolean[] redundantRows = new boolean[height];
+        for (int artificialVar = 0; artificialVar < numArtificialVariables; artificialVar++) {
+            final int row = basicRows[getArtificialVariableOffset() + artificialVar];
+            if (row < 0) {
+                continue;
+            }
+            int pivotCol = -1;
+            double maxEntry = epsilon;
+            for (int j = getNumObjectiveFunctions(); j < getArtificialVariableOffset(); j++) {
+                final double entry = Math.abs(getEntry(row, j));
+                if (entry > maxEntry) {
+                    maxEntry = entry;
+                    pivotCol = j;
+                }
+            }
+            if (pivotCol < 0) {
+                redundantRows[row] = true;
+            } else {
+                pivot(row, pivotCol);
             }
-            matrix[i][width - 1] = getEntry(i + 1, getRhsOffset());
         }
-        this.tableau = new Array2DRowRealMatrix(matrix);
+
+        int redundantCount = 0;
+        for (final boolean redundant : redundantRows) {
+            if (redundant) {
+                ++redundantCount;
+            }
+        }
+
+        // compact the remaining rows and columns in place: rows are moved by
+        // reference and the entries of a row only ever move to a lower index;
+        // the remaining basic columns are all left of the artificial ones
+        final int newWidth  = width - numArtificialVariables - 1;
+        final int newHeight = height - 1 - redundantCount;
+        final int[] newBasicRows = new int[newWidth];
+        Arrays.fill(newBasicRows, -1);
+        for (int i = 0, src = 1; i < newHeight; i++, src++) {
+            while (redundantRows[src]) {
+                src++;
+            }
+            final double[] row = tableau[src];
+            final double rhs   = row[width - 1];
+            System.arraycopy(row, 1, row, 0, newWidth - 1);
+            row[newWidth - 1] = rhs;
+            tableau[i] = row;
+            basicColumns[i] = (i == 0) ? -1 : basicColumns[src] - 1;
+            if (i > 0) {
+                newBasicRows[basicColumns[i]] = i;
+            }
+        }
+        for (int i = newHeight; i < height; i++) {
+            tableau[i]      = null;
+            basicColumns[i] = -1;
+        }
+        this.basicRows = newBasicRows;
+        this.width  = newWidth;
+        this.height = newHeight;
         this.numArtificialVariables = 0;
     }
 
@@ -318,39 +575,99 @@ class SimplexTableau implements Serializable {
      * @return current solution
      */
     protected RealPointValuePair getSolution() {
+        if (bounds != null) {
+            final double[] point = new double[getOriginalNumDecisionVariables()];
+            for (int i = 0; i < point.length; i++) {
+                final int basicRow = basicRows[getNumObjectiveFunctions() + i];
+                point[i] = (basicRow < 0) ? 0 : getEntry(basicRow, getRhsOffset());
+                if (complemented[i]) {
+                    point[i] = bounds.range[i] - point[i];
+                }
+            }
+            final double value = f.getValue(point);
+            bounds.restore(point);
+            if (scaling != null) {
+                scaling.unscale(point);
+            }
+            return new RealPointValuePair(point, value);
+        }
         double[] coefficients = new double[getOriginalNumDecisionVariables()];
-        Integer basicRow =
-            getBasicRow(getNumObjectiveFunctions() + getOriginalNumDecisionVariables());
-        double mostNegative = basicRow == null ? 0 : getEntry(basicRow, getRhsOffset());
-        Set<Integer> basicRows = new HashSet<Integer>();
+        int basicRow = basicRows[getNumObjectiveFunctions() + getOriginalNumDecisionVariables()];
+        double mostNegative = (restrictToNonNegative || basicRow < 0) ? 0 : getEntry(basicRow, getRhsOffset());
         for (int i = 0; i < coefficients.length; i++) {
-            basicRow = getBasicRow(getNumObjectiveFunctions() + i);
-            if (basicRows.contains(basicRow)) {
-                // if multiple variables can take a given value 
-                // then we choose the first and set the rest equal to 0
-                coefficients[i] = 0;
-            } else {
-                basicRows.add(basicRow);
-                coefficients[i] =
-                    (basicRow == null ? 0 : getEntry(basicRow, getRhsOffset())) -
-                    (restrictToNonNegative ? 0 : mostNegative);
+            basicRow = basicRows[getNumObjectiveFunctions() + i];
+            coefficients[i] = (basicRow < 0 ? 0 : getEntry(basicRow, getRhsOffset())) - mostNegative;
+        }
+        final double value = f.getValue(coefficients);
+        if (scaling != null) {
+            scaling.unscale(coefficients);
+        }
+        return new RealPointValuePair(coefficients, value);
+    }
+
+    /**
+     * Check whether the decision variables have bounds handled by the tableau.
+     * @return true if the tableau was built with variable bounds
+     */
+    protected final boolean hasBounds() {
+        return bounds != null;
+    }
+
+    /**
+     * Get the upper bound of the variable of a column.
+     * <p>
+     * Only decision variables can have a finite upper bound, the lower bound
+     * of every tableau variable is 0.
+     * </p>
+     * @param col column index
+     * @return upper bound of the variable, {@link Double#POSITIVE_INFINITY} if none
+     */
+    protected final double getUpperBound(final int col) {
+        final int variable = col - getNumObjectiveFunctions();
+        if (bounds == null || variable < 0 || variable >= complemented.length) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return bounds.range[variable];
+    }
+
+    /**
+     * Replace a non-basic bounded variable x by u - x, where u is its upper bound.
+     * <p>
+     * The column is negated and the right hand sides are updated as if the
+     * variable moved from one of its bounds to the other. The variable stays
+     * non-basic, at 0 in its new form.
+     * </p>
+     * @param col column of the variable, which must have a finite upper bound
+     */
+    protected void complement(final int col) {
+        final double range = getUpperBound(col);
+        final int rhs = getRhsOffset();
+        for (int i = 0; i < height; i++) {
+            final double[] row = tableau[i];
+            final double entry = row[col];
+            if (entry != 0) {
+                row[rhs] -= entry * range;
+                row[col]  = -entry;
             }
         }
-        return new RealPointValuePair(coefficients, f.getValue(coefficients));
+        final int variable = col - getNumObjectiveFunctions();
+        complemented[variable] = !complemented[variable];
     }
 
     /**
-     * Subtracts a multiple of one row from another.
+     * Divides one row by a constant.
      * <p>
      * After application of this operation, the following will hold:
-     *   minuendRow = minuendRow - multiple * subtrahendRow
+     *   dividendRow = dividendRow / divisor
      * </p>
      * @param dividendRow index of the row
      * @param divisor value of the divisor
      */
     protected void divideRow(final int dividendRow, final double divisor) {
-        for (int j = 0; j < getWidth(); j++) {
-            tableau.setEntry(dividendRow, j, tableau.getEntry(dividendRow, j) / divisor);
+        final double[] row = tableau[dividendRow];
+        final int n        = width;
+        for (int j = 0; j < n; j++) {
+            row[j] /= divisor;
         }
     }
 
@@ -366,18 +683,85 @@ class SimplexTableau implements Serializable {
      */
     protected void subtractRow(final int minuendRow, final int subtrahendRow,
                                final double multiple) {
-        for (int j = 0; j < getWidth(); j++) {
-            tableau.setEntry(minuendRow, j, tableau.getEntry(minuendRow, j) -
-                             multiple * tableau.getEntry(subtrahendRow, j));
+        if (multiple == 0) {
+            return;
+        }
+        final double[] minuend    = tableau[minuendRow];
+        final double[] subtrahend = tableau[subtrahendRow];
+        final int n               = width;
+        for (int j = 0; j < n; j++) {
+            minuend[j] -= multiple * subtrahend[j];
         }
     }
 
+    /**
+     * Pivots the tableau on one entry.
+     * <p>
+     * The pivot row is divided by the pivot entry and multiples of it are
+     * subtracted from all the other rows so that the pivot column becomes a
+     * unit column. Rows with a zero in the pivot column are left untouched, and
+     * when the pivot row is sparse only its non-zero columns are updated.
+     * </p>
+     * @param pivotRow row of the pivot entry
+     * @param pivotCol column of the pivot entry
+     */
+    protected void pivot(final int pivotRow, final int pivotCol) {
+
+        divideRow(pivotRow, getEntry(pivotRow, pivotCol));
+        final double[] pivot = tableau[pivotRow];
+        pivot[pivotCol] = 1.0;
+
+        final int leaving = basicColumns[pivotRow];
+        if (leaving >= 0) {
+            basicRows[leaving] = -1;
+        }
+        basicRows[pivotCol]    = pivotRow;
+        basicColumns[pivotRow] = pivotCol;
+
+        // columns where the pivot row is non-zero
+        int nonZeros = 0;
+        for (int j = 0; j < width; j++) {
+            if (pivot[j] != 0) {
+                ++nonZeros;
+            }
+        }
+        if (nonZeros * SPARSE_PIVOT_RATIO > width) {
+            for (int i = 0; i < height; i++) {
+                if (i != pivotRow) {
+                    subtractRow(i, pivotRow, tableau[i][pivotCol]);
+                    tableau[i][pivotCol] = 0.0;
+                }
+            }
+            return;
+        }
+
+        final int[] columns   = new int[nonZeros];
+        final double[] values = new double[nonZeros];
+        for (int j = 0, k = 0; j < width; j++) {
+            if (pivot[j] != 0) {
+                columns[k]  = j;
+                values[k++] = pivot[j];
+            }
+        }
+        for (int i = 0; i < height; i++) {
+            final double[] row      = tableau[i];
+            final double multiplier = row[pivotCol];
+            if (i != pivotRow && multiplier != 0) {
+                for (int k = 0; k < nonZeros; k++) {
+                    row[columns[k]] -= multiplier * values[k];
+                }
+                row[pivotCol] = 0.0;
+            }
+        }
+
+    }
+
     /**
      * Get the width of the tableau.
      * @return width of the tableau
      */
     protected final int getWidth() {
-        return tableau.getColumnDimension();
+        return width;
     }
 
     /**
@@ -385,7 +769,7 @@ class SimplexTableau implements Serializable {
      * @return height of the tableau
      */
     protected final int getHeight() {
-        return tableau.getRowDimension();
+        return height;
     }
 
     /** Get an entry of the tableau.
@@ -394,7 +778,7 @@ class SimplexTableau implements Serializable {
      * @return entry at (row, column)
      */
     protected final double getEntry(final int row, final int column) {
-        return tableau.getEntry(row, column);
+        return tableau[row][column];
     }
 
     /** Set an entry of the tableau.
@@ -404,7 +788,7 @@ class SimplexTableau implements Serializable {
      */
     protected final void setEntry(final int row, final int column,
                                   final double value) {
-        tableau.setEntry(row, column, value);
+        tableau[row][column] = value;
     }
 
     /**
@@ -475,7 +859,11 @@ class SimplexTableau implements Serializable {
      * @return tableau data
      */
     protected final double[][] getData() {
-        return tableau.getData();
+        final double[][] data = new double[height][width];
+        for (int i = 0; i < height; i++) {
+            System.arraycopy(tableau[i], 0, data[i], 0, width);
+        }
+        return data;
     }
 
     /** {@inheritDoc} */
@@ -500,7 +888,9 @@ class SimplexTableau implements Serializable {
                  (epsilon                == rhs.epsilon) &&
                  f.equals(rhs.f) &&
                  constraints.equals(rhs.constraints) &&
-                 tableau.equals(rhs.tableau);
+                 (width                  == rhs.width) &&
+                 (height                 == rhs.height) &&
+                 Arrays.deepEquals(getData(), rhs.getData());
 
       } catch (ClassCastException ex) {
           // ignore exception
@@ -519,27 +909,138 @@ class SimplexTableau implements Serializable {
                Double.valueOf(epsilon).hashCode() ^
                f.hashCode() ^
                constraints.hashCode() ^
-               tableau.hashCode();
+               Arrays.deepHashCode(getData());
     }
 
-    /** Serialize the instance.
-     * @param oos stream where object should be written
-     * @throws IOException if object cannot be written to stream
+    /**
+     * Rows shared by the successive tableaux of one thread.
+     * <p>
+     * A tableau built while a buffer is set for the thread uses its rows,
+     * cleared, instead of new ones; rows too short for the tableau are
+     * replaced by longer ones, so after a few problems no more rows are
+     * allocated. A buffer must not be shared between threads, and its rows
+     * are only valid until the next tableau is built.
+     * </p>
      */
-    private void writeObject(ObjectOutputStream oos)
-        throws IOException {
-        oos.defaultWriteObject();
-        MatrixUtils.serializeRealMatrix(tableau, oos);
+    static class Buffer {
+
+        /** Rows. */
+        private double[][] rows = new double[0][];
+
+        /**
+         * Get cleared rows for a tableau.
+         * @param height number of rows
+         * @param width number of entries used in each row
+         * @return array of at least height rows, the first width entries of the first height rows set to 0
+         */
+        double[][] getRows(final int height, final int width) {
+            if (rows.length < height) {
+                final double[][] newRows = new double[height][];
+                System.arraycopy(rows, 0, newRows, 0, rows.length);
+                rows = newRows;
+            }
+            for (int i = 0; i < height; i++) {
+                if (rows[i] == null || rows[i].length < width) {
+                    rows[i] = new double[width];
+                } else {
+                    Arrays.fill(rows[i], 0, width, 0.0);
+                }
+            }
+            return rows;
+        }
+
     }
 
-    /** Deserialize the instance.
-     * @param ois stream from which the object should be read
-     * @throws ClassNotFoundException if a class in the stream cannot be found
-     * @throws IOException if object cannot be read from the stream
+    /**
+     * Change of variables bringing bounded variables to non-negative ones.
+     * <p>
+     * A variable x with a finite lower bound l is replaced by x' = x - l,
+     * a variable with only a finite upper bound u by x' = u - x. The range
+     * of x' is then [0, u - l], or [0, +&infin;) when the other bound is
+     * infinite.
+     * </p>
      */
-    private void readObject(ObjectInputStream ois)
-      throws ClassNotFoundException, IOException {
-        ois.defaultReadObject();
-        MatrixUtils.deserializeRealMatrix(this, "tableau", ois);
+    static class VariableBounds implements Serializable {
+
+        /** Serializable version identifier. */
+        private static final long serialVersionUID = 4630150417216362745L;
+
+        /** Bound each variable is measured from. */
+        final double[] origin;
+
+        /** Variables measured downward from their upper bound. */
+        final boolean[] reflected;
+
+        /** Upper bound of each shifted variable, {@link Double#POSITIVE_INFINITY} if none. */
+        final double[] range;
+
+        /**
+         * @param lowerBounds lower bounds of the variables
+         * @param upperBounds upper bounds of the variables, one of the bounds
+         * of each variable must be finite
+         */
+        VariableBounds(final double[] lowerBounds, final double[] upperBounds) {
+            final int n = lowerBounds.length;
+            origin    = new double[n];
+            reflected = new boolean[n];
+            range     = new double[n];
+            for (int j = 0; j < n; j++) {
+                reflected[j] = lowerBounds[j] == Double.NEGATIVE_INFINITY;
+                origin[j]    = reflected[j] ? upperBounds[j] : lowerBounds[j];
+                range[j]     = reflected[j] ? Double.POSITIVE_INFINITY : upperBounds[j] - lowerBounds[j];
+            }
+        }
+
+        /**
+         * Write an objective function in terms of the shifted variables.
+         * @param f objective function of the original variables
+         * @return objective function of the shifted variables, with the same value
+         */
+        LinearObjectiveFunction shift(final LinearObjectiveFunction f) {
+            final double[] coefficients = f.getCoefficients().getData();
+            double constant = f.getConstantTerm();
+            for (int j = 0; j < coefficients.length; j++) {
+                constant += coefficients[j] * origin[j];
+                if (reflected[j]) {
+                    coefficients[j] = -coefficients[j];
+                }
+            }
+            return new LinearObjectiveFunction(coefficients, constant);
+        }
+
+        /**
+         * Write constraints in terms of the shifted variables.
+         * @param constraints constraints on the original variables
+         * @return equivalent constraints on the shifted variables
+         */
+        List<LinearConstraint> shift(final Collection<LinearConstraint> constraints) {
+            final List<LinearConstraint> shifted = new ArrayList<LinearConstraint>(constraints.size());
+            for (final LinearConstraint constraint : constraints) {
+                final int[] indices   = constraint.getNonZeroIndices();
+                final double[] values = constraint.getNonZeroValues().clone();
+                double value = constraint.getValue();
+                for (int k = 0; k < indices.length; k++) {
+                    value -= values[k] * origin[indices[k]];
+                    if (reflected[indices[k]]) {
+                        values[k] = -values[k];
+                    }
+                }
+                shifted.add(new LinearConstraint(origin.length, indices, values,
+                                                 constraint.getRelationship(), value));
+            }
+            return shifted;
+        }
+
+        /**
+         * Map a point of the shifted variables back to the original variables.
+         * @param point point to map, replaced by the original variables
+         */
+        void restore(final double[] point) {
+            for (int j = 0; j < point.length; j++) {
+                point[j] = reflected[j] ? origin[j] - point[j] : origin[j] + point[j];
+            }
+        }
+
     }
+
 }
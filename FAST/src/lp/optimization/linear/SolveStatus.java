@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+/**
+ * How the last solve of an optimizer ended.
+ * @see AbstractLinearOptimizer#getStatus()
+ * @see LinearOptimizationResult#getStatus()
+ * @version $Revision$ $Date$
+ */
+public enum SolveStatus {
+
+    /** The returned point is optimal. */
+    OPTIMAL,
+
+    /** The time limit was reached, the returned point is feasible but may not be optimal. */
+    TIME_LIMIT_REACHED,
+
+    /** The solve was cancelled, the returned point is feasible but may not be optimal. */
+    CANCELLED,
+
+    /** The node limit of a search was reached, the returned point is feasible but may not be optimal. */
+    NODE_LIMIT_REACHED
+
+}
@@ -0,0 +1,104 @@
+package common;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncPipelineTest {
+
+	private List<File> files;
+
+	private final List<Document> completed = Collections.synchronizedList(new ArrayList<Document>());
+
+	private final List<Integration.Stage> failedStages =
+			Collections.synchronizedList(new ArrayList<Integration.Stage>());
+
+	@Before
+	public void setUp () throws IOException
+	{
+		files = new ArrayList<File>();
+		for (int i = 0; i < 3; i++) {
+			files.add(IntegrationTest.writeText(IntegrationTest.TEXT));
+		}
+	}
+
+	@After
+	public void tearDown ()
+	{
+		for (File file : files) {
+			file.delete();
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testSummarizesAllDocuments () throws InterruptedException
+	{
+		AsyncPipeline pipeline = new AsyncPipeline(new Integration(IntegrationTest.PARSER_MODEL), new Recorder());
+		run(pipeline);
+		assertEquals(3, completed.size());
+		assertTrue(failedStages.isEmpty());
+		for (Document document : completed) {
+			assertEquals(5, document.getNumSentences());
+			assertTrue(document.getSummary().length > 0);
+		}
+		assertEquals(3, pipeline.getStatistics().getDocuments());
+	}
+
+	@Test(timeout = 60000)
+	public void testMissingParserModelFailsDocuments () throws InterruptedException
+	{
+		AsyncPipeline pipeline = new AsyncPipeline(new Integration("missing/englishPCFG.ser.gz"), new Recorder());
+		pipeline.setThreads(Integration.Stage.PARSE, 2);
+		run(pipeline);
+		assertTrue(completed.isEmpty());
+		assertEquals(Collections.nCopies(3, Integration.Stage.PARSE), failedStages);
+	}
+
+	@Test(timeout = 60000)
+	public void testDeadWorkerDoesNotBlockFinish () throws InterruptedException
+	{
+		// the listener kills the only SELECT worker on the first document
+		AsyncPipeline pipeline = new AsyncPipeline(new Integration(IntegrationTest.PARSER_MODEL), new Recorder() {
+			public void documentCompleted ( Document document )
+			{
+				super.documentCompleted(document);
+				throw new Error("listener failure");
+			}
+		});
+		run(pipeline);
+		assertEquals(1, completed.size());
+		assertEquals(Collections.nCopies(2, Integration.Stage.SELECT), failedStages);
+	}
+
+	private void run ( AsyncPipeline pipeline ) throws InterruptedException
+	{
+		pipeline.start();
+		for (File file : files) {
+			pipeline.submit(file);
+		}
+		pipeline.finish();
+	}
+
+	private class Recorder implements AsyncPipeline.Listener {
+
+		public void documentCompleted ( Document document )
+		{
+			completed.add(document);
+		}
+
+		public void documentFailed ( Document document , Integration.Stage stage , Exception cause )
+		{
+			failedStages.add(stage);
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+package common;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import lp.linear.Array2DRowRealMatrix;
+import lp.linear.RealMatrix;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FeatureMatrixStoreTest {
+
+	private File file;
+
+	@Before
+	public void setUp () throws IOException
+	{
+		file = File.createTempFile("features", FeatureMatrixStore.EXTENSION);
+	}
+
+	@After
+	public void tearDown ()
+	{
+		file.delete();
+	}
+
+	@Test
+	public void testRoundTrip () throws IOException
+	{
+		double[][] data = new double[3][SentenceScorer.NUM_FEATURES];
+		for (int i = 0; i < data.length; i++) {
+			for (int j = 0; j < data[i].length; j++) {
+				data[i][j] = i * 100 + j + 0.25 - (j % 3 == 0 ? 1e-300 : 0);
+			}
+		}
+		FeatureMatrixStore.write(new Array2DRowRealMatrix(data), new int[] { 7, 0, 31 }, file);
+		assertTrue(FeatureMatrixStore.isFeatureMatrixFile(file));
+		FeatureMatrixStore.Entry entry = FeatureMatrixStore.readEntry(file);
+		RealMatrix read = entry.getFeatures();
+		assertEquals(3, read.getRowDimension());
+		for (int i = 0; i < data.length; i++) {
+			assertArrayEquals(data[i], read.getRow(i), 0);
+		}
+		assertArrayEquals(new int[] { 7, 0, 31 }, entry.getLengths());
+	}
+
+	@Test
+	public void testRejectsOtherFiles () throws IOException
+	{
+		FileOutputStream out = new FileOutputStream(file);
+		out.write("not a feature matrix at all".getBytes("US-ASCII"));
+		out.close();
+		assertFalse(FeatureMatrixStore.isFeatureMatrixFile(file));
+		try {
+			FeatureMatrixStore.read(file);
+			fail("a file without the header must be rejected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRejectsOtherFeatureCounts () throws IOException
+	{
+		// a matrix written with the 9 features that preceded the position features
+		FeatureMatrixStore.write(new Array2DRowRealMatrix(2, 9), new int[2], file);
+		try {
+			FeatureMatrixStore.read(file);
+			fail("a matrix with another number of features must be rejected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("9 columns"));
+		}
+	}
+
+	@Test
+	public void testRejectsOldVersions () throws IOException
+	{
+		FeatureMatrixStore.write(new Array2DRowRealMatrix(1, SentenceScorer.NUM_FEATURES), new int[1], file);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(4);
+		raf.writeInt(2);
+		raf.close();
+		try {
+			FeatureMatrixStore.read(file);
+			fail("a file of version 2, without the lengths, must be rejected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("version 2"));
+		}
+	}
+
+	@Test
+	public void testRejectsTruncatedFiles () throws IOException
+	{
+		FeatureMatrixStore.write(new Array2DRowRealMatrix(2, SentenceScorer.NUM_FEATURES), new int[2], file);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(raf.length() - 4);
+		raf.close();
+		try {
+			FeatureMatrixStore.read(file);
+			fail("a truncated file must be rejected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("truncated"));
+		}
+	}
+
+}
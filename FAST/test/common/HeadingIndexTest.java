@@ -0,0 +1,101 @@
+package common;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HeadingIndexTest {
+
+	@Test
+	public void testStemStripsInflections ()
+	{
+		assertEquals("pars", HeadingIndex.stem("Parsing"));
+		assertEquals("pars", HeadingIndex.stem("parses"));
+		assertEquals("stop", HeadingIndex.stem("stopped"));
+		assertEquals("study", HeadingIndex.stem("studies"));
+		assertEquals("cat", HeadingIndex.stem("cats"));
+		assertEquals("box", HeadingIndex.stem("boxes"));
+	}
+
+	@Test
+	public void testStemKeepsShortAndFunctionWords ()
+	{
+		assertEquals("this", HeadingIndex.stem("This"));
+		assertEquals("does", HeadingIndex.stem("does"));
+		assertEquals("basis", HeadingIndex.stem("basis"));
+		assertEquals("class", HeadingIndex.stem("class"));
+		assertEquals("bus", HeadingIndex.stem("bus"));
+		assertEquals("red", HeadingIndex.stem("red"));
+		assertEquals("sing", HeadingIndex.stem("sing"));
+	}
+
+	@Test
+	public void testLookups ()
+	{
+		HeadingIndex index = new HeadingIndex(Arrays.asList("Parsing sentences", "About this study"));
+		assertTrue(index.contains("parses"));
+		assertTrue(index.contains("sentence"));
+		assertTrue(index.contains("study"));
+		assertFalse(index.contains("summary"));
+		assertEquals(HeadingIndex.DEFAULT_WEIGHT, index.getWeight("studies"));
+		assertEquals(2 * HeadingIndex.DEFAULT_WEIGHT, index.getWeight("studies", 1));
+		assertEquals(HeadingIndex.DEFAULT_WEIGHT, index.getWeight("studies", 0));
+		assertEquals(0, index.getWeight("summary"));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testFunctionWordsAreSkipped ()
+	{
+		HeadingIndex index = new HeadingIndex(Arrays.asList("The State of the Art", "On Speed and This"));
+		assertFalse(index.contains("the"));
+		assertFalse(index.contains("of"));
+		assertFalse(index.contains("this"));
+		assertFalse(index.contains("on"));
+		assertTrue(index.contains("states"));
+		assertTrue(index.contains("speed"));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testSectionScopedScore ()
+	{
+		HeadingIndex index = new HeadingIndex(Arrays.asList("Introduction", "Evaluation"));
+		assertEquals(1 + 2 * HeadingIndex.DEFAULT_WEIGHT, WordLevelFeatures.computeHeadingScore("evaluations", index, 1));
+		assertEquals(1 + HeadingIndex.DEFAULT_WEIGHT, WordLevelFeatures.computeHeadingScore("evaluations", index, 0));
+		assertEquals(1 + HeadingIndex.DEFAULT_WEIGHT,
+				WordLevelFeatures.computeHeadingScore("evaluations", index, HeadingIndex.DOCUMENT_WIDE));
+		assertEquals(1, WordLevelFeatures.computeHeadingScore("results", index, 1));
+		assertEquals(1, WordLevelFeatures.computeHeadingScore("results", null, 1));
+	}
+
+	@Test
+	public void testSharedTermsAreDocumentWide ()
+	{
+		HeadingIndex index = new HeadingIndex(4);
+		index.addHeading("Results", 0, 1);
+		index.addHeading("More results", 1, 3);
+		// a term of several sections takes the largest weight and is never section scoped
+		assertEquals(3, index.getWeight("result"));
+		assertEquals(3, index.getWeight("result", 0));
+		assertEquals(3, index.getWeight("result", 1));
+	}
+
+	@Test
+	public void testGrowth ()
+	{
+		HeadingIndex index = new HeadingIndex(0);
+		for (int i = 0; i < 1000; i++) {
+			index.addHeading("term" + i, i, 1 + i % 7);
+		}
+		assertEquals(1000, index.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(2 * (1 + i % 7), index.getWeight("term" + i, i));
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package common;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IntegrationTest {
+
+	/** The grammar shipped with the project, tests run from the project directory */
+	static final String PARSER_MODEL = "englishPCFG.ser.gz";
+
+	static final String TEXT =
+		"Automatic Summarization\n" +
+		"\n" +
+		"Summarizers select the sentences that carry the most information. A good summary is short.\n" +
+		"The selection is a knapsack over the sentence scores.\n" +
+		"\n" +
+		"Evaluation\n" +
+		"\n" +
+		"Summaries are compared with reference summaries written by people. The comparison counts shared words.\n";
+
+	private static LexicalizedParser parser;
+
+	@BeforeClass
+	public static void loadParser ()
+	{
+		parser = new LexicalizedParser(PARSER_MODEL);
+	}
+
+	@Test
+	public void testNormalize ()
+	{
+		Document document = new Document(new File("unused.txt"));
+		document.setRawText("summa-\r\nrizer\tfor  PDF\r\rfiles\u00A0here");
+		new Integration(parser).normalize(document);
+		assertEquals("summarizer for PDF\n\nfiles here", document.getText());
+	}
+
+	@Test
+	public void testSplit ()
+	{
+		Document document = new Document(new File("unused.txt"));
+		document.setText(TEXT);
+		new Integration(parser).split(document);
+		assertEquals(Arrays.asList("Automatic Summarization", "Evaluation"), document.getHeadings());
+		assertEquals(5, document.getNumSentences());
+		PositionIndex positions = document.getPositions();
+		assertEquals(2, positions.getNumSections());
+		assertEquals(2, positions.getNumParagraphs());
+		assertEquals(0, positions.getSection(2));
+		assertEquals(1, positions.getSection(3));
+		assertTrue(document.getHeadingIndex().contains("evaluations"));
+	}
+
+	@Test
+	public void testSummarize () throws IOException
+	{
+		File source = writeText(TEXT);
+		try {
+			Integration integration = new Integration(parser);
+			integration.setSummaryRatio(0.4);
+			Document document = integration.summarize(source);
+
+			assertEquals(5, document.getTrees().size());
+			assertEquals(5, document.getScores().length);
+			assertEquals(SentenceScorer.NUM_FEATURES, document.getFeatures().getColumnDimension());
+
+			// the summary is in document order and fits in the word budget
+			int[] summary = document.getSummary();
+			assertTrue(summary.length > 0);
+			double words = 0;
+			double budgetWords = 0;
+			for (int i = 0; i < document.getNumSentences(); i++) {
+				budgetWords += document.getFeatures().getEntry(i, SentenceScorer.FEATURE_WORD_COUNT);
+			}
+			for (int k = 0; k < summary.length; k++) {
+				assertTrue(k == 0 || summary[k] > summary[k - 1]);
+				words += document.getFeatures().getEntry(summary[k], SentenceScorer.FEATURE_WORD_COUNT);
+			}
+			assertTrue(words <= Math.ceil(0.4 * budgetWords));
+			List<String> sentences = document.getSummarySentences();
+			assertEquals(document.getSentences().get(summary[0]), sentences.get(0));
+
+			assertEquals(1, integration.getStatistics().getDocuments());
+			assertEquals(5, integration.getStatistics().getSentences());
+			for (Integration.Stage stage : Integration.Stage.values()) {
+				assertEquals(1, integration.getStatistics().getStageCalls(stage));
+			}
+		} finally {
+			source.delete();
+		}
+	}
+
+	@Test
+	public void testFeatureDirectory () throws IOException
+	{
+		File source = writeText(TEXT);
+		File directory = source.getParentFile();
+		File features = new File(directory, source.getName() + FeatureMatrixStore.EXTENSION);
+		try {
+			Integration integration = new Integration(parser);
+			integration.setFeatureDirectory(directory);
+			Document document = integration.summarize(source);
+			// the persisted matrix re-scores to the same scores
+			double[] rescored = integration.getScoringEngine().score(FeatureMatrixStore.read(features));
+			assertTrue(Arrays.equals(document.getScores(), rescored));
+			// and selects the same summary under the same budget
+			Rescorer rescorer = new Rescorer(integration.getScoringEngine().getModel());
+			assertArrayEquals(document.getSummary(), rescorer.select(features));
+		} finally {
+			source.delete();
+			features.delete();
+		}
+	}
+
+	static File writeText ( String text ) throws IOException
+	{
+		File file = File.createTempFile("document", ".txt");
+		Writer out = new FileWriter(file);
+		try {
+			out.write(text);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+}
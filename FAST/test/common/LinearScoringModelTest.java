@@ -0,0 +1,84 @@
+package common;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import lp.linear.Array2DRowRealMatrix;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class LinearScoringModelTest {
+
+	@Test
+	public void testScoreIsMatrixTimesWeights ()
+	{
+		LinearScoringModel model = new LinearScoringModel(new double[] { 1, -2, 0.5 });
+		double[] scores = model.score(new Array2DRowRealMatrix(new double[][] {
+				{ 1, 0, 0 }, { 0, 1, 0 }, { 2, 1, 4 } }));
+		assertArrayEquals(new double[] { 1, -2, 2 }, scores, 0);
+	}
+
+	@Test
+	public void testWeightsAreCopied ()
+	{
+		double[] weights = { 1, 2 };
+		LinearScoringModel model = new LinearScoringModel(weights);
+		weights[0] = 5;
+		model.getWeights()[1] = 7;
+		assertArrayEquals(new double[] { 1, 2 }, model.getWeights(), 0);
+	}
+
+	@Test
+	public void testDefaultModelCoversAllFeatures ()
+	{
+		double[] weights = LinearScoringModel.defaultModel().getWeights();
+		assertEquals(SentenceScorer.NUM_FEATURES, weights.length);
+		assertEquals(2.0, weights[SentenceScorer.FEATURE_HEADING], 0);
+	}
+
+	@Test
+	public void testLoadOverridesListedWeights () throws IOException
+	{
+		File file = write(SentenceScorer.FEATURE_NAMES[SentenceScorer.FEATURE_HEADING] + "=3.5\n");
+		try {
+			double[] expected = LinearScoringModel.defaultModel().getWeights();
+			expected[SentenceScorer.FEATURE_HEADING] = 3.5;
+			assertArrayEquals(expected, LinearScoringModel.load(file).getWeights(), 0);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testLoadRejectsInvalidWeights () throws IOException
+	{
+		File file = write(SentenceScorer.FEATURE_NAMES[0] + "=heavy\n");
+		try {
+			LinearScoringModel.load(file);
+			fail("an invalid weight must be rejected");
+		} catch (IOException e) {
+			// expected
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static File write ( String content ) throws IOException
+	{
+		File file = File.createTempFile("weights", ".properties");
+		Writer out = new FileWriter(file);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+}
@@ -0,0 +1,84 @@
+package common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PositionIndexTest {
+
+	@Test
+	public void testStructure ()
+	{
+		PositionIndex index = buildIndex();
+		assertEquals(6, index.getNumSentences());
+		assertEquals(3, index.getNumParagraphs());
+		assertEquals(2, index.getNumSections());
+		assertArrayEquals(new int[] { 0, 0, 0, 1, 2, 2 }, paragraphs(index));
+		assertEquals(0, index.getSection(2));
+		assertEquals(0, index.getSection(3));
+		assertEquals(1, index.getSection(4));
+		assertEquals(0.4, index.getPositionInText(2), 1e-15);
+	}
+
+	@Test
+	public void testPositionFeatures ()
+	{
+		PositionIndex index = buildIndex();
+		double[][] rows = new double[6][SentenceScorer.NUM_FEATURES];
+		index.computeFeatures(rows);
+		double[] text = { 0, 0.2, 0.4, 0.6, 0.8, 1 };
+		double[] paragraph = { 0, 0.5, 1, 0, 0, 1 };
+		double[] section = { 0, 1.0 / 3, 2.0 / 3, 1, 0, 1 };
+		for (int i = 0; i < rows.length; i++) {
+			assertEquals(text[i], rows[i][SentenceScorer.FEATURE_POSITION_IN_TEXT], 1e-15);
+			assertEquals(paragraph[i], rows[i][SentenceScorer.FEATURE_POSITION_IN_PARAGRAPH], 1e-15);
+			assertEquals(section[i], rows[i][SentenceScorer.FEATURE_POSITION_IN_SECTION], 1e-15);
+			// the other features are left alone
+			assertEquals(0, rows[i][SentenceScorer.FEATURE_HEADING], 0);
+		}
+	}
+
+	@Test
+	public void testGrowth ()
+	{
+		PositionIndex index = new PositionIndex(1);
+		for (int s = 0; s < 50; s++) {
+			index.startSection();
+			for (int p = 0; p < 5; p++) {
+				index.startParagraph();
+				for (int k = 0; k < 4; k++) {
+					index.addSentence();
+				}
+			}
+		}
+		assertEquals(1000, index.getNumSentences());
+		assertEquals(49, index.getSection(999));
+		assertEquals(249, index.getParagraph(999));
+	}
+
+	/** Two sections: a paragraph of three sentences and one of one, then a paragraph of two */
+	private static PositionIndex buildIndex ()
+	{
+		PositionIndex index = new PositionIndex(2);
+		index.addSentence();
+		index.addSentence();
+		index.addSentence();
+		index.startParagraph();
+		index.addSentence();
+		index.startSection();
+		index.addSentence();
+		index.addSentence();
+		return index;
+	}
+
+	private static int[] paragraphs ( PositionIndex index )
+	{
+		int[] paragraphs = new int[index.getNumSentences()];
+		for (int i = 0; i < paragraphs.length; i++) {
+			paragraphs[i] = index.getParagraph(i);
+		}
+		return paragraphs;
+	}
+
+}
@@ -0,0 +1,142 @@
+package common;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SummarySelectorTest {
+
+	@Test
+	public void testKnownSelection ()
+	{
+		// the two short sentences are worth more than the long one
+		int[] selected = new SummarySelector().select(new double[] { 5, 3, 3 }, new int[] { 10, 5, 5 }, 10);
+		assertArrayEquals(new int[] { 1, 2 }, selected);
+	}
+
+	@Test
+	public void testEmptyAndTightBudgets ()
+	{
+		SummarySelector selector = new SummarySelector();
+		assertEquals(0, selector.select(new double[0], new int[0], 10).length);
+		assertEquals(0, selector.select(new double[] { 1, 2 }, new int[] { 5, 6 }, 4).length);
+		assertEquals(0, selector.select(new double[] { 0, -1 }, new int[] { 1, 1 }, 10).length);
+	}
+
+	@Test
+	public void testSelectionByRatio ()
+	{
+		// 20% of 50 words: 10 words, the negative scores are shifted rather than dropped
+		int[] selected = new SummarySelector().select(new double[] { -5, -1, -2, -9 }, new int[] { 10, 5, 5, 30 }, 0.2);
+		assertArrayEquals(new int[] { 1, 2 }, selected);
+	}
+
+	@Test
+	public void testExactSelectionIsOptimal ()
+	{
+		Random random = new Random(32);
+		SummarySelector selector = new SummarySelector();
+		selector.setExact(true);
+		selector.setMaxNodes(100000);
+		for (int k = 0; k < 200; k++) {
+			double[] scores = randomScores(random, 1 + random.nextInt(12));
+			int[] lengths = randomLengths(random, scores.length);
+			int budget = random.nextInt(60);
+			int[] selected = selector.select(scores, lengths, budget);
+			check(scores, lengths, budget, selected);
+			assertEquals(bruteForce(scores, lengths, budget), value(scores, selected), 1e-9);
+		}
+	}
+
+	@Test
+	public void testRoundedSelectionIsWithinHalfOfOptimum ()
+	{
+		Random random = new Random(33);
+		SummarySelector selector = new SummarySelector();
+		for (int k = 0; k < 200; k++) {
+			double[] scores = randomScores(random, 1 + random.nextInt(12));
+			int[] lengths = randomLengths(random, scores.length);
+			int budget = random.nextInt(60);
+			int[] selected = selector.select(scores, lengths, budget);
+			check(scores, lengths, budget, selected);
+			assertTrue(value(scores, selected) >= 0.5 * bruteForce(scores, lengths, budget) - 1e-9);
+		}
+	}
+
+	@Test
+	public void testGreedyAboveLpLimit ()
+	{
+		Random random = new Random(34);
+		SummarySelector selector = new SummarySelector();
+		selector.setExact(true);
+		selector.setLpLimit(5);
+		double[] scores = randomScores(random, 12);
+		int[] lengths = randomLengths(random, 12);
+		int[] selected = selector.select(scores, lengths, 40);
+		check(scores, lengths, 40, selected);
+		assertTrue(value(scores, selected) >= 0.5 * bruteForce(scores, lengths, 40) - 1e-9);
+	}
+
+	/** Checks that a selection is in document order, fits in the budget and has only positive scores */
+	private static void check ( double[] scores , int[] lengths , int budget , int[] selected )
+	{
+		int total = 0;
+		for (int k = 0; k < selected.length; k++) {
+			assertTrue(k == 0 || selected[k] > selected[k - 1]);
+			assertTrue(scores[selected[k]] > 0);
+			total += lengths[selected[k]];
+		}
+		assertTrue(total <= budget);
+	}
+
+	private static double bruteForce ( double[] scores , int[] lengths , int budget )
+	{
+		double best = 0;
+		for (int mask = 0; mask < 1 << scores.length; mask++) {
+			double value = 0;
+			int length = 0;
+			for (int i = 0; i < scores.length; i++) {
+				if ((mask & (1 << i)) != 0) {
+					value += scores[i];
+					length += lengths[i];
+				}
+			}
+			if (length <= budget && value > best) {
+				best = value;
+			}
+		}
+		return best;
+	}
+
+	private static double value ( double[] scores , int[] selected )
+	{
+		double value = 0;
+		for (int i : selected) {
+			value += scores[i];
+		}
+		return value;
+	}
+
+	private static double[] randomScores ( Random random , int n )
+	{
+		double[] scores = new double[n];
+		for (int i = 0; i < n; i++) {
+			scores[i] = random.nextInt(10) == 0 ? -random.nextInt(3) : 1 + random.nextInt(9);
+		}
+		return scores;
+	}
+
+	private static int[] randomLengths ( Random random , int n )
+	{
+		int[] lengths = new int[n];
+		for (int i = 0; i < n; i++) {
+			lengths[i] = 1 + random.nextInt(25);
+		}
+		return lengths;
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AbstractLinearOptimizerTest {
+
+    @Test
+    public void testBatchMatchesSequentialSolves() throws OptimizationException {
+        Random random = new Random(42);
+        List<LinearProblem> problems = new ArrayList<LinearProblem>();
+        List<Double> expected = new ArrayList<Double>();
+        for (int k = 0; k < 200; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(5));
+            problems.add(new LinearProblem(problem.f, problem.constraints, problem.goalType, true));
+            expected.add(problem.bruteForce());
+        }
+        SimplexSolver solver = new SimplexSolver();
+        for (int threads = 1; threads <= 4; threads *= 2) {
+            List<LinearOptimizationResult> results = solver.solveAll(problems, threads);
+            Assert.assertEquals(problems.size(), results.size());
+            for (int k = 0; k < problems.size(); k++) {
+                LinearOptimizationResult result = results.get(k);
+                if (expected.get(k) == null) {
+                    Assert.assertFalse(result.isSolved());
+                    Assert.assertTrue(result.getFailure() instanceof NoFeasibleSolutionException);
+                } else {
+                    Assert.assertTrue(result.isSolved());
+                    Assert.assertNull(result.getFailure());
+                    Assert.assertEquals(expected.get(k).doubleValue(), result.getSolution().getValue(), 1.0e-6);
+                    Assert.assertEquals(expected.get(k).doubleValue(),
+                                        solver.solve(problems.get(k)).getSolution().getValue(), 1.0e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFailuresAreKeptPerProblem() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> feasible = new ArrayList<LinearConstraint>();
+        feasible.add(new LinearConstraint(new double[] { 1, 2 }, Relationship.LEQ, 4));
+        Collection<LinearConstraint> unbounded = new ArrayList<LinearConstraint>();
+        unbounded.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 4));
+        Collection<LinearConstraint> invalid = new ArrayList<LinearConstraint>();
+        invalid.add(new LinearConstraint(new double[] { 1, 2, 3 }, Relationship.LEQ, 4));
+
+        List<LinearProblem> problems = new ArrayList<LinearProblem>();
+        problems.add(new LinearProblem(f, feasible, GoalType.MAXIMIZE, true));
+        problems.add(new LinearProblem(f, invalid, GoalType.MAXIMIZE, true));
+        problems.add(new LinearProblem(f, unbounded, GoalType.MAXIMIZE, true));
+        problems.add(new LinearProblem(f, feasible, GoalType.MAXIMIZE, true));
+
+        List<LinearOptimizationResult> results = new SimplexSolver().solveAll(problems, 2);
+        Assert.assertEquals(4.0, results.get(0).getSolution().getValue(), 1.0e-10);
+        Assert.assertFalse(results.get(1).isSolved());
+        Assert.assertTrue(results.get(1).getFailure().getCause() instanceof RuntimeException);
+        Assert.assertTrue(results.get(2).getFailure() instanceof UnboundedSolutionException);
+        Assert.assertEquals(4.0, results.get(3).getSolution().getValue(), 1.0e-10);
+
+        // a single solve still reports the runtime exception as is
+        try {
+            new SimplexSolver().solve(problems.get(1));
+            Assert.fail("an exception should have been thrown");
+        } catch (RuntimeException e) {
+            Assert.assertSame(results.get(1).getFailure().getCause().getClass(), e.getClass());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() throws OptimizationException {
+        new SimplexSolver().solveAll(new ArrayList<LinearProblem>(), 0);
+    }
+
+}
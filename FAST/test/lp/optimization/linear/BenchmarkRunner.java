@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+/**
+ * Measures the throughput and the allocations of small pieces of code.
+ * <p>
+ * As with JMH, warmup iterations let the JIT compile the code, then each
+ * measurement iteration repeats the operation for a fixed time. The
+ * operation is timed in batches, so that the clock and the allocation
+ * counter are read once per batch rather than once per operation; the
+ * batch size is calibrated before the warmup so that a batch lasts at
+ * least {@link #BATCH_NANOS}. A benchmark prepares each batch outside of
+ * the measurement and may allow fewer operations than asked.
+ * </p>
+ * <p>
+ * Allocations are read from the thread counter of HotSpot, looked up by
+ * reflection as it is not available on every virtual machine, and
+ * reported as unavailable without it.
+ * </p>
+ * @see SolverBenchmark
+ */
+class BenchmarkRunner {
+
+    /** Minimal duration of a batch, in nanoseconds. */
+    private static final long BATCH_NANOS = 100000L;
+
+    /** Maximal number of operations in a batch. */
+    private static final int MAX_BATCH = 1 << 20;
+
+    /** Receives the results of the operations, so the JIT cannot drop the work. */
+    private static volatile Object sink;
+
+    /** Number of warmup iterations. */
+    private final int warmupIterations;
+
+    /** Number of measurement iterations. */
+    private final int measurementIterations;
+
+    /** Duration of an iteration, in nanoseconds. */
+    private final long iterationNanos;
+
+    /** Bean providing the allocation counter, null if it is not available. */
+    private final Object allocationBean;
+
+    /** Method reading the allocated bytes of a thread, null if it is not available. */
+    private final Method allocatedBytes;
+
+    /**
+     * @param warmupIterations number of warmup iterations
+     * @param measurementIterations number of measurement iterations
+     * @param iterationMillis duration of an iteration, in milliseconds
+     */
+    BenchmarkRunner(final int warmupIterations, final int measurementIterations,
+                    final long iterationMillis) {
+        this.warmupIterations      = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos        = iterationMillis * 1000000L;
+        final Object bean = ManagementFactory.getThreadMXBean();
+        Method method = null;
+        try {
+            // com.sun.management.ThreadMXBean, HotSpot 6u25 and later
+            final Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+            if (type.isInstance(bean) &&
+                Boolean.TRUE.equals(type.getMethod("isThreadAllocatedMemorySupported").invoke(bean))) {
+                type.getMethod("setThreadAllocatedMemoryEnabled", Boolean.TYPE).invoke(bean, Boolean.TRUE);
+                method = type.getMethod("getThreadAllocatedBytes", Long.TYPE);
+            }
+        } catch (Exception e) {
+            // no allocation counter on this virtual machine
+            method = null;
+        }
+        this.allocationBean = (method == null) ? null : bean;
+        this.allocatedBytes = method;
+    }
+
+    /**
+     * Get the header of the result table.
+     * @return header line
+     */
+    static String getHeader() {
+        return String.format("%-40s %14s %12s %14s %14s",
+                             "Benchmark", "ops/s", "error", "alloc MB/s", "alloc B/op");
+    }
+
+    /**
+     * Format the line of a benchmark in the result table.
+     * @param name name of the benchmark
+     * @param result scores of the benchmark
+     * @return result line
+     */
+    static String format(final String name, final Result result) {
+        return String.format("%-40s %14.3f %12.3f %14s %14s", name,
+                             result.opsPerSecond, result.error,
+                             (result.allocationRate < 0) ? "n/a" : String.format("%.1f", result.allocationRate),
+                             (result.bytesPerOp < 0) ? "n/a" : String.format("%.0f", result.bytesPerOp));
+    }
+
+    /**
+     * Run a benchmark.
+     * @param benchmark benchmark to run
+     * @return scores of the benchmark
+     * @exception Exception if the benchmark fails
+     */
+    Result run(final Benchmark benchmark) throws Exception {
+
+        final int batch = calibrate(benchmark);
+        for (int i = 0; i < warmupIterations; ++i) {
+            iteration(benchmark, batch, new long[3]);
+        }
+
+        final double[] throughput = new double[measurementIterations];
+        long operations = 0;
+        long nanos      = 0;
+        long bytes      = 0;
+        for (int i = 0; i < measurementIterations; ++i) {
+            final long[] totals = new long[3];
+            iteration(benchmark, batch, totals);
+            throughput[i] = totals[0] * 1e9 / Math.max(1, totals[1]);
+            operations += totals[0];
+            nanos      += totals[1];
+            bytes      += totals[2];
+        }
+
+        double mean = 0;
+        for (final double t : throughput) {
+            mean += t / measurementIterations;
+        }
+        double variance = 0;
+        for (final double t : throughput) {
+            variance += (t - mean) * (t - mean) / Math.max(1, measurementIterations - 1);
+        }
+        if (allocatedBytes == null) {
+            return new Result(operations, mean, Math.sqrt(variance), -1, -1);
+        }
+        return new Result(operations, mean, Math.sqrt(variance),
+                          (double) bytes / Math.max(1, operations), bytes * 1e3 / Math.max(1, nanos));
+
+    }
+
+    /**
+     * Find the number of operations of a batch.
+     * @param benchmark benchmark to run
+     * @return number of operations such that a batch lasts at least {@link #BATCH_NANOS}
+     * @exception Exception if the benchmark fails
+     */
+    private int calibrate(final Benchmark benchmark) throws Exception {
+        int batch = 1;
+        while (batch < MAX_BATCH) {
+            final long[] totals = new long[3];
+            runBatch(benchmark, batch, totals);
+            if (totals[1] >= BATCH_NANOS || totals[0] < batch) {
+                // long enough, or limited by the benchmark
+                break;
+            }
+            batch *= 2;
+        }
+        return batch;
+    }
+
+    /**
+     * Repeat batches of an operation for the duration of one iteration, at least once.
+     * @param benchmark benchmark to run
+     * @param batch number of operations per batch
+     * @param totals array receiving the number of operations, their time and their allocated bytes
+     * @exception Exception if the benchmark fails
+     */
+    private void iteration(final Benchmark benchmark, final int batch, final long[] totals)
+        throws Exception {
+        final long end = System.nanoTime() + iterationNanos;
+        do {
+            runBatch(benchmark, batch, totals);
+        } while (System.nanoTime() < end);
+    }
+
+    /**
+     * Prepare and run one batch of an operation.
+     * @param benchmark benchmark to run
+     * @param batch number of operations asked
+     * @param totals array where the number of operations, their time and
+     * their allocated bytes are added
+     * @exception Exception if the benchmark fails
+     */
+    private void runBatch(final Benchmark benchmark, final int batch, final long[] totals)
+        throws Exception {
+        final int count = Math.max(1, Math.min(batch, benchmark.prepare(batch)));
+        final long allocated = getAllocatedBytes();
+        final long start = System.nanoTime();
+        for (int k = 0; k < count; ++k) {
+            sink = benchmark.run();
+        }
+        totals[1] += System.nanoTime() - start;
+        totals[2] += getAllocatedBytes() - allocated;
+        totals[0] += count;
+    }
+
+    /**
+     * Get the number of bytes allocated by the current thread.
+     * @return allocated bytes, 0 if the counter is not available
+     * @exception Exception if the counter cannot be read
+     */
+    private long getAllocatedBytes() throws Exception {
+        if (allocatedBytes == null) {
+            return 0;
+        }
+        return ((Long) allocatedBytes.invoke(allocationBean, Thread.currentThread().getId())).longValue();
+    }
+
+    /**
+     * An operation to measure.
+     */
+    abstract static class Benchmark {
+
+        /** Name of the benchmark. */
+        private final String name;
+
+        /**
+         * @param name name of the benchmark
+         */
+        protected Benchmark(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Get the name of the benchmark.
+         * @return name of the benchmark
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Prepare the next batch, outside of the measurement.
+         * @param count number of operations the runner would like to run
+         * @return number of operations that can be run before the next
+         * preparation, at least 1
+         * @exception Exception if the preparation fails
+         */
+        int prepare(final int count) throws Exception {
+            return count;
+        }
+
+        /**
+         * Run one measured operation.
+         * @return result of the operation
+         * @exception Exception if the operation fails
+         */
+        abstract Object run() throws Exception;
+
+    }
+
+    /**
+     * Scores of one benchmark.
+     */
+    static class Result {
+
+        /** Number of operations measured. */
+        final long operations;
+
+        /** Mean throughput, in operations per second. */
+        final double opsPerSecond;
+
+        /** Standard deviation of the throughput over the measurement iterations. */
+        final double error;
+
+        /** Allocated bytes per operation, negative if unavailable. */
+        final double bytesPerOp;
+
+        /** Allocation rate in megabytes per second of operation, negative if unavailable. */
+        final double allocationRate;
+
+        /**
+         * @param operations number of operations measured
+         * @param opsPerSecond mean throughput, in operations per second
+         * @param error standard deviation of the throughput
+         * @param bytesPerOp allocated bytes per operation, negative if unavailable
+         * @param allocationRate allocation rate in megabytes per second, negative if unavailable
+         */
+        Result(final long operations, final double opsPerSecond, final double error,
+               final double bytesPerOp, final double allocationRate) {
+            this.operations     = operations;
+            this.opsPerSecond   = opsPerSecond;
+            this.error          = error;
+            this.bytesPerOp     = bytesPerOp;
+            this.allocationRate = allocationRate;
+        }
+
+    }
+
+}
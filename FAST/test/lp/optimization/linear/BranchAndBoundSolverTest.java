@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BranchAndBoundSolverTest {
+
+    @Test
+    public void testKnownOptimum() throws OptimizationException {
+        // max 5x + 4y, 6x + 4y <= 24, x + 2y <= 6: the LP optimum (3, 1.5) is fractional
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 5, 4 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 6, 4 }, Relationship.LEQ, 24));
+        constraints.add(new LinearConstraint(new double[] { 1, 2 }, Relationship.LEQ, 6));
+
+        BranchAndBoundSolver solver = plainSolver();
+        RealPointValuePair solution = solver.optimize(f, constraints, GoalType.MAXIMIZE, true);
+        Assert.assertEquals(20.0, solution.getValue(), 1.0e-9);
+        Assert.assertArrayEquals(new double[] { 4, 0 }, solution.getPoint(), 1.0e-9);
+        Assert.assertTrue(solver.isProvenOptimal());
+        Assert.assertEquals(SolveStatus.OPTIMAL, solver.getStatus());
+        Assert.assertTrue(solver.getNodes() > 1);
+    }
+
+    @Test
+    public void testContinuousVariables() throws OptimizationException {
+        // only x is integer: max x + y, 2x + 2y <= 5, x - y <= 0.5
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 2, 2 }, Relationship.LEQ, 5));
+        constraints.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 0.5));
+
+        BranchAndBoundSolver solver = plainSolver();
+        solver.setIntegerVariables(new int[] { 0 });
+        RealPointValuePair solution = solver.optimize(f, constraints, GoalType.MAXIMIZE, true);
+        Assert.assertEquals(2.5, solution.getValue(), 1.0e-9);
+        Assert.assertEquals(Math.rint(solution.getPoint()[0]), solution.getPoint()[0], 1.0e-9);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testIntegerInfeasible() throws OptimizationException {
+        // 2x = 1 has a continuous solution but no integer one
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 2 }, Relationship.EQ, 1));
+        plainSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnbounded() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 2));
+        plainSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+    }
+
+    @Test
+    public void testNodeLimit() throws OptimizationException {
+        Random random = new Random(331);
+        IntegerProblems problem = IntegerProblems.knapsack(random, 8, 3);
+        BranchAndBoundSolver solver = plainSolver();
+        solver.setMaxNodes(1);
+        try {
+            RealPointValuePair solution = solver.optimize(problem.f, problem.getConstraints(), problem.goalType, true);
+            // a solution found within the limit is feasible but not proven
+            Assert.assertFalse(solver.isProvenOptimal());
+            Assert.assertEquals(SolveStatus.NODE_LIMIT_REACHED, solver.getStatus());
+            Assert.assertTrue(problem.isFeasible(solution.getPoint()));
+        } catch (OptimizationException e) {
+            Assert.assertFalse(e instanceof NoFeasibleSolutionException);
+        }
+    }
+
+    @Test
+    public void testRandomProblemsAgainstBruteForce() throws OptimizationException {
+        Random random = new Random(33);
+        for (int k = 0; k < 300; k++) {
+            IntegerProblems problem = IntegerProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(4));
+            check(plainSolver(), problem);
+        }
+    }
+
+    /**
+     * Solve a problem and compare with the brute-force optimum.
+     * @param solver solver to use
+     * @param problem problem to solve
+     * @exception OptimizationException if the solver fails unexpectedly
+     */
+    static void check(final AbstractLinearOptimizer solver, final IntegerProblems problem)
+        throws OptimizationException {
+        final Double expected = problem.bruteForce();
+        try {
+            final RealPointValuePair solution =
+                solver.optimize(problem.f, problem.getConstraints(), problem.goalType, true);
+            Assert.assertNotNull("solver found a solution to an infeasible problem", expected);
+            Assert.assertEquals(expected.doubleValue(), solution.getValue(), 1.0e-6);
+            final double[] point = solution.getPoint();
+            for (int j = 0; j < point.length; j++) {
+                Assert.assertEquals(Math.rint(point[j]), point[j], 1.0e-6);
+                point[j] = Math.rint(point[j]);
+            }
+            Assert.assertTrue(problem.isFeasible(point));
+        } catch (NoFeasibleSolutionException e) {
+            Assert.assertNull("solver missed the optimum " + expected, expected);
+        }
+    }
+
+    /**
+     * Build a solver with neither presolve nor cuts, running the plain search.
+     * @return solver
+     */
+    private static BranchAndBoundSolver plainSolver() {
+        BranchAndBoundSolver solver = new BranchAndBoundSolver();
+        solver.setPresolve(false);
+        solver.setCutRounds(0);
+        return solver;
+    }
+
+}
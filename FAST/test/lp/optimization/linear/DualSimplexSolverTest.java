@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DualSimplexSolverTest {
+
+    @Test
+    public void testDietProblem() throws OptimizationException {
+        // min 2x + 3y, x + y >= 4, x + 3y >= 6: dual feasible from the start, optimum (3, 1)
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 2, 3 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 1, 3 }, Relationship.GEQ, 6));
+        DualSimplexSolver solver = new DualSimplexSolver();
+        RealPointValuePair solution = solver.optimize(f, constraints, GoalType.MINIMIZE, true);
+        Assert.assertEquals(9.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 3, 1 }, solution.getPoint(), 1.0e-10);
+        Assert.assertEquals(SolveStatus.OPTIMAL, solver.getStatus());
+        // one dual pivot per row, no phase 1
+        Assert.assertEquals(2, solver.getIterations());
+    }
+
+    @Test
+    public void testEqualityIsSplit() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 2 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.EQ, 3));
+        RealPointValuePair solution = new DualSimplexSolver().optimize(f, constraints, GoalType.MINIMIZE, true);
+        Assert.assertEquals(3.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 3, 0 }, solution.getPoint(), 1.0e-10);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasibleInDualPhase() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 5));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 2));
+        new DualSimplexSolver().optimize(f, constraints, GoalType.MINIMIZE, true);
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnboundedFallsBackToPrimal() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 1));
+        new DualSimplexSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+    }
+
+    @Test
+    public void testDualFeasibleRandomProblems() throws OptimizationException {
+        Random random = new Random(45);
+        for (int k = 0; k < 300; k++) {
+            int n = 1 + random.nextInt(4);
+            LinearProblems generated = LinearProblems.generate(random, n, 1 + random.nextInt(5));
+            double[] costs = new double[n];
+            for (int j = 0; j < n; j++) {
+                costs[j] = random.nextInt(6);
+            }
+            LinearProblems problem = new LinearProblems(new LinearObjectiveFunction(costs, 0),
+                                                        generated.constraints, GoalType.MINIMIZE);
+            problem.check(new DualSimplexSolver());
+        }
+    }
+
+    @Test
+    public void testOtherRandomProblems() throws OptimizationException {
+        Random random = new Random(450);
+        for (int k = 0; k < 300; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(5));
+            problem.check(new DualSimplexSolver());
+        }
+    }
+
+    @Test
+    public void testBoundsBecomeConstraints() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 1));
+        RealPointValuePair solution = new DualSimplexSolver().optimize(f, constraints, GoalType.MINIMIZE,
+                                                                       new double[] { 2, 0 },
+                                                                       new double[] { 5, 5 });
+        Assert.assertEquals(2.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 2, 0 }, solution.getPoint(), 1.0e-10);
+    }
+
+}
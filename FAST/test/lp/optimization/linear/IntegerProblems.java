@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+
+/**
+ * Small random integer problems with a brute-force oracle.
+ * <p>
+ * All the variables are integer and bounded by 0 and at most {@link #UPPER}, the
+ * bounds being explicit constraints, so the optimum can be found by
+ * enumerating every point.
+ * </p>
+ */
+class IntegerProblems {
+
+    /** Upper bound of every variable. */
+    static final int UPPER = 3;
+
+    /** Objective function. */
+    final LinearObjectiveFunction f;
+
+    /** Constraints, including the upper bounds. */
+    final List<LinearConstraint> constraints;
+
+    /** Optimization goal. */
+    final GoalType goalType;
+
+    /**
+     * @param f objective function
+     * @param constraints constraints, including the upper bounds
+     * @param goalType optimization goal
+     */
+    IntegerProblems(final LinearObjectiveFunction f, final List<LinearConstraint> constraints,
+                    final GoalType goalType) {
+        this.f           = f;
+        this.constraints = constraints;
+        this.goalType    = goalType;
+    }
+
+    /**
+     * Generate a general integer problem.
+     * @param random generator
+     * @param n number of variables
+     * @param m number of constraints besides the bounds
+     * @return a problem, feasible or not
+     */
+    static IntegerProblems generate(final Random random, final int n, final int m) {
+        final double[] c = new double[n];
+        for (int j = 0; j < n; j++) {
+            c[j] = random.nextInt(11) - 5;
+        }
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearConstraintBuilder builder = new LinearConstraintBuilder(n);
+        for (int i = 0; i < m; i++) {
+            builder.clear();
+            for (int j = 0; j < n; j++) {
+                if (random.nextInt(3) > 0) {
+                    builder.add(j, random.nextInt(11) - 5);
+                }
+            }
+            final int type = random.nextInt(5);
+            final Relationship relationship =
+                (type < 3) ? Relationship.LEQ : ((type == 3) ? Relationship.GEQ : Relationship.EQ);
+            constraints.add(builder.build(relationship, random.nextInt(15) - 3));
+        }
+        for (int j = 0; j < n; j++) {
+            // mostly binary variables, as in knapsack rows
+            constraints.add(builder.clear().add(j, 1).build(Relationship.LEQ, 1 + random.nextInt(UPPER)));
+        }
+        return new IntegerProblems(new LinearObjectiveFunction(c, random.nextInt(5)), constraints,
+                                   random.nextBoolean() ? GoalType.MAXIMIZE : GoalType.MINIMIZE);
+    }
+
+    /**
+     * Generate a knapsack shaped problem: non-negative weights and capacities.
+     * @param random generator
+     * @param n number of variables
+     * @param m number of knapsack rows besides the bounds
+     * @return a feasible maximization problem
+     */
+    static IntegerProblems knapsack(final Random random, final int n, final int m) {
+        final double[] c = new double[n];
+        for (int j = 0; j < n; j++) {
+            c[j] = 1 + random.nextInt(9);
+        }
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearConstraintBuilder builder = new LinearConstraintBuilder(n);
+        for (int i = 0; i < m; i++) {
+            builder.clear();
+            for (int j = 0; j < n; j++) {
+                if (random.nextInt(4) > 0) {
+                    builder.add(j, 1 + random.nextInt(9));
+                }
+            }
+            constraints.add(builder.build(Relationship.LEQ, 5 + random.nextInt(20)));
+        }
+        for (int j = 0; j < n; j++) {
+            constraints.add(builder.clear().add(j, 1).build(Relationship.LEQ, 1 + random.nextInt(UPPER)));
+        }
+        return new IntegerProblems(new LinearObjectiveFunction(c, 0), constraints, GoalType.MAXIMIZE);
+    }
+
+    /**
+     * Find the optimal value by enumerating the integer points.
+     * @return optimal value, null if the problem is infeasible
+     */
+    Double bruteForce() {
+        final int n = f.getCoefficients().getDimension();
+        final double[] point = new double[n];
+        Double best = null;
+        int count = 1;
+        for (int j = 0; j < n; j++) {
+            count *= UPPER + 1;
+        }
+        for (int k = 0; k < count; k++) {
+            int code = k;
+            for (int j = 0; j < n; j++) {
+                point[j] = code % (UPPER + 1);
+                code /= UPPER + 1;
+            }
+            if (isFeasible(point)) {
+                final double value = f.getValue(point);
+                if (best == null ||
+                    ((goalType == GoalType.MAXIMIZE) ? value > best : value < best)) {
+                    best = value;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Check whether a point satisfies all the constraints.
+     * @param point point to check
+     * @return true if the point is feasible
+     */
+    boolean isFeasible(final double[] point) {
+        for (final LinearConstraint constraint : constraints) {
+            final double lhs = constraint.getCoefficients().dotProduct(point);
+            final double rhs = constraint.getValue();
+            switch (constraint.getRelationship()) {
+            case LEQ :
+                if (lhs > rhs + 1.0e-9) {
+                    return false;
+                }
+                break;
+            case GEQ :
+                if (lhs < rhs - 1.0e-9) {
+                    return false;
+                }
+                break;
+            default :
+                if (Math.abs(lhs - rhs) > 1.0e-9) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the constraints as a collection.
+     * @return constraints
+     */
+    Collection<LinearConstraint> getConstraints() {
+        return constraints;
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InteriorPointSolverTest {
+
+    @Test
+    public void testKnownOptimum() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 3, 5 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 0, 2 }, Relationship.LEQ, 12));
+        constraints.add(new LinearConstraint(new double[] { 3, 2 }, Relationship.LEQ, 18));
+        for (boolean crossover : new boolean[] { true, false }) {
+            InteriorPointSolver solver = new InteriorPointSolver();
+            solver.setCrossover(crossover);
+            RealPointValuePair solution = solver.optimize(f, constraints, GoalType.MAXIMIZE, true);
+            Assert.assertEquals(36.0, solution.getValue(), 1.0e-6);
+            Assert.assertArrayEquals(new double[] { 2, 6 }, solution.getPoint(), 1.0e-6);
+        }
+    }
+
+    @Test
+    public void testCrossoverReachesAVertex() throws OptimizationException {
+        // every point of the segment x + y = 1 is optimal, the interior point
+        // iterations end near its middle and the crossover moves to an end
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 1));
+
+        InteriorPointSolver center = new InteriorPointSolver();
+        center.setCrossover(false);
+        RealPointValuePair solution = center.optimize(f, constraints, GoalType.MAXIMIZE, true);
+        Assert.assertEquals(1.0, solution.getValue(), 1.0e-6);
+        Assert.assertEquals(0.5, solution.getPoint()[0], 1.0e-3);
+        Assert.assertEquals(0, center.getSimplexIterations());
+
+        InteriorPointSolver vertex = new InteriorPointSolver();
+        Assert.assertTrue(vertex.isCrossover());
+        solution = vertex.optimize(f, constraints, GoalType.MAXIMIZE, true);
+        Assert.assertEquals(1.0, solution.getValue(), 1.0e-10);
+        double x = solution.getPoint()[0];
+        Assert.assertTrue(Math.abs(x) < 1.0e-10 || Math.abs(x - 1) < 1.0e-10);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasible() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 2));
+        new InteriorPointSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnbounded() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 1));
+        new InteriorPointSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+    }
+
+    @Test
+    public void testFreeVariables() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 2 }, 3);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.EQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 3));
+        RealPointValuePair solution = new InteriorPointSolver().optimize(f, constraints, GoalType.MINIMIZE, false);
+        Assert.assertEquals(3.0, solution.getValue(), 1.0e-8);
+        Assert.assertArrayEquals(new double[] { 2, -1 }, solution.getPoint(), 1.0e-8);
+    }
+
+    @Test
+    public void testRandomProblemsAgainstVertexEnumeration() throws OptimizationException {
+        Random random = new Random(46);
+        for (int k = 0; k < 300; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(5));
+            problem.check(new InteriorPointSolver());
+            InteriorPointSolver noCrossover = new InteriorPointSolver();
+            noCrossover.setCrossover(false);
+            problem.check(noCrossover);
+        }
+    }
+
+    @Test
+    public void testLargerProblemsAgainstSimplex() throws OptimizationException {
+        Random random = new Random(460);
+        for (int k = 0; k < 20; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 40, 20);
+            SimplexSolver simplex = new SimplexSolver();
+            simplex.setMaxIterations(10000);
+            Double expected;
+            try {
+                expected = simplex.optimize(problem.f, problem.constraints, problem.goalType, true).getValue();
+            } catch (NoFeasibleSolutionException e) {
+                expected = null;
+            }
+            try {
+                RealPointValuePair solution =
+                    new InteriorPointSolver().optimize(problem.f, problem.constraints, problem.goalType, true);
+                Assert.assertNotNull(expected);
+                Assert.assertEquals(expected.doubleValue(), solution.getValue(), 1.0e-6);
+                Assert.assertTrue(problem.isFeasible(solution.getPoint(), 1.0e-6));
+            } catch (NoFeasibleSolutionException e) {
+                Assert.assertNull(expected);
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedProblemsAgainstSimplex() throws OptimizationException {
+        Random random = new Random(461);
+        for (int k = 0; k < 300; k++) {
+            int n = 1 + random.nextInt(6);
+            LinearProblems problem = LinearProblems.generate(random, n, 1 + random.nextInt(5));
+            double[] lower = new double[n];
+            double[] upper = new double[n];
+            for (int j = 0; j < n; j++) {
+                lower[j] = random.nextInt(6) - 3;
+                upper[j] = (random.nextInt(4) == 0) ? Double.POSITIVE_INFINITY : lower[j] + random.nextInt(7);
+            }
+            Object expected = outcome(new SimplexSolver(), problem.f, problem.constraints, problem.goalType,
+                                      lower, upper);
+            for (boolean crossover : new boolean[] { true, false }) {
+                InteriorPointSolver solver = new InteriorPointSolver();
+                solver.setCrossover(crossover);
+                Object actual = outcome(solver, problem.f, problem.constraints, problem.goalType, lower, upper);
+                if (expected instanceof Double) {
+                    Assert.assertTrue(actual instanceof Double);
+                    Assert.assertEquals(((Double) expected).doubleValue(), ((Double) actual).doubleValue(), 1.0e-6);
+                } else {
+                    Assert.assertEquals(expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSummaryProblemAgainstSimplex() throws OptimizationException {
+        LinearProblem problem = new SummaryProblemGenerator(46).generate(2000, SummaryProblemGenerator.Density.SPARSE);
+        SimplexSolver simplex = new SimplexSolver();
+        simplex.setMaxIterations(100000);
+        Object expected = outcome(simplex, problem.getObjectiveFunction(), problem.getConstraints(),
+                                  problem.getGoalType(), problem.getLowerBounds(), problem.getUpperBounds());
+        Object actual = outcome(new InteriorPointSolver(), problem.getObjectiveFunction(), problem.getConstraints(),
+                                problem.getGoalType(), problem.getLowerBounds(), problem.getUpperBounds());
+        Assert.assertEquals(((Double) expected).doubleValue(), ((Double) actual).doubleValue(), 1.0e-6);
+    }
+
+    @Test
+    public void testLargeSummaryProblem() throws OptimizationException {
+        // the bounds add no rows: the normal equations only cover the
+        // budget and the redundancy rows, about half as many as the sentences
+        LinearProblem problem = new SummaryProblemGenerator(460).generate(50000, SummaryProblemGenerator.Density.SPARSE);
+        InteriorPointSolver center = new InteriorPointSolver();
+        center.setCrossover(false);
+        Object interior = outcome(center, problem.getObjectiveFunction(), problem.getConstraints(),
+                                  problem.getGoalType(), problem.getLowerBounds(), problem.getUpperBounds());
+        InteriorPointSolver vertex = new InteriorPointSolver();
+        Object basic = outcome(vertex, problem.getObjectiveFunction(), problem.getConstraints(),
+                               problem.getGoalType(), problem.getLowerBounds(), problem.getUpperBounds());
+        Assert.assertEquals(((Double) interior).doubleValue(), ((Double) basic).doubleValue(),
+                            1.0e-6 * Math.abs(((Double) basic).doubleValue()));
+        Assert.assertTrue(vertex.getIterations() < 100);
+    }
+
+    /**
+     * Solve a bounded problem and summarize the outcome.
+     * @param solver solver to use
+     * @param f objective function
+     * @param constraints constraints
+     * @param goalType type of optimization goal
+     * @param lower lower bounds
+     * @param upper upper bounds
+     * @return optimal value, or class of the exception thrown
+     * @exception OptimizationException if the solver fails unexpectedly
+     */
+    private static Object outcome(AbstractLinearOptimizer solver, LinearObjectiveFunction f,
+                                  Collection<LinearConstraint> constraints, GoalType goalType,
+                                  double[] lower, double[] upper)
+        throws OptimizationException {
+        try {
+            RealPointValuePair solution = solver.optimize(f, constraints, goalType, lower, upper);
+            double[] point = solution.getPoint();
+            for (int j = 0; j < lower.length; j++) {
+                Assert.assertTrue(point[j] >= lower[j] - 1.0e-6);
+                Assert.assertTrue(point[j] <= upper[j] + 1.0e-6);
+            }
+            for (LinearConstraint constraint : constraints) {
+                double lhs = 0;
+                int[] indices = constraint.getNonZeroIndices();
+                double[] values = constraint.getNonZeroValues();
+                for (int k = 0; k < indices.length; k++) {
+                    lhs += values[k] * point[indices[k]];
+                }
+                double tolerance = 1.0e-6 * (1 + Math.abs(constraint.getValue()));
+                Assert.assertTrue(constraint.getRelationship() == Relationship.GEQ ||
+                                  lhs <= constraint.getValue() + tolerance);
+                Assert.assertTrue(constraint.getRelationship() == Relationship.LEQ ||
+                                  lhs >= constraint.getValue() - tolerance);
+            }
+            return solution.getValue();
+        } catch (NoFeasibleSolutionException e) {
+            return e.getClass();
+        } catch (UnboundedSolutionException e) {
+            return e.getClass();
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LinearConstraintBuilderTest {
+
+    @Test
+    public void testSparseConstraintEqualsDenseConstraint() {
+        LinearConstraint dense  = new LinearConstraint(new double[] { 0, 2, 0, 0, -1 }, Relationship.LEQ, 3);
+        LinearConstraint sparse = new LinearConstraintBuilder(5).add(4, -1).add(1, 2).build(Relationship.LEQ, 3);
+        Assert.assertEquals(dense, sparse);
+        Assert.assertEquals(dense.hashCode(), sparse.hashCode());
+        Assert.assertArrayEquals(new int[] { 1, 4 }, sparse.getNonZeroIndices());
+        Assert.assertArrayEquals(new double[] { 2, -1 }, sparse.getNonZeroValues(), 0);
+        Assert.assertArrayEquals(dense.getCoefficients().getData(), sparse.getCoefficients().getData(), 0);
+    }
+
+    @Test
+    public void testDuplicatesAreSummedAndZerosDropped() {
+        LinearConstraint constraint = new LinearConstraintBuilder(4).
+            add(2, 1.5).add(0, 1).add(2, 0.5).add(3, 1).add(3, -1).
+            build(Relationship.GEQ, 0);
+        Assert.assertEquals(4, constraint.getDimension());
+        Assert.assertArrayEquals(new int[] { 0, 2 }, constraint.getNonZeroIndices());
+        Assert.assertArrayEquals(new double[] { 1, 2 }, constraint.getNonZeroValues(), 0);
+    }
+
+    @Test
+    public void testBuilderCanBeReused() {
+        LinearConstraintBuilder builder = new LinearConstraintBuilder(3);
+        builder.add(0, 1).add(1, 1).build(Relationship.EQ, 1);
+        for (int k = 0; k < 10; k++) {
+            builder.add(2, 1);
+        }
+        LinearConstraint constraint = builder.clear().add(1, 4).build(Relationship.EQ, 2);
+        Assert.assertArrayEquals(new double[] { 0, 4, 0 }, constraint.getCoefficients().getData(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndexOutOfRange() {
+        new LinearConstraintBuilder(3).add(3, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedIndices() {
+        new LinearConstraint(5, new int[] { 3, 1 }, new double[] { 1, 1 }, Relationship.LEQ, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedLengths() {
+        new LinearConstraint(5, new int[] { 1, 3 }, new double[] { 1 }, Relationship.LEQ, 1);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        LinearConstraint constraint = new LinearConstraintBuilder(1000).add(7, 2).add(999, -3).build(Relationship.LEQ, 5);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(constraint);
+        oos.close();
+        // only the non-zero coefficients are serialized
+        Assert.assertTrue(bos.size() < 1000);
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        LinearConstraint copy = (LinearConstraint) ois.readObject();
+        Assert.assertEquals(constraint, copy);
+        Assert.assertEquals(-3, copy.getCoefficients().getEntry(999), 0);
+    }
+
+    @Test
+    public void testCoefficientsAreNotShared() {
+        LinearConstraint constraint = new LinearConstraint(new double[] { 1, 0, 2 }, Relationship.LEQ, 5);
+        constraint.getCoefficients().setEntry(1, 7);
+        Assert.assertArrayEquals(new double[] { 1, 0, 2 }, constraint.getCoefficients().getData(), 0);
+        Assert.assertNotSame(constraint.getCoefficients(), constraint.getCoefficients());
+    }
+
+    @Test
+    public void testSparseAndDenseProblemsHaveTheSameOptimum() throws Exception {
+        Random random = new Random(38);
+        for (int k = 0; k < 200; k++) {
+            LinearProblems dense = LinearProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(5));
+            int n = dense.f.getCoefficients().getDimension();
+            LinearConstraintBuilder builder = new LinearConstraintBuilder(n);
+            List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+            for (LinearConstraint constraint : dense.constraints) {
+                builder.clear();
+                for (int j = n - 1; j >= 0; j--) {
+                    builder.add(j, constraint.getCoefficients().getEntry(j));
+                }
+                constraints.add(builder.build(constraint.getRelationship(), constraint.getValue()));
+            }
+            LinearProblems sparse = new LinearProblems(dense.f, constraints, dense.goalType);
+            Assert.assertEquals(dense.constraints, sparse.constraints);
+            sparse.check(new SimplexSolver());
+            sparse.check(new RevisedSimplexSolver());
+        }
+    }
+
+    @Test
+    public void testWideSparseProblem() throws Exception {
+        // pick at most 10 of 2000 items, at most one of each consecutive pair:
+        // the 285 items of weight 7 are never paired together, so the optimum is 70
+        int n = 2000;
+        double[] c = new double[n];
+        for (int j = 0; j < n; j++) {
+            c[j] = 1 + (j % 7);
+        }
+        LinearConstraintBuilder builder = new LinearConstraintBuilder(n);
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        for (int j = 0; j < n; j++) {
+            builder.add(j, 1);
+        }
+        constraints.add(builder.build(Relationship.LEQ, 10));
+        for (int j = 0; j + 1 < n; j += 2) {
+            constraints.add(builder.clear().add(j, 1).add(j + 1, 1).build(Relationship.LEQ, 1));
+        }
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.setMaxIterations(10000);
+        RealPointValuePair solution = solver.optimize(new LinearObjectiveFunction(c, 0), constraints,
+                                                      GoalType.MAXIMIZE, true);
+        Assert.assertEquals(70.0, solution.getValue(), 1.0e-9);
+    }
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+
+/**
+ * Small random linear problems with a vertex enumeration oracle.
+ * <p>
+ * The variables are non-negative and bounded by {@link #BOX} through
+ * explicit constraints, so every feasible problem has an optimal vertex
+ * and the optimum can be found by solving every square subsystem of
+ * active constraints.
+ * </p>
+ */
+class LinearProblems {
+
+    /** Upper bound of every variable. */
+    static final double BOX = 10;
+
+    /** Objective function. */
+    final LinearObjectiveFunction f;
+
+    /** Constraints, including the box. */
+    final List<LinearConstraint> constraints;
+
+    /** Optimization goal. */
+    final GoalType goalType;
+
+    /**
+     * @param f objective function
+     * @param constraints constraints, including the box
+     * @param goalType optimization goal
+     */
+    LinearProblems(final LinearObjectiveFunction f, final List<LinearConstraint> constraints,
+                   final GoalType goalType) {
+        this.f           = f;
+        this.constraints = constraints;
+        this.goalType    = goalType;
+    }
+
+    /**
+     * Generate a random problem.
+     * @param random generator
+     * @param n number of variables
+     * @param m number of constraints besides the box
+     * @return a problem, feasible or not
+     */
+    static LinearProblems generate(final Random random, final int n, final int m) {
+        final double[] c = new double[n];
+        for (int j = 0; j < n; j++) {
+            c[j] = random.nextInt(11) - 5;
+        }
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearConstraintBuilder builder = new LinearConstraintBuilder(n);
+        for (int i = 0; i < m; i++) {
+            builder.clear();
+            for (int j = 0; j < n; j++) {
+                if (random.nextInt(3) > 0) {
+                    builder.add(j, random.nextInt(11) - 5);
+                }
+            }
+            final int type = random.nextInt(5);
+            final Relationship relationship =
+                (type < 3) ? Relationship.LEQ : ((type == 3) ? Relationship.GEQ : Relationship.EQ);
+            constraints.add(builder.build(relationship, random.nextInt(21) - 5));
+        }
+        for (int j = 0; j < n; j++) {
+            constraints.add(builder.clear().add(j, 1).build(Relationship.LEQ, BOX));
+        }
+        return new LinearProblems(new LinearObjectiveFunction(c, random.nextInt(5)), constraints,
+                                  random.nextBoolean() ? GoalType.MAXIMIZE : GoalType.MINIMIZE);
+    }
+
+    /**
+     * Generate a random degenerate problem.
+     * <p>
+     * All the constraints but one go through the origin, so many bases share
+     * the same vertex and the most negative reduced cost rule can cycle
+     * among them. Only the budget constraint, on the sum of the variables,
+     * keeps the problem bounded.
+     * </p>
+     * @param random generator
+     * @param n number of variables, which is also the number of constraints through the origin
+     * @return a feasible problem, to maximize
+     */
+    static LinearProblems degenerate(final Random random, final int n) {
+        final double[] c = new double[n];
+        for (int j = 0; j < n; j++) {
+            c[j] = random.nextInt(5) - 1;
+        }
+        final List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        final LinearConstraintBuilder builder = new LinearConstraintBuilder(n);
+        for (int i = 0; i < n; i++) {
+            builder.clear();
+            for (int j = 0; j < n; j++) {
+                if (random.nextInt(3) == 0) {
+                    builder.add(j, random.nextInt(7) - 3);
+                }
+            }
+            constraints.add(builder.build(Relationship.LEQ, 0));
+        }
+        builder.clear();
+        for (int j = 0; j < n; j++) {
+            builder.add(j, 1);
+        }
+        constraints.add(builder.build(Relationship.LEQ, 1));
+        for (int j = 0; j < n; j++) {
+            constraints.add(builder.clear().add(j, 1).build(Relationship.LEQ, BOX));
+        }
+        return new LinearProblems(new LinearObjectiveFunction(c, 0), constraints, GoalType.MAXIMIZE);
+    }
+
+    /**
+     * Find the optimal value by enumerating the vertices.
+     * @return optimal value, null if the problem is infeasible
+     */
+    Double bruteForce() {
+        final int n = f.getCoefficients().getDimension();
+        // the hyperplanes: the constraints, then x[j] = 0
+        final List<double[]> planes = new ArrayList<double[]>();
+        final List<Double> values = new ArrayList<Double>();
+        for (final LinearConstraint constraint : constraints) {
+            planes.add(constraint.getCoefficients().getData());
+            values.add(constraint.getValue());
+        }
+        for (int j = 0; j < n; j++) {
+            final double[] a = new double[n];
+            a[j] = 1;
+            planes.add(a);
+            values.add(0.0);
+        }
+        Double best = null;
+        final int[] chosen = new int[n];
+        for (int k = 0; k < n; k++) {
+            chosen[k] = k;
+        }
+        while (chosen[n - 1] < planes.size()) {
+            final double[] vertex = solve(planes, values, chosen);
+            if (vertex != null && isFeasible(vertex, 1.0e-7)) {
+                final double value = f.getValue(vertex);
+                if (best == null ||
+                    ((goalType == GoalType.MAXIMIZE) ? value > best : value < best)) {
+                    best = value;
+                }
+            }
+            // next combination
+            int k = n - 1;
+            while (k > 0 && chosen[k] == planes.size() - n + k) {
+                --k;
+            }
+            ++chosen[k];
+            for (int l = k + 1; l < n; l++) {
+                chosen[l] = chosen[l - 1] + 1;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Check whether a point satisfies the constraints and is non-negative.
+     * @param point point to check
+     * @param tolerance absolute tolerance
+     * @return true if the point is feasible
+     */
+    boolean isFeasible(final double[] point, final double tolerance) {
+        for (final double x : point) {
+            if (x < -tolerance) {
+                return false;
+            }
+        }
+        for (final LinearConstraint constraint : constraints) {
+            final double lhs = constraint.getCoefficients().dotProduct(point);
+            final double rhs = constraint.getValue();
+            switch (constraint.getRelationship()) {
+            case LEQ :
+                if (lhs > rhs + tolerance) {
+                    return false;
+                }
+                break;
+            case GEQ :
+                if (lhs < rhs - tolerance) {
+                    return false;
+                }
+                break;
+            default :
+                if (Math.abs(lhs - rhs) > tolerance) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solve a problem and compare with the vertex enumeration optimum.
+     * @param solver solver to use
+     * @exception OptimizationException if the solver fails unexpectedly
+     */
+    void check(final AbstractLinearOptimizer solver) throws OptimizationException {
+        final Double expected = bruteForce();
+        try {
+            final RealPointValuePair solution = solver.optimize(f, constraints, goalType, true);
+            Assert.assertNotNull("solver found a solution to an infeasible problem", expected);
+            Assert.assertEquals(expected.doubleValue(), solution.getValue(), 1.0e-6);
+            Assert.assertTrue(isFeasible(solution.getPoint(), 1.0e-6));
+        } catch (NoFeasibleSolutionException e) {
+            Assert.assertNull("solver missed the optimum " + expected, expected);
+        }
+    }
+
+    /**
+     * Solve the square system of the chosen hyperplanes by Gaussian elimination.
+     * @param planes hyperplane normals
+     * @param values hyperplane offsets
+     * @param chosen indices of the hyperplanes
+     * @return the intersection point, null if the system is singular
+     */
+    private static double[] solve(final List<double[]> planes, final List<Double> values, final int[] chosen) {
+        final int n = chosen.length;
+        final double[][] a = new double[n][n + 1];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(planes.get(chosen[i]), 0, a[i], 0, n);
+            a[i][n] = values.get(chosen[i]);
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int i = col + 1; i < n; i++) {
+                if (Math.abs(a[i][col]) > Math.abs(a[pivot][col])) {
+                    pivot = i;
+                }
+            }
+            if (Math.abs(a[pivot][col]) < 1.0e-9) {
+                return null;
+            }
+            final double[] swap = a[col];
+            a[col] = a[pivot];
+            a[pivot] = swap;
+            for (int i = 0; i < n; i++) {
+                if (i != col) {
+                    final double factor = a[i][col] / a[col][col];
+                    for (int j = col; j <= n; j++) {
+                        a[i][j] -= factor * a[col][j];
+                    }
+                }
+            }
+        }
+        final double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = a[i][n] / a[i][i];
+        }
+        return x;
+    }
+
+}
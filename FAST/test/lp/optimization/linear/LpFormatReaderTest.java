@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.text.ParseException;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LpFormatReaderTest {
+
+    @Test
+    public void testInfiniteBounds() throws IOException, ParseException {
+        LinearProblem problem = read("Maximize\n" +
+                                     " obj: x + y + z + w\n" +
+                                     "Subject To\n" +
+                                     " c1: x + y + z + w <= 10\n" +
+                                     "Bounds\n" +
+                                     " x <= 1e30\n" +
+                                     " -1e20 <= y <= 1e19\n" +
+                                     " z >= -1.5E+25\n" +
+                                     " -9.9e19 <= w <= inf\n" +
+                                     "End\n");
+        Assert.assertEquals(GoalType.MAXIMIZE, problem.getGoalType());
+        Assert.assertArrayEquals(new double[] { 0, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, -9.9e19 },
+                                 problem.getLowerBounds(), 0);
+        Assert.assertArrayEquals(new double[] {
+                                     Double.POSITIVE_INFINITY, 1e19, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY
+                                 }, problem.getUpperBounds(), 0);
+    }
+
+    @Test
+    public void testErrorLineNumber() throws IOException {
+        try {
+            read("Minimize\n" +
+                 " obj: x + y\n" +
+                 "Subject To\n" +
+                 " c1: x + y >= 1\n" +
+                 "Bounds\n" +
+                 " x <= abc\n" +
+                 "End\n");
+            Assert.fail("an exception should have been thrown");
+        } catch (ParseException e) {
+            Assert.assertEquals(6, e.getErrorOffset());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, ParseException {
+        Random random = new Random(49);
+        for (int k = 0; k < 200; ++k) {
+            LinearProblem problem = MpsReaderTest.generate(random);
+            StringWriter out = new StringWriter();
+            new LpFormatWriter(out).write(problem);
+            LpFormatReader reader = new LpFormatReader(new StringReader(out.toString()));
+            MpsReaderTest.checkEquals(problem, reader.read());
+            Assert.assertEquals(MpsWriter.getNames("c", problem.getConstraints().size()),
+                                reader.getConstraintNames());
+        }
+    }
+
+    /**
+     * Read a problem from a string.
+     * @param text LP text
+     * @return problem
+     * @exception IOException never
+     * @exception ParseException if the text is not valid
+     */
+    private static LinearProblem read(final String text) throws IOException, ParseException {
+        return new LpFormatReader(new StringReader(text)).read();
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatrixScalingTest {
+
+    @Test
+    public void testFactorsArePowersOfTwo() {
+        List<LinearConstraint> constraints = badlyScaledRows();
+        for (ScalingMethod method : ScalingMethod.values()) {
+            MatrixScaling scaling = new MatrixScaling(3, constraints, method, true);
+            double[] point = new double[] { 1, 1, 1 };
+            scaling.unscale(point);
+            for (double factor : point) {
+                Assert.assertTrue(isPowerOfTwo(factor));
+            }
+            List<LinearConstraint> scaled = scaling.scale(constraints);
+            for (int i = 0; i < constraints.size(); i++) {
+                double[] original = constraints.get(i).getNonZeroValues();
+                double[] values   = scaled.get(i).getNonZeroValues();
+                for (int k = 0; k < values.length; k++) {
+                    Assert.assertTrue(isPowerOfTwo(values[k] / original[k]));
+                }
+                Assert.assertTrue(isPowerOfTwo(scaled.get(i).getValue() / constraints.get(i).getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void testScalingReducesTheSpread() {
+        List<LinearConstraint> constraints = badlyScaledRows();
+        double original = getSpread(new MatrixScaling(3, constraints, ScalingMethod.NONE, true).scale(constraints));
+        Assert.assertEquals(2.0e12, original, 1.0e-3);
+        for (ScalingMethod method : new ScalingMethod[] { ScalingMethod.EQUILIBRATION, ScalingMethod.GEOMETRIC_MEAN }) {
+            double spread = getSpread(new MatrixScaling(3, constraints, method, true).scale(constraints));
+            Assert.assertTrue(method + " " + spread, spread <= 4);
+        }
+    }
+
+    @Test
+    public void testRowsOnly() {
+        List<LinearConstraint> constraints = badlyScaledRows();
+        MatrixScaling scaling = new MatrixScaling(3, constraints, ScalingMethod.EQUILIBRATION, false);
+        double[] point = new double[] { 3, 5, 7 };
+        scaling.unscale(point);
+        Assert.assertArrayEquals(new double[] { 3, 5, 7 }, point, 0);
+        for (LinearConstraint scaled : scaling.scale(constraints)) {
+            double max = 0;
+            for (double value : scaled.getNonZeroValues()) {
+                max = Math.max(max, Math.abs(value));
+            }
+            Assert.assertTrue(max > 0.5 && max <= 2);
+        }
+    }
+
+    @Test
+    public void testEveryMethodReachesTheOptimumOfBadlyScaledProblems() throws OptimizationException {
+        // coefficients from about 1e-4 to 1e5, as word counts mixed with similarity scores
+        Random random = new Random(48);
+        for (int k = 0; k < 300; k++) {
+            checkScaled(random, 2, ScalingMethod.values());
+        }
+    }
+
+    @Test
+    public void testGeometricMeanHandlesVeryBadlyScaledProblems() throws OptimizationException {
+        // equilibration alone cannot reduce the spread within a row, which
+        // here reaches 1e9: only the geometric mean passes always succeed
+        Random random = new Random(480);
+        for (int k = 0; k < 300; k++) {
+            checkScaled(random, 4, new ScalingMethod[] { ScalingMethod.GEOMETRIC_MEAN });
+        }
+    }
+
+    /**
+     * Solve a random problem with badly scaled rows and columns and compare
+     * with the vertex enumeration optimum of the original problem.
+     * @param random generator
+     * @param maxExponent rows are multiplied by 10<sup>e</sup> and variables
+     * replaced by x<sub>j</sub> = 10<sup>e</sup> y<sub>j</sub>, with |e| &lt;= maxExponent
+     * @param methods scaling methods to check
+     * @exception OptimizationException if the solver fails unexpectedly
+     */
+    private static void checkScaled(Random random, int maxExponent, ScalingMethod[] methods)
+        throws OptimizationException {
+        int n = 1 + random.nextInt(4);
+        LinearProblems problem = LinearProblems.generate(random, n, 1 + random.nextInt(5));
+        Double expected = problem.bruteForce();
+
+        double[] s = new double[n];
+        for (int j = 0; j < n; j++) {
+            s[j] = Math.pow(10, random.nextInt(2 * maxExponent + 1) - maxExponent);
+        }
+        double[] c = problem.f.getCoefficients().getData();
+        for (int j = 0; j < n; j++) {
+            c[j] *= s[j];
+        }
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        for (LinearConstraint constraint : problem.constraints) {
+            double r = Math.pow(10, random.nextInt(2 * maxExponent + 1) - maxExponent);
+            double[] a = constraint.getCoefficients().getData();
+            for (int j = 0; j < n; j++) {
+                a[j] *= r * s[j];
+            }
+            constraints.add(new LinearConstraint(a, constraint.getRelationship(), r * constraint.getValue()));
+        }
+        LinearObjectiveFunction f = new LinearObjectiveFunction(c, problem.f.getConstantTerm());
+
+        for (ScalingMethod method : methods) {
+            SimplexSolver solver = new SimplexSolver();
+            solver.setScalingMethod(method);
+            try {
+                RealPointValuePair solution = solver.optimize(f, constraints, problem.goalType, true);
+                Assert.assertNotNull(method.toString(), expected);
+                Assert.assertEquals(method.toString(), expected.doubleValue(), solution.getValue(),
+                                    1.0e-6 * Math.max(1, Math.abs(expected.doubleValue())));
+                double[] x = solution.getPoint();
+                for (int j = 0; j < n; j++) {
+                    x[j] *= s[j];
+                }
+                Assert.assertTrue(method.toString(), problem.isFeasible(x, 1.0e-6));
+            } catch (NoFeasibleSolutionException e) {
+                Assert.assertNull(method.toString(), expected);
+            }
+        }
+    }
+
+    /**
+     * Check whether a number is a power of 2, positive or negative.
+     * @param x number to check
+     * @return true if |x| is a power of 2
+     */
+    private static boolean isPowerOfTwo(double x) {
+        double exponent = Math.log(Math.abs(x)) / Math.log(2);
+        return Math.abs(exponent - Math.rint(exponent)) < 1.0e-12;
+    }
+
+    /**
+     * Build rows whose coefficients range from 1e-6 to 1e6.
+     * @return badly scaled constraints over 3 variables
+     */
+    private static List<LinearConstraint> badlyScaledRows() {
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1.0e6, 2.0e6, 0 }, Relationship.LEQ, 1.0e6));
+        constraints.add(new LinearConstraint(new double[] { 0, 3.0e-6, 1.0e-6 }, Relationship.GEQ, 1.0e-6));
+        constraints.add(new LinearConstraint(new double[] { 1, 0, 1 }, Relationship.EQ, 1));
+        return constraints;
+    }
+
+    /**
+     * Get the ratio of the largest to the smallest absolute coefficient.
+     * @param constraints constraints
+     * @return spread of the coefficients
+     */
+    private static double getSpread(List<LinearConstraint> constraints) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = 0;
+        for (LinearConstraint constraint : constraints) {
+            for (double value : constraint.getNonZeroValues()) {
+                min = Math.min(min, Math.abs(value));
+                max = Math.max(max, Math.abs(value));
+            }
+        }
+        return max / min;
+    }
+
+}
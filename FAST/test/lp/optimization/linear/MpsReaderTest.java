@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MpsReaderTest {
+
+    /** Problem with one row of each type and a range on each row. */
+    private static final String RANGED =
+        "NAME  RANGED\n" +
+        "ROWS\n" +
+        " N  cost\n" +
+        " L  lim1\n" +
+        " G  lim2\n" +
+        " E  lim3\n" +
+        " L  lim4\n" +
+        "COLUMNS\n" +
+        "    x  cost  1  lim1  1\n" +
+        "    x  lim2  1  lim3  1\n" +
+        "    x  lim4  1\n" +
+        "RHS\n" +
+        "    RHS  lim1  4  lim2  1\n" +
+        "    RHS  lim3  3  lim4  5\n" +
+        "RANGES\n" +
+        "    RNG  lim1  0  lim2  0\n" +
+        "    RNG  lim3  -2  lim4  2\n" +
+        "ENDATA\n";
+
+    @Test
+    public void testZeroRangeMakesEquality() throws IOException, ParseException {
+        MpsReader reader = new MpsReader(new StringReader(RANGED));
+        LinearProblem problem = reader.read();
+        Assert.assertEquals("RANGED", reader.getName());
+        Assert.assertEquals(Arrays.asList("lim1", "lim2", "lim3", "lim3", "lim4", "lim4"),
+                            reader.getConstraintNames());
+        List<LinearConstraint> expected = new ArrayList<LinearConstraint>();
+        expected.add(new LinearConstraint(new double[] { 1 }, Relationship.EQ, 4));
+        expected.add(new LinearConstraint(new double[] { 1 }, Relationship.EQ, 1));
+        expected.add(new LinearConstraint(new double[] { 1 }, Relationship.GEQ, 1));
+        expected.add(new LinearConstraint(new double[] { 1 }, Relationship.LEQ, 3));
+        expected.add(new LinearConstraint(new double[] { 1 }, Relationship.GEQ, 3));
+        expected.add(new LinearConstraint(new double[] { 1 }, Relationship.LEQ, 5));
+        Assert.assertEquals(expected, problem.getConstraints());
+    }
+
+    @Test
+    public void testInfiniteBounds() throws IOException, ParseException {
+        LinearProblem problem = read("NAME\n" +
+                                     "ROWS\n" +
+                                     " N  obj\n" +
+                                     "COLUMNS\n" +
+                                     "    x  obj  1\n" +
+                                     "    y  obj  1\n" +
+                                     "    z  obj  1\n" +
+                                     "    w  obj  1\n" +
+                                     "BOUNDS\n" +
+                                     " UP  BND  x  1e30\n" +
+                                     " LO  BND  y  -1e20\n" +
+                                     " UP  BND  y  1e19\n" +
+                                     " LO  BND  z  -9.9e19\n" +
+                                     " UP  BND  z  1E+20\n" +
+                                     " FX  BND  w  2\n" +
+                                     "ENDATA\n");
+        Assert.assertArrayEquals(new double[] { 0, Double.NEGATIVE_INFINITY, -9.9e19, 2 },
+                                 problem.getLowerBounds(), 0);
+        Assert.assertArrayEquals(new double[] { Double.POSITIVE_INFINITY, 1e19, Double.POSITIVE_INFINITY, 2 },
+                                 problem.getUpperBounds(), 0);
+    }
+
+    @Test
+    public void testLineEndings() throws IOException, ParseException {
+        LinearProblem expected = read(RANGED);
+        Assert.assertEquals(expected.getConstraints(), read(RANGED.replace("\n", "\r\n")).getConstraints());
+        Assert.assertEquals(expected.getConstraints(), read(RANGED.replace("\n", "\r")).getConstraints());
+        Assert.assertEquals(expected.getConstraints(),
+                            read(RANGED.substring(0, RANGED.length() - 1)).getConstraints());
+    }
+
+    @Test
+    public void testLineLongerThanBuffer() throws IOException, ParseException {
+        StringBuilder comment = new StringBuilder("*");
+        for (int k = 0; k < 200000; ++k) {
+            comment.append((char) ('a' + k % 26));
+        }
+        String text = RANGED.replace("COLUMNS\n", "COLUMNS\n" + comment + "\r\n");
+        Assert.assertEquals(read(RANGED).getConstraints(), read(text).getConstraints());
+    }
+
+    @Test
+    public void testErrorLineNumber() throws IOException {
+        checkErrorLine(RANGED.replace("    x  lim4  1", "    x  lim5  1"), 11);
+        checkErrorLine(RANGED.replace("RHS  lim3  3", "RHS  lim3  3.x"), 14);
+        checkErrorLine(RANGED.replace(" E  lim3", " Q  lim3"), 6);
+        checkErrorLine(RANGED.replace("\n", "\r\n").replace(" L  lim4", " L  lim1"), 7);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, ParseException {
+        Random random = new Random(49);
+        for (int k = 0; k < 200; ++k) {
+            LinearProblem problem = generate(random);
+            int n = problem.getObjectiveFunction().getCoefficients().getDimension();
+            List<String> variableNames = new ArrayList<String>();
+            for (int j = 0; j < n; ++j) {
+                // long names with a common prefix and short ones
+                variableNames.add((j % 2 == 0) ? "variable_with_a_long_name_" + j : "x" + j);
+            }
+            List<String> constraintNames = MpsWriter.getNames("row", problem.getConstraints().size());
+            StringWriter out = new StringWriter();
+            new MpsWriter(out).write(problem, variableNames, constraintNames);
+            MpsReader reader = new MpsReader(new StringReader(out.toString()));
+            checkEquals(problem, reader.read());
+            Assert.assertEquals(variableNames, reader.getVariableNames());
+            Assert.assertEquals(constraintNames, reader.getConstraintNames());
+        }
+    }
+
+    /**
+     * Generate a random problem, with random bounds on some of the variables.
+     * @param random random generator
+     * @return problem
+     */
+    static LinearProblem generate(final Random random) {
+        int n = 1 + random.nextInt(6);
+        LinearProblems p = LinearProblems.generate(random, n, random.nextInt(6));
+        double[] c = p.f.getCoefficients().getData();
+        for (int j = 0; j < n; ++j) {
+            c[j] = random.nextGaussian();
+        }
+        LinearObjectiveFunction f = new LinearObjectiveFunction(c, random.nextInt(3) - 1);
+        if (random.nextBoolean()) {
+            return new LinearProblem(f, p.constraints, p.goalType, true);
+        }
+        double[] lower = new double[n];
+        double[] upper = new double[n];
+        for (int j = 0; j < n; ++j) {
+            switch (random.nextInt(4)) {
+            case 0 :
+                lower[j] = Double.NEGATIVE_INFINITY;
+                break;
+            case 1 :
+                lower[j] = -random.nextInt(5);
+                break;
+            default :
+                lower[j] = 0;
+            }
+            upper[j] = random.nextBoolean() ? Double.POSITIVE_INFINITY : random.nextInt(5);
+        }
+        return new LinearProblem(f, p.constraints, p.goalType, lower, upper);
+    }
+
+    /**
+     * Check that a problem read back is the written one.
+     * @param expected written problem
+     * @param actual problem read
+     */
+    static void checkEquals(final LinearProblem expected, final LinearProblem actual) {
+        Assert.assertEquals(expected.getGoalType(), actual.getGoalType());
+        Assert.assertEquals(expected.getObjectiveFunction(), actual.getObjectiveFunction());
+        Assert.assertEquals(expected.getConstraints(), actual.getConstraints());
+        int n = expected.getObjectiveFunction().getCoefficients().getDimension();
+        Assert.assertArrayEquals(getLowerBounds(expected, n), getLowerBounds(actual, n), 0);
+        Assert.assertArrayEquals(getUpperBounds(expected, n), getUpperBounds(actual, n), 0);
+    }
+
+    /**
+     * Get the lower bounds of the variables of a problem, with or without bounds.
+     * @param problem problem
+     * @param n number of variables
+     * @return lower bounds
+     */
+    private static double[] getLowerBounds(final LinearProblem problem, final int n) {
+        if (problem.getLowerBounds() != null) {
+            return problem.getLowerBounds();
+        }
+        double[] lower = new double[n];
+        Arrays.fill(lower, problem.isRestrictedToNonNegative() ? 0 : Double.NEGATIVE_INFINITY);
+        return lower;
+    }
+
+    /**
+     * Get the upper bounds of the variables of a problem, with or without bounds.
+     * @param problem problem
+     * @param n number of variables
+     * @return upper bounds
+     */
+    private static double[] getUpperBounds(final LinearProblem problem, final int n) {
+        if (problem.getUpperBounds() != null) {
+            return problem.getUpperBounds();
+        }
+        double[] upper = new double[n];
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+        return upper;
+    }
+
+    /**
+     * Read a problem from a string.
+     * @param text MPS text
+     * @return problem
+     * @exception IOException never
+     * @exception ParseException if the text is not valid
+     */
+    private static LinearProblem read(final String text) throws IOException, ParseException {
+        return new MpsReader(new StringReader(text)).read();
+    }
+
+    /**
+     * Check the line reported for an invalid file.
+     * @param text MPS text
+     * @param line expected line number, starting from 1
+     * @exception IOException never
+     */
+    private static void checkErrorLine(final String text, final int line) throws IOException {
+        try {
+            read(text);
+            Assert.fail("an exception should have been thrown");
+        } catch (ParseException e) {
+            Assert.assertEquals(line, e.getErrorOffset());
+        }
+    }
+
+}
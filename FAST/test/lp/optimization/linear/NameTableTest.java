@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NameTableTest {
+
+    @Test
+    public void testStringAndCharacterLookups() {
+        NameTable table = new NameTable();
+        for (int i = 0; i < 10000; ++i) {
+            Assert.assertEquals(i, table.add(name(i)));
+        }
+        Assert.assertEquals(10000, table.size());
+        char[] buffer = new char[64];
+        for (int i = 0; i < 10000; ++i) {
+            String name = name(i);
+            Assert.assertEquals(i, table.get(name));
+            // the name in the middle of a larger buffer
+            name.getChars(0, name.length(), buffer, 3);
+            buffer[3 + name.length()] = '#';
+            Assert.assertEquals(i, table.get(buffer, 3, 3 + name.length()));
+        }
+        Assert.assertEquals(-1, table.get("x"));
+        Assert.assertEquals(-1, table.get("a_rather_long_name_10000"));
+        Assert.assertEquals(-1, table.get("a_rather_long_name_1000x"));
+        Assert.assertEquals(-1, table.get(""));
+    }
+
+    @Test
+    public void testSameHashCode() {
+        // "Aa" and "BB" have the same string hash code
+        NameTable table = new NameTable();
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        Assert.assertEquals(0, table.add("Aa"));
+        Assert.assertEquals(-1, table.get("BB"));
+        Assert.assertEquals(1, table.add("BB"));
+        Assert.assertEquals(0, table.get("Aa"));
+        Assert.assertEquals(1, table.get("BB"));
+        Assert.assertEquals(1, table.get("xBBx".toCharArray(), 1, 3));
+    }
+
+    @Test
+    public void testPrefixes() {
+        // names differing only beyond the characters held in the slots, or by their length
+        NameTable table = new NameTable();
+        Assert.assertEquals(0, table.add("abcdefgh"));
+        Assert.assertEquals(1, table.add("abcdefghi"));
+        Assert.assertEquals(2, table.add("abcdefghj"));
+        Assert.assertEquals(3, table.add("abcdefg"));
+        Assert.assertEquals(4, table.add(""));
+        Assert.assertEquals(0, table.get("abcdefgh"));
+        Assert.assertEquals(1, table.get("abcdefghi"));
+        Assert.assertEquals(2, table.get("abcdefghj"));
+        Assert.assertEquals(3, table.get("abcdefg"));
+        Assert.assertEquals(4, table.get(""));
+        Assert.assertEquals(-1, table.get("abcdefghk"));
+        Assert.assertEquals(-1, table.get("abcdefgi"));
+    }
+
+    /**
+     * Build a test name, short or long.
+     * @param i index of the name
+     * @return name
+     */
+    private static String name(final int i) {
+        return (i % 3 == 0) ? "a_rather_long_name_" + i : ((i % 3 == 1) ? "c" + i : "\u00e9\u4e2d" + i);
+    }
+
+}
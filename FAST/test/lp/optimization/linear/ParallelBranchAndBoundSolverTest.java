@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.Random;
+
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelBranchAndBoundSolverTest {
+
+    @Test
+    public void testRandomProblemsAgainstBruteForce() throws OptimizationException {
+        Random random = new Random(34);
+        for (int k = 0; k < 200; k++) {
+            IntegerProblems problem = IntegerProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(4));
+            BranchAndBoundSolverTest.check(plainSolver(1 + k % 4), problem);
+        }
+    }
+
+    @Test
+    public void testDeterministicModeIgnoresThreadCount() throws OptimizationException {
+        Random random = new Random(341);
+        for (int k = 0; k < 30; k++) {
+            IntegerProblems problem = IntegerProblems.knapsack(random, 6, 2);
+            double[] reference = null;
+            for (int threads = 1; threads <= 4; threads++) {
+                ParallelBranchAndBoundSolver solver = plainSolver(threads);
+                solver.setDeterministic(true);
+                RealPointValuePair solution =
+                    solver.optimize(problem.f, problem.getConstraints(), problem.goalType, true);
+                Assert.assertTrue(solver.isProvenOptimal());
+                if (reference == null) {
+                    reference = solution.getPoint();
+                } else {
+                    Assert.assertArrayEquals(reference, solution.getPoint(), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCounters() throws OptimizationException {
+        IntegerProblems problem = IntegerProblems.knapsack(new Random(342), 8, 3);
+        ParallelBranchAndBoundSolver solver = plainSolver(3);
+        solver.optimize(problem.f, problem.getConstraints(), problem.goalType, true);
+        Assert.assertTrue(solver.getNodes() >= 1);
+        Assert.assertTrue(solver.getIterations() >= solver.getNodes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThread() {
+        new ParallelBranchAndBoundSolver(0);
+    }
+
+    /**
+     * Build a solver with neither presolve nor cuts, running the plain search.
+     * @param threads number of worker threads
+     * @return solver
+     */
+    private static ParallelBranchAndBoundSolver plainSolver(final int threads) {
+        ParallelBranchAndBoundSolver solver = new ParallelBranchAndBoundSolver(threads);
+        solver.setPresolve(false);
+        solver.setCutRounds(0);
+        return solver;
+    }
+
+}
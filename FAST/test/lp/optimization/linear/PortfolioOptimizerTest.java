@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PortfolioOptimizerTest {
+
+    @Test
+    public void testRandomProblemsAgainstVertexEnumeration() throws OptimizationException {
+        SimplexSolver devex = new SimplexSolver();
+        devex.setPricingRule(PricingRule.DEVEX);
+        PortfolioOptimizer portfolio = new PortfolioOptimizer(new SimplexSolver(), devex);
+        portfolio.addSolver(new RevisedSimplexSolver());
+        Random random = new Random(44);
+        for (int k = 0; k < 200; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(5));
+            problem.check(portfolio);
+            Assert.assertTrue(portfolio.getSolvers().contains(portfolio.getWinner()));
+        }
+        // the members themselves are left untouched, the copies do the work
+        for (AbstractLinearOptimizer member : portfolio.getSolvers()) {
+            Assert.assertEquals(0, member.getIterations());
+            Assert.assertNull(member.getCancellationToken());
+        }
+    }
+
+    @Test
+    public void testInfeasibleAndUnboundedAreConclusive() throws OptimizationException {
+        PortfolioOptimizer portfolio = new PortfolioOptimizer(new SimplexSolver(), new RevisedSimplexSolver());
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> infeasible = new ArrayList<LinearConstraint>();
+        infeasible.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 1));
+        infeasible.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 2));
+        try {
+            portfolio.optimize(f, infeasible, GoalType.MAXIMIZE, true);
+            Assert.fail("an exception should have been thrown");
+        } catch (NoFeasibleSolutionException e) {
+            Assert.assertFalse(portfolio.isProvenOptimal());
+        }
+        Collection<LinearConstraint> unbounded = new ArrayList<LinearConstraint>();
+        unbounded.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 1));
+        try {
+            portfolio.optimize(f, unbounded, GoalType.MAXIMIZE, true);
+            Assert.fail("an exception should have been thrown");
+        } catch (UnboundedSolutionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBestInconclusiveSolutionIsReturned() throws OptimizationException {
+        // both members stop on their time limit after the first pivots
+        SimplexSolver slow = new SimplexSolver();
+        slow.setTimeLimit(1);
+        slow.setProgressListener(new ProgressListener() {
+            public void iterationPerformed(int iterations, boolean feasible, double value) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        PortfolioOptimizer portfolio = new PortfolioOptimizer(slow, slow);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.LEQ, 6));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 8));
+        RealPointValuePair solution = portfolio.optimize(new LinearObjectiveFunction(new double[] { 1, 2 }, 0),
+                                                         constraints, GoalType.MAXIMIZE, true);
+        Assert.assertFalse(portfolio.isProvenOptimal());
+        Assert.assertTrue(solution.getValue() < 14);
+
+        // with a fast member in the race, the optimum is proven
+        portfolio.addSolver(new SimplexSolver());
+        solution = portfolio.optimize(new LinearObjectiveFunction(new double[] { 1, 2 }, 0),
+                                      constraints, GoalType.MAXIMIZE, true);
+        Assert.assertTrue(portfolio.isProvenOptimal());
+        Assert.assertEquals(14.0, solution.getValue(), 1.0e-10);
+    }
+
+    @Test
+    public void testFailureOfTheFirstMemberIsThrown() {
+        SimplexSolver first = new SimplexSolver();
+        first.setMaxIterations(1);
+        RevisedSimplexSolver second = new RevisedSimplexSolver();
+        second.setMaxIterations(1);
+        PortfolioOptimizer portfolio = new PortfolioOptimizer(first, second);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.LEQ, 6));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 8));
+        try {
+            portfolio.optimize(new LinearObjectiveFunction(new double[] { 1, 2 }, 0),
+                               constraints, GoalType.MAXIMIZE, true);
+            Assert.fail("an exception should have been thrown");
+        } catch (OptimizationException e) {
+            Assert.assertSame(first, portfolio.getWinner());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEmptyPortfolio() throws OptimizationException {
+        new PortfolioOptimizer().optimize(new LinearObjectiveFunction(new double[] { 1 }, 0),
+                                          new ArrayList<LinearConstraint>(), GoalType.MAXIMIZE, true);
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PresolverTest {
+
+    @Test
+    public void testRedundantRowKeepsItsCoefficients() throws OptimizationException {
+        // once x2 is fixed by dual fixing, the first row is redundant; tightening its
+        // coefficients used to flip their signs and prove the problem infeasible
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 0, 0, -3 }, 4);
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 5, 1, 1 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { -2, 5, -4 }, Relationship.EQ, 0));
+        constraints.add(new LinearConstraint(new double[] { 1, 0, 0 }, Relationship.LEQ, 2));
+        constraints.add(new LinearConstraint(new double[] { 0, 1, 0 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 0, 0, 1 }, Relationship.LEQ, 1));
+        checkPresolveOnAndOff(f, constraints, GoalType.MINIMIZE, 4.0);
+    }
+
+    @Test
+    public void testRedundantRowDoesNotCutOffTheOptimum() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1, -1, -4, 1 }, 0);
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 0, 0, 4, 0, 4 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { -3, 5, -3, 3, 4 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 3, 0, -1, -4, 0 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 0, 3, -3, -3, -2 }, Relationship.LEQ, 1));
+        double[] upper = { 3, 2, 1, 1, 1 };
+        for (int j = 0; j < upper.length; j++) {
+            double[] a = new double[upper.length];
+            a[j] = 1;
+            constraints.add(new LinearConstraint(a, Relationship.LEQ, upper[j]));
+        }
+        checkPresolveOnAndOff(f, constraints, GoalType.MINIMIZE, -5.0);
+    }
+
+    @Test
+    public void testRandomProblemsPresolveOnAndOff() throws OptimizationException {
+        Random random = new Random(35);
+        for (int k = 0; k < 1500; k++) {
+            IntegerProblems problem = (k % 3 == 0) ?
+                IntegerProblems.knapsack(random, 2 + random.nextInt(4), 1 + random.nextInt(3)) :
+                IntegerProblems.generate(random, 1 + random.nextInt(5), 1 + random.nextInt(5));
+            BranchAndBoundSolver presolved = new BranchAndBoundSolver();
+            BranchAndBoundSolverTest.check(presolved, problem);
+            BranchAndBoundSolver plain = new BranchAndBoundSolver();
+            plain.setPresolve(false);
+            plain.setCutRounds(0);
+            BranchAndBoundSolverTest.check(plain, problem);
+        }
+    }
+
+    @Test
+    public void testReductions() throws OptimizationException {
+        // max x0 + 2 x1 + x2, x0 + x1 + x2 <= 10, x0 <= 1, x1 <= 2 (x2 is only bounded by the first row)
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 2, 0 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1, 1 }, Relationship.LEQ, 10));
+        constraints.add(new LinearConstraint(new double[] { 1, 0, 0 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 0, 1, 0 }, Relationship.LEQ, 2));
+        Presolver presolver = new Presolver(f, constraints, GoalType.MAXIMIZE, null, 1.0e-9);
+        presolver.presolve();
+        // the first row can never be violated and every variable is fixed
+        Assert.assertEquals(3, presolver.getRemovedConstraints());
+        Assert.assertEquals(3, presolver.getFixedVariables());
+        Assert.assertEquals(0, presolver.getNumVariables());
+        Assert.assertEquals(5.0, presolver.getObjectiveFunction().getValue(new double[0]), 0);
+        Assert.assertArrayEquals(new double[] { 1, 2, 0 }, presolver.postsolve(new double[0]), 0);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasibleBounds() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 5));
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 2));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.LEQ, 2));
+        new Presolver(f, constraints, GoalType.MAXIMIZE, null, 1.0e-9).presolve();
+    }
+
+    @Test
+    public void testLargeSparseProblem() throws OptimizationException {
+        // dense rows would take 8 * 50000 bytes each, 2.4 GB for the 60000 rows
+        int n = 50000;
+        Random random = new Random(38);
+        LinearConstraintBuilder builder = new LinearConstraintBuilder(n);
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        double[] c = new double[n];
+        for (int j = 0; j < n; j++) {
+            c[j] = 1 + random.nextInt(9);
+            constraints.add(builder.clear().add(j, 1).build(Relationship.LEQ, 1));
+        }
+        for (int i = 0; i < n / 5; i++) {
+            builder.clear();
+            for (int k = 0; k < 10; k++) {
+                builder.add(random.nextInt(n), 1 + random.nextInt(9));
+            }
+            constraints.add(builder.build(Relationship.LEQ, 10 + random.nextInt(20)));
+        }
+        Presolver presolver = new Presolver(new LinearObjectiveFunction(c, 0), constraints,
+                                            GoalType.MAXIMIZE, null, 1.0e-9);
+        presolver.presolve();
+        // the variables of no row are fixed at 1, the rows stay sparse
+        Assert.assertTrue(presolver.getNumVariables() < n);
+        Assert.assertTrue(presolver.getFixedVariables() > 0);
+        for (LinearConstraint constraint : presolver.getConstraints()) {
+            Assert.assertTrue(constraint.getNonZeroIndices().length <= 10);
+        }
+        // fixing the remaining variables at 0 satisfies the original rows
+        double[] point = presolver.postsolve(new double[presolver.getNumVariables()]);
+        for (LinearConstraint constraint : constraints) {
+            double activity = 0;
+            for (int k = 0; k < constraint.getNonZeroIndices().length; k++) {
+                activity += constraint.getNonZeroValues()[k] * point[constraint.getNonZeroIndices()[k]];
+            }
+            Assert.assertTrue(activity <= constraint.getValue() + 1.0e-9);
+        }
+    }
+
+    @Test
+    public void testCoverCut() throws OptimizationException {
+        // 3 x0 + 3 x1 + 3 x2 <= 7 with binary variables: any two items fit, not three
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 3, 3, 3 }, Relationship.LEQ, 7));
+        for (int j = 0; j < 3; j++) {
+            double[] a = new double[3];
+            a[j] = 1;
+            constraints.add(new LinearConstraint(a, Relationship.LEQ, 1));
+        }
+        Presolver presolver = new Presolver(f, constraints, GoalType.MAXIMIZE, null, 1.0e-9);
+        presolver.presolve();
+        Assert.assertEquals(3, presolver.getNumVariables());
+        List<LinearConstraint> cuts = presolver.separateCoverCuts(new double[] { 1, 1, 1.0 / 3 });
+        Assert.assertEquals(1, cuts.size());
+        LinearConstraint cut = cuts.get(0);
+        Assert.assertEquals(2.0, cut.getValue(), 0);
+        Assert.assertArrayEquals(new double[] { 1, 1, 1 }, cut.getCoefficients().getData(), 0);
+        // the same cut is not generated twice
+        Assert.assertTrue(presolver.separateCoverCuts(new double[] { 1, 1, 1.0 / 3 }).isEmpty());
+    }
+
+    /**
+     * Solve a problem with and without presolve and cuts.
+     * @param f objective function
+     * @param constraints constraints
+     * @param goalType optimization goal
+     * @param expected optimal value
+     * @exception OptimizationException if a solve fails
+     */
+    private static void checkPresolveOnAndOff(final LinearObjectiveFunction f,
+                                              final List<LinearConstraint> constraints,
+                                              final GoalType goalType, final double expected)
+        throws OptimizationException {
+        BranchAndBoundSolver presolved = new BranchAndBoundSolver();
+        RealPointValuePair solution = presolved.optimize(f, constraints, goalType, true);
+        Assert.assertTrue(presolved.isProvenOptimal());
+        Assert.assertEquals(expected, solution.getValue(), 1.0e-9);
+
+        BranchAndBoundSolver plain = new BranchAndBoundSolver();
+        plain.setPresolve(false);
+        plain.setCutRounds(0);
+        Assert.assertEquals(expected, plain.optimize(f, constraints, goalType, true).getValue(), 1.0e-9);
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+/**
+ * Compares the iteration counts and running times of the pricing rules.
+ * <p>
+ * The rules are run on Beale's degenerate example and on generated summary
+ * problems. Arguments: number of sentences and number of problems.
+ * </p>
+ * @see PricingRule
+ * @see SummaryProblemGenerator
+ */
+public class PricingComparison {
+
+    /** Seed of the generated problems, fixed so that runs can be compared. */
+    private static final long SEED = 42;
+
+    /**
+     * Run the comparison.
+     * @param args number of sentences and number of problems
+     */
+    public static void main(final String[] args) {
+
+        final int sentences = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        final int problems  = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("Beale's cycling example");
+        final List<LinearConstraint> beale = new ArrayList<LinearConstraint>();
+        beale.add(new LinearConstraint(new double[] { 0.25, -8, -1, 9 }, Relationship.LEQ, 0));
+        beale.add(new LinearConstraint(new double[] { 0.5, -12, -0.5, 3 }, Relationship.LEQ, 0));
+        beale.add(new LinearConstraint(new double[] { 0, 0, 1, 0 }, Relationship.LEQ, 1));
+        compare(new LinearProblem(new LinearObjectiveFunction(new double[] { -0.75, 20, -0.5, 6 }, 0),
+                                  beale, GoalType.MINIMIZE, true));
+
+        final SummaryProblemGenerator generator = new SummaryProblemGenerator(SEED);
+        for (int p = 0; p < problems; ++p) {
+            for (final SummaryProblemGenerator.Density density : SummaryProblemGenerator.Density.values()) {
+                System.out.println("Summary problem " + p + ", " + density.name().toLowerCase() +
+                                   ", " + sentences + " sentences");
+                compare(generator.generate(sentences, density));
+            }
+        }
+
+    }
+
+    /**
+     * Solve a problem with every pricing rule and print one line per rule.
+     * @param problem problem to solve
+     */
+    private static void compare(final LinearProblem problem) {
+        for (final PricingRule rule : PricingRule.values()) {
+            final SimplexSolver solver = new SimplexSolver();
+            solver.setPricingRule(rule);
+            solver.setMaxIterations(100000);
+            final long start = System.nanoTime();
+            String result;
+            try {
+                final RealPointValuePair solution = problem.isBounded() ?
+                    solver.optimize(problem.getObjectiveFunction(), problem.getConstraints(),
+                                    problem.getGoalType(), problem.getLowerBounds(), problem.getUpperBounds()) :
+                    solver.optimize(problem.getObjectiveFunction(), problem.getConstraints(),
+                                    problem.getGoalType(), problem.isRestrictedToNonNegative());
+                result = "value " + solution.getValue();
+            } catch (OptimizationException e) {
+                result = e.getMessage();
+            }
+            final long micros = (System.nanoTime() - start) / 1000;
+            System.out.println(String.format("  %-14s %8d iterations %10d us  %s",
+                                             rule, solver.getIterations(), micros, result));
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PricingRuleTest {
+
+    @Test
+    public void testBealeExampleTerminatesWithEveryRule() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { -0.75, 20, -0.5, 6 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 0.25, -8, -1, 9 }, Relationship.LEQ, 0));
+        constraints.add(new LinearConstraint(new double[] { 0.5, -12, -0.5, 3 }, Relationship.LEQ, 0));
+        constraints.add(new LinearConstraint(new double[] { 0, 0, 1, 0 }, Relationship.LEQ, 1));
+        for (PricingRule rule : PricingRule.values()) {
+            SimplexSolver solver = new SimplexSolver();
+            solver.setPricingRule(rule);
+            Assert.assertEquals(rule.toString(), -1.25,
+                                solver.optimize(f, constraints, GoalType.MINIMIZE, true).getValue(), 1.0e-10);
+        }
+    }
+
+    @Test
+    public void testEveryRuleReachesTheOptimum() throws OptimizationException {
+        Random random = new Random(39);
+        for (int k = 0; k < 300; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(5));
+            for (PricingRule rule : PricingRule.values()) {
+                SimplexSolver solver = new SimplexSolver();
+                solver.setPricingRule(rule);
+                problem.check(solver);
+            }
+        }
+    }
+
+    @Test
+    public void testWeightedRulesOnWideProblems() throws OptimizationException {
+        // enough pivots for the weights to be updated many times
+        Random random = new Random(390);
+        for (int k = 0; k < 30; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 30, 15);
+            Double expected = solve(PricingRule.DANTZIG, problem);
+            for (PricingRule rule : new PricingRule[] { PricingRule.DEVEX, PricingRule.STEEPEST_EDGE,
+                                                        PricingRule.PARTIAL, PricingRule.BLAND }) {
+                Double actual = solve(rule, problem);
+                if (expected == null) {
+                    Assert.assertNull(rule.toString(), actual);
+                } else {
+                    Assert.assertEquals(rule.toString(), expected.doubleValue(), actual.doubleValue(), 1.0e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultRule() {
+        Assert.assertEquals(PricingRule.DANTZIG, new SimplexSolver().getPricingRule());
+    }
+
+    /**
+     * Solve a problem with a pricing rule.
+     * @param rule pricing rule
+     * @param problem problem to solve
+     * @return optimal value, null if the problem is infeasible
+     * @exception OptimizationException if the solver fails unexpectedly
+     */
+    private static Double solve(PricingRule rule, LinearProblems problem)
+        throws OptimizationException {
+        SimplexSolver solver = new SimplexSolver();
+        solver.setPricingRule(rule);
+        solver.setMaxIterations(100000);
+        try {
+            return solver.optimize(problem.f, problem.constraints, problem.goalType, true).getValue();
+        } catch (NoFeasibleSolutionException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RevisedSimplexSolverTest {
+
+    @Test
+    public void testMaximize() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 3, 5 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 0, 2 }, Relationship.LEQ, 12));
+        constraints.add(new LinearConstraint(new double[] { 3, 2 }, Relationship.LEQ, 18));
+        RealPointValuePair solution = new RevisedSimplexSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+        Assert.assertEquals(36.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 2, 6 }, solution.getPoint(), 1.0e-10);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasible() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 2));
+        new RevisedSimplexSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnbounded() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 1));
+        new RevisedSimplexSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+    }
+
+    @Test
+    public void testRandomProblemsAgainstVertexEnumeration() throws OptimizationException {
+        Random random = new Random(37);
+        for (int k = 0; k < 500; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(5));
+            problem.check(new RevisedSimplexSolver());
+        }
+    }
+
+    @Test
+    public void testRefactorizationFrequencyDoesNotChangeTheOptimum() throws OptimizationException {
+        // many more columns than rows, as in the summary selection problems
+        Random random = new Random(370);
+        for (int k = 0; k < 50; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 40, 8);
+            RevisedSimplexSolver everyPivot = new RevisedSimplexSolver();
+            everyPivot.setRefactorizationFrequency(1);
+            RevisedSimplexSolver rarely = new RevisedSimplexSolver();
+            rarely.setRefactorizationFrequency(1000);
+            Double expected = solve(new SimplexSolver(), problem);
+            Double actual1 = solve(everyPivot, problem);
+            Double actual2 = solve(rarely, problem);
+            if (expected == null) {
+                Assert.assertNull(actual1);
+                Assert.assertNull(actual2);
+            } else {
+                Assert.assertEquals(expected.doubleValue(), actual1.doubleValue(), 1.0e-6);
+                Assert.assertEquals(expected.doubleValue(), actual2.doubleValue(), 1.0e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testDegenerateProblemsDoNotCycle() throws OptimizationException {
+        // the most negative reduced cost alone cycles on several of these
+        Random random = new Random(41);
+        for (int k = 0; k < 10; k++) {
+            LinearProblems problem = LinearProblems.degenerate(random, 40);
+            SimplexSolver bland = new SimplexSolver();
+            bland.setPricingRule(PricingRule.BLAND);
+            bland.setMaxIterations(100000);
+            Assert.assertEquals(solve(bland, problem).doubleValue(),
+                                solve(new RevisedSimplexSolver(), problem).doubleValue(), 1.0e-6);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRefactorizationFrequency() {
+        new RevisedSimplexSolver().setRefactorizationFrequency(0);
+    }
+
+    /**
+     * Solve a problem.
+     * @param solver solver to use
+     * @param problem problem to solve
+     * @return optimal value, null if the problem is infeasible
+     * @exception OptimizationException if the solver fails unexpectedly
+     */
+    private static Double solve(AbstractLinearOptimizer solver, LinearProblems problem)
+        throws OptimizationException {
+        solver.setMaxIterations(10000);
+        try {
+            return solver.optimize(problem.f, problem.constraints, problem.goalType, true).getValue();
+        } catch (NoFeasibleSolutionException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SimplexSessionTest {
+
+    @Test
+    public void testKnownOptimumThenNewRightHandSide() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 3, 5 }, 0);
+        LinearConstraint c1 = new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 4);
+        LinearConstraint c2 = new LinearConstraint(new double[] { 0, 2 }, Relationship.LEQ, 12);
+        LinearConstraint c3 = new LinearConstraint(new double[] { 3, 2 }, Relationship.LEQ, 18);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(c1);
+        constraints.add(c2);
+        constraints.add(c3);
+        SimplexSession session = new SimplexSession(f, constraints, GoalType.MAXIMIZE);
+        RealPointValuePair solution = session.optimize();
+        Assert.assertEquals(36.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 2, 6 }, solution.getPoint(), 1.0e-10);
+
+        // a tighter budget keeps the basis dual feasible: a single dual pivot
+        LinearConstraint tighter = new LinearConstraint(new double[] { 3, 2 }, Relationship.LEQ, 15);
+        Assert.assertTrue(session.replaceConstraint(c3, tighter));
+        solution = session.optimize();
+        Assert.assertEquals(33.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 1, 6 }, solution.getPoint(), 1.0e-10);
+        Assert.assertTrue(session.getIterations() <= 1);
+
+        Assert.assertFalse(session.removeConstraint(c3));
+        Assert.assertTrue(session.removeConstraint(c2));
+        solution = session.optimize();
+        Assert.assertEquals(37.5, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 0, 7.5 }, solution.getPoint(), 1.0e-10);
+    }
+
+    @Test
+    public void testInfeasibleEditCanBeUndone() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        LinearConstraint budget = new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 4);
+        SimplexSession session = new SimplexSession(f, GoalType.MAXIMIZE);
+        session.addConstraint(budget);
+        Assert.assertEquals(4.0, session.optimize().getValue(), 1.0e-10);
+        LinearConstraint impossible = new LinearConstraint(new double[] { 1, 0 }, Relationship.GEQ, 5);
+        session.addConstraint(impossible);
+        try {
+            session.optimize();
+            Assert.fail("an exception should have been thrown");
+        } catch (NoFeasibleSolutionException e) {
+            // expected
+        }
+        session.removeConstraint(impossible);
+        Assert.assertEquals(4.0, session.optimize().getValue(), 1.0e-10);
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnbounded() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        SimplexSession session = new SimplexSession(f, GoalType.MAXIMIZE);
+        session.addConstraint(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 1));
+        session.optimize();
+    }
+
+    @Test
+    public void testWarmStartEqualsColdSolve() throws OptimizationException {
+        Random random = new Random(40);
+        for (int k = 0; k < 100; k++) {
+            int n = 1 + random.nextInt(4);
+            LinearProblems problem = LinearProblems.generate(random, n, 1 + random.nextInt(4));
+            List<LinearConstraint> constraints = new ArrayList<LinearConstraint>(problem.constraints);
+            List<LinearConstraint> box =
+                new ArrayList<LinearConstraint>(constraints.subList(constraints.size() - n, constraints.size()));
+            LinearObjectiveFunction f = problem.f;
+            GoalType goalType = problem.goalType;
+            SimplexSession session = new SimplexSession(f, constraints, goalType);
+            for (int edit = 0; edit < 10; edit++) {
+                check(session, new LinearProblems(f, constraints, goalType));
+                int kind = random.nextInt(4);
+                if (kind == 0) {
+                    // new right hand side, the box always stays
+                    int i = random.nextInt(constraints.size());
+                    LinearConstraint old = constraints.get(i);
+                    if (!box.contains(old)) {
+                        LinearConstraint replacement =
+                            new LinearConstraint(old.getCoefficients(), old.getRelationship(),
+                                                 random.nextInt(21) - 5);
+                        Assert.assertTrue(session.replaceConstraint(old, replacement));
+                        constraints.set(i, replacement);
+                    }
+                } else if (kind == 1) {
+                    // new constraint
+                    LinearConstraint added = LinearProblems.generate(random, n, 1).constraints.get(0);
+                    session.addConstraint(added);
+                    constraints.add(added);
+                } else if (kind == 2) {
+                    // removed constraint, the box always stays
+                    int i = random.nextInt(constraints.size());
+                    if (!box.contains(constraints.get(i))) {
+                        // by index, the session identifies constraints by reference
+                        Assert.assertTrue(session.removeConstraint(constraints.remove(i)));
+                    }
+                } else {
+                    // new objective function
+                    f = LinearProblems.generate(random, n, 0).f;
+                    goalType = random.nextBoolean() ? GoalType.MAXIMIZE : GoalType.MINIMIZE;
+                    session.setObjectiveFunction(f, goalType);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBasisCanBeRestored() throws OptimizationException {
+        Random random = new Random(400);
+        for (int k = 0; k < 50; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 8, 6);
+            SimplexSession first = new SimplexSession(problem.f, problem.constraints, problem.goalType);
+            Double expected;
+            try {
+                expected = first.optimize().getValue();
+            } catch (NoFeasibleSolutionException e) {
+                continue;
+            }
+            SimplexSession second = new SimplexSession(problem.f, problem.constraints, problem.goalType);
+            second.setBasis(first.getBasis());
+            Assert.assertEquals(expected.doubleValue(), second.optimize().getValue(), 1.0e-9);
+            Assert.assertEquals(0, second.getIterations());
+        }
+    }
+
+    @Test
+    public void testDegenerateProblemsDoNotCycle() throws OptimizationException {
+        // the most negative reduced cost alone cycles on several of these
+        Random random = new Random(41);
+        for (int k = 0; k < 10; k++) {
+            LinearProblems problem = LinearProblems.degenerate(random, 40);
+            SimplexSolver bland = new SimplexSolver();
+            bland.setPricingRule(PricingRule.BLAND);
+            bland.setMaxIterations(100000);
+            double expected = bland.optimize(problem.f, problem.constraints, problem.goalType, true).getValue();
+            SimplexSession session = new SimplexSession(problem.f, problem.constraints, problem.goalType);
+            Assert.assertEquals(expected, session.optimize().getValue(), 1.0e-6);
+        }
+    }
+
+    /**
+     * Solve the session and compare with the vertex enumeration optimum.
+     * @param session session to solve
+     * @param problem same problem as the session
+     * @exception OptimizationException if the session fails unexpectedly
+     */
+    private static void check(SimplexSession session, LinearProblems problem)
+        throws OptimizationException {
+        Double expected = problem.bruteForce();
+        try {
+            RealPointValuePair solution = session.optimize();
+            Assert.assertNotNull("session found a solution to an infeasible problem", expected);
+            Assert.assertEquals(expected.doubleValue(), solution.getValue(), 1.0e-6);
+            Assert.assertTrue(problem.isFeasible(solution.getPoint(), 1.0e-6));
+        } catch (NoFeasibleSolutionException e) {
+            Assert.assertNull("session missed the optimum " + expected, expected);
+        }
+    }
+
+}
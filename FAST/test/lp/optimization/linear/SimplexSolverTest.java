@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SimplexSolverTest {
+
+    @Test
+    public void testMaximize() throws OptimizationException {
+        // max 3x + 5y, x <= 4, 2y <= 12, 3x + 2y <= 18: optimum (2, 6)
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 3, 5 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 0, 2 }, Relationship.LEQ, 12));
+        constraints.add(new LinearConstraint(new double[] { 3, 2 }, Relationship.LEQ, 18));
+        RealPointValuePair solution = new SimplexSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+        Assert.assertEquals(36.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 2, 6 }, solution.getPoint(), 1.0e-10);
+    }
+
+    @Test
+    public void testMinimizeWithEqualityAndFreeVariables() throws OptimizationException {
+        // min x + 2y + 3, x + y = 1, x - y <= 3, free variables: optimum (2, -1)
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 2 }, 3);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.EQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 3));
+        RealPointValuePair solution = new SimplexSolver().optimize(f, constraints, GoalType.MINIMIZE, false);
+        Assert.assertEquals(3.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 2, -1 }, solution.getPoint(), 1.0e-10);
+    }
+
+    @Test
+    public void testDegenerateProblem() throws OptimizationException {
+        // Beale's example, which cycles with a naive most negative coefficient rule
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { -0.75, 20, -0.5, 6 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 0.25, -8, -1, 9 }, Relationship.LEQ, 0));
+        constraints.add(new LinearConstraint(new double[] { 0.5, -12, -0.5, 3 }, Relationship.LEQ, 0));
+        constraints.add(new LinearConstraint(new double[] { 0, 0, 1, 0 }, Relationship.LEQ, 1));
+        Assert.assertEquals(-1.25, new SimplexSolver().optimize(f, constraints, GoalType.MINIMIZE, true).getValue(), 1.0e-10);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasible() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 2));
+        new SimplexSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnbounded() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, -1 }, Relationship.LEQ, 1));
+        new SimplexSolver().optimize(f, constraints, GoalType.MAXIMIZE, true);
+    }
+
+    @Test
+    public void testRandomProblemsAgainstVertexEnumeration() throws OptimizationException {
+        Random random = new Random(36);
+        for (int k = 0; k < 500; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 1 + random.nextInt(4), 1 + random.nextInt(5));
+            problem.check(new SimplexSolver());
+        }
+    }
+
+    @Test
+    public void testSparseRowsArePivotedLikeDenseOnes() {
+        // the pivot skips the zero entries of the pivot row and column
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1, 0 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0, 2 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 0, 1, 0 }, Relationship.LEQ, 3));
+        SimplexTableau tableau = new SimplexTableau(f, constraints, GoalType.MAXIMIZE, true, 1.0e-6);
+        int width = tableau.getWidth();
+        double[][] before = new double[tableau.getHeight()][width];
+        for (int i = 0; i < before.length; i++) {
+            for (int j = 0; j < width; j++) {
+                before[i][j] = tableau.getEntry(i, j);
+            }
+        }
+        int row = tableau.getNumObjectiveFunctions();
+        int col = tableau.getNumObjectiveFunctions();
+        tableau.pivot(row, col);
+        double pivot = before[row][col];
+        for (int i = 0; i < before.length; i++) {
+            for (int j = 0; j < width; j++) {
+                double expected = (i == row) ? before[i][j] / pivot :
+                                  before[i][j] - before[i][col] * before[row][j] / pivot;
+                Assert.assertEquals(expected, tableau.getEntry(i, j), 1.0e-12);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SimplexTableauTest {
+
+    @Test
+    public void testInitialBasis() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 2 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 3, 1 }, Relationship.GEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.EQ, 2));
+        SimplexTableau tableau = new SimplexTableau(f, constraints, GoalType.MAXIMIZE, true, 1.0e-6);
+        checkBasis(tableau);
+        // phase 1 tableau: two objective rows, slack of the first row, artificial variables of the others
+        Assert.assertEquals(2, tableau.getNumObjectiveFunctions());
+        Assert.assertEquals(tableau.getSlackVariableOffset(), tableau.getBasicColumn(2));
+        Assert.assertEquals(tableau.getArtificialVariableOffset(), tableau.getBasicColumn(3));
+        Assert.assertEquals(tableau.getArtificialVariableOffset() + 1, tableau.getBasicColumn(4));
+        Assert.assertEquals(-1, tableau.getBasicRow(0));
+        Assert.assertEquals(-1, tableau.getBasicRow(2));
+    }
+
+    @Test
+    public void testBasisFollowsPivotsAndDiscardedColumns() throws OptimizationException {
+        Random random = new Random(41);
+        int checks = 0;
+        for (int k = 0; k < 300; k++) {
+            LinearProblems problem = LinearProblems.generate(random, 1 + random.nextInt(5), 1 + random.nextInt(6));
+            CheckingSolver solver = new CheckingSolver();
+            problem.check(solver);
+            checks += solver.checks;
+        }
+        Assert.assertTrue(checks > 300);
+    }
+
+    @Test
+    public void testRedundantEqualityIsRemoved() throws OptimizationException {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 2 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.EQ, 2));
+        constraints.add(new LinearConstraint(new double[] { 2, 2 }, Relationship.EQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 2));
+        CheckingSolver solver = new CheckingSolver();
+        RealPointValuePair solution = solver.optimize(f, constraints, GoalType.MAXIMIZE, true);
+        Assert.assertEquals(4.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 0, 2 }, solution.getPoint(), 1.0e-10);
+    }
+
+    /**
+     * Check that the basis arrays describe the unit columns of the tableau.
+     * @param tableau tableau to check
+     */
+    static void checkBasis(SimplexTableau tableau) {
+        int first = tableau.getNumObjectiveFunctions();
+        for (int row = 0; row < first; row++) {
+            Assert.assertEquals(-1, tableau.getBasicColumn(row));
+        }
+        for (int row = first; row < tableau.getHeight(); row++) {
+            int col = tableau.getBasicColumn(row);
+            Assert.assertTrue(col >= first && col < tableau.getWidth() - 1);
+            Assert.assertEquals(row, tableau.getBasicRow(col));
+            for (int i = 0; i < tableau.getHeight(); i++) {
+                Assert.assertEquals((i == row) ? 1.0 : 0.0, tableau.getEntry(i, col), 1.0e-9);
+            }
+        }
+        int basicCount = 0;
+        for (int col = 0; col < tableau.getWidth() - 1; col++) {
+            int row = tableau.getBasicRow(col);
+            if (row >= 0) {
+                Assert.assertEquals(col, tableau.getBasicColumn(row));
+                ++basicCount;
+            }
+        }
+        Assert.assertEquals(tableau.getHeight() - first, basicCount);
+    }
+
+    /** Simplex solver checking the basis after each iteration and at the start of phase 2. */
+    private static class CheckingSolver extends SimplexSolver {
+
+        /** Number of checks done. */
+        int checks;
+
+        @Override
+        protected void doIteration(final SimplexTableau tableau) throws OptimizationException {
+            super.doIteration(tableau);
+            checkBasis(tableau);
+            ++checks;
+        }
+
+        @Override
+        protected RealPointValuePair solvePhase2(final SimplexTableau tableau) throws OptimizationException {
+            checkBasis(tableau);
+            ++checks;
+            return super.solvePhase2(tableau);
+        }
+
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SolveControlTest {
+
+    @Test
+    public void testProgressIsReported() throws OptimizationException {
+        final List<Integer> iterations = new ArrayList<Integer>();
+        final List<Boolean> feasibility = new ArrayList<Boolean>();
+        final List<Double> values = new ArrayList<Double>();
+        SimplexSolver solver = new SimplexSolver();
+        solver.setProgressListener(new ProgressListener() {
+            public void iterationPerformed(int iteration, boolean feasible, double value) {
+                iterations.add(iteration);
+                feasibility.add(feasible);
+                values.add(value);
+            }
+        });
+        RealPointValuePair solution = solver.optimize(new LinearObjectiveFunction(new double[] { 1, 1 }, 0),
+                                                      phase1Constraints(), GoalType.MAXIMIZE, true);
+        Assert.assertEquals(SolveStatus.OPTIMAL, solver.getStatus());
+        Assert.assertEquals(solver.getIterations(), iterations.size());
+        for (int k = 0; k < iterations.size(); k++) {
+            Assert.assertEquals(k + 1, iterations.get(k).intValue());
+        }
+        // phase 1 comes first, once feasible the solver stays feasible and improves
+        Assert.assertFalse(feasibility.get(0));
+        int firstFeasible = feasibility.indexOf(Boolean.TRUE);
+        Assert.assertTrue(firstFeasible > 0);
+        for (int k = firstFeasible; k < feasibility.size(); k++) {
+            Assert.assertTrue(feasibility.get(k));
+            if (k > firstFeasible) {
+                Assert.assertTrue(values.get(k) >= values.get(k - 1) - 1.0e-10);
+            }
+        }
+        Assert.assertEquals(solution.getValue(), values.get(values.size() - 1), 1.0e-10);
+    }
+
+    @Test
+    public void testCancellationAfterFeasibility() throws OptimizationException {
+        final CancellationToken token = new CancellationToken();
+        SimplexSolver solver = new SimplexSolver();
+        solver.setCancellationToken(token);
+        solver.setProgressListener(new ProgressListener() {
+            public void iterationPerformed(int iteration, boolean feasible, double value) {
+                if (feasible) {
+                    token.cancel();
+                }
+            }
+        });
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = phase1Constraints();
+        RealPointValuePair solution = solver.optimize(f, constraints, GoalType.MAXIMIZE, true);
+        Assert.assertEquals(SolveStatus.CANCELLED, solver.getStatus());
+        Assert.assertTrue(new LinearProblems(f, new ArrayList<LinearConstraint>(constraints), GoalType.MAXIMIZE).
+                          isFeasible(solution.getPoint(), 1.0e-10));
+        Assert.assertTrue(solution.getValue() < 10);
+    }
+
+    @Test
+    public void testCancellationBeforeFeasibility() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        SimplexSolver solver = new SimplexSolver();
+        solver.setCancellationToken(token);
+        try {
+            solver.optimize(new LinearObjectiveFunction(new double[] { 1, 1 }, 0),
+                            phase1Constraints(), GoalType.MAXIMIZE, true);
+            Assert.fail("an exception should have been thrown");
+        } catch (OptimizationException e) {
+            Assert.assertNull(solver.getStatus());
+            Assert.assertEquals(0, solver.getIterations());
+        }
+    }
+
+    @Test
+    public void testTimeLimit() throws OptimizationException {
+        SimplexSolver solver = new SimplexSolver();
+        solver.setTimeLimit(1);
+        solver.setProgressListener(new ProgressListener() {
+            public void iterationPerformed(int iteration, boolean feasible, double value) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        // only inequalities: the slack basis is feasible, there is no phase 1
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.LEQ, 6));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 8));
+        RealPointValuePair solution = solver.optimize(new LinearObjectiveFunction(new double[] { 1, 2 }, 0),
+                                                      constraints, GoalType.MAXIMIZE, true);
+        Assert.assertEquals(SolveStatus.TIME_LIMIT_REACHED, solver.getStatus());
+        Assert.assertTrue(solver.getIterations() < 3);
+        Assert.assertTrue(solution.getValue() < 14);
+
+        // the limit applies to each solve, without it the optimum is reached
+        solver.setTimeLimit(0);
+        Assert.assertEquals(14.0, solver.optimize(new LinearObjectiveFunction(new double[] { 1, 2 }, 0),
+                                                  constraints, GoalType.MAXIMIZE, true).getValue(), 1.0e-10);
+        Assert.assertEquals(SolveStatus.OPTIMAL, solver.getStatus());
+    }
+
+    @Test
+    public void testResultStatus() throws OptimizationException {
+        final CancellationToken token = new CancellationToken();
+        SimplexSolver solver = new SimplexSolver();
+        LinearProblem problem = new LinearProblem(new LinearObjectiveFunction(new double[] { 1, 1 }, 0),
+                                                  phase1Constraints(), GoalType.MAXIMIZE, true);
+        LinearOptimizationResult result = solver.solve(problem);
+        Assert.assertEquals(SolveStatus.OPTIMAL, result.getStatus());
+        Assert.assertEquals(10.0, result.getSolution().getValue(), 1.0e-10);
+
+        // the status of the copy that ran the solve reaches the result
+        solver.setCancellationToken(token);
+        solver.setProgressListener(new ProgressListener() {
+            public void iterationPerformed(int iteration, boolean feasible, double value) {
+                if (feasible) {
+                    token.cancel();
+                }
+            }
+        });
+        result = solver.solve(problem);
+        Assert.assertEquals(SolveStatus.CANCELLED, result.getStatus());
+        Assert.assertTrue(result.getSolution().getValue() < 10);
+        Assert.assertNull(solver.getStatus());
+
+        // a failed solve has no status
+        for (LinearOptimizationResult failed : solver.solveAll(Collections.singletonList(problem), 1)) {
+            Assert.assertNull(failed.getStatus());
+            Assert.assertNotNull(failed.getFailure());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTimeLimit() {
+        new SimplexSolver().setTimeLimit(-1);
+    }
+
+    @Test
+    public void testCancelledBatch() throws OptimizationException {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        SimplexSolver solver = new SimplexSolver();
+        solver.setCancellationToken(token);
+        List<LinearProblem> problems = new ArrayList<LinearProblem>();
+        for (int k = 0; k < 10; k++) {
+            problems.add(new LinearProblem(new LinearObjectiveFunction(new double[] { 1, 1 }, 0),
+                                           phase1Constraints(), GoalType.MAXIMIZE, true));
+        }
+        for (LinearOptimizationResult result : solver.solveAll(problems, 3)) {
+            Assert.assertFalse(result.isSolved());
+            Assert.assertNotNull(result.getFailure());
+        }
+    }
+
+    /**
+     * Constraints the slack basis does not satisfy: max x + y is 10 at (4, 6).
+     * @return constraints needing a phase 1
+     */
+    private static Collection<LinearConstraint> phase1Constraints() {
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 2));
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 4));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.LEQ, 6));
+        return constraints;
+    }
+
+}
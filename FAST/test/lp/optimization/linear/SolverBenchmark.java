@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lp.optimization.OptimizationException;
+
+/**
+ * Benchmarks the simplex solver on generated summary problems.
+ * <p>
+ * Full solves go through {@link SimplexSolver#optimize(LinearObjectiveFunction,
+ * java.util.Collection, lp.optimization.GoalType, double[], double[]) optimize},
+ * the tableau creation, a single phase 2 iteration and the solution
+ * extraction are also measured on their own. Each benchmark uses its own
+ * solver. The throughput and the allocation rate of each benchmark are
+ * printed, one line per benchmark.
+ * </p>
+ * <p>
+ * Arguments: comma separated sizes, warmup iterations, measurement
+ * iterations and the duration of an iteration in milliseconds.
+ * </p>
+ * @see BenchmarkRunner
+ * @see SummaryProblemGenerator
+ */
+public class SolverBenchmark {
+
+    /** Seed of the generated problems, fixed so that runs can be compared. */
+    private static final long SEED = 42;
+
+    /**
+     * Run the benchmarks.
+     * @param args sizes, warmup iterations, measurement iterations and iteration duration
+     * @exception Exception if a benchmark fails
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final String sizes   = (args.length > 0) ? args[0] : "50,200,800";
+        final int warmup     = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+        final int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+        final long millis    = (args.length > 3) ? Long.parseLong(args[3]) : 1000;
+
+        final List<BenchmarkRunner.Benchmark> benchmarks = new ArrayList<BenchmarkRunner.Benchmark>();
+        for (final String size : sizes.split(",")) {
+            final int sentences = Integer.parseInt(size.trim());
+            for (final SummaryProblemGenerator.Density density : SummaryProblemGenerator.Density.values()) {
+                final LinearProblem problem = new SummaryProblemGenerator(SEED).generate(sentences, density);
+                final String suffix = "(" + density.name().toLowerCase() + ", n=" + sentences + ")";
+                benchmarks.add(optimize("optimize" + suffix, problem));
+                benchmarks.add(createTableau("createTableau" + suffix, problem));
+                final BenchmarkRunner.Benchmark iteration = doIteration("doIteration" + suffix, problem);
+                if (iteration != null) {
+                    benchmarks.add(iteration);
+                }
+                benchmarks.add(getSolution("getSolution" + suffix, problem));
+            }
+        }
+
+        final BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, millis);
+        System.out.println(BenchmarkRunner.getHeader());
+        for (final BenchmarkRunner.Benchmark benchmark : benchmarks) {
+            System.out.println(BenchmarkRunner.format(benchmark.getName(), runner.run(benchmark)));
+        }
+
+    }
+
+    /**
+     * Build a solver for one benchmark.
+     * @return solver without iteration limit
+     */
+    static SimplexSolver newSolver() {
+        final SimplexSolver solver = new SimplexSolver();
+        solver.setMaxIterations(Integer.MAX_VALUE);
+        return solver;
+    }
+
+    /**
+     * Start a solve and build its initial tableau, scaling included.
+     * @param solver solver providing the tolerance and the scaling method
+     * @param problem problem to solve
+     * @return initial tableau
+     */
+    static SimplexTableau createTableau(final SimplexSolver solver, final LinearProblem problem) {
+        solver.startSolve();
+        if (!problem.isBounded()) {
+            return new SimplexTableau(problem.getObjectiveFunction(), problem.getConstraints(),
+                                      problem.getGoalType(), problem.isRestrictedToNonNegative(),
+                                      solver.epsilon, false, solver.getScalingMethod());
+        }
+        return new SimplexTableau(problem.getObjectiveFunction(), problem.getConstraints(),
+                                  problem.getGoalType(), problem.getLowerBounds(), problem.getUpperBounds(),
+                                  solver.epsilon, solver.getScalingMethod());
+    }
+
+    /**
+     * Build the initial tableau of a problem and run phase 1 on it.
+     * @param solver solver
+     * @param problem problem to solve
+     * @return feasible tableau, without artificial variables
+     * @exception OptimizationException if the problem has no feasible solution
+     */
+    static SimplexTableau createFeasibleTableau(final SimplexSolver solver, final LinearProblem problem)
+        throws OptimizationException {
+        final SimplexTableau tableau = createTableau(solver, problem);
+        solver.solvePhase1(tableau);
+        tableau.discardArtificialVariables();
+        return tableau;
+    }
+
+    /**
+     * Solve a problem step by step.
+     * @param solver solver
+     * @param problem problem to solve
+     * @return optimal tableau
+     * @exception OptimizationException if the problem has no feasible solution or is unbounded
+     */
+    static SimplexTableau createOptimalTableau(final SimplexSolver solver, final LinearProblem problem)
+        throws OptimizationException {
+        final SimplexTableau tableau = createFeasibleTableau(solver, problem);
+        while (!solver.isOptimal(tableau)) {
+            solver.doIteration(tableau);
+        }
+        return tableau;
+    }
+
+    /**
+     * Benchmark a whole solve, as the summary selector does it.
+     * @param name name of the benchmark
+     * @param problem problem to solve
+     * @return benchmark
+     */
+    private static BenchmarkRunner.Benchmark optimize(final String name, final LinearProblem problem) {
+        final SimplexSolver solver = newSolver();
+        return new BenchmarkRunner.Benchmark(name) {
+            Object run() throws OptimizationException {
+                return solver.optimize(problem.getObjectiveFunction(), problem.getConstraints(),
+                                       problem.getGoalType(), problem.getLowerBounds(), problem.getUpperBounds());
+            }
+        };
+    }
+
+    /**
+     * Benchmark the creation of the initial tableau.
+     * @param name name of the benchmark
+     * @param problem problem to solve
+     * @return benchmark
+     */
+    private static BenchmarkRunner.Benchmark createTableau(final String name, final LinearProblem problem) {
+        final SimplexSolver solver = newSolver();
+        return new BenchmarkRunner.Benchmark(name) {
+            Object run() {
+                return createTableau(solver, problem);
+            }
+        };
+    }
+
+    /**
+     * Benchmark one phase 2 iteration.
+     * <p>
+     * The iterations follow the path of a whole solve: a new feasible tableau
+     * is built outside of the measurement each time the previous one is
+     * optimal, so a batch holds at most the iterations left on the tableau.
+     * </p>
+     * @param name name of the benchmark
+     * @param problem problem to solve
+     * @return benchmark, null if the feasible tableau is already optimal
+     * @exception OptimizationException if the problem cannot be solved
+     */
+    private static BenchmarkRunner.Benchmark doIteration(final String name, final LinearProblem problem)
+        throws OptimizationException {
+
+        final SimplexSolver solver = newSolver();
+        final SimplexTableau first = createFeasibleTableau(solver, problem);
+        int n = 0;
+        while (!solver.isOptimal(first)) {
+            solver.doIteration(first);
+            ++n;
+        }
+        if (n == 0) {
+            return null;
+        }
+        final int iterations = n;
+
+        return new BenchmarkRunner.Benchmark(name) {
+
+            /** Tableau being pivoted. */
+            private SimplexTableau tableau;
+
+            /** Number of iterations left before the tableau is optimal. */
+            private int remaining;
+
+            int prepare(final int count) throws OptimizationException {
+                if (remaining == 0) {
+                    tableau   = createFeasibleTableau(solver, problem);
+                    remaining = iterations;
+                }
+                return Math.min(count, remaining);
+            }
+
+            Object run() throws OptimizationException {
+                solver.doIteration(tableau);
+                --remaining;
+                return tableau;
+            }
+
+        };
+
+    }
+
+    /**
+     * Benchmark the extraction of the solution of an optimal tableau.
+     * <p>
+     * The optimal tableau is computed once, when the benchmark is built.
+     * </p>
+     * @param name name of the benchmark
+     * @param problem problem to solve
+     * @return benchmark
+     * @exception OptimizationException if the problem cannot be solved
+     */
+    private static BenchmarkRunner.Benchmark getSolution(final String name, final LinearProblem problem)
+        throws OptimizationException {
+        final SimplexTableau tableau = createOptimalTableau(newSolver(), problem);
+        return new BenchmarkRunner.Benchmark(name) {
+            Object run() {
+                return tableau.getSolution();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SolverBenchmarkTest {
+
+    @Test
+    public void testGeneratorIsReproducible() {
+        for (final SummaryProblemGenerator.Density density : SummaryProblemGenerator.Density.values()) {
+            LinearProblem p1 = new SummaryProblemGenerator(42).generate(100, density);
+            LinearProblem p2 = new SummaryProblemGenerator(42).generate(100, density);
+            Assert.assertEquals(p1.getObjectiveFunction(), p2.getObjectiveFunction());
+            Assert.assertEquals(p1.getConstraints(), p2.getConstraints());
+            Assert.assertArrayEquals(new double[100], p1.getLowerBounds(), 0);
+            for (double u : p1.getUpperBounds()) {
+                Assert.assertEquals(1.0, u, 0);
+            }
+            // the length budget covers every sentence, the pairs two of them
+            Assert.assertEquals(100, p1.getConstraints().get(0).getNonZeroIndices().length);
+            Assert.assertEquals(2, p1.getConstraints().get(1).getNonZeroIndices().length);
+        }
+        LinearProblem sparse = new SummaryProblemGenerator(42).generate(100, SummaryProblemGenerator.Density.SPARSE);
+        LinearProblem dense  = new SummaryProblemGenerator(42).generate(100, SummaryProblemGenerator.Density.DENSE);
+        Assert.assertEquals(sparse.getConstraints().size() + 10, dense.getConstraints().size());
+    }
+
+    @Test
+    public void testStepsReachTheOptimum() throws OptimizationException {
+        for (final SummaryProblemGenerator.Density density : SummaryProblemGenerator.Density.values()) {
+            for (int n = 10; n <= 200; n *= 2) {
+                LinearProblem problem = new SummaryProblemGenerator(n).generate(n, density);
+                RealPointValuePair expected =
+                    new SimplexSolver().optimize(problem.getObjectiveFunction(), problem.getConstraints(),
+                                                 problem.getGoalType(),
+                                                 problem.getLowerBounds(), problem.getUpperBounds());
+                SimplexSolver solver = SolverBenchmark.newSolver();
+                SimplexTableau tableau = SolverBenchmark.createOptimalTableau(solver, problem);
+                Assert.assertTrue(solver.isOptimal(tableau));
+                Assert.assertEquals(expected.getValue(), tableau.getSolution().getValue(), 1.0e-9);
+                // extracting the solution leaves the tableau unchanged
+                Assert.assertArrayEquals(tableau.getSolution().getPoint(), tableau.getSolution().getPoint(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        final int[] calls = new int[3];
+        BenchmarkRunner.Benchmark benchmark = new BenchmarkRunner.Benchmark("batches") {
+            int prepare(int count) {
+                ++calls[0];
+                calls[2] = Math.max(calls[2], count);
+                return count;
+            }
+            Object run() {
+                return Integer.valueOf(++calls[1]);
+            }
+        };
+        BenchmarkRunner.Result result = new BenchmarkRunner(1, 2, 20).run(benchmark);
+        // a cheap operation is run many times per preparation
+        Assert.assertTrue(calls[2] > 1);
+        Assert.assertTrue(calls[1] > calls[0]);
+        Assert.assertTrue(result.operations > 0);
+        Assert.assertTrue(result.operations <= calls[1]);
+    }
+
+    @Test
+    public void testPreparationLimitsBatches() throws Exception {
+        final int[] calls = new int[2];
+        BenchmarkRunner.Benchmark benchmark = new BenchmarkRunner.Benchmark("limited") {
+            private int left;
+            int prepare(int count) {
+                Assert.assertEquals(0, left);
+                ++calls[0];
+                left = Math.min(count, 3);
+                return left;
+            }
+            Object run() {
+                Assert.assertTrue(left > 0);
+                --left;
+                return Integer.valueOf(++calls[1]);
+            }
+        };
+        BenchmarkRunner.Result result = new BenchmarkRunner(1, 2, 20).run(benchmark);
+        // every operation is preceded by its preparation, never more than allowed
+        Assert.assertTrue(calls[1] <= 3 * calls[0]);
+        Assert.assertTrue(calls[1] > calls[0]);
+        Assert.assertTrue(result.operations <= calls[1]);
+    }
+
+    @Test
+    public void testSilent() throws Exception {
+        final PrintStream out = System.out;
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes));
+        try {
+            new BenchmarkRunner(1, 1, 5).run(new BenchmarkRunner.Benchmark("silent") {
+                Object run() {
+                    return this;
+                }
+            });
+        } finally {
+            System.setOut(out);
+        }
+        Assert.assertEquals(0, bytes.size());
+    }
+
+}
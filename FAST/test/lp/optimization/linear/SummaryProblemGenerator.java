@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+
+/**
+ * Random linear problems shaped like the relaxations solved by the summary selector.
+ * <p>
+ * The problems maximize the total score of the selected sentences within a
+ * length budget, with each sentence selected at most once and redundant
+ * sentences not selected together. The same seed always gives the same
+ * problems.
+ * </p>
+ * @see SolverBenchmark
+ */
+class SummaryProblemGenerator {
+
+    /** Shape of the redundancy constraints. */
+    enum Density {
+
+        /** Only pairs of redundant sentences, two coefficients per row. */
+        SPARSE,
+
+        /** Pairs plus concept rows, each covering about a third of the sentences. */
+        DENSE
+
+    }
+
+    /** Random generator. */
+    private final Random random;
+
+    /**
+     * @param seed seed of the random generator
+     */
+    SummaryProblemGenerator(final long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Generate a problem.
+     * @param sentences number of sentences, which is the number of variables
+     * @param density shape of the redundancy constraints
+     * @return problem with variables bounded by 0 and 1
+     */
+    LinearProblem generate(final int sentences, final Density density) {
+
+        final int n = sentences;
+        final double[] scores = new double[n];
+        final Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+
+        final LinearConstraintBuilder row = new LinearConstraintBuilder(n);
+        int total = 0;
+        for (int j = 0; j < n; ++j) {
+            // small integer scores and lengths, so many ratios tie as in real summaries
+            scores[j] = 1 + random.nextInt(5);
+            final int length = 5 + random.nextInt(20);
+            row.add(j, length);
+            total += length;
+        }
+        constraints.add(row.build(Relationship.LEQ, total / 4));
+
+        for (int k = 0; k < n / 2; ++k) {
+            final int a = random.nextInt(n);
+            final int b = random.nextInt(n);
+            if (a != b) {
+                constraints.add(row.clear().add(a, 1).add(b, 1).build(Relationship.LEQ, 1));
+            }
+        }
+
+        if (density == Density.DENSE) {
+            // a concept is kept by at most two of the sentences mentioning it
+            for (int c = 0; c < Math.max(1, n / 10); ++c) {
+                row.clear();
+                for (int j = 0; j < n; ++j) {
+                    if (random.nextInt(3) == 0) {
+                        row.add(j, 1);
+                    }
+                }
+                constraints.add(row.build(Relationship.LEQ, 2));
+            }
+        }
+
+        final double[] lower = new double[n];
+        final double[] upper = new double[n];
+        Arrays.fill(upper, 1);
+        return new LinearProblem(new LinearObjectiveFunction(scores, 0), constraints, GoalType.MAXIMIZE,
+                                 lower, upper);
+
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package lp.optimization.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import lp.optimization.GoalType;
+import lp.optimization.OptimizationException;
+import lp.optimization.RealPointValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VariableBoundsTest {
+
+    @Test
+    public void testKnownOptimumWithUpperBounds() throws OptimizationException {
+        // max 3x + 5y with 0 <= x <= 4, 0 <= y <= 6, 3x + 2y <= 18: optimum (2, 6)
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 3, 5 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 3, 2 }, Relationship.LEQ, 18));
+        SimplexSolver solver = new SimplexSolver();
+        RealPointValuePair solution = solver.optimize(f, constraints, GoalType.MAXIMIZE,
+                                                      new double[] { 0, 0 }, new double[] { 4, 6 });
+        Assert.assertEquals(36.0, solution.getValue(), 1.0e-10);
+        Assert.assertArrayEquals(new double[] { 2, 6 }, solution.getPoint(), 1.0e-10);
+    }
+
+    @Test
+    public void testBoundFlipsOnly() throws OptimizationException {
+        // no constraint at all: every variable goes to its best bound
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, -2, 3 }, 0);
+        RealPointValuePair solution =
+            new SimplexSolver().optimize(f, new ArrayList<LinearConstraint>(), GoalType.MAXIMIZE,
+                                         new double[] { -1, -2, Double.NEGATIVE_INFINITY },
+                                         new double[] { 5, 7, 4 });
+        Assert.assertArrayEquals(new double[] { 5, -2, 4 }, solution.getPoint(), 1.0e-10);
+        Assert.assertEquals(21.0, solution.getValue(), 1.0e-10);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testCrossedBounds() throws OptimizationException {
+        new SimplexSolver().optimize(new LinearObjectiveFunction(new double[] { 1 }, 0),
+                                     new ArrayList<LinearConstraint>(), GoalType.MAXIMIZE,
+                                     new double[] { 2 }, new double[] { 1 });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfBounds() throws OptimizationException {
+        new SimplexSolver().optimize(new LinearObjectiveFunction(new double[] { 1, 1 }, 0),
+                                     new ArrayList<LinearConstraint>(), GoalType.MAXIMIZE,
+                                     new double[] { 0 }, new double[] { 1 });
+    }
+
+    @Test
+    public void testNativeBoundsMatchBoundRows() throws OptimizationException {
+        Random random = new Random(47);
+        for (int k = 0; k < 1000; k++) {
+            int n = 1 + random.nextInt(3);
+            LinearProblems problem = LinearProblems.generate(random, n, random.nextInt(4));
+            double[] lower = new double[n];
+            double[] upper = new double[n];
+            for (int j = 0; j < n; j++) {
+                lower[j] = (random.nextInt(4) == 0) ? Double.NEGATIVE_INFINITY : random.nextInt(6) - 3;
+                upper[j] = (random.nextInt(4) == 0) ? Double.POSITIVE_INFINITY :
+                           (Double.isInfinite(lower[j]) ? random.nextInt(6) - 3 : lower[j] + random.nextInt(7));
+            }
+
+            // reference: the same problem with one row per finite bound and free variables
+            List<LinearConstraint> rows = new ArrayList<LinearConstraint>(problem.constraints);
+            for (int j = 0; j < n; j++) {
+                if (lower[j] > Double.NEGATIVE_INFINITY) {
+                    rows.add(new LinearConstraintBuilder(n).add(j, 1).build(Relationship.GEQ, lower[j]));
+                }
+                if (upper[j] < Double.POSITIVE_INFINITY) {
+                    rows.add(new LinearConstraintBuilder(n).add(j, 1).build(Relationship.LEQ, upper[j]));
+                }
+            }
+            Object expected = outcome(new SimplexSolver(), problem, rows, null, null);
+
+            Object actual = outcome(new SimplexSolver(), problem, problem.constraints, lower, upper);
+            if (expected instanceof Double) {
+                Assert.assertTrue(actual instanceof Double);
+                Assert.assertEquals(((Double) expected).doubleValue(), ((Double) actual).doubleValue(), 1.0e-6);
+            } else {
+                Assert.assertEquals(expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Solve a problem and summarize the outcome.
+     * @param solver solver to use
+     * @param problem problem giving the objective function and the goal
+     * @param constraints constraints to use
+     * @param lower lower bounds, null to solve with free variables
+     * @param upper upper bounds, null to solve with free variables
+     * @return optimal value, or class of the exception thrown
+     * @exception OptimizationException if the solver fails unexpectedly
+     */
+    private static Object outcome(SimplexSolver solver, LinearProblems problem, List<LinearConstraint> constraints,
+                                  double[] lower, double[] upper)
+        throws OptimizationException {
+        try {
+            RealPointValuePair solution = (lower == null) ?
+                solver.optimize(problem.f, constraints, problem.goalType, false) :
+                solver.optimize(problem.f, constraints, problem.goalType, lower, upper);
+            if (lower != null) {
+                for (int j = 0; j < lower.length; j++) {
+                    Assert.assertTrue(solution.getPoint()[j] >= lower[j] - 1.0e-9);
+                    Assert.assertTrue(solution.getPoint()[j] <= upper[j] + 1.0e-9);
+                }
+            }
+            return solution.getValue();
+        } catch (NoFeasibleSolutionException e) {
+            return e.getClass();
+        } catch (UnboundedSolutionException e) {
+            return e.getClass();
+        }
+    }
+
+}